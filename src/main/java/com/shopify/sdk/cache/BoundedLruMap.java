@@ -0,0 +1,215 @@
+package com.shopify.sdk.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent map that stays within a maximum number of entries by evicting the least recently used ones.
+ * <p>
+ * Lookups are lock-free and only stamp the entry with the time it was used. When an insert takes the map
+ * past its bound, one caller evicts the least recently used entries in a single pass until the map is back
+ * at 90% of its bound, so the map is scanned once per tenth of its capacity in new keys rather than on
+ * every insert, and a burst of new keys never throws away the entries that are still in use.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BoundedLruMap<K, V> {
+
+    /** Share of the bound an eviction pass leaves in the map. */
+    private static final double RETAINED_SHARE = 0.9;
+
+    private final int maxSize;
+    private final int retainedSize;
+    private final Predicate<V> evictable;
+    private final LongSupplier clock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a map that may evict any entry.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public BoundedLruMap(int maxSize) {
+        this(maxSize, value -> true);
+    }
+
+    /**
+     * Creates a map that only evicts entries whose value passes a check, e.g. values that hold no
+     * in-flight work. Entries that fail it are kept even if that leaves the map over its bound.
+     *
+     * @param maxSize the maximum number of entries
+     * @param evictable whether a value may be evicted
+     */
+    public BoundedLruMap(int maxSize, Predicate<V> evictable) {
+        this(maxSize, evictable, System::nanoTime);
+    }
+
+    BoundedLruMap(int maxSize, Predicate<V> evictable, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.retainedSize = (int) (maxSize * RETAINED_SHARE);
+        this.evictable = evictable;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the value of a key and marks it as used.
+     *
+     * @param key the key
+     * @return the value, or null if there is none
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastUsedNanos = clock.getAsLong();
+        return entry.value;
+    }
+
+    /**
+     * Gets the value of a key, creating it if there is none, and marks it as used.
+     *
+     * @param key the key
+     * @param factory creates the value of a missing key
+     * @return the current value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = entries.computeIfAbsent(key, k -> new Entry<>(factory.apply(k), clock.getAsLong())).value;
+        evictIfFull();
+        return value;
+    }
+
+    /**
+     * Stores the value of a key, replacing any previous one, and marks it as used.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        if (entries.put(key, new Entry<>(value, clock.getAsLong())) == null) {
+            evictIfFull();
+        }
+    }
+
+    /**
+     * Whether a key has a value. Does not mark it as used.
+     */
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @param key the key
+     * @return the removed value, or null if there was none
+     */
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Removes the value of a key only if it is still the given one, so a value that replaced it is kept.
+     *
+     * @param key the key
+     * @param value the expected value
+     * @return whether the value was removed
+     */
+    public boolean remove(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.value == value && entries.remove(key, entry);
+    }
+
+    /**
+     * Visits every entry without marking it as used.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.value));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the bound.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = entries.size() - retainedSize;
+            if (excess <= 0) {
+                return;
+            }
+            // The cut-off is the use time of the excess-th least recently used entry that may be evicted
+            long[] lastUsed = entries.values().stream()
+                .filter(entry -> evictable.test(entry.value))
+                .mapToLong(entry -> entry.lastUsedNanos)
+                .toArray();
+            if (lastUsed.length == 0) {
+                return;
+            }
+            Arrays.sort(lastUsed);
+            long cutoff = lastUsed[Math.min(excess, lastUsed.length) - 1];
+
+            int evicted = 0;
+            for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+                if (evicted >= excess) {
+                    break;
+                }
+                Entry<V> entry = candidate.getValue();
+                if (entry.lastUsedNanos - cutoff <= 0 && evictable.test(entry.value)
+                    && entries.remove(candidate.getKey(), entry)) {
+                    evicted++;
+                }
+            }
+            evictions.add(evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastUsedNanos;
+
+        private Entry(V value, long lastUsedNanos) {
+            this.value = value;
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.shopify.sdk.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration for the response cache.
+ */
+@Data
+@Builder(toBuilder = true)
+public class CacheConfig {
+    
+    /**
+     * Whether responses are cached at all.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+    
+    /**
+     * Maximum number of cached responses across all shops; the least recently used are evicted first.
+     */
+    @Builder.Default
+    private final int maxEntries = 10_000;
+    
+    /**
+     * Time to live per entity, overriding {@link CachedEntity#getDefaultTtl()}.
+     */
+    @Builder.Default
+    private final Map<CachedEntity, Duration> ttls = Map.of();
+    
+    /**
+     * How long an expired response may still be served while it is reloaded in the background.
+     */
+    @Builder.Default
+    private final Duration staleWhileRevalidate = Duration.ofMinutes(1);
+    
+    /**
+     * Share of the time to live after which a read reloads the response in the background ahead of expiry;
+     * 1.0 or more disables refresh-ahead.
+     */
+    @Builder.Default
+    private final double refreshAheadFactor = 0.8;
+    
+    /**
+     * Gets the time to live of an entity.
+     *
+     * @param entity the entity
+     * @return the configured or default time to live
+     */
+    public Duration getTtl(CachedEntity entity) {
+        return ttls.getOrDefault(entity, entity.getDefaultTtl());
+    }
+}
@@ -0,0 +1,54 @@
+package com.shopify.sdk.cache;
+
+/**
+ * Storage behind the response cache. Implementations must be thread-safe and may drop entries at any
+ * time, e.g. to stay within a size bound. Keys start with the shop they belong to followed by a newline,
+ * and so does every prefix passed to {@link #removeByPrefix} except the empty one.
+ */
+public interface CacheStore {
+    
+    /**
+     * Gets an entry.
+     *
+     * @param key the cache key
+     * @return the entry, or null if there is none
+     */
+    CacheEntry get(String key);
+    
+    /**
+     * Stores an entry, replacing any previous one.
+     *
+     * @param key the cache key
+     * @param entry the entry
+     */
+    void put(String key, CacheEntry entry);
+    
+    /**
+     * Removes every entry whose key starts with a prefix.
+     *
+     * @param prefix the key prefix
+     */
+    void removeByPrefix(String prefix);
+    
+    /**
+     * Removes all entries.
+     */
+    void clear();
+    
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return the entry count
+     */
+    int size();
+    
+    /**
+     * A cached value and the time it was loaded.
+     */
+    @lombok.Data
+    class CacheEntry {
+        private final Object value;
+        /** Load time, in nanoseconds of the cache's clock. */
+        private final long loadedAtNanos;
+    }
+}
@@ -0,0 +1,47 @@
+package com.shopify.sdk.cache;
+
+import java.time.Duration;
+
+/**
+ * Kinds of rarely changing shop data the response cache holds, with their default time to live and
+ * the webhook topics that invalidate them.
+ */
+public enum CachedEntity {
+    
+    LOCATIONS(Duration.ofMinutes(10), "locations/"),
+    SHOP(Duration.ofMinutes(10), "shop/update"),
+    PRICE_RULES(Duration.ofMinutes(5), "price_rules/", "discounts/"),
+    SCRIPT_TAGS(Duration.ofMinutes(10)),
+    APP_SUBSCRIPTIONS(Duration.ofMinutes(5), "app_subscriptions/");
+    
+    private final Duration defaultTtl;
+    private final String[] topics;
+    
+    CachedEntity(Duration defaultTtl, String... topics) {
+        this.defaultTtl = defaultTtl;
+        this.topics = topics;
+    }
+    
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+    
+    /**
+     * Checks if a webhook topic reports a change to this entity; topics ending in {@code /} match every
+     * event of their resource.
+     *
+     * @param topic the webhook topic, e.g. {@code "locations/update"}
+     * @return true if the topic invalidates this entity
+     */
+    public boolean isInvalidatedBy(String topic) {
+        if (topic == null) {
+            return false;
+        }
+        for (String candidate : topics) {
+            if (candidate.endsWith("/") ? topic.startsWith(candidate) : topic.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
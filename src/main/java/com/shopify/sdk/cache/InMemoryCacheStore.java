@@ -0,0 +1,125 @@
+package com.shopify.sdk.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache store that evicts the least recently used entry when full.
+ * <p>
+ * Keys are also indexed by the shop they start with, so removing a prefix only visits the keys of that
+ * shop instead of every entry in the store.
+ */
+public class InMemoryCacheStore implements CacheStore {
+    
+    private static final char SHOP_SEPARATOR = '\n';
+    
+    private final Map<String, CacheEntry> entries;
+    private final Map<String, Set<String>> keysByShop = new HashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public InMemoryCacheStore(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    @Override
+    public synchronized CacheEntry get(String key) {
+        return entries.get(key);
+    }
+    
+    @Override
+    public synchronized void put(String key, CacheEntry entry) {
+        if (!entries.containsKey(key)) {
+            keysByShop.computeIfAbsent(shopOf(key), shop -> new HashSet<>()).add(key);
+        }
+        entries.put(key, entry);
+    }
+    
+    @Override
+    public synchronized void removeByPrefix(String prefix) {
+        String shop = shopOf(prefix);
+        if (shop == null) {
+            removeByScan(prefix);
+            return;
+        }
+        Set<String> keys = keysByShop.get(shop);
+        if (keys == null) {
+            return;
+        }
+        Iterator<String> shopKeys = keys.iterator();
+        while (shopKeys.hasNext()) {
+            String key = shopKeys.next();
+            if (key.startsWith(prefix)) {
+                entries.remove(key);
+                shopKeys.remove();
+            }
+        }
+        if (keys.isEmpty()) {
+            keysByShop.remove(shop);
+        }
+    }
+    
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        keysByShop.clear();
+    }
+    
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Gets the number of entries evicted to stay within the size bound.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+    
+    /**
+     * Removes the keys of a prefix that does not name a shop, such as the empty one, by visiting every entry.
+     */
+    private void removeByScan(String prefix) {
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith(prefix)) {
+                keys.remove();
+                unindex(key);
+            }
+        }
+    }
+    
+    private void unindex(String key) {
+        String shop = shopOf(key);
+        Set<String> keys = keysByShop.get(shop);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByShop.remove(shop);
+        }
+    }
+    
+    /**
+     * The shop a key or prefix starts with, or null if it names none.
+     */
+    private static String shopOf(String key) {
+        int end = key.indexOf(SHOP_SEPARATOR);
+        return end >= 0 ? key.substring(0, end) : null;
+    }
+}
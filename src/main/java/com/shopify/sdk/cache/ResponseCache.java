@@ -0,0 +1,262 @@
+package com.shopify.sdk.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Shop-scoped read-through cache for rarely changing API responses.
+ * <p>
+ * A response younger than its entity's time to live is served from the cache; once it is older than
+ * {@code refreshAheadFactor} of the TTL, the read also reloads it in the background. An expired response
+ * is still served for {@code staleWhileRevalidate} while it is reloaded; after that the read waits for the
+ * API. Concurrent loads of the same key share one request. Invalidation drops the stored responses of a
+ * shop and entity and discards any load already in flight for them, so data from before a change is
+ * never stored after it. Shops are scoped by their handle, so {@code example}, {@code example.myshopify.com}
+ * and {@code https://Example.myshopify.com} share their cached responses and invalidations.
+ */
+@Slf4j
+public class ResponseCache {
+
+    private static final String MYSHOPIFY_DOMAIN = ".myshopify.com";
+
+    private final CacheConfig config;
+    private final CacheStore store;
+    private final LongSupplier clock;
+
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    private final Map<CachedEntity, EntityStats> stats = new EnumMap<>(CachedEntity.class);
+
+    public ResponseCache(CacheConfig config) {
+        this(config, new InMemoryCacheStore(config.getMaxEntries()));
+    }
+
+    public ResponseCache(CacheConfig config, CacheStore store) {
+        this(config, store, System::nanoTime);
+    }
+
+    ResponseCache(CacheConfig config, CacheStore store, LongSupplier clock) {
+        this.config = config;
+        this.store = store;
+        this.clock = clock;
+        for (CachedEntity entity : CachedEntity.values()) {
+            stats.put(entity, new EntityStats());
+        }
+    }
+
+    /**
+     * Gets a response from the cache, loading it if it is missing or expired. Empty results are not cached.
+     *
+     * @param shop the shop domain
+     * @param entity the kind of data
+     * @param key identifies the response within the shop and entity, e.g. its query parameters
+     * @param loader loads the response from the API
+     * @return Mono of the response
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String shop, CachedEntity entity, String key, Supplier<Mono<T>> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            String cacheKey = prefix(shop, entity) + key;
+            EntityStats entityStats = stats.get(entity);
+            CacheStore.CacheEntry entry = store.get(cacheKey);
+            if (entry == null) {
+                entityStats.misses.increment();
+                return (Mono<T>) load(cacheKey, entity, loader);
+            }
+
+            long age = clock.getAsLong() - entry.getLoadedAtNanos();
+            long ttl = config.getTtl(entity).toNanos();
+            if (age < ttl) {
+                entityStats.hits.increment();
+                if (age >= ttl * config.getRefreshAheadFactor()) {
+                    refresh(cacheKey, entity, loader);
+                }
+            } else if (age < ttl + config.getStaleWhileRevalidate().toNanos()) {
+                entityStats.staleHits.increment();
+                refresh(cacheKey, entity, loader);
+            } else {
+                entityStats.misses.increment();
+                return (Mono<T>) load(cacheKey, entity, loader);
+            }
+            return Mono.just((T) entry.getValue());
+        });
+    }
+
+    /**
+     * Drops the cached responses of one entity for a shop.
+     *
+     * @param shop the shop domain
+     * @param entity the kind of data that changed
+     */
+    public void invalidate(String shop, CachedEntity entity) {
+        String prefix = prefix(shop, entity);
+        discardLoads(prefix);
+        store.removeByPrefix(prefix);
+        stats.get(entity).invalidations.increment();
+        log.debug("Invalidated cached {} for shop {}", entity, shop);
+    }
+
+    /**
+     * Drops every cached response of a shop, e.g. after it uninstalls the app.
+     *
+     * @param shop the shop domain
+     */
+    public void invalidateShop(String shop) {
+        String prefix = normalizeShop(shop) + '\n';
+        discardLoads(prefix);
+        store.removeByPrefix(prefix);
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void clear() {
+        discardLoads("");
+        store.clear();
+    }
+
+    /**
+     * Gets hit and miss counts per entity since the cache was created.
+     *
+     * @return the statistics by entity
+     */
+    public Map<CachedEntity, CacheStats> getStats() {
+        Map<CachedEntity, CacheStats> result = new EnumMap<>(CachedEntity.class);
+        stats.forEach((entity, entityStats) -> result.put(entity, entityStats.snapshot()));
+        return result;
+    }
+
+    /**
+     * Gets the number of stored responses.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return store.size();
+    }
+
+    private void refresh(String cacheKey, CachedEntity entity, Supplier<? extends Mono<?>> loader) {
+        if (loads.containsKey(cacheKey)) {
+            return;
+        }
+        stats.get(entity).refreshes.increment();
+        load(cacheKey, entity, loader).subscribe(
+            value -> { },
+            error -> log.debug("Background refresh of {} failed: {}", entity, error.getMessage()));
+    }
+
+    /**
+     * Joins the load of a key in flight or starts one; the value is stored unless the key is invalidated
+     * before the load completes.
+     */
+    private Mono<?> load(String cacheKey, CachedEntity entity, Supplier<? extends Mono<?>> loader) {
+        Load load = new Load();
+        load.result = Mono.defer(loader)
+            .doOnNext(value -> {
+                if (!load.discarded) {
+                    store.put(cacheKey, new CacheStore.CacheEntry(value, clock.getAsLong()));
+                }
+            })
+            .doOnError(error -> stats.get(entity).loadFailures.increment())
+            .doFinally(signal -> loads.remove(cacheKey, load))
+            .share();
+
+        Load inFlight = loads.putIfAbsent(cacheKey, load);
+        return inFlight != null ? inFlight.result : load.result;
+    }
+
+    private void discardLoads(String prefix) {
+        loads.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().discarded = true;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static String prefix(String shop, CachedEntity entity) {
+        return normalizeShop(shop) + '\n' + entity.name() + '\n';
+    }
+
+    /**
+     * Reduces a shop domain to its lower-case handle, without protocol or {@code .myshopify.com}.
+     */
+    static String normalizeShop(String shop) {
+        String handle = shop.trim().toLowerCase(Locale.ROOT);
+        if (handle.startsWith("https://")) {
+            handle = handle.substring(8);
+        } else if (handle.startsWith("http://")) {
+            handle = handle.substring(7);
+        }
+        if (handle.endsWith("/")) {
+            handle = handle.substring(0, handle.length() - 1);
+        }
+        return handle.endsWith(MYSHOPIFY_DOMAIN)
+            ? handle.substring(0, handle.length() - MYSHOPIFY_DOMAIN.length())
+            : handle;
+    }
+
+    /**
+     * A load in flight, shared by the reads that miss while it runs.
+     */
+    private static final class Load {
+        private Mono<?> result;
+        private volatile boolean discarded;
+    }
+
+    private static final class EntityStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder refreshes = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        private CacheStats snapshot() {
+            long fresh = hits.sum();
+            long stale = staleHits.sum();
+            long missed = misses.sum();
+            long reads = fresh + stale + missed;
+            return CacheStats.builder()
+                .hits(fresh)
+                .staleHits(stale)
+                .misses(missed)
+                .refreshes(refreshes.sum())
+                .loadFailures(loadFailures.sum())
+                .invalidations(invalidations.sum())
+                .hitRatio(reads > 0 ? (double) (fresh + stale) / reads : 0)
+                .build();
+        }
+    }
+
+    /**
+     * Cache statistics of one entity.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class CacheStats {
+        /** Reads served from a fresh response. */
+        private long hits;
+        /** Reads served from an expired response while it was reloaded. */
+        private long staleHits;
+        /** Reads that waited for the API. */
+        private long misses;
+        /** Background reloads started by refresh-ahead or stale reads. */
+        private long refreshes;
+        private long loadFailures;
+        private long invalidations;
+        /** Share of reads served from the cache, fresh or stale. */
+        private double hitRatio;
+    }
+}
@@ -0,0 +1,163 @@
+package com.shopify.sdk.circuitbreaker;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit of one shop over a count-based window of its most recent calls.
+ * <p>
+ * Every permit carries the generation of the state it was granted in, and outcomes of calls from an
+ * earlier generation are dropped, so a call that started before the circuit opened cannot decide the
+ * probes of the half-open state. Transitions are published outside the lock.
+ */
+final class CircuitBreaker {
+
+    static final long REJECTED = -1;
+
+    private final String shop;
+    private final CircuitBreakerConfig config;
+    private final LongSupplier clock;
+    private final Consumer<CircuitStateTransition> onTransition;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int probes;
+
+    CircuitBreaker(String shop, CircuitBreakerConfig config, LongSupplier clock,
+                   Consumer<CircuitStateTransition> onTransition) {
+        this.shop = shop;
+        this.config = config;
+        this.clock = clock;
+        this.onTransition = onTransition;
+        this.failed = new boolean[config.getSlidingWindowSize()];
+        this.slow = new boolean[failed.length];
+    }
+
+    /**
+     * Lets a call through if the circuit allows it.
+     *
+     * @return the permit's generation, or {@link #REJECTED}
+     */
+    long tryAcquire() {
+        CircuitStateTransition transition = null;
+        long permit;
+        synchronized (this) {
+            if (state == CircuitState.OPEN && clock.getAsLong() - openedAtNanos >= config.getOpenDuration().toNanos()) {
+                transition = transitionTo(CircuitState.HALF_OPEN);
+            }
+            if (state == CircuitState.OPEN
+                || state == CircuitState.HALF_OPEN && probes >= config.getPermittedCallsInHalfOpen()) {
+                permit = REJECTED;
+            } else {
+                if (state == CircuitState.HALF_OPEN) {
+                    probes++;
+                }
+                permit = generation;
+            }
+        }
+        publish(transition);
+        return permit;
+    }
+
+    /**
+     * Records the outcome of a call.
+     */
+    void record(long permit, boolean failure, long durationNanos) {
+        CircuitStateTransition transition;
+        synchronized (this) {
+            transition = recordLocked(permit, failure, durationNanos);
+        }
+        publish(transition);
+    }
+
+    private CircuitStateTransition recordLocked(long permit, boolean failure, long durationNanos) {
+        if (permit != generation || state == CircuitState.OPEN) {
+            return null;
+        }
+        boolean isSlow = durationNanos >= config.getSlowCallDuration().toNanos();
+        if (calls == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = isSlow;
+        failures += failure ? 1 : 0;
+        slowCalls += isSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (state == CircuitState.HALF_OPEN) {
+            if (calls < config.getPermittedCallsInHalfOpen()) {
+                return null;
+            }
+            return transitionTo(overThreshold() ? CircuitState.OPEN : CircuitState.CLOSED);
+        }
+        if (calls >= config.getMinimumNumberOfCalls() && overThreshold()) {
+            return transitionTo(CircuitState.OPEN);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the permit of a call that was cancelled before it had an outcome.
+     */
+    synchronized void release(long permit) {
+        if (permit == generation && state == CircuitState.HALF_OPEN && probes > 0) {
+            probes--;
+        }
+    }
+
+    synchronized CircuitState getState() {
+        return state;
+    }
+
+    synchronized long remainingOpenNanos() {
+        return state == CircuitState.OPEN
+            ? Math.max(0, openedAtNanos + config.getOpenDuration().toNanos() - clock.getAsLong())
+            : 0;
+    }
+
+    private void publish(CircuitStateTransition transition) {
+        if (transition != null) {
+            onTransition.accept(transition);
+        }
+    }
+
+    private boolean overThreshold() {
+        return failureRate() >= config.getFailureRateThreshold() || slowCallRate() >= config.getSlowCallRateThreshold();
+    }
+
+    private double failureRate() {
+        return calls > 0 ? (double) failures / calls : 0;
+    }
+
+    private double slowCallRate() {
+        return calls > 0 ? (double) slowCalls / calls : 0;
+    }
+
+    private CircuitStateTransition transitionTo(CircuitState target) {
+        CircuitStateTransition transition = new CircuitStateTransition(shop, state, target, failureRate(),
+            slowCallRate());
+        state = target;
+        generation++;
+        probes = 0;
+        if (target == CircuitState.OPEN) {
+            openedAtNanos = clock.getAsLong();
+        }
+        // Each state judges the shop on its own calls
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        return transition;
+    }
+}
@@ -0,0 +1,69 @@
+package com.shopify.sdk.circuitbreaker;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the per-shop circuit breakers.
+ */
+@Data
+@Builder(toBuilder = true)
+public class CircuitBreakerConfig {
+    
+    /**
+     * Share of failed calls in the window at which a shop's circuit opens.
+     */
+    @Builder.Default
+    private final double failureRateThreshold = 0.5;
+    
+    /**
+     * Share of calls slower than {@code slowCallDuration} in the window at which a shop's circuit opens.
+     */
+    @Builder.Default
+    private final double slowCallRateThreshold = 0.8;
+    
+    /**
+     * Duration above which a call counts as slow, whether it succeeds or not.
+     */
+    @Builder.Default
+    private final Duration slowCallDuration = Duration.ofSeconds(10);
+    
+    /**
+     * Number of most recent calls per shop the failure and slow-call rates are computed over.
+     */
+    @Builder.Default
+    private final int slidingWindowSize = 20;
+    
+    /**
+     * Calls a shop must have made before its rates can open the circuit.
+     */
+    @Builder.Default
+    private final int minimumNumberOfCalls = 10;
+    
+    /**
+     * How long an open circuit fails calls fast before letting probes through.
+     */
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(30);
+    
+    /**
+     * Probe calls let through while half-open; the circuit closes if their rates stay below the
+     * thresholds and opens again otherwise.
+     */
+    @Builder.Default
+    private final int permittedCallsInHalfOpen = 3;
+    
+    /**
+     * Maximum number of shops whose circuits are held in memory.
+     */
+    @Builder.Default
+    private final int maxTrackedShops = 10_000;
+    
+    /**
+     * Whether calls pass through the circuit breakers.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+}
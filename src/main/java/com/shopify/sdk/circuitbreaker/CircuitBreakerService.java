@@ -0,0 +1,221 @@
+package com.shopify.sdk.circuitbreaker;
+
+import com.shopify.sdk.exception.ShopifyCircuitOpenException;
+import com.shopify.sdk.exception.ShopifyHttpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-shop circuit breakers around the calls sent to Shopify.
+ * <p>
+ * A shop that is uninstalled, frozen or degraded keeps failing or timing out, and every such call holds
+ * a pooled connection that healthy shops need. Once a shop's failure rate or slow-call rate over its
+ * recent calls reaches the configured threshold its circuit opens and calls fail fast with
+ * {@link ShopifyCircuitOpenException}. After the open duration a few probe calls are let through; the
+ * circuit closes if they succeed and opens again if they do not. Rate limiting (429) and GraphQL errors
+ * are answers from a working shop and count as successes.
+ */
+@Slf4j
+public class CircuitBreakerService {
+    
+    private final CircuitBreakerConfig config;
+    private final LongSupplier clock;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final List<Consumer<CircuitStateTransition>> listeners = new CopyOnWriteArrayList<>();
+    
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final Map<CircuitState, LongAdder> transitions = new ConcurrentHashMap<>();
+    
+    public CircuitBreakerService(CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+    
+    CircuitBreakerService(CircuitBreakerConfig config, LongSupplier clock) {
+        if (config.getMinimumNumberOfCalls() > config.getSlidingWindowSize()
+            || config.getPermittedCallsInHalfOpen() > config.getSlidingWindowSize()
+            || config.getPermittedCallsInHalfOpen() < 1) {
+            throw new IllegalArgumentException("Minimum calls and half-open probes must be between 1 and the "
+                + "window size " + config.getSlidingWindowSize());
+        }
+        this.config = config;
+        this.clock = clock;
+        for (CircuitState state : CircuitState.values()) {
+            transitions.put(state, new LongAdder());
+        }
+    }
+    
+    /**
+     * Sends a call through the shop's circuit: fails it fast while the circuit is open and records its
+     * outcome and duration otherwise.
+     *
+     * @param shop the shop domain
+     * @param call the call, subscribed once per attempt
+     * @return Mono of the call's result
+     */
+    public <T> Mono<T> execute(String shop, Mono<T> call) {
+        if (!config.isEnabled() || shop == null) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            CircuitBreaker breaker = breaker(shop);
+            long permit = breaker.tryAcquire();
+            if (permit == CircuitBreaker.REJECTED) {
+                rejectedCalls.increment();
+                return Mono.error(new ShopifyCircuitOpenException(shop,
+                    Duration.ofNanos(breaker.remainingOpenNanos())));
+            }
+            
+            long start = clock.getAsLong();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                .doOnSuccess(result -> {
+                    if (recorded.compareAndSet(false, true)) {
+                        breaker.record(permit, false, clock.getAsLong() - start);
+                    }
+                })
+                .doOnError(error -> {
+                    if (recorded.compareAndSet(false, true)) {
+                        breaker.record(permit, isFailure(error), clock.getAsLong() - start);
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (recorded.compareAndSet(false, true)) {
+                        breaker.release(permit);
+                    }
+                });
+        });
+    }
+    
+    /**
+     * Gets the state of a shop's circuit; shops without calls are closed.
+     *
+     * @param shop the shop domain
+     * @return the circuit state
+     */
+    public CircuitState getState(String shop) {
+        CircuitBreaker breaker = breakers.get(shop);
+        return breaker != null ? breaker.getState() : CircuitState.CLOSED;
+    }
+    
+    /**
+     * Registers a listener for circuit state changes. Listeners run on the thread that caused the change
+     * and must not block.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<CircuitStateTransition> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Gets circuit statistics since the service was created.
+     *
+     * @return the statistics
+     */
+    public CircuitBreakerStats getStats() {
+        int open = 0;
+        int halfOpen = 0;
+        for (CircuitBreaker breaker : breakers.values()) {
+            CircuitState state = breaker.getState();
+            open += state == CircuitState.OPEN ? 1 : 0;
+            halfOpen += state == CircuitState.HALF_OPEN ? 1 : 0;
+        }
+        return CircuitBreakerStats.builder()
+            .trackedShops(breakers.size())
+            .openCircuits(open)
+            .halfOpenCircuits(halfOpen)
+            .rejectedCalls(rejectedCalls.sum())
+            .opened(transitions.get(CircuitState.OPEN).sum())
+            .halfOpened(transitions.get(CircuitState.HALF_OPEN).sum())
+            .closed(transitions.get(CircuitState.CLOSED).sum())
+            .build();
+    }
+    
+    /**
+     * Checks whether an error says the shop cannot serve calls right now: server errors, timeouts,
+     * connection failures, or a shop that is uninstalled (401), frozen (402) or locked (423).
+     */
+    static boolean isFailure(Throwable error) {
+        if (error instanceof ShopifyHttpException httpEx) {
+            return isFailureStatus(httpEx.getStatusCode());
+        }
+        if (error instanceof WebClientResponseException webEx) {
+            return isFailureStatus(webEx.getStatusCode().value());
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException
+            || error instanceof IOException;
+    }
+    
+    private static boolean isFailureStatus(int status) {
+        return status >= 500 || status == 401 || status == 402 || status == 423;
+    }
+    
+    private CircuitBreaker breaker(String shop) {
+        CircuitBreaker breaker = breakers.get(shop);
+        if (breaker == null) {
+            if (breakers.size() >= config.getMaxTrackedShops()) {
+                // Closed circuits hold nothing worth keeping
+                breakers.values().removeIf(candidate -> candidate.getState() == CircuitState.CLOSED);
+                if (breakers.size() >= config.getMaxTrackedShops()) {
+                    breakers.clear();
+                }
+            }
+            breaker = breakers.computeIfAbsent(shop, s -> new CircuitBreaker(s, config, clock, this::onTransition));
+        }
+        return breaker;
+    }
+    
+    private void onTransition(CircuitStateTransition transition) {
+        transitions.get(transition.getTo()).increment();
+        if (transition.getTo() == CircuitState.OPEN) {
+            log.warn("Circuit for {} opened ({}% failed, {}% slow); failing calls fast for {}s",
+                transition.getShop(), Math.round(transition.getFailureRate() * 100),
+                Math.round(transition.getSlowCallRate() * 100), config.getOpenDuration().toSeconds());
+        } else {
+            log.info("Circuit for {} is {}", transition.getShop(), transition.getTo().name().toLowerCase());
+        }
+        for (Consumer<CircuitStateTransition> listener : listeners) {
+            try {
+                listener.accept(transition);
+            } catch (RuntimeException e) {
+                log.warn("Circuit state listener failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Circuit statistics.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class CircuitBreakerStats {
+        /** Shops with a circuit held in memory. */
+        private int trackedShops;
+        /** Shops whose circuit is open. */
+        private int openCircuits;
+        /** Shops whose circuit is probing. */
+        private int halfOpenCircuits;
+        /** Calls failed fast by an open circuit. */
+        private long rejectedCalls;
+        /** Transitions to open. */
+        private long opened;
+        /** Transitions to half-open. */
+        private long halfOpened;
+        /** Transitions to closed. */
+        private long closed;
+    }
+}
@@ -0,0 +1,13 @@
+package com.shopify.sdk.circuitbreaker;
+
+/**
+ * State of a shop's circuit.
+ */
+public enum CircuitState {
+    /** Calls pass and their outcomes are recorded. */
+    CLOSED,
+    /** Calls fail fast without being sent. */
+    OPEN,
+    /** A limited number of probe calls pass to decide whether the shop has recovered. */
+    HALF_OPEN
+}
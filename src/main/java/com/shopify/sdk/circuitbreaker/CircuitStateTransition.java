@@ -0,0 +1,24 @@
+package com.shopify.sdk.circuitbreaker;
+
+import lombok.Data;
+
+/**
+ * Event published when a shop's circuit changes state.
+ */
+@Data
+public class CircuitStateTransition {
+    
+    private final String shop;
+    private final CircuitState from;
+    private final CircuitState to;
+    
+    /**
+     * Share of failed calls in the window when the circuit changed state.
+     */
+    private final double failureRate;
+    
+    /**
+     * Share of slow calls in the window when the circuit changed state.
+     */
+    private final double slowCallRate;
+}
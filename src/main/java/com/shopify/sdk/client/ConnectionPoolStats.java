@@ -0,0 +1,91 @@
+package com.shopify.sdk.client;
+
+import com.shopify.sdk.monitoring.LatencyHistogram;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Live view of the SDK's Reactor Netty connection pool.
+ * <p>
+ * Reactor Netty keeps one pool per remote address, i.e. per shop host. Each pool registers its metrics
+ * here when it is created and removes them when it is disposed; the getters sum over all live pools, so
+ * reading them is cheap and needs no Micrometer. The time to obtain a connection (waiting for a free one,
+ * plus connecting when a new one has to be opened) is recorded by the HttpClient around each connect.
+ */
+public class ConnectionPoolStats implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(id, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id);
+    }
+
+    /**
+     * Records how long it took to obtain a connection.
+     */
+    void recordAcquireNanos(long nanos) {
+        acquireTimes.recordNanos(nanos);
+    }
+
+    /**
+     * Gets the number of connections currently in use by a request.
+     */
+    public int getActiveConnections() {
+        return sum(ConnectionPoolMetrics::acquiredSize);
+    }
+
+    /**
+     * Gets the number of open connections that are waiting in the pool for a request.
+     */
+    public int getIdleConnections() {
+        return sum(ConnectionPoolMetrics::idleSize);
+    }
+
+    /**
+     * Gets the number of open connections, active or idle.
+     */
+    public int getTotalConnections() {
+        return sum(ConnectionPoolMetrics::allocatedSize);
+    }
+
+    /**
+     * Gets the number of requests waiting for a connection.
+     */
+    public int getPendingAcquires() {
+        return sum(ConnectionPoolMetrics::pendingAcquireSize);
+    }
+
+    /**
+     * Gets the number of remote addresses with a live pool.
+     */
+    public int getPoolCount() {
+        return pools.size();
+    }
+
+    /**
+     * Gets the distribution of the time it took to obtain a connection.
+     */
+    public LatencyHistogram getAcquireTimes() {
+        return acquireTimes;
+    }
+
+    private int sum(ToIntFunction<ConnectionPoolMetrics> metric) {
+        int total = 0;
+        for (ConnectionPoolMetrics pool : pools.values()) {
+            total += metric.applyAsInt(pool);
+        }
+        return total;
+    }
+}
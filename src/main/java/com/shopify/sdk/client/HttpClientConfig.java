@@ -3,17 +3,28 @@ package com.shopify.sdk.client;
 import com.shopify.sdk.config.ShopifyAuthContext;
 import com.shopify.sdk.model.common.ShopifyConstants;
 import com.shopify.sdk.model.common.ShopifyHeader;
+import com.shopify.sdk.monitoring.MonitoringService;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.nio.NioChannelOption;
+import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import jdk.net.ExtendedSocketOptions;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
 
+import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Configuration for HTTP clients used by the Shopify SDK.
@@ -21,25 +32,44 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class HttpClientConfig {
     
-    private static final int MAX_CONNECTIONS = 100;
-    private static final int MAX_PENDING_ACQUIRE = 500;
-    private static final Duration PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(45);
-    private static final Duration MAX_IDLE_TIME = Duration.ofSeconds(30);
-    private static final Duration MAX_LIFE_TIME = Duration.ofMinutes(5);
+    private static final int MAX_CACHED_CLIENTS = 10_000;
     
     private WebClient defaultWebClient;
     private String defaultUserAgent;
+    private final HttpConnectionConfig connectionConfig;
     private final ConnectionProvider connectionProvider;
+    private final ConnectionPoolStats poolStats = new ConnectionPoolStats();
+    private final WebClientRegistry clientRegistry = new WebClientRegistry(MAX_CACHED_CLIENTS);
+    private volatile ReactorClientHttpConnector sharedConnector;
+    private final MonitoringService monitoringService;
     
-    public HttpClientConfig() {
-        this.connectionProvider = ConnectionProvider.builder("shopify-http-pool")
-            .maxConnections(MAX_CONNECTIONS)
-            .pendingAcquireMaxCount(MAX_PENDING_ACQUIRE)
-            .pendingAcquireTimeout(PENDING_ACQUIRE_TIMEOUT)
-            .maxIdleTime(MAX_IDLE_TIME)
-            .maxLifeTime(MAX_LIFE_TIME)
-            .evictInBackground(Duration.ofSeconds(60))
-            .build();
+    /**
+     * Creates a configuration whose WebClients open connections as configured and report every exchange
+     * to the given monitoring service.
+     *
+     * @param monitoringService the monitoring service, or null to disable request monitoring
+     * @param connectionConfig the protocol, pool and socket settings
+     */
+    public HttpClientConfig(MonitoringService monitoringService, HttpConnectionConfig connectionConfig) {
+        this.monitoringService = monitoringService;
+        this.connectionConfig = connectionConfig;
+        
+        // Reactor Netty keeps a pool per remote address; the limits below apply to each shop host
+        ConnectionProvider.Builder pool = ConnectionProvider.builder("shopify-http-pool")
+            .maxConnections(connectionConfig.getMaxConnectionsPerHost())
+            .pendingAcquireMaxCount(connectionConfig.getMaxPendingAcquire())
+            .pendingAcquireTimeout(connectionConfig.getPendingAcquireTimeout())
+            .maxIdleTime(connectionConfig.getMaxIdleTime())
+            .maxLifeTime(connectionConfig.getMaxLifeTime())
+            .evictInBackground(connectionConfig.getEvictionInterval())
+            .metrics(true, () -> poolStats);
+        connectionConfig.getHostMaxConnections().forEach((host, maxConnections) -> {
+            for (int port : new int[] {443, 80}) {
+                pool.forRemoteHost(InetSocketAddress.createUnresolved(host, port),
+                    spec -> spec.maxConnections(maxConnections));
+            }
+        });
+        this.connectionProvider = pool.build();
     }
     
     /**
@@ -60,20 +90,13 @@ public class HttpClientConfig {
      * @return configured WebClient
      */
     public WebClient createWebClient(ShopifyAuthContext context, String baseUrl) {
-        int connectTimeout = isTestEnvironment() ? 5000 : 10000; // 10 seconds connect timeout
-        int readTimeout = isTestEnvironment() ? 5000 : 30000; // 30 seconds read timeout
-        
-        HttpClient httpClient = HttpClient.create(connectionProvider)
-            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
-            .responseTimeout(Duration.ofMillis(readTimeout))
-            .doOnConnected(conn ->
-                conn.addHandlerLast(new ReadTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS))
-                    .addHandlerLast(new WriteTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS)))
-            .compress(true) // Enable compression
-            .followRedirect(true); // Follow redirects
-        
+        return createWebClient(context, baseUrl, WebClientRegistry.ApiSurface.GENERIC, null);
+    }
+    
+    private WebClient createWebClient(ShopifyAuthContext context, String baseUrl,
+                                      WebClientRegistry.ApiSurface surface, String shop) {
         WebClient.Builder builder = WebClient.builder()
-            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .clientConnector(getSharedConnector())
             .defaultHeader("User-Agent", buildUserAgent(context))
             .defaultHeader(ShopifyHeader.API_VERSION.getHeaderName(), context.getApiVersion().getVersion())
             .codecs(configurer -> configurer
@@ -84,7 +107,7 @@ public class HttpClientConfig {
             builder.baseUrl(baseUrl);
         }
         
-        return builder.build();
+        return withMonitoring(builder, surface, shop).build();
     }
     
     /**
@@ -96,7 +119,7 @@ public class HttpClientConfig {
      */
     public WebClient createAdminApiClient(ShopifyAuthContext context, String shop) {
         String baseUrl = buildAdminApiUrl(shop, context.getApiVersion().getVersion());
-        return createWebClient(context, baseUrl);
+        return createWebClient(context, baseUrl, WebClientRegistry.ApiSurface.ADMIN_GRAPHQL, shop);
     }
     
     /**
@@ -108,7 +131,99 @@ public class HttpClientConfig {
      */
     public WebClient createStorefrontApiClient(ShopifyAuthContext context, String shop) {
         String baseUrl = buildStorefrontApiUrl(shop, context.getApiVersion().getVersion());
-        return createWebClient(context, baseUrl);
+        return createWebClient(context, baseUrl, WebClientRegistry.ApiSurface.STOREFRONT_GRAPHQL, shop);
+    }
+    
+    /**
+     * Creates a WebClient for REST Admin API requests against the given base URL.
+     *
+     * @param baseUrl the REST Admin API base URL
+     * @return configured WebClient for REST Admin API
+     */
+    public WebClient createRestApiClient(String baseUrl) {
+        return createRestApiClient(null, baseUrl);
+    }
+    
+    /**
+     * Creates a WebClient for a shop's REST Admin API requests against the given base URL.
+     *
+     * @param shop the shop domain, used to attribute request metrics
+     * @param baseUrl the REST Admin API base URL
+     * @return configured WebClient for REST Admin API
+     */
+    public WebClient createRestApiClient(String shop, String baseUrl) {
+        return buildDefaultWebClient(baseUrl, WebClientRegistry.ApiSurface.ADMIN_REST, shop);
+    }
+    
+    /**
+     * Gets a cached WebClient for Admin API requests, building it on first use.
+     *
+     * @param context the Shopify configuration context
+     * @param shop the shop domain
+     * @return cached WebClient for Admin API
+     */
+    public WebClient getAdminApiClient(ShopifyAuthContext context, String shop) {
+        WebClientRegistry.ClientKey key = WebClientRegistry.key(shop, WebClientRegistry.ApiSurface.ADMIN_GRAPHQL,
+            context.getApiVersion().getVersion(), context.getUserAgentPrefix());
+        return clientRegistry.getOrCreate(key, () -> createAdminApiClient(context, shop));
+    }
+    
+    /**
+     * Gets a cached WebClient for Storefront API requests, building it on first use.
+     *
+     * @param context the Shopify configuration context
+     * @param shop the shop domain
+     * @return cached WebClient for Storefront API
+     */
+    public WebClient getStorefrontApiClient(ShopifyAuthContext context, String shop) {
+        WebClientRegistry.ClientKey key = WebClientRegistry.key(shop, WebClientRegistry.ApiSurface.STOREFRONT_GRAPHQL,
+            context.getApiVersion().getVersion(), context.getUserAgentPrefix());
+        return clientRegistry.getOrCreate(key, () -> createStorefrontApiClient(context, shop));
+    }
+    
+    /**
+     * Gets a cached WebClient for REST Admin API requests, building it on first use.
+     *
+     * @param shop the shop domain
+     * @param apiVersion the REST API version
+     * @param baseUrlFactory builds the base URL on a cache miss
+     * @return cached WebClient for REST Admin API
+     */
+    public WebClient getRestApiClient(String shop, String apiVersion, Supplier<String> baseUrlFactory) {
+        // REST clients send the default User-Agent without a prefix
+        WebClientRegistry.ClientKey key = WebClientRegistry.key(
+            shop, WebClientRegistry.ApiSurface.ADMIN_REST, apiVersion, null);
+        return clientRegistry.getOrCreate(key, () -> createRestApiClient(shop, baseUrlFactory.get()));
+    }
+    
+    /**
+     * Gets a cached WebClient without a base URL, building it on first use.
+     *
+     * @param context the Shopify configuration context
+     * @return cached WebClient
+     */
+    public WebClient getWebClient(ShopifyAuthContext context) {
+        WebClientRegistry.ClientKey key = WebClientRegistry.key(null, WebClientRegistry.ApiSurface.GENERIC,
+            context.getApiVersion().getVersion(), context.getUserAgentPrefix());
+        return clientRegistry.getOrCreate(key, () -> createWebClient(context));
+    }
+    
+    /**
+     * Gets the live statistics of the shared connection pool.
+     *
+     * @return the connection pool statistics
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return poolStats;
+    }
+    
+    /**
+     * Gets the registry of cached WebClients.
+     *
+     * @return the client registry
+     */
+    public WebClientRegistry getClientRegistry() {
+        return clientRegistry;
     }
     
     private String buildUserAgent(ShopifyAuthContext context) {
@@ -166,24 +281,95 @@ public class HttpClientConfig {
     }
     
     private WebClient createDefaultWebClient() {
-        int connectTimeout = isTestEnvironment() ? 5000 : 10000;
-        int readTimeout = isTestEnvironment() ? 5000 : 30000;
+        return buildDefaultWebClient(null, WebClientRegistry.ApiSurface.GENERIC, null);
+    }
+    
+    private WebClient buildDefaultWebClient(String baseUrl, WebClientRegistry.ApiSurface surface, String shop) {
+        WebClient.Builder builder = WebClient.builder()
+            .clientConnector(getSharedConnector())
+            .defaultHeader("User-Agent", getUserAgent())
+            .codecs(configurer -> configurer
+                .defaultCodecs()
+                .maxInMemorySize(5 * 1024 * 1024));
+        
+        if (baseUrl != null) {
+            builder.baseUrl(baseUrl);
+        }
+        
+        return withMonitoring(builder, surface, shop).build();
+    }
+    
+    /**
+     * Installs the monitoring filter, resolving the metrics it records into once per client.
+     */
+    private WebClient.Builder withMonitoring(WebClient.Builder builder, WebClientRegistry.ApiSurface surface, String shop) {
+        if (monitoringService != null) {
+            builder.filter(new MonitoringExchangeFilter(monitoringService, surface, shop));
+        }
+        return builder;
+    }
+    
+    /**
+     * Gets the connector shared by all WebClients, creating the underlying HttpClient once.
+     */
+    private ReactorClientHttpConnector getSharedConnector() {
+        ReactorClientHttpConnector connector = sharedConnector;
+        if (connector == null) {
+            synchronized (this) {
+                connector = sharedConnector;
+                if (connector == null) {
+                    connector = new ReactorClientHttpConnector(createHttpClient());
+                    sharedConnector = connector;
+                }
+            }
+        }
+        return connector;
+    }
+    
+    /**
+     * Creates the HttpClient behind every WebClient. Package-private for the connection benchmark.
+     */
+    HttpClient createHttpClient() {
+        int connectTimeout = isTestEnvironment() ? 5000 : 10000; // 10 seconds connect timeout
+        int readTimeout = isTestEnvironment() ? 5000 : 30000; // 30 seconds read timeout
         
         HttpClient httpClient = HttpClient.create(connectionProvider)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+            .option(ChannelOption.SO_KEEPALIVE, connectionConfig.isTcpKeepAlive())
             .responseTimeout(Duration.ofMillis(readTimeout))
             .doOnConnected(conn ->
                 conn.addHandlerLast(new ReadTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS))
                     .addHandlerLast(new WriteTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS)))
-            .compress(true)
-            .followRedirect(true);
+            .compress(true) // Enable compression
+            .followRedirect(true) // Follow redirects
+            .mapConnect(connect -> Mono.defer(() -> {
+                // Time spent waiting for a pooled connection or opening a new one
+                long start = System.nanoTime();
+                return connect.doOnSuccess(connection -> poolStats.recordAcquireNanos(System.nanoTime() - start));
+            }))
+            // Built once, so every connection shares the session cache; plain http URLs skip TLS
+            .secure(spec -> spec.sslContext(connectionConfig.isHttp2()
+                ? Http2SslContextSpec.forClient().configure(this::configureTlsSessions)
+                : Http11SslContextSpec.forClient().configure(this::configureTlsSessions)));
         
-        return WebClient.builder()
-            .clientConnector(new ReactorClientHttpConnector(httpClient))
-            .defaultHeader("User-Agent", getUserAgent())
-            .codecs(configurer -> configurer
-                .defaultCodecs()
-                .maxInMemorySize(5 * 1024 * 1024))
-            .build();
+        if (connectionConfig.isHttp2()) {
+            // ALPN picks HTTP/2 when the server supports it
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        if (connectionConfig.isTcpKeepAlive() && !LoopResources.hasNativeSupport()) {
+            // Probe timings can only be set through the JDK transport; native transports keep the OS defaults
+            httpClient = httpClient
+                .option(NioChannelOption.of(ExtendedSocketOptions.TCP_KEEPIDLE),
+                    (int) connectionConfig.getKeepAliveIdle().toSeconds())
+                .option(NioChannelOption.of(ExtendedSocketOptions.TCP_KEEPINTERVAL),
+                    (int) connectionConfig.getKeepAliveInterval().toSeconds())
+                .option(NioChannelOption.of(ExtendedSocketOptions.TCP_KEEPCOUNT), connectionConfig.getKeepAliveCount());
+        }
+        return httpClient;
+    }
+    
+    private void configureTlsSessions(SslContextBuilder builder) {
+        builder.sessionCacheSize(connectionConfig.getTlsSessionCacheSize())
+            .sessionTimeout(connectionConfig.getTlsSessionTimeout().toSeconds());
     }
 }
\ No newline at end of file
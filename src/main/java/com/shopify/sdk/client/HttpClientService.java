@@ -3,16 +3,17 @@ package com.shopify.sdk.client;
 import com.shopify.sdk.config.ShopifyAuthContext;
 import com.shopify.sdk.exception.ShopifyHttpException;
 import com.shopify.sdk.model.common.LogSeverity;
+import com.shopify.sdk.retry.RetryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
-import java.time.Duration;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +25,7 @@ import java.util.Map;
 public class HttpClientService {
     
     private final HttpClientConfig httpClientConfig;
+    private final RetryService retryService;
     
     /**
      * Executes an HTTP request and returns the response.
@@ -33,13 +35,10 @@ public class HttpClientService {
      * @return Mono of ShopifyHttpResponse
      */
     public Mono<ShopifyHttpResponse> execute(ShopifyAuthContext context, ShopifyHttpRequest request) {
-        WebClient webClient = httpClientConfig.createWebClient(context);
+        WebClient webClient = httpClientConfig.getWebClient(context);
         
-        return executeRequest(webClient, context, request)
-            .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
-                .filter(this::shouldRetry)
-                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> 
-                    new ShopifyHttpException(500, "Max retries exceeded", retrySignal.failure())))
+        return retryService.withRetry(shopOf(request), isIdempotent(request),
+                executeRequest(webClient, context, request))
             .doOnSuccess(response -> logResponse(context, request, response))
             .doOnError(error -> logError(context, request, error));
     }
@@ -94,13 +93,23 @@ public class HttpClientService {
             });
     }
     
-    private boolean shouldRetry(Throwable throwable) {
-        if (throwable instanceof ShopifyHttpException) {
-            ShopifyHttpException httpEx = (ShopifyHttpException) throwable;
-            // Retry on rate limiting and server errors
-            return httpEx.isRateLimited() || httpEx.isServerError();
+    /**
+     * Whether a request can safely be sent again after it may have reached the server. Writes such as the
+     * OAuth code exchange are not: an authorization code is only accepted once.
+     */
+    private static boolean isIdempotent(ShopifyHttpRequest request) {
+        return HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod());
+    }
+    
+    /**
+     * Gets the shop a request is sent to from its absolute URL, or null when the URL is relative.
+     */
+    private static String shopOf(ShopifyHttpRequest request) {
+        try {
+            return request.getUrl() != null ? URI.create(request.getUrl()).getHost() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return false;
     }
     
     private Map<String, String> convertHeaders(Map<String, String> headers) {
@@ -0,0 +1,105 @@
+package com.shopify.sdk.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration of the connections the SDK's HTTP clients open to Shopify.
+ */
+@Data
+@Builder(toBuilder = true)
+public class HttpConnectionConfig {
+
+    /**
+     * Whether to offer HTTP/2 during the TLS handshake (ALPN) and fall back to HTTP/1.1 when the server
+     * declines. Over HTTP/2 concurrent requests to a shop share a few multiplexed connections, and a new
+     * connection is only opened once the others carry as many streams as the server allows.
+     */
+    @Builder.Default
+    private final boolean http2 = false;
+
+    /**
+     * Connections each shop host may have open. Requests in flight are kept below this by
+     * {@code ConcurrencyLimitConfig.maxGlobalLimit}, so they queue in the SDK rather than for a connection.
+     */
+    @Builder.Default
+    private final int maxConnectionsPerHost = 100;
+
+    /**
+     * Connection limits of particular hosts, overriding {@code maxConnectionsPerHost}, e.g. for a shop with
+     * far more traffic than the others.
+     */
+    @Builder.Default
+    private final Map<String, Integer> hostMaxConnections = Map.of();
+
+    /**
+     * Requests per host that may wait for a connection before failing.
+     */
+    @Builder.Default
+    private final int maxPendingAcquire = 500;
+
+    /**
+     * How long a request waits for a connection before failing.
+     */
+    @Builder.Default
+    private final Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    /**
+     * How long a connection may stay unused in the pool before it is closed.
+     */
+    @Builder.Default
+    private final Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * How long a connection is used before it is closed, so traffic follows changes in DNS.
+     */
+    @Builder.Default
+    private final Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * Interval at which idle and expired connections are closed in the background.
+     */
+    @Builder.Default
+    private final Duration evictionInterval = Duration.ofSeconds(60);
+
+    /**
+     * Whether to send TCP keep-alive probes on idle connections, so connections dropped by a NAT or load
+     * balancer are noticed before a request is written to them.
+     */
+    @Builder.Default
+    private final boolean tcpKeepAlive = true;
+
+    /**
+     * Idle time before the first keep-alive probe. Only applied with the JDK transport; native transports
+     * keep the operating system's settings.
+     */
+    @Builder.Default
+    private final Duration keepAliveIdle = Duration.ofSeconds(60);
+
+    /**
+     * Time between keep-alive probes. Only applied with the JDK transport.
+     */
+    @Builder.Default
+    private final Duration keepAliveInterval = Duration.ofSeconds(15);
+
+    /**
+     * Unanswered keep-alive probes after which the connection is closed. Only applied with the JDK transport.
+     */
+    @Builder.Default
+    private final int keepAliveCount = 3;
+
+    /**
+     * TLS sessions kept for resumption, so new connections to a shop skip the full handshake.
+     */
+    @Builder.Default
+    private final int tlsSessionCacheSize = 1000;
+
+    /**
+     * How long a TLS session can be resumed.
+     */
+    @Builder.Default
+    private final Duration tlsSessionTimeout = Duration.ofHours(1);
+}
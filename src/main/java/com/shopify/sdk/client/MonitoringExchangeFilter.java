@@ -0,0 +1,174 @@
+package com.shopify.sdk.client;
+
+import com.shopify.sdk.monitoring.ApiMetrics;
+import com.shopify.sdk.monitoring.ExchangeTelemetry;
+import com.shopify.sdk.monitoring.LatencyHistogram;
+import com.shopify.sdk.monitoring.MonitoringService;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds every exchange of a WebClient into {@link MonitoringService}: latency, status class, retries,
+ * rate limit waits and bytes in and out, recorded globally, per API surface and per shop, plus a
+ * latency histogram per operation.
+ * <p>
+ * One filter is built per cached WebClient, so the global and surface metrics it records into are resolved
+ * once up front. The shop metrics and the operation histogram are looked up per request, which also keeps the
+ * shop from being evicted as least recently used; the array of metrics to record into is cached and only
+ * rebuilt after the shop's metrics were evicted and created again. The remaining per-request objects are
+ * the {@link ExchangeTelemetry} the SDK clients attach and the decorators around the response body (and the
+ * request body of writes) that count bytes and time.
+ * <p>
+ * Retries and rate limit waits are taken from the telemetry. A 429 response counts as rate limited rather
+ * than failed, so throttling and failure rates do not double count the same request.
+ */
+public class MonitoringExchangeFilter implements ExchangeFilterFunction {
+
+    private final MonitoringService monitoringService;
+    private final ApiMetrics[] surfaceTargets;
+    private final String shop;
+    // The surface targets plus the shop's metrics, the last element, as of the latest request
+    private volatile ApiMetrics[] shopTargets;
+
+    public MonitoringExchangeFilter(MonitoringService monitoringService, WebClientRegistry.ApiSurface surface, String shop) {
+        this.monitoringService = monitoringService;
+
+        List<ApiMetrics> resolved = new ArrayList<>(3);
+        resolved.add(monitoringService.getGlobalMetrics());
+        switch (surface) {
+            case ADMIN_GRAPHQL, STOREFRONT_GRAPHQL -> resolved.add(monitoringService.getGraphQLMetrics());
+            case ADMIN_REST -> resolved.add(monitoringService.getRestMetrics());
+            case GENERIC -> { }
+        }
+        this.surfaceTargets = resolved.toArray(new ApiMetrics[0]);
+        this.shop = shop;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!monitoringService.isMonitoringEnabled()) {
+            return next.exchange(request);
+        }
+
+        ApiMetrics[] targets = targets();
+        ExchangeTelemetry telemetry = ExchangeTelemetry.from(request);
+        boolean retry = telemetry != null && telemetry.nextAttempt() > 1;
+        long throttleWaitNanos = telemetry != null ? telemetry.takeThrottleWaitNanos() : 0;
+        LatencyHistogram operationLatency = telemetry != null
+            ? monitoringService.getOperationLatency(telemetry.getOperationName()) : null;
+
+        for (ApiMetrics metrics : targets) {
+            metrics.recordRequest();
+            if (retry) {
+                metrics.recordRetry();
+            }
+            if (throttleWaitNanos > 0) {
+                metrics.recordRateLimitNanos(throttleWaitNanos);
+            }
+        }
+
+        long start = System.nanoTime();
+        return next.exchange(hasBody(request.method()) ? countBytesSent(request, targets) : request)
+            .map(response -> observe(response, targets, start, operationLatency))
+            .doOnError(error -> {
+                long elapsed = System.nanoTime() - start;
+                for (ApiMetrics metrics : targets) {
+                    metrics.recordFailureNanos(elapsed, error);
+                }
+                if (operationLatency != null) {
+                    operationLatency.recordNanos(elapsed);
+                }
+            });
+    }
+
+    /**
+     * Records the status on arrival and the latency and received bytes once the body has been consumed.
+     */
+    private ClientResponse observe(ClientResponse response, ApiMetrics[] targets, long start,
+                                   LatencyHistogram operationLatency) {
+        int status = response.statusCode().value();
+        for (ApiMetrics metrics : targets) {
+            metrics.recordStatus(status);
+        }
+
+        return response.mutate()
+            .body(body -> body
+                .doOnNext(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    for (ApiMetrics metrics : targets) {
+                        metrics.recordBytesReceived(bytes);
+                    }
+                })
+                .doFinally(signal -> {
+                    long elapsed = System.nanoTime() - start;
+                    for (ApiMetrics metrics : targets) {
+                        if (status < 400) {
+                            metrics.recordSuccessNanos(elapsed);
+                        } else if (status == 429) {
+                            metrics.recordThrottledResponseNanos(elapsed);
+                        } else {
+                            metrics.recordFailureStatus(elapsed, status);
+                        }
+                    }
+                    if (operationLatency != null) {
+                        operationLatency.recordNanos(elapsed);
+                    }
+                }))
+            .build();
+    }
+
+    /**
+     * The metrics to record a request into: the global and surface metrics plus those of the shop, if any.
+     */
+    private ApiMetrics[] targets() {
+        if (shop == null) {
+            return surfaceTargets;
+        }
+        ApiMetrics shopMetrics = monitoringService.getShopMetrics(shop);
+        ApiMetrics[] cached = shopTargets;
+        if (cached != null && cached[cached.length - 1] == shopMetrics) {
+            return cached;
+        }
+        ApiMetrics[] withShop = Arrays.copyOf(surfaceTargets, surfaceTargets.length + 1);
+        withShop[surfaceTargets.length] = shopMetrics;
+        shopTargets = withShop;
+        return withShop;
+    }
+
+    private ClientRequest countBytesSent(ClientRequest request, ApiMetrics[] targets) {
+        return ClientRequest.from(request)
+            .body((outputMessage, context) -> request.body().insert(new ClientHttpRequestDecorator(outputMessage) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    // Keep single-buffer bodies as a Mono so the connector can still send them in one write
+                    return body instanceof Mono
+                        ? super.writeWith(Mono.from(body).doOnNext(buffer -> recordSent(targets, buffer)))
+                        : super.writeWith(Flux.from(body).doOnNext(buffer -> recordSent(targets, buffer)));
+                }
+            }, context))
+            .build();
+    }
+
+    private static void recordSent(ApiMetrics[] targets, DataBuffer buffer) {
+        int bytes = buffer.readableByteCount();
+        for (ApiMetrics metrics : targets) {
+            metrics.recordBytesSent(bytes);
+        }
+    }
+
+    private static boolean hasBody(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
+    }
+}
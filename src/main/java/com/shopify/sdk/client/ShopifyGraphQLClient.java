@@ -1,14 +1,18 @@
 package com.shopify.sdk.client;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.shopify.sdk.client.graphql.GraphQLClient;
 import com.shopify.sdk.client.graphql.GraphQLRequest;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
+import com.shopify.sdk.client.graphql.GraphQLResult;
 import com.shopify.sdk.config.ShopifyAuthContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.OptionalInt;
 
 /**
  * Main GraphQL client for Shopify APIs.
@@ -58,6 +62,50 @@ public class ShopifyGraphQLClient {
         return graphQLClient.executeAdminQuery(context, shop, accessToken, request);
     }
     
+    /**
+     * Executes a GraphQL request against the Admin API and binds the node at a path below {@code data},
+     * e.g. {@code "productCreate.product"}. Sibling fields are skipped while the response streams in,
+     * and mutation {@code userErrors} found along the path are returned in the result.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param request the GraphQL request
+     * @param path the dotted field path below {@code data}
+     * @param type the type to bind the node to
+     * @return Mono of the bound result
+     */
+    public <T> Mono<GraphQLResult<T>> execute(String shop, String accessToken, GraphQLRequest request,
+                                              String path, TypeReference<T> type) {
+        return graphQLClient.executeAdminQuery(context, shop, accessToken, request, path,
+            TypeFactory.defaultInstance().constructType(type));
+    }
+    
+    /**
+     * Executes a GraphQL request against the Admin API and binds the node at a path below {@code data}.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param request the GraphQL request
+     * @param path the dotted field path below {@code data}
+     * @param type the class to bind the node to
+     * @return Mono of the bound result
+     */
+    public <T> Mono<GraphQLResult<T>> execute(String shop, String accessToken, GraphQLRequest request,
+                                              String path, Class<T> type) {
+        return graphQLClient.executeAdminQuery(context, shop, accessToken, request, path,
+            TypeFactory.defaultInstance().constructType(type));
+    }
+    
+    /**
+     * Estimates the requested cost Shopify will charge for an Admin API request.
+     *
+     * @param request the GraphQL request
+     * @return the estimated cost, or empty if the query cannot be parsed
+     */
+    public OptionalInt estimateCost(GraphQLRequest request) {
+        return graphQLClient.estimateCost(request);
+    }
+    
     /**
      * Executes a GraphQL query against the Storefront API.
      *
@@ -0,0 +1,189 @@
+package com.shopify.sdk.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded registry of prebuilt WebClient instances keyed by shop, API surface, API version and
+ * User-Agent prefix, i.e. everything that shapes a client's base URL and default headers.
+ * Lookups are lock-free; when the registry grows past its capacity the least recently used
+ * clients are evicted in a single sweep.
+ */
+@Slf4j
+public class WebClientRegistry {
+
+    /**
+     * Fraction of the capacity to keep after an eviction sweep, so sweeps are amortized over many inserts.
+     */
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+
+    private final int maxSize;
+    private final Map<ClientKey, Entry> clients = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public WebClientRegistry(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached client for the given key, building it with the factory on a miss.
+     *
+     * @param key the client key
+     * @param factory the factory used to build the client on a miss
+     * @return the cached or newly built WebClient
+     */
+    public WebClient getOrCreate(ClientKey key, Supplier<WebClient> factory) {
+        Entry entry = clients.get(key);
+        if (entry != null) {
+            hits.increment();
+            entry.lastAccessNanos = System.nanoTime();
+            return entry.client;
+        }
+
+        misses.increment();
+        entry = clients.computeIfAbsent(key, k -> new Entry(factory.get()));
+        entry.lastAccessNanos = System.nanoTime();
+
+        if (clients.size() > maxSize) {
+            evictLeastRecentlyUsed();
+        }
+        return entry.client;
+    }
+
+    /**
+     * Removes every cached client for the given shop.
+     *
+     * @param shop the shop domain
+     */
+    public void invalidateShop(String shop) {
+        clients.keySet().removeIf(key -> Objects.equals(key.getShop(), shop));
+    }
+
+    /**
+     * Removes all cached clients.
+     */
+    public void clear() {
+        clients.clear();
+    }
+
+    /**
+     * Gets the number of cached clients.
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Gets the registry statistics.
+     */
+    public RegistryStats getStats() {
+        return RegistryStats.builder()
+            .size(clients.size())
+            .maxSize(maxSize)
+            .hits(hits.sum())
+            .misses(misses.sum())
+            .evictions(evictions.sum())
+            .build();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // Only one thread sweeps at a time; concurrent inserts may briefly overshoot the bound
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = (int) (maxSize * EVICTION_TARGET_RATIO);
+            int toEvict = clients.size() - target;
+            if (toEvict <= 0) {
+                return;
+            }
+
+            List<Map.Entry<ClientKey, Entry>> candidates = new ArrayList<>(clients.entrySet());
+            candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccessNanos));
+
+            for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+                Map.Entry<ClientKey, Entry> candidate = candidates.get(i);
+                if (clients.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            }
+            log.debug("Evicted {} WebClients from registry, {} remaining", toEvict, clients.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Creates a key for the given shop, API surface, API version and User-Agent prefix.
+     */
+    public static ClientKey key(String shop, ApiSurface surface, String apiVersion, String userAgentPrefix) {
+        return new ClientKey(shop, surface, apiVersion, userAgentPrefix);
+    }
+
+    /**
+     * The API surface a client talks to.
+     */
+    public enum ApiSurface {
+        ADMIN_GRAPHQL,
+        STOREFRONT_GRAPHQL,
+        ADMIN_REST,
+        GENERIC
+    }
+
+    /**
+     * Identifies a cached client. Two contexts that differ in any field get different clients, so a client
+     * never sends another context's API version or User-Agent.
+     */
+    @lombok.Value
+    public static class ClientKey {
+        String shop;
+        ApiSurface surface;
+        String apiVersion;
+        String userAgentPrefix;
+    }
+
+    private static final class Entry {
+        private final WebClient client;
+        private volatile long lastAccessNanos;
+
+        private Entry(WebClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * Registry statistics.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class RegistryStats {
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total * 100 : 0.0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.shopify.sdk.client.graphql;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Configuration for batching single-node lookups into {@code nodes(ids:)} queries.
+ */
+@Data
+@Builder(toBuilder = true)
+public class BatchLoaderConfig {
+
+    /**
+     * Largest number of IDs Shopify accepts in one {@code nodes(ids:)} query.
+     */
+    public static final int MAX_NODES_PER_QUERY = 250;
+
+    /**
+     * How long the first lookup of a batch waits for others to join it.
+     */
+    @Builder.Default
+    private final Duration window = Duration.ofMillis(10);
+
+    /**
+     * Number of distinct IDs that sends a batch before its window ends, at most {@value #MAX_NODES_PER_QUERY}.
+     */
+    @Builder.Default
+    private final int maxBatchSize = 100;
+
+    /**
+     * Whether to batch lookups; when disabled every lookup is sent on its own.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+}
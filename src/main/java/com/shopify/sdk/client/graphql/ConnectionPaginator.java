@@ -0,0 +1,187 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.model.common.Connection;
+import com.shopify.sdk.model.common.Edge;
+import com.shopify.sdk.model.common.PageInfo;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Walks a GraphQL connection page by page and emits its nodes as a {@link Flux}.
+ * <p>
+ * Pages are fetched on demand, one at a time: as soon as page N arrives the request for page N+1 is
+ * sent, and it is emitted only after every node of page N has been requested downstream. So the next
+ * page is always in flight while the current one is being consumed, but a slow consumer never has more
+ * than one page fetched ahead. Each page request goes through the client's cost admission, so prefetching
+ * waits for the shop's budget like any other query; cancelling the Flux cancels the prefetch.
+ */
+public final class ConnectionPaginator {
+
+    /**
+     * Largest page Shopify serves for a connection.
+     */
+    public static final int MAX_PAGE_SIZE = 250;
+
+    /**
+     * Fetches one page of a connection.
+     *
+     * @param <C> the connection type
+     */
+    @FunctionalInterface
+    public interface PageFetcher<C> {
+
+        /**
+         * @param first the number of nodes to fetch
+         * @param after the cursor to continue from, or null for the first page
+         * @return Mono of the page
+         */
+        Mono<C> fetch(int first, String after);
+    }
+
+    private ConnectionPaginator() {
+    }
+
+    /**
+     * Emits every node of a connection.
+     *
+     * @param fetcher fetches one page
+     * @param pageSize the number of nodes per page, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return Flux of nodes
+     */
+    public static <T, C extends Connection<T>> Flux<T> paginate(PageFetcher<C> fetcher, int pageSize) {
+        return paginate(fetcher, pageSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * Emits the nodes of a connection, up to a maximum count.
+     *
+     * @param fetcher fetches one page
+     * @param pageSize the number of nodes per page, between 1 and {@value #MAX_PAGE_SIZE}
+     * @param maxItems the maximum number of nodes to emit; the last page is shrunk to fit
+     * @return Flux of nodes
+     */
+    public static <T, C extends Connection<T>> Flux<T> paginate(PageFetcher<C> fetcher, int pageSize, long maxItems) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        return paginate(fetcher, () -> pageSize, maxItems);
+    }
+
+    /**
+     * Emits the nodes of a connection, up to a maximum count, asking for the size of every page just
+     * before it is fetched, e.g. from a {@link PageSizeController}.
+     *
+     * @param fetcher fetches one page
+     * @param pageSize supplies the number of nodes of the next page, clamped to 1..{@value #MAX_PAGE_SIZE}
+     * @param maxItems the maximum number of nodes to emit; the last page is shrunk to fit
+     * @return Flux of nodes
+     */
+    public static <T, C extends Connection<T>> Flux<T> paginate(PageFetcher<C> fetcher, IntSupplier pageSize,
+                                                                long maxItems) {
+        if (maxItems < 1) {
+            return Flux.empty();
+        }
+
+        return Flux.defer(() -> {
+            Walk<C> walk = new Walk<>(fetcher, pageSize, maxItems);
+            Flux<T> nodes = walk.page(null)
+                .expand(page -> walk.prefetchNext(page))
+                // Prefetch 0: page N+1 is only taken once page N has been fully requested
+                .concatMap(page -> Flux.fromIterable(ConnectionPaginator.<T>nodesOf(page)), 0)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        walk.cancel();
+                    }
+                });
+            return maxItems < Long.MAX_VALUE ? nodes.take(maxItems) : nodes;
+        });
+    }
+
+    /**
+     * Gets the nodes of a page, from the {@code nodes} list or else from the edges.
+     */
+    static <T> List<T> nodesOf(Connection<T> page) {
+        List<T> nodes = page.getNodes();
+        if (nodes != null && !nodes.isEmpty()) {
+            return nodes;
+        }
+        List<Edge<T>> edges = page.getEdges();
+        if (edges == null) {
+            return List.of();
+        }
+        List<T> fromEdges = new ArrayList<>(edges.size());
+        for (Edge<T> edge : edges) {
+            if (edge != null && edge.getNode() != null) {
+                fromEdges.add(edge.getNode());
+            }
+        }
+        return fromEdges;
+    }
+
+    /**
+     * State of one subscription to the Flux.
+     */
+    private static final class Walk<C extends Connection<?>> {
+        private final PageFetcher<C> fetcher;
+        private final IntSupplier pageSize;
+        private final long maxItems;
+        private final AtomicLong requestedItems = new AtomicLong();
+        private volatile Disposable prefetch;
+        private volatile boolean cancelled;
+
+        private Walk(PageFetcher<C> fetcher, IntSupplier pageSize, long maxItems) {
+            this.fetcher = fetcher;
+            this.pageSize = pageSize;
+            this.maxItems = maxItems;
+        }
+
+        /**
+         * Fetches the page after a cursor, sized to what is left of the maximum.
+         */
+        private Mono<C> page(String after) {
+            long remaining = maxItems - requestedItems.get();
+            if (remaining <= 0) {
+                return Mono.empty();
+            }
+            int size = Math.max(1, Math.min(pageSize.getAsInt(), MAX_PAGE_SIZE));
+            int first = (int) Math.min(size, remaining);
+            requestedItems.addAndGet(first);
+            return fetcher.fetch(first, after);
+        }
+
+        /**
+         * Starts fetching the page after the given one right away and returns it for later emission.
+         */
+        private Mono<C> prefetchNext(C page) {
+            PageInfo pageInfo = page.getPageInfo();
+            if (cancelled || pageInfo == null || !Boolean.TRUE.equals(pageInfo.getHasNextPage())
+                || pageInfo.getEndCursor() == null) {
+                return Mono.empty();
+            }
+
+            Sinks.One<C> next = Sinks.one();
+            prefetch = page(pageInfo.getEndCursor())
+                .subscribe(next::tryEmitValue, next::tryEmitError, next::tryEmitEmpty);
+            if (cancelled) {
+                prefetch.dispose();
+            }
+            return next.asMono();
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Disposable current = prefetch;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import com.shopify.sdk.ratelimit.QueryCost;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs connection queries that would request more than Shopify's maximum query cost as several
+ * smaller pages, and stitches the pages back into one response.
+ * <p>
+ * The query must page the connection with the variables {@code first} and {@code after}. Before sending,
+ * the page size is lowered to the largest {@code first} whose estimated cost fits the maximum; if Shopify
+ * still rejects a page for its cost, that page is retried at half its size. Pages are fetched one after
+ * another until the requested number of items is reached or the connection ends. The stitched response
+ * carries the first page's data with the edges and nodes of every page, and page info whose end cursor and
+ * {@code hasNextPage} come from the last page, so callers bind it exactly like an unsplit response; its
+ * cost extension adds up the cost of all pages.
+ */
+@Slf4j
+public class ConnectionSplitter {
+
+    private final ShopifyGraphQLClient graphQLClient;
+    private final int maxQueryCost;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong splitQueries = new AtomicLong();
+    private final AtomicLong rejectedPages = new AtomicLong();
+    private final AtomicLong splitPages = new AtomicLong();
+    private final AtomicLong maxPagesPerSplit = new AtomicLong();
+
+    public ConnectionSplitter(ShopifyGraphQLClient graphQLClient) {
+        this(graphQLClient, QueryCostEstimator.MAX_QUERY_COST);
+    }
+
+    public ConnectionSplitter(ShopifyGraphQLClient graphQLClient, int maxQueryCost) {
+        this.graphQLClient = graphQLClient;
+        this.maxQueryCost = maxQueryCost;
+    }
+
+    /**
+     * Runs a connection query, split into pages if it would cost more than the maximum.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param query the GraphQL query, paging the connection with {@code $first} and {@code $after}
+     * @param variables the query variables, including {@code first}
+     * @param connectionPath the dotted path of the connection below {@code data}, e.g. {@code "products"}
+     * @return Mono of the response, stitched from several pages if the query was split
+     */
+    public Mono<GraphQLResponse> query(String shop, String accessToken, String query, Map<String, Object> variables,
+                                       String connectionPath) {
+        return Mono.defer(() -> {
+            queries.incrementAndGet();
+            if (variables == null || !(variables.get("first") instanceof Number requested)
+                    || requested.intValue() <= 1) {
+                return graphQLClient.query(shop, accessToken, query, variables);
+            }
+            int first = requested.intValue();
+            int pageSize = pageSize(query, variables, first);
+            if (pageSize == 0) {
+                return Mono.error(maxCostExceeded("A single item of " + connectionPath
+                    + " is estimated to cost more than " + maxQueryCost));
+            }
+            if (pageSize >= first) {
+                return graphQLClient.query(shop, accessToken, query, variables)
+                    .onErrorResume(ConnectionSplitter::isMaxCostExceeded, error -> {
+                        rejectedPages.incrementAndGet();
+                        return split(shop, accessToken, query, variables, connectionPath, first, first / 2);
+                    });
+            }
+            return split(shop, accessToken, query, variables, connectionPath, first, pageSize);
+        });
+    }
+
+    /**
+     * Gets splitting statistics since the splitter was created.
+     *
+     * @return the statistics
+     */
+    public SplitStats getStats() {
+        long split = splitQueries.get();
+        return SplitStats.builder()
+            .queries(queries.get())
+            .splitQueries(split)
+            .rejectedPages(rejectedPages.get())
+            .pages(splitPages.get())
+            .meanPagesPerSplit(split > 0 ? (double) splitPages.get() / split : 0)
+            .maxPagesPerSplit(maxPagesPerSplit.get())
+            .build();
+    }
+
+    /**
+     * Finds the largest page size up to {@code first} whose estimated cost fits the maximum; returns
+     * {@code first} if the query cannot be estimated and 0 if not even one item fits.
+     */
+    private int pageSize(String query, Map<String, Object> variables, int first) {
+        OptionalInt cost = estimate(query, variables, first);
+        if (cost.isEmpty() || cost.getAsInt() <= maxQueryCost) {
+            return first;
+        }
+        int low = 0;
+        int high = first - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (estimate(query, variables, mid).orElse(Integer.MAX_VALUE) <= maxQueryCost) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private OptionalInt estimate(String query, Map<String, Object> variables, int first) {
+        return graphQLClient.estimateCost(GraphQLRequest.of(query, pageVariables(variables, first,
+            (String) variables.get("after"))));
+    }
+
+    private Mono<GraphQLResponse> split(String shop, String accessToken, String query, Map<String, Object> variables,
+                                        String connectionPath, int first, int pageSize) {
+        Page start = new Page(null, 0, first, pageSize, (String) variables.get("after"));
+        return fetch(shop, accessToken, query, variables, connectionPath, start)
+            .expand(page -> page.remaining > 0 && page.hasNextPage(connectionPath)
+                ? fetch(shop, accessToken, query, variables, connectionPath,
+                    new Page(null, 0, page.remaining, page.pageSize, page.endCursor(connectionPath)))
+                : Mono.empty())
+            .collectList()
+            .map(pages -> {
+                recordSplit(pages.size());
+                log.debug("Split {} query for {} items into {} pages of up to {} items", connectionPath, first,
+                    pages.size(), pageSize);
+                return stitch(pages, connectionPath);
+            });
+    }
+
+    /**
+     * Fetches the next page, halving its size for as long as Shopify rejects it for its cost.
+     */
+    private Mono<Page> fetch(String shop, String accessToken, String query, Map<String, Object> variables,
+                             String connectionPath, Page next) {
+        int size = Math.min(next.pageSize, next.remaining);
+        return graphQLClient.query(shop, accessToken, query, pageVariables(variables, size, next.after))
+            .map(response -> {
+                int items = itemCount(connection(response.getData(), connectionPath));
+                return new Page(response, items, next.remaining - items, next.pageSize, next.after);
+            })
+            .onErrorResume(error -> isMaxCostExceeded(error) && size > 1, error -> {
+                rejectedPages.incrementAndGet();
+                return fetch(shop, accessToken, query, variables, connectionPath,
+                    new Page(null, 0, next.remaining, size / 2, next.after));
+            });
+    }
+
+    private static Map<String, Object> pageVariables(Map<String, Object> variables, int first, String after) {
+        Map<String, Object> page = new HashMap<>(variables);
+        page.put("first", first);
+        if (after != null) {
+            page.put("after", after);
+        } else {
+            page.remove("after");
+        }
+        return page;
+    }
+
+    /**
+     * Combines pages into the first page's response, with every page's edges and nodes and the page info
+     * of both ends.
+     */
+    static GraphQLResponse stitch(List<Page> pages, String connectionPath) {
+        GraphQLResponse firstResponse = pages.get(0).response;
+        GraphQLResponse lastResponse = pages.get(pages.size() - 1).response;
+        if (pages.size() == 1 || firstResponse.getData() == null) {
+            return firstResponse;
+        }
+
+        JsonNode data = firstResponse.getData().deepCopy();
+        JsonNode node = connection(data, connectionPath);
+        if (!(node instanceof ObjectNode merged)) {
+            return firstResponse;
+        }
+        for (String list : new String[] {"edges", "nodes"}) {
+            if (merged.has(list)) {
+                ArrayNode items = JsonNodeFactory.instance.arrayNode();
+                for (Page page : pages) {
+                    JsonNode pageItems = connection(page.response.getData(), connectionPath).get(list);
+                    if (pageItems != null && pageItems.isArray()) {
+                        items.addAll((ArrayNode) pageItems);
+                    }
+                }
+                merged.set(list, items);
+            }
+        }
+        JsonNode lastPageInfo = connection(lastResponse.getData(), connectionPath).get("pageInfo");
+        if (merged.get("pageInfo") instanceof ObjectNode pageInfo && lastPageInfo != null) {
+            pageInfo.set("hasNextPage", lastPageInfo.get("hasNextPage"));
+            pageInfo.set("endCursor", lastPageInfo.get("endCursor"));
+        }
+        return new GraphQLResponse(data, null, combinedExtensions(pages));
+    }
+
+    /**
+     * The last page's extensions with the requested and actual cost of all pages, so the stitched
+     * response reports what the split query cost in total.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> combinedExtensions(List<Page> pages) {
+        Map<String, Object> last = pages.get(pages.size() - 1).response.getExtensions();
+        if (last == null || !(last.get("cost") instanceof Map<?, ?> lastCost)) {
+            return last;
+        }
+        int requested = 0;
+        int actual = 0;
+        for (Page page : pages) {
+            QueryCost cost = page.response.getCost();
+            if (cost != null) {
+                requested += cost.getRequestedQueryCost() != null ? cost.getRequestedQueryCost() : 0;
+                actual += cost.getActualQueryCost() != null ? cost.getActualQueryCost() : 0;
+            }
+        }
+        Map<String, Object> cost = new LinkedHashMap<>((Map<String, Object>) lastCost);
+        cost.put("requestedQueryCost", requested);
+        cost.put("actualQueryCost", actual);
+        Map<String, Object> extensions = new LinkedHashMap<>(last);
+        extensions.put("cost", cost);
+        return extensions;
+    }
+
+    static boolean isMaxCostExceeded(Throwable error) {
+        if (!(error instanceof ShopifyGraphQLException graphQLException) || graphQLException.getErrors() == null) {
+            return false;
+        }
+        return graphQLException.getErrors().stream().anyMatch(e -> e.getExtensions() != null
+            && e.getExtensions().contains(QueryCostEstimator.MAX_COST_EXCEEDED));
+    }
+
+    private static ShopifyGraphQLException maxCostExceeded(String message) {
+        return new ShopifyGraphQLException(message, List.of(new ShopifyGraphQLException.GraphQLError(
+            message, null, null, "{code=" + QueryCostEstimator.MAX_COST_EXCEEDED + "}")));
+    }
+
+    static JsonNode connection(JsonNode data, String connectionPath) {
+        JsonNode node = data;
+        for (String field : connectionPath.split("\\.")) {
+            node = node != null ? node.get(field) : null;
+        }
+        return node != null ? node : JsonNodeFactory.instance.objectNode();
+    }
+
+    static int itemCount(JsonNode connection) {
+        JsonNode items = connection.has("edges") ? connection.get("edges") : connection.get("nodes");
+        return items != null ? items.size() : 0;
+    }
+
+    private void recordSplit(int pages) {
+        splitQueries.incrementAndGet();
+        splitPages.addAndGet(pages);
+        maxPagesPerSplit.accumulateAndGet(pages, Math::max);
+    }
+
+    /**
+     * A fetched page and what is left to fetch after it.
+     */
+    static final class Page {
+        private final GraphQLResponse response;
+        private final int items;
+        private final int remaining;
+        private final int pageSize;
+        private final String after;
+
+        Page(GraphQLResponse response, int items, int remaining, int pageSize, String after) {
+            this.response = response;
+            this.items = items;
+            this.remaining = remaining;
+            this.pageSize = pageSize;
+            this.after = after;
+        }
+
+        private boolean hasNextPage(String connectionPath) {
+            return items > 0 && connection(response.getData(), connectionPath).path("pageInfo")
+                .path("hasNextPage").asBoolean(false);
+        }
+
+        private String endCursor(String connectionPath) {
+            JsonNode cursor = connection(response.getData(), connectionPath).path("pageInfo").path("endCursor");
+            return cursor.isTextual() ? cursor.asText() : null;
+        }
+    }
+
+    /**
+     * Splitting statistics of a splitter.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class SplitStats {
+        /** Connection queries run through the splitter. */
+        private long queries;
+        /** Queries run as more than one page. */
+        private long splitQueries;
+        /** Pages Shopify rejected for their cost and that were retried smaller. */
+        private long rejectedPages;
+        /** Pages fetched for split queries. */
+        private long pages;
+        private double meanPagesPerSplit;
+        private long maxPagesPerSplit;
+    }
+}
@@ -1,33 +1,95 @@
 package com.shopify.sdk.client.graphql;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shopify.sdk.cache.BoundedLruMap;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerService;
+import com.shopify.sdk.concurrency.ConcurrencyLimitService;
 import com.shopify.sdk.client.HttpClientConfig;
 import com.shopify.sdk.config.ShopifyAuthContext;
+import com.shopify.sdk.exception.ShopifyCircuitOpenException;
 import com.shopify.sdk.exception.ShopifyGraphQLException;
 import com.shopify.sdk.exception.ShopifyHttpException;
+import com.shopify.sdk.exception.ShopifyThrottledException;
 import com.shopify.sdk.model.common.ShopifyHeader;
-import lombok.RequiredArgsConstructor;
+import com.shopify.sdk.monitoring.ExchangeTelemetry;
+import com.shopify.sdk.ratelimit.QueryCost;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import com.shopify.sdk.retry.RetryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 import reactor.util.retry.Retry;
 
+import java.net.ConnectException;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * GraphQL client for Shopify Admin and Storefront APIs.
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class GraphQLClient {
     
+    private static final int MAX_TRACKED_QUERY_COSTS = 1000;
+    private static final Duration DEFAULT_THROTTLE_DELAY = Duration.ofSeconds(1);
+    private static final Pattern MUTATION = Pattern.compile("(?:^|\\})\\s*(?:mutation|subscription)\\b");
+    // Context key of the flag an attempt's cost admission reads to tell whether the request was sent
+    private static final String SENT = GraphQLClient.class.getName() + ".sent";
+    
     private final HttpClientConfig httpClientConfig;
     private final ObjectMapper objectMapper;
+    private final RateLimitService rateLimitService;
+    private final GraphQLClientConfig config;
+    private final RetryService retryService;
+    private final CircuitBreakerService circuitBreakers;
+    private final ConcurrencyLimitService concurrencyLimits;
+    private final ReadHedger readHedger;
+    private final ObjectWriter variablesWriter;
+    
+    // Requested cost last reported by Shopify for each query document
+    private final BoundedLruMap<String, Integer> requestedCosts = new BoundedLruMap<>(MAX_TRACKED_QUERY_COSTS);
+    private final QueryCostEstimator costEstimator = new QueryCostEstimator();
+    
+    // Reads in flight by coalescing key, and the calls that joined one instead of being sent
+    private final Map<String, Mono<?>> inFlightReads = new ConcurrentHashMap<>();
+    private final LongAdder coalescedReads = new LongAdder();
+    private final LongAdder throttledRetries = new LongAdder();
+    
+    public GraphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper, RateLimitService rateLimitService,
+                         GraphQLClientConfig config, RetryService retryService,
+                         CircuitBreakerService circuitBreakers, ConcurrencyLimitService concurrencyLimits) {
+        this.httpClientConfig = httpClientConfig;
+        this.objectMapper = objectMapper;
+        this.rateLimitService = rateLimitService;
+        this.config = config;
+        this.retryService = retryService;
+        this.circuitBreakers = circuitBreakers;
+        this.concurrencyLimits = concurrencyLimits;
+        this.readHedger = new ReadHedger(config);
+        this.variablesWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
     
     /**
      * Executes a GraphQL query against the Admin API.
@@ -39,8 +101,33 @@ public class GraphQLClient {
      * @return Mono of GraphQLResponse
      */
     public Mono<GraphQLResponse> executeAdminQuery(ShopifyAuthContext context, String shop, String accessToken, GraphQLRequest request) {
-        WebClient webClient = httpClientConfig.createAdminApiClient(context, shop);
-        return executeQuery(webClient, accessToken, request, true);
+        return coalesce(readKey("admin", shop, accessToken, request, null), () -> {
+            WebClient webClient = httpClientConfig.getAdminApiClient(context, shop);
+            return executeQuery(webClient, shop, accessToken, request, true,
+                new GraphQLResponseDecoder(objectMapper)::decode, Function.identity());
+        });
+    }
+    
+    /**
+     * Executes a GraphQL query against the Admin API and binds the node at a path below {@code data}.
+     * Only that node and the {@code userErrors} next to it are decoded; sibling fields are skipped.
+     *
+     * @param context the Shopify configuration context
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param request the GraphQL request
+     * @param path the dotted field path below {@code data}, e.g. {@code "productCreate.product"}
+     * @param type the type to bind the node to
+     * @return Mono of the bound result
+     */
+    public <T> Mono<GraphQLResult<T>> executeAdminQuery(ShopifyAuthContext context, String shop, String accessToken,
+                                                        GraphQLRequest request, String path, JavaType type) {
+        return coalesce(readKey("admin", shop, accessToken, request, path + '\n' + type.toCanonical()), () -> {
+            WebClient webClient = httpClientConfig.getAdminApiClient(context, shop);
+            GraphQLResponseDecoder decoder = new GraphQLResponseDecoder(objectMapper);
+            return executeQuery(webClient, shop, accessToken, request, true,
+                body -> decoder.<T>decode(body, path, type), GraphQLResult::getResponse);
+        });
     }
     
     /**
@@ -53,8 +140,11 @@ public class GraphQLClient {
      * @return Mono of GraphQLResponse
      */
     public Mono<GraphQLResponse> executeStorefrontQuery(ShopifyAuthContext context, String shop, String accessToken, GraphQLRequest request) {
-        WebClient webClient = httpClientConfig.createStorefrontApiClient(context, shop);
-        return executeQuery(webClient, accessToken, request, false);
+        return coalesce(readKey("storefront", shop, accessToken, request, null), () -> {
+            WebClient webClient = httpClientConfig.getStorefrontApiClient(context, shop);
+            return executeQuery(webClient, shop, accessToken, request, false,
+                new GraphQLResponseDecoder(objectMapper)::decode, Function.identity());
+        });
     }
     
     /**
@@ -85,71 +175,369 @@ public class GraphQLClient {
         return query(context, shop, accessToken, query, null);
     }
     
-    private Mono<GraphQLResponse> executeQuery(WebClient webClient, String accessToken, GraphQLRequest request, boolean isAdminApi) {
-        try {
-            String requestBody = objectMapper.writeValueAsString(request);
+    /**
+     * Gets the number of calls that shared an identical read in flight instead of sending their own.
+     *
+     * @return the number of coalesced calls
+     */
+    public long getCoalescedReadCount() {
+        return coalescedReads.sum();
+    }
+    
+    /**
+     * Gets the number of queries sent again after Shopify throttled them.
+     *
+     * @return the number of throttled retries
+     */
+    public long getThrottledRetryCount() {
+        return throttledRetries.sum();
+    }
+    
+    /**
+     * Gets how many reads were hedged and how many hedges answered first.
+     *
+     * @return the hedging statistics
+     */
+    public ReadHedger.HedgeStats getHedgeStats() {
+        return readHedger.getStats();
+    }
+    
+    /**
+     * Estimates the requested cost Shopify will charge for a request, with the same estimator that
+     * reserves Admin API cost before sending.
+     *
+     * @param request the GraphQL request
+     * @return the estimated cost, or empty if the query cannot be parsed
+     */
+    public OptionalInt estimateCost(GraphQLRequest request) {
+        return costEstimator.estimate(request);
+    }
+    
+    /**
+     * Gets how closely cost estimates matched the requested cost Shopify reported, and parse cache statistics.
+     *
+     * @return the estimator statistics
+     */
+    public QueryCostEstimator.EstimatorStats getCostEstimatorStats() {
+        return costEstimator.getStats();
+    }
+    
+    /**
+     * Joins an identical read in flight, or sends the request and lets later identical reads join it.
+     * Callers share the response and any error, including retries; the entry is dropped when the read ends.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> Mono<R> coalesce(String key, Supplier<Mono<R>> send) {
+        if (key == null) {
+            return send.get();
+        }
+        return Mono.defer(() -> {
+            Mono<?> inFlight = inFlightReads.get(key);
+            if (inFlight != null) {
+                coalescedReads.increment();
+                return (Mono<R>) inFlight;
+            }
             
-            WebClient.RequestHeadersSpec<?> requestSpec = webClient
-                .post()
-                .uri(isAdminApi ? "/graphql.json" : "/graphql")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(requestBody);
+            AtomicReference<Mono<R>> self = new AtomicReference<>();
+            Mono<R> shared = Mono.defer(send)
+                .doFinally(signal -> inFlightReads.remove(key, self.get()))
+                .share();
+            self.set(shared);
             
-            // Add appropriate access token header
-            if (isAdminApi) {
-                requestSpec = requestSpec.header(ShopifyHeader.ACCESS_TOKEN.getHeaderName(), accessToken);
+            inFlight = inFlightReads.putIfAbsent(key, shared);
+            if (inFlight != null) {
+                coalescedReads.increment();
+                return (Mono<R>) inFlight;
+            }
+            return shared;
+        });
+    }
+    
+    /**
+     * Builds the coalescing key of a request, or returns null if it must be sent on its own.
+     */
+    private String readKey(String api, String shop, String accessToken, GraphQLRequest request, String target) {
+        if (!config.isCoalesceReads() || request.getQuery() == null) {
+            return null;
+        }
+        String query = normalizeQuery(request.getQuery());
+        if (MUTATION.matcher(query).find()) {
+            return null;
+        }
+        String variables;
+        try {
+            variables = request.getVariables() != null ? variablesWriter.writeValueAsString(request.getVariables()) : "";
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        return String.join("\n", api, shop, String.valueOf(accessToken), query,
+            String.valueOf(request.getOperationName()), variables, String.valueOf(target));
+    }
+    
+    /**
+     * Whether a request only reads, so sending it twice has no effect beyond its cost.
+     */
+    private static boolean isRead(GraphQLRequest request) {
+        return request.getQuery() != null && !MUTATION.matcher(normalizeQuery(request.getQuery())).find();
+    }
+    
+    /**
+     * Collapses whitespace outside string literals into single spaces.
+     */
+    static String normalizeQuery(String query) {
+        StringBuilder normalized = new StringBuilder(query.length());
+        boolean inString = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (inString) {
+                normalized.append(c);
+                if (c == '\\' && i + 1 < query.length()) {
+                    normalized.append(query.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
             } else {
-                requestSpec = requestSpec.header(ShopifyHeader.STOREFRONT_PRIVATE_TOKEN.getHeaderName(), accessToken);
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+                inString = c == '"';
             }
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * Sends a request and decodes the body with the given decoder; {@code responseOf} gives access to the
+     * errors and extensions of whatever the decoder produces.
+     */
+    private <R> Mono<R> executeQuery(WebClient webClient, String shop, String accessToken, GraphQLRequest request,
+                                     boolean isAdminApi, Function<Flux<DataBuffer>, Mono<R>> decoder,
+                                     Function<R, GraphQLResponse> responseOf) {
+        try {
+            String requestBody = objectMapper.writeValueAsString(request);
+            boolean read = isRead(request);
+            boolean hedged = config.isHedgeReads() && read;
+            
+            BiFunction<ExchangeTelemetry, Runnable, Mono<R>> attempt = (telemetry, onSent) -> {
+                WebClient.RequestHeadersSpec<?> requestSpec = webClient
+                    .post()
+                    .uri(isAdminApi ? "/graphql.json" : "/graphql")
+                    .attribute(ExchangeTelemetry.ATTRIBUTE, telemetry)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(requestBody);
+                
+                // Add appropriate access token header
+                ShopifyHeader tokenHeader = isAdminApi
+                    ? ShopifyHeader.ACCESS_TOKEN : ShopifyHeader.STOREFRONT_PRIVATE_TOKEN;
+                requestSpec = requestSpec.header(tokenHeader.getHeaderName(), accessToken);
+                
+                Mono<R> exchange = requestSpec
+                    .retrieve()
+                    .onStatus(status -> status.value() == 429, response -> 
+                        Mono.error(new ShopifyHttpException(429, "Rate limited", null,
+                            response.headers().asHttpHeaders().toSingleValueMap())))
+                    .onStatus(status -> status.is5xxServerError(), response -> 
+                        Mono.error(new ShopifyHttpException(response.statusCode().value(), "Server error")))
+                    .bodyToFlux(DataBuffer.class)
+                    .as(decoder);
+                exchange = markSent(exchange);
+                if (hedged) {
+                    exchange = readHedger.measure(shop, exchange, onSent);
+                }
+                
+                // Fails fast while the shop's circuit is open; rate limiter waits are not timed as the call.
+                // Requests over the adaptive concurrency limits queue here rather than for a pooled connection.
+                exchange = concurrencyLimits.execute(shop, circuitBreakers.execute(shop, exchange));
+                
+                // Only the Admin API charges query cost against the shop's bucket, hedges included
+                if (isAdminApi) {
+                    exchange = withCostAdmission(exchange, shop, request, telemetry, responseOf);
+                }
+                return exchange.flatMap(result -> validateResponse(responseOf.apply(result)).thenReturn(result));
+            };
             
-            return requestSpec
-                .retrieve()
-                .onStatus(status -> status.value() == 429, response -> 
-                    Mono.error(new ShopifyHttpException(429, "Rate limited")))
-                .onStatus(status -> status.is5xxServerError(), response -> 
-                    Mono.error(new ShopifyHttpException(response.statusCode().value(), "Server error")))
-                .bodyToMono(String.class)
-                .map(this::parseResponse)
-                .flatMap(this::validateResponse)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
-                    .filter(this::shouldRetry));
+            ExchangeTelemetry telemetry = new ExchangeTelemetry(request.getOperationName());
+            Mono<R> call = hedged
+                // A hedge overlaps the first copy's attempts, so it is reported as a call of its own
+                ? readHedger.hedge(shop, onSent -> attempt.apply(telemetry, onSent),
+                    () -> attempt.apply(new ExchangeTelemetry(request.getOperationName()), null))
+                : attempt.apply(telemetry, null);
+            // A mutation that timed out or failed with a 5xx may have been applied, so only reads retry those
+            return retryService.withRetry(shop, read, call.retryWhen(throttleRetry(shop, isAdminApi)));
             
         } catch (JsonProcessingException e) {
             return Mono.error(new ShopifyGraphQLException("Failed to serialize GraphQL request", null));
         }
     }
     
-    private GraphQLResponse parseResponse(String responseBody) {
-        try {
-            return objectMapper.readValue(responseBody, GraphQLResponse.class);
-        } catch (JsonProcessingException e) {
-            throw new ShopifyGraphQLException("Failed to parse GraphQL response: " + e.getMessage(), null);
+    /**
+     * Reserves the query's expected cost in the shop's bucket before sending and settles the
+     * reservation against the cost and throttle status reported in the response. A query that fails
+     * after it was sent keeps its reservation, and only one that never reached Shopify is refunded.
+     * A query whose estimated cost exceeds the configured maximum is rejected without being sent.
+     */
+    private <R> Mono<R> withCostAdmission(Mono<R> exchange, String shop, GraphQLRequest request,
+                                          ExchangeTelemetry telemetry, Function<R, GraphQLResponse> responseOf) {
+        OptionalInt estimate = config.isEstimateQueryCost() ? costEstimator.estimate(request) : OptionalInt.empty();
+        if (estimate.isPresent() && estimate.getAsInt() > config.getMaxQueryCost()) {
+            String message = "Estimated query cost " + estimate.getAsInt() + " exceeds the maximum of "
+                + config.getMaxQueryCost() + "; request fewer items per page";
+            return Mono.error(new ShopifyGraphQLException(message, List.of(new ShopifyGraphQLException.GraphQLError(
+                message, null, null, "{code=" + QueryCostEstimator.MAX_COST_EXCEEDED + "}"))));
+        }
+        // A throttled query is retried with the cost Shopify reported for it
+        AtomicInteger nextCost = new AtomicInteger(estimate.isPresent() ? estimate.getAsInt() : expectedCost(request));
+        
+        return Mono.defer(() -> {
+            int reservedCost = nextCost.get();
+            long waitStart = System.nanoTime();
+            return rateLimitService.reserveGraphQLCost(shop, reservedCost, request.getPriority())
+                .then(Mono.defer(() -> {
+                    telemetry.addThrottleWait(System.nanoTime() - waitStart);
+                    
+                    // Settled as soon as the response arrives, so a throttled retry reserves against the
+                    // throttle status it reported
+                    AtomicBoolean settled = new AtomicBoolean();
+                    AtomicBoolean sent = new AtomicBoolean();
+                    return exchange
+                        .doOnNext(result -> {
+                            GraphQLResponse response = responseOf.apply(result);
+                            rememberRequestedCost(request, response, estimate);
+                            QueryCost queryCost = response.getCost();
+                            if (queryCost != null && queryCost.getRequestedQueryCost() != null) {
+                                nextCost.set(queryCost.getRequestedQueryCost());
+                            }
+                            if (settled.compareAndSet(false, true)) {
+                                rateLimitService.settleGraphQLCost(shop, reservedCost, response.getExtensions());
+                            }
+                        })
+                        .doOnError(error -> {
+                            if (settled.compareAndSet(false, true)) {
+                                // A query that failed after it was sent may have been charged in full
+                                if (!sent.get() || isBeforeSend(error)) {
+                                    rateLimitService.cancelGraphQLCost(shop, reservedCost);
+                                } else {
+                                    rateLimitService.settleGraphQLCost(shop, reservedCost, null);
+                                }
+                            }
+                        })
+                        .doFinally(signal -> {
+                            // Cancelled, e.g. as the losing copy of a hedged read: Shopify charges a copy it
+                            // has received whether or not its response is read
+                            if (settled.compareAndSet(false, true)) {
+                                if (sent.get()) {
+                                    rateLimitService.settleGraphQLCost(shop, reservedCost, null);
+                                } else {
+                                    rateLimitService.cancelGraphQLCost(shop, reservedCost);
+                                }
+                            }
+                        })
+                        .contextWrite(Context.of(SENT, sent));
+                }));
+        });
+    }
+    
+    /**
+     * Sets the sent flag of the attempt's cost admission, if it has one, once the request is subscribed,
+     * i.e. after the circuit breaker and concurrency limits let it through.
+     */
+    private static <R> Mono<R> markSent(Mono<R> exchange) {
+        return Mono.deferContextual(context -> {
+            context.<AtomicBoolean>getOrEmpty(SENT).ifPresent(sent -> sent.set(true));
+            return exchange;
+        });
+    }
+    
+    /**
+     * Whether a query failed before it reached Shopify: its shop's circuit was open or no connection could
+     * be established.
+     */
+    private static boolean isBeforeSend(Throwable error) {
+        if (error instanceof ShopifyCircuitOpenException) {
+            return true;
         }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Retries queries Shopify throttled. Admin API queries are resubscribed at once: the throttled response
+     * has synchronized the shop's bucket, so the cost reservation waits exactly until the bucket has restored
+     * the requested cost. Other queries wait for the delay computed from the throttle status.
+     */
+    private Retry throttleRetry(String shop, boolean scheduledByLimiter) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            if (!(signal.failure() instanceof ShopifyThrottledException throttled)
+                || signal.totalRetriesInARow() >= config.getMaxThrottleRetries()) {
+                return Mono.error(signal.failure());
+            }
+            throttledRetries.increment();
+            log.debug("GraphQL query for {} throttled; retrying once {} points are available, in about {}ms",
+                shop, throttled.getRequestedCost(), throttled.getRetryAfter().toMillis());
+            return scheduledByLimiter
+                ? Mono.just(signal)
+                : Mono.delay(throttled.getRetryAfter()).thenReturn(signal);
+        }));
+    }
+    
+    /**
+     * Computes how long the shop's bucket needs to restore the requested cost of a throttled query.
+     */
+    static Duration throttleDelay(QueryCost queryCost) {
+        if (queryCost == null || !queryCost.hasThrottleStatus() || queryCost.getRequestedQueryCost() == null
+            || queryCost.getRestoreRate() == null || queryCost.getRestoreRate() <= 0) {
+            return DEFAULT_THROTTLE_DELAY;
+        }
+        double missing = Math.min(queryCost.getRequestedQueryCost(), queryCost.getMaximumAvailable())
+            - queryCost.getCurrentlyAvailable();
+        return Duration.ofMillis((long) Math.ceil(Math.max(0, missing) * 1000 / queryCost.getRestoreRate()));
+    }
+    
+    private int expectedCost(GraphQLRequest request) {
+        Integer requestedCost = request.getQuery() != null ? requestedCosts.get(request.getQuery()) : null;
+        return requestedCost != null ? requestedCost : rateLimitService.getDefaultGraphQLQueryCost();
+    }
+    
+    private void rememberRequestedCost(GraphQLRequest request, GraphQLResponse response, OptionalInt estimate) {
+        QueryCost queryCost = response.getCost();
+        if (queryCost == null || queryCost.getRequestedQueryCost() == null || request.getQuery() == null) {
+            return;
+        }
+        if (estimate.isPresent()) {
+            costEstimator.recordRequestedCost(estimate.getAsInt(), queryCost.getRequestedQueryCost());
+        }
+        requestedCosts.put(request.getQuery(), queryCost.getRequestedQueryCost());
     }
     
     private Mono<GraphQLResponse> validateResponse(GraphQLResponse response) {
         if (response.hasErrors()) {
-            return Mono.error(new ShopifyGraphQLException(
-                response.getErrors().stream()
-                    .map(GraphQLResponse.GraphQLError::getMessage)
-                    .collect(Collectors.joining(", ")),
-                convertErrors(response.getErrors())
-            ));
+            String message = response.getErrors().stream()
+                .map(GraphQLResponse.GraphQLError::getMessage)
+                .collect(Collectors.joining(", "));
+            if (isThrottled(response)) {
+                QueryCost queryCost = response.getCost();
+                return Mono.error(new ShopifyThrottledException(message, convertErrors(response.getErrors()),
+                    queryCost != null ? queryCost.getRequestedQueryCost() : null, throttleDelay(queryCost)));
+            }
+            return Mono.error(new ShopifyGraphQLException(message, convertErrors(response.getErrors()),
+                response.getData()));
         }
         return Mono.just(response);
     }
     
-    private boolean shouldRetry(Throwable throwable) {
-        if (throwable instanceof ShopifyHttpException) {
-            ShopifyHttpException httpEx = (ShopifyHttpException) throwable;
-            return httpEx.isRateLimited() || httpEx.isServerError();
-        }
-        if (throwable instanceof WebClientResponseException) {
-            WebClientResponseException webEx = (WebClientResponseException) throwable;
-            int status = webEx.getStatusCode().value();
-            return status == 429 || (status >= 500 && status < 600);
-        }
-        return false;
+    private static boolean isThrottled(GraphQLResponse response) {
+        return response.getErrors().stream()
+            .anyMatch(error -> error.getExtensions() != null
+                && ShopifyThrottledException.THROTTLED.equals(error.getExtensions().get("code")));
     }
     
     private java.util.List<ShopifyGraphQLException.GraphQLError> convertErrors(java.util.List<GraphQLResponse.GraphQLError> errors) {
@@ -0,0 +1,63 @@
+package com.shopify.sdk.client.graphql;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Configuration for the GraphQL client.
+ */
+@Data
+@Builder(toBuilder = true)
+public class GraphQLClientConfig {
+    
+    /**
+     * Whether identical queries sent while one is in flight share its response instead of being sent
+     * again. Queries are identical when shop, access token, query text (ignoring whitespace), operation
+     * name and variables match; mutations are never coalesced.
+     */
+    @Builder.Default
+    private final boolean coalesceReads = false;
+
+    /**
+     * Whether Admin API queries are parsed to estimate their requested cost, which is then reserved in the
+     * shop's bucket before sending. When disabled, or for queries that cannot be parsed, the cost last
+     * reported for the same query text or the rate limiter's default cost is reserved.
+     */
+    @Builder.Default
+    private final boolean estimateQueryCost = true;
+
+    /**
+     * Largest estimated cost a query may have; Shopify rejects queries that request more than 1000 points,
+     * so such queries fail without being sent.
+     */
+    @Builder.Default
+    private final int maxQueryCost = QueryCostEstimator.MAX_QUERY_COST;
+
+    /**
+     * Number of times a query Shopify throttled is sent again. Each retry waits until the shop's bucket
+     * has restored the query's requested cost, as computed from the throttle status of the response.
+     */
+    @Builder.Default
+    private final int maxThrottleRetries = 5;
+
+    /**
+     * Whether read-only queries that have not answered by the shop's observed latency percentile are sent
+     * a second time, using whichever response arrives first and cancelling the other. Each hedge reserves
+     * its own query cost; mutations are never hedged.
+     */
+    @Builder.Default
+    private final boolean hedgeReads = false;
+
+    /**
+     * Latency percentile of a shop's recent reads after which a read is hedged, between 0 and 1.
+     */
+    @Builder.Default
+    private final double hedgePercentile = 0.95;
+
+    /**
+     * Hedges allowed per read sent, which caps the extra load hedging adds; 0.05 allows one hedge for
+     * every 20 reads.
+     */
+    @Builder.Default
+    private final double hedgeBudgetRatio = 0.05;
+}
@@ -1,6 +1,8 @@
 package com.shopify.sdk.client.graphql;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.shopify.sdk.ratelimit.RequestPriority;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,6 +26,16 @@ public class GraphQLRequest {
     @JsonProperty("operationName")
     private String operationName;
     
+    /**
+     * Priority of the request in the shop's rate limit bucket; not sent to Shopify.
+     */
+    @JsonIgnore
+    private RequestPriority priority;
+    
+    public GraphQLRequest(String query, Map<String, Object> variables, String operationName) {
+        this(query, variables, operationName, null);
+    }
+    
     public static GraphQLRequest of(String query) {
         return new GraphQLRequest(query, null, null);
     }
@@ -35,4 +47,15 @@ public class GraphQLRequest {
     public static GraphQLRequest of(String query, Map<String, Object> variables, String operationName) {
         return new GraphQLRequest(query, variables, operationName);
     }
+    
+    /**
+     * Sets the rate limit priority of this request.
+     *
+     * @param priority the priority class
+     * @return this request
+     */
+    public GraphQLRequest withPriority(RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
 }
\ No newline at end of file
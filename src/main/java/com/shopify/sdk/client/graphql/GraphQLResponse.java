@@ -1,10 +1,14 @@
 package com.shopify.sdk.client.graphql;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.shopify.sdk.ratelimit.QueryCost;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 import java.util.Map;
@@ -26,6 +30,18 @@ public class GraphQLResponse {
     @JsonProperty("extensions")
     private Map<String, Object> extensions;
     
+    /**
+     * Size and decoding cost of the response, set when it was decoded from the network.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private GraphQLResponseDecoder.DecodeStats decodeStats;
+    
+    public GraphQLResponse(JsonNode data, List<GraphQLError> errors, Map<String, Object> extensions) {
+        this(data, errors, extensions, null);
+    }
+    
     public boolean hasErrors() {
         return errors != null && !errors.isEmpty();
     }
@@ -34,6 +50,16 @@ public class GraphQLResponse {
         return data != null && !data.isNull();
     }
     
+    /**
+     * Gets the query cost reported in the response extensions.
+     *
+     * @return the query cost, or null if the response carries none
+     */
+    @JsonIgnore
+    public QueryCost getCost() {
+        return QueryCost.fromExtensions(extensions);
+    }
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,339 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Decodes GraphQL responses straight from the network buffers.
+ * <p>
+ * Each {@link DataBuffer} is fed to Jackson's non-blocking parser and released as soon as it has been
+ * tokenized. Tokens are collected in a compact {@link TokenBuffer} and bound to {@link GraphQLResponse}
+ * once the document is complete, so the body is never copied into a String and {@code data} is built
+ * only once, as the tree the services read from. The bytes read and the memory allocated while decoding
+ * are reported in {@link GraphQLResponse#getDecodeStats()}.
+ * <p>
+ * When a path into {@code data} is given, only the tokens of that node and of any {@code userErrors}
+ * next to the path are kept; sibling fields are dropped as they stream past and no {@code JsonNode}
+ * tree is built at all.
+ */
+@Slf4j
+public class GraphQLResponseDecoder {
+
+    /**
+     * Default upper bound on a response body, far above Shopify's largest pages.
+     */
+    public static final long DEFAULT_MAX_RESPONSE_BYTES = 64L * 1024 * 1024;
+
+    private static final String DATA_FIELD = "data";
+    private static final String USER_ERRORS_FIELD = "userErrors";
+    // Frame of the top-level response object; frames inside data hold the number of path segments matched
+    private static final int ENVELOPE = -1;
+
+    private final ObjectMapper objectMapper;
+    private final long maxResponseBytes;
+
+    public GraphQLResponseDecoder(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MAX_RESPONSE_BYTES);
+    }
+
+    public GraphQLResponseDecoder(ObjectMapper objectMapper, long maxResponseBytes) {
+        this.objectMapper = objectMapper;
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    /**
+     * Decodes a response body.
+     *
+     * @param body the body buffers, released by this decoder
+     * @return Mono of the decoded response
+     */
+    public Mono<GraphQLResponse> decode(Flux<DataBuffer> body) {
+        return decode(body, null, null).map(GraphQLResult::getResponse);
+    }
+
+    /**
+     * Decodes a response body, binding only the node at the given path below {@code data}.
+     *
+     * @param body the body buffers, released by this decoder
+     * @param path the field names from {@code data} down to the node, e.g. {@code "productCreate.product"}
+     * @param type the type to bind the node to
+     * @return Mono of the result; its response carries errors and extensions but no data
+     */
+    public <T> Mono<GraphQLResult<T>> decode(Flux<DataBuffer> body, String path, JavaType type) {
+        String[] segments = path != null ? parsePath(path) : null;
+        return Mono.defer(() -> {
+            Decoding decoding = new Decoding(segments);
+            return body
+                .doOnNext(decoding::feed)
+                .then(Mono.fromCallable(() -> decoding.<T>finish(type)))
+                .doFinally(signal -> decoding.close());
+        });
+    }
+
+    /**
+     * Splits a dotted path into field names.
+     */
+    static String[] parsePath(String path) {
+        String[] segments = path.split("\\.", -1);
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Invalid GraphQL response path: '" + path + "'");
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Parser state of one response. Buffers of a body arrive one at a time, so no locking is needed.
+     */
+    private final class Decoding {
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final String[] path;
+        private long bytes;
+        private long allocatedBytes;
+        private boolean complete;
+
+        // The whole document, or everything except data when a path is selected
+        private final TokenBuffer envelope;
+        private TokenBuffer target;
+        private final List<TokenBuffer> userErrors = new ArrayList<>(1);
+
+        // Whole document: nesting depth
+        private int depth;
+
+        // Selected path: objects being walked along the path, and the path level of the next value
+        private final Deque<Integer> frames = new ArrayDeque<>();
+        private int pendingLevel;
+
+        // Selected path: a value being copied to a sink, or skipped if the sink is null
+        private boolean passing;
+        private TokenBuffer passSink;
+        private int passDepth;
+
+        private Decoding(String[] path) {
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new ShopifyGraphQLException("Failed to create GraphQL response parser: " + e.getMessage(), null);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.path = path;
+            this.envelope = new TokenBuffer(parser, null);
+        }
+
+        private void feed(DataBuffer buffer) {
+            long allocatedBefore = Allocation.currentThreadBytes();
+            try {
+                bytes += buffer.readableByteCount();
+                if (bytes > maxResponseBytes) {
+                    throw new ShopifyGraphQLException("GraphQL response exceeds " + maxResponseBytes + " bytes", null);
+                }
+                try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                    while (chunks.hasNext()) {
+                        feeder.feedInput(chunks.next());
+                        drain();
+                    }
+                }
+            } catch (IOException e) {
+                throw new ShopifyGraphQLException("Failed to parse GraphQL response: " + e.getMessage(), null);
+            } finally {
+                DataBufferUtils.release(buffer);
+                allocatedBytes += Allocation.since(allocatedBefore);
+            }
+        }
+
+        private <T> GraphQLResult<T> finish(JavaType type) {
+            long allocatedBefore = Allocation.currentThreadBytes();
+            GraphQLResult<T> result;
+            try {
+                feeder.endOfInput();
+                drain();
+                if (!complete) {
+                    throw new ShopifyGraphQLException("GraphQL response ended before the document was complete", null);
+                }
+                T value = target != null ? objectMapper.readValue(target.asParser(objectMapper), type) : null;
+                GraphQLResponse response = objectMapper.readValue(envelope.asParser(objectMapper), GraphQLResponse.class);
+                result = new GraphQLResult<>(value, bindUserErrors(), response);
+            } catch (IOException e) {
+                throw new ShopifyGraphQLException("Failed to parse GraphQL response: " + e.getMessage(), null);
+            }
+            allocatedBytes += Allocation.since(allocatedBefore);
+
+            result.getResponse().setDecodeStats(new DecodeStats(bytes, Allocation.SUPPORTED ? allocatedBytes : -1));
+            log.debug("Decoded GraphQL response: {} bytes, {} bytes allocated", bytes, allocatedBytes);
+            return result;
+        }
+
+        private List<GraphQLResult.UserError> bindUserErrors() throws IOException {
+            List<GraphQLResult.UserError> errors = new ArrayList<>();
+            JavaType listType = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, GraphQLResult.UserError.class);
+            for (TokenBuffer buffer : userErrors) {
+                List<GraphQLResult.UserError> bound = objectMapper.readValue(buffer.asParser(objectMapper), listType);
+                if (bound != null) {
+                    errors.addAll(bound);
+                }
+            }
+            return errors;
+        }
+
+        /**
+         * Routes every token the parser can produce from the input fed so far.
+         */
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (complete) {
+                    throw new ShopifyGraphQLException("Unexpected content after the GraphQL response document", null);
+                }
+                if (path == null) {
+                    keep(token);
+                } else {
+                    select(token);
+                }
+            }
+        }
+
+        private void keep(JsonToken token) throws IOException {
+            envelope.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd() && --depth == 0) {
+                complete = true;
+            }
+        }
+
+        private void select(JsonToken token) throws IOException {
+            if (passing) {
+                pass(token);
+            } else if (token == JsonToken.FIELD_NAME) {
+                selectField(parser.currentName());
+            } else if (token == JsonToken.END_OBJECT) {
+                if (frames.pop() == ENVELOPE) {
+                    envelope.copyCurrentEvent(parser);
+                    complete = true;
+                }
+            } else if (frames.isEmpty()) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ShopifyGraphQLException("GraphQL response is not a JSON object", null);
+                }
+                envelope.copyCurrentEvent(parser);
+                frames.push(ENVELOPE);
+            } else if (token == JsonToken.START_OBJECT) {
+                frames.push(pendingLevel);
+            } else {
+                // Null or a list where the path expects an object: the selected node is absent
+                passNext(null);
+                pass(token);
+            }
+        }
+
+        private void selectField(String name) throws IOException {
+            int level = frames.peek();
+            if (level == ENVELOPE) {
+                if (DATA_FIELD.equals(name)) {
+                    pendingLevel = 0;
+                } else {
+                    envelope.copyCurrentEvent(parser);
+                    passNext(envelope);
+                }
+            } else if (name.equals(path[level])) {
+                if (level + 1 == path.length) {
+                    target = new TokenBuffer(parser, null);
+                    passNext(target);
+                } else {
+                    pendingLevel = level + 1;
+                }
+            } else if (USER_ERRORS_FIELD.equals(name)) {
+                TokenBuffer errors = new TokenBuffer(parser, null);
+                userErrors.add(errors);
+                passNext(errors);
+            } else {
+                passNext(null);
+            }
+        }
+
+        private void passNext(TokenBuffer sink) {
+            passing = true;
+            passSink = sink;
+            passDepth = 0;
+        }
+
+        private void pass(JsonToken token) throws IOException {
+            if (passSink != null) {
+                passSink.copyCurrentEvent(parser);
+            }
+            if (token.isStructStart()) {
+                passDepth++;
+            } else if (token.isStructEnd()) {
+                passDepth--;
+            }
+            passing = passDepth > 0;
+        }
+
+        private void close() {
+            try {
+                parser.close();
+                envelope.close();
+            } catch (IOException e) {
+                log.debug("Failed to close GraphQL response parser", e);
+            }
+        }
+    }
+
+    /**
+     * Bytes allocated and read while decoding one response.
+     */
+    @lombok.Data
+    public static class DecodeStats {
+        private final long responseBytes;
+        /** Bytes allocated by the decoding threads, or -1 if the JVM does not measure allocation. */
+        private final long allocatedBytes;
+    }
+
+    /**
+     * Per-thread allocation counter of HotSpot-based JVMs, if available and enabled.
+     */
+    private static final class Allocation {
+        private static final com.sun.management.ThreadMXBean THREADS = threads();
+        private static final boolean SUPPORTED = THREADS != null;
+
+        private static com.sun.management.ThreadMXBean threads() {
+            try {
+                if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            } catch (LinkageError e) {
+                // jdk.management is not part of this runtime
+            }
+            return null;
+        }
+
+        private static long currentThreadBytes() {
+            return SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+        }
+
+        private static long since(long before) {
+            return SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() - before : 0;
+        }
+    }
+}
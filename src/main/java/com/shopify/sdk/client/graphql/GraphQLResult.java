@@ -0,0 +1,58 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A GraphQL response node bound to a model class, with the mutation user errors found next to it.
+ *
+ * @param <T> the type of the bound node
+ */
+@Data
+public class GraphQLResult<T> {
+
+    /**
+     * The node at the requested path, or null if the response has none.
+     */
+    private final T value;
+
+    /**
+     * The {@code userErrors} returned next to the requested path, never null.
+     */
+    private final List<UserError> userErrors;
+
+    /**
+     * Errors, extensions and decode statistics of the response; its data is not materialized.
+     */
+    private final GraphQLResponse response;
+
+    public boolean hasValue() {
+        return value != null;
+    }
+
+    public boolean hasUserErrors() {
+        return !userErrors.isEmpty();
+    }
+
+    /**
+     * A validation error returned by a mutation.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserError {
+
+        @JsonProperty("field")
+        private List<String> field;
+
+        @JsonProperty("message")
+        private String message;
+
+        @JsonProperty("code")
+        private String code;
+    }
+}
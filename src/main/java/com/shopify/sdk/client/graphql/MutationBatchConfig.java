@@ -0,0 +1,38 @@
+package com.shopify.sdk.client.graphql;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Configuration for packing independent mutations into aliased multi-operation documents.
+ */
+@Data
+@Builder(toBuilder = true)
+public class MutationBatchConfig {
+
+    /**
+     * How long the first mutation of a batch waits for others to join it.
+     */
+    @Builder.Default
+    private final Duration window = Duration.ofMillis(10);
+
+    /**
+     * Number of mutations that sends a document before its window ends.
+     */
+    @Builder.Default
+    private final int maxMutationsPerDocument = 50;
+
+    /**
+     * Estimated cost that sends a document before its window ends, at most {@value QueryCostEstimator#MAX_QUERY_COST}.
+     */
+    @Builder.Default
+    private final int maxDocumentCost = QueryCostEstimator.MAX_QUERY_COST;
+
+    /**
+     * Whether to batch mutations; when disabled every mutation is sent in its own document.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+}
@@ -0,0 +1,450 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.exception.ShopifyApiException;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import com.shopify.sdk.exception.ShopifyThrottledException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Packs independent mutations for one shop into a single GraphQL document, each under its own alias
+ * ({@code m0: productUpdate(...)}, {@code m1: ...}).
+ * <p>
+ * The first mutation for a shop opens a batch that collects further mutations until the configured window
+ * ends, the batch holds {@code maxMutationsPerDocument} mutations, or the next mutation would take its
+ * estimated cost over {@code maxDocumentCost}; in the last case the batch is sent and the mutation opens
+ * the next one. A mutation's cost is the one it was given, or else the estimate of a document that holds
+ * only that mutation. Every caller gets back the payload of its own alias together with the
+ * {@code userErrors} found in it. Top-level errors whose {@code path} starts with an alias fail only the
+ * caller of that alias while the others still get their payloads; errors without a path, and failures of
+ * the document as a whole, fail every caller of the batch.
+ */
+@Slf4j
+public class MutationBatcher {
+
+    private final ShopifyGraphQLClient graphQLClient;
+    private final ObjectMapper objectMapper;
+    private final MutationBatchConfig config;
+    private final Scheduler scheduler;
+    private final JavaType userErrorsType;
+    private final QueryCostEstimator costEstimator = new QueryCostEstimator();
+
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong costSplits = new AtomicLong();
+    private final AtomicLong maxMutationsPerDocument = new AtomicLong();
+
+    /**
+     * Creates a batcher.
+     *
+     * @param graphQLClient the client the documents are sent with
+     * @param objectMapper the mapper that binds the user errors
+     * @param config the batching configuration
+     */
+    public MutationBatcher(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, MutationBatchConfig config) {
+        this(graphQLClient, objectMapper, config, Schedulers.parallel());
+    }
+
+    MutationBatcher(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, MutationBatchConfig config,
+                    Scheduler scheduler) {
+        if (config.getMaxMutationsPerDocument() < 1) {
+            throw new IllegalArgumentException("Mutations per document must be at least 1: "
+                + config.getMaxMutationsPerDocument());
+        }
+        if (config.getMaxDocumentCost() < 1 || config.getMaxDocumentCost() > QueryCostEstimator.MAX_QUERY_COST) {
+            throw new IllegalArgumentException("Document cost must be between 1 and "
+                + QueryCostEstimator.MAX_QUERY_COST + ": " + config.getMaxDocumentCost());
+        }
+        this.graphQLClient = graphQLClient;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.userErrorsType = objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, GraphQLResult.UserError.class);
+    }
+
+    /**
+     * Submits one mutation, batched with other mutations for the same shop.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param mutation the mutation to run
+     * @return Mono of the mutation's payload and user errors
+     */
+    public Mono<GraphQLResult<JsonNode>> submit(String shop, String accessToken, BatchedMutation mutation) {
+        return Mono.defer(() -> {
+            int cost = costOf(mutation);
+            if (cost > config.getMaxDocumentCost()) {
+                return Mono.error(new IllegalArgumentException("Mutation " + mutation.getField() + " costs "
+                    + cost + ", more than a document may cost: " + config.getMaxDocumentCost()));
+            }
+            if (!config.isEnabled()) {
+                Batch single = new Batch(shop, accessToken, null);
+                Mono<GraphQLResult<JsonNode>> result = single.add(mutation, cost);
+                single.send();
+                return result;
+            }
+
+            String key = shop + '\n' + accessToken;
+            while (true) {
+                Batch batch = openBatches.computeIfAbsent(key, k -> new Batch(shop, accessToken, k));
+                Mono<GraphQLResult<JsonNode>> result = batch.add(mutation, cost);
+                if (result != null) {
+                    return result;
+                }
+                // The batch was sent, or had no room left for this mutation; make way for a new one
+                openBatches.remove(key, batch);
+            }
+        });
+    }
+
+    /**
+     * Gets batching statistics since the batcher was created.
+     *
+     * @return the statistics
+     */
+    public MutationBatchStats getStats() {
+        long count = documents.get();
+        return MutationBatchStats.builder()
+            .documents(count)
+            .mutations(mutations.get())
+            .costSplits(costSplits.get())
+            .meanMutationsPerDocument(count > 0 ? (double) mutations.get() / count : 0)
+            .maxMutationsPerDocument(maxMutationsPerDocument.get())
+            .build();
+    }
+
+    /**
+     * Builds the aliased document for a batch; the variables of mutation {@code i} are prefixed {@code m<i>_}.
+     */
+    static String document(List<BatchedMutation> batch) {
+        StringBuilder declarations = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            BatchedMutation mutation = batch.get(i);
+            fields.append("  m").append(i).append(": ").append(mutation.getField());
+            if (!mutation.getArguments().isEmpty()) {
+                fields.append('(');
+                boolean first = true;
+                for (String argument : mutation.getArguments().keySet()) {
+                    String variable = "m" + i + "_" + argument;
+                    if (declarations.length() > 0) {
+                        declarations.append(", ");
+                    }
+                    declarations.append('$').append(variable).append(": ")
+                        .append(mutation.getArgumentTypes().get(argument));
+                    fields.append(first ? "" : ", ").append(argument).append(": $").append(variable);
+                    first = false;
+                }
+                fields.append(')');
+            }
+            fields.append(" { ").append(mutation.getSelection()).append(" }\n");
+        }
+        return "mutation batchedMutations" + (declarations.length() > 0 ? "(" + declarations + ")" : "")
+            + " {\n" + fields + "}";
+    }
+
+    /**
+     * Collects the variables of a batch under the names {@link #document} declares for them.
+     */
+    private static Map<String, Object> variables(List<BatchedMutation> batch) {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            for (Map.Entry<String, Object> argument : batch.get(i).getArguments().entrySet()) {
+                variables.put("m" + i + "_" + argument.getKey(), argument.getValue());
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * The cost given with a mutation, or else the estimated cost of a document that holds only the mutation;
+     * mutation costs add up, so a batch costs the sum of its mutations.
+     */
+    private int costOf(BatchedMutation mutation) {
+        if (mutation.getCost() != null) {
+            return mutation.getCost();
+        }
+        List<BatchedMutation> single = List.of(mutation);
+        return costEstimator.estimate(GraphQLRequest.of(document(single), variables(single)))
+            .orElse(QueryCostEstimator.MUTATION_COST);
+    }
+
+    /**
+     * Groups the errors of a failed document by the index of the alias their path starts with, or returns
+     * null if the failure was not a GraphQL error or any error does not belong to one alias of the batch.
+     */
+    private static Map<Integer, List<ShopifyGraphQLException.GraphQLError>> errorsByAlias(Throwable error,
+                                                                                          int size) {
+        if (!(error instanceof ShopifyGraphQLException graphQLException)
+            || error instanceof ShopifyThrottledException
+            || graphQLException.getErrors() == null || graphQLException.getErrors().isEmpty()) {
+            return null;
+        }
+        Map<Integer, List<ShopifyGraphQLException.GraphQLError>> byAlias = new HashMap<>();
+        for (ShopifyGraphQLException.GraphQLError graphQLError : graphQLException.getErrors()) {
+            int index = aliasIndex(graphQLError.getPath(), size);
+            if (index < 0) {
+                return null;
+            }
+            byAlias.computeIfAbsent(index, k -> new ArrayList<>()).add(graphQLError);
+        }
+        return byAlias;
+    }
+
+    private static int aliasIndex(List<String> path, int size) {
+        if (path == null || path.isEmpty() || path.get(0) == null || !path.get(0).startsWith("m")) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(path.get(0).substring(1));
+            return index >= 0 && index < size ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void recordDocument(int size) {
+        documents.incrementAndGet();
+        mutations.addAndGet(size);
+        maxMutationsPerDocument.accumulateAndGet(size, Math::max);
+    }
+
+    /**
+     * Mutations collected for one shop; sent once, either by its timer or by the mutation that fills it.
+     */
+    private final class Batch {
+        private final String shop;
+        private final String accessToken;
+        private final String key;
+        private final List<BatchedMutation> entries = new ArrayList<>();
+        private final List<Sinks.One<GraphQLResult<JsonNode>>> results = new ArrayList<>();
+        private int cost;
+        private boolean sent;
+        private Disposable timer;
+
+        private Batch(String shop, String accessToken, String key) {
+            this.shop = shop;
+            this.accessToken = accessToken;
+            this.key = key;
+        }
+
+        /**
+         * Adds a mutation, or returns null if the batch has been sent or the mutation would take it over
+         * the cost limit, in which case the batch is sent now.
+         */
+        private Mono<GraphQLResult<JsonNode>> add(BatchedMutation mutation, int mutationCost) {
+            Sinks.One<GraphQLResult<JsonNode>> result = null;
+            boolean dispatch;
+            synchronized (this) {
+                if (sent) {
+                    return null;
+                }
+                if (!entries.isEmpty() && cost + mutationCost > config.getMaxDocumentCost()) {
+                    costSplits.incrementAndGet();
+                    sent = true;
+                    dispatch = true;
+                } else {
+                    result = Sinks.one();
+                    entries.add(mutation);
+                    results.add(result);
+                    cost += mutationCost;
+                    dispatch = entries.size() >= config.getMaxMutationsPerDocument();
+                    if (dispatch) {
+                        sent = true;
+                    } else if (timer == null && key != null) {
+                        timer = scheduler.schedule(this::send, config.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+            if (dispatch) {
+                dispatch();
+            }
+            return result != null ? result.asMono() : null;
+        }
+
+        private void send() {
+            synchronized (this) {
+                if (sent) {
+                    return;
+                }
+                sent = true;
+            }
+            dispatch();
+        }
+
+        /**
+         * Sends the batch; called once, after {@code sent} is set, so the mutations no longer change.
+         */
+        private void dispatch() {
+            synchronized (this) {
+                if (timer != null) {
+                    timer.dispose();
+                }
+            }
+            if (key != null) {
+                openBatches.remove(key, this);
+            }
+
+            Map<String, Object> variables = variables(entries);
+            recordDocument(entries.size());
+            log.debug("Sending {} mutations with an estimated cost of {} in one document for shop {}",
+                entries.size(), cost, shop);
+
+            graphQLClient.query(shop, accessToken, document(entries), variables)
+                .subscribe(this::complete, this::fail, () -> results.forEach(Sinks.One::tryEmitEmpty));
+        }
+
+        private void complete(GraphQLResponse response) {
+            for (int i = 0; i < results.size(); i++) {
+                emitPayload(i, response);
+            }
+        }
+
+        /**
+         * Fails the callers whose aliases the errors point at and hands the others their payloads, or fails
+         * every caller if the errors cannot be told apart by alias.
+         */
+        private void fail(Throwable error) {
+            Map<Integer, List<ShopifyGraphQLException.GraphQLError>> byAlias = errorsByAlias(error, results.size());
+            if (byAlias == null) {
+                results.forEach(sink -> sink.tryEmitError(error));
+                return;
+            }
+            JsonNode data = ((ShopifyGraphQLException) error).getData();
+            GraphQLResponse response = new GraphQLResponse(data, null, null);
+            for (int i = 0; i < results.size(); i++) {
+                List<ShopifyGraphQLException.GraphQLError> errors = byAlias.get(i);
+                if (errors == null) {
+                    emitPayload(i, response);
+                    continue;
+                }
+                String message = errors.stream()
+                    .map(ShopifyGraphQLException.GraphQLError::getMessage)
+                    .collect(Collectors.joining(", "));
+                results.get(i).tryEmitError(new ShopifyGraphQLException(message, errors,
+                    data != null ? data.get("m" + i) : null));
+            }
+        }
+
+        private void emitPayload(int index, GraphQLResponse response) {
+            Sinks.One<GraphQLResult<JsonNode>> sink = results.get(index);
+            JsonNode data = response.getData();
+            JsonNode payload = data != null ? data.get("m" + index) : null;
+            if (payload == null || payload.isNull()) {
+                sink.tryEmitValue(new GraphQLResult<>(null, Collections.emptyList(), response));
+                return;
+            }
+            try {
+                JsonNode errors = payload.get("userErrors");
+                List<GraphQLResult.UserError> userErrors = errors != null && errors.isArray()
+                    ? objectMapper.convertValue(errors, userErrorsType)
+                    : Collections.emptyList();
+                sink.tryEmitValue(new GraphQLResult<>(payload, userErrors, response));
+            } catch (IllegalArgumentException e) {
+                log.error("Error binding user errors of {}", entries.get(index).getField(), e);
+                sink.tryEmitError(new ShopifyApiException("Failed to parse mutation user errors", e));
+            }
+        }
+    }
+
+    /**
+     * One mutation field to run inside a batched document.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class BatchedMutation {
+
+        /** The mutation field, e.g. {@code productUpdate}. */
+        private final String field;
+        /** Argument values by argument name. */
+        @lombok.Singular
+        private final Map<String, Object> arguments;
+        /** GraphQL types of the arguments by argument name, e.g. {@code ProductInput!}. */
+        @lombok.Singular
+        private final Map<String, String> argumentTypes;
+        /** The fields to select on the mutation payload. */
+        private final String selection;
+        /** Estimated cost of the mutation and its selection, or null to estimate it from the document. */
+        private final Integer cost;
+
+        /**
+         * Creates a mutation that takes one argument, whose cost is estimated from its document.
+         *
+         * @param field the mutation field
+         * @param argument the argument name
+         * @param argumentType the GraphQL type of the argument
+         * @param value the argument value
+         * @param selection the fields to select on the payload
+         * @return the mutation
+         */
+        public static BatchedMutation of(String field, String argument, String argumentType, Object value,
+                                         String selection) {
+            return BatchedMutation.builder()
+                .field(field)
+                .argument(argument, value)
+                .argumentType(argument, argumentType)
+                .selection(selection)
+                .build();
+        }
+
+        /**
+         * Creates a mutation that takes one argument and has a known cost.
+         *
+         * @param field the mutation field
+         * @param argument the argument name
+         * @param argumentType the GraphQL type of the argument
+         * @param value the argument value
+         * @param selection the fields to select on the payload
+         * @param cost the estimated cost
+         * @return the mutation
+         */
+        public static BatchedMutation of(String field, String argument, String argumentType, Object value,
+                                         String selection, int cost) {
+            return BatchedMutation.builder()
+                .field(field)
+                .argument(argument, value)
+                .argumentType(argument, argumentType)
+                .selection(selection)
+                .cost(cost)
+                .build();
+        }
+    }
+
+    /**
+     * Batching statistics of a batcher.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class MutationBatchStats {
+        /** Documents sent. */
+        private long documents;
+        /** Mutations sent across all documents. */
+        private long mutations;
+        /** Documents sent early because the next mutation would have exceeded the cost limit. */
+        private long costSplits;
+        private double meanMutationsPerDocument;
+        private long maxMutationsPerDocument;
+    }
+}
@@ -0,0 +1,283 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.exception.ShopifyApiException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Batches lookups of single nodes by ID into one {@code nodes(ids: [...])} query per shop.
+ * <p>
+ * The first lookup for a shop opens a batch that collects further lookups until the configured window
+ * ends or the batch holds {@code maxBatchSize} distinct IDs, whichever comes first. Batches are further
+ * limited to as many IDs as fit within the 1000-point query cost, going by the estimated cost of one node
+ * with the given selection, so expensive selections are never rejected for their cost. Repeated IDs within a
+ * batch share one entry and one result. Every caller gets its own node back, or an empty Mono if the ID
+ * does not resolve to a node of this type; if the query fails, every caller of the batch gets the error.
+ *
+ * @param <T> the type the nodes are bound to
+ */
+@Slf4j
+public class NodeBatchLoader<T> {
+
+    // Batch sizes are bucketed by powers of two: 1, 2, 3-4, 5-8, ... 129-256
+    private static final int SIZE_BUCKETS = 9;
+
+    private final ShopifyGraphQLClient graphQLClient;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final String query;
+    private final BatchLoaderConfig config;
+    private final int batchLimit;
+    private final Scheduler scheduler;
+
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requestedIds = new AtomicLong();
+    private final AtomicLong loadedIds = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLongArray batchSizes = new AtomicLongArray(SIZE_BUCKETS);
+
+    /**
+     * Creates a loader.
+     *
+     * @param graphQLClient the client the batches are sent with
+     * @param objectMapper the mapper that binds the nodes
+     * @param typeName the GraphQL type of the nodes, e.g. {@code "Product"}
+     * @param selection the fields to select on each node
+     * @param type the class to bind the nodes to
+     * @param config the batching configuration
+     */
+    public NodeBatchLoader(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, String typeName,
+                           String selection, Class<T> type, BatchLoaderConfig config) {
+        this(graphQLClient, objectMapper, typeName, selection, type, config, Schedulers.parallel());
+    }
+
+    NodeBatchLoader(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, String typeName,
+                    String selection, Class<T> type, BatchLoaderConfig config, Scheduler scheduler) {
+        if (config.getMaxBatchSize() < 1 || config.getMaxBatchSize() > BatchLoaderConfig.MAX_NODES_PER_QUERY) {
+            throw new IllegalArgumentException("Batch size must be between 1 and "
+                + BatchLoaderConfig.MAX_NODES_PER_QUERY + ": " + config.getMaxBatchSize());
+        }
+        this.graphQLClient = graphQLClient;
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.query = "query load" + typeName + "Nodes($ids: [ID!]!) { nodes(ids: $ids) { ... on " + typeName
+            + " { " + selection + " } } }";
+        this.config = config;
+        this.batchLimit = batchLimit(query, config.getMaxBatchSize());
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Loads one node, batched with other lookups for the same shop.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param id the global ID of the node
+     * @return Mono of the node, empty if the ID does not resolve to a node of this type
+     */
+    public Mono<T> load(String shop, String accessToken, String id) {
+        return Mono.defer(() -> {
+            if (!config.isEnabled()) {
+                Batch single = new Batch(shop, accessToken, null);
+                Mono<T> result = single.add(id);
+                single.send();
+                return result;
+            }
+
+            String key = shop + '\n' + accessToken;
+            while (true) {
+                Batch batch = openBatches.computeIfAbsent(key, k -> new Batch(shop, accessToken, k));
+                Mono<T> result = batch.add(id);
+                if (result != null) {
+                    return result;
+                }
+                // The batch was sent between lookup and add; make way for a new one
+                openBatches.remove(key, batch);
+            }
+        });
+    }
+
+    /**
+     * Gets the largest number of distinct IDs sent in one query: the configured batch size, or fewer if that
+     * many nodes would exceed the maximum query cost.
+     *
+     * @return the batch limit
+     */
+    public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    /**
+     * Gets batching statistics since the loader was created.
+     *
+     * @return the statistics
+     */
+    public BatchStats getStats() {
+        long count = batches.get();
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < SIZE_BUCKETS; bucket++) {
+            histogram.put("<=" + (1 << bucket), batchSizes.get(bucket));
+        }
+        return BatchStats.builder()
+            .batches(count)
+            .requestedIds(requestedIds.get())
+            .loadedIds(loadedIds.get())
+            .meanBatchSize(count > 0 ? (double) loadedIds.get() / count : 0)
+            .maxBatchSize(maxBatchSize.get())
+            .batchSizeHistogram(histogram)
+            .build();
+    }
+
+    /**
+     * Fits the batch size to the query cost limit, using the estimated cost of a batch of one.
+     */
+    private static int batchLimit(String query, int maxBatchSize) {
+        OptionalInt nodeCost = new QueryCostEstimator().estimate(
+            GraphQLRequest.of(query, Map.<String, Object>of("ids", List.of("id"))));
+        if (nodeCost.isEmpty() || nodeCost.getAsInt() <= 0) {
+            return maxBatchSize;
+        }
+        return Math.max(1, Math.min(maxBatchSize, QueryCostEstimator.MAX_QUERY_COST / nodeCost.getAsInt()));
+    }
+
+    private void recordBatch(int size) {
+        batches.incrementAndGet();
+        loadedIds.addAndGet(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        int bucket = 32 - Integer.numberOfLeadingZeros(size - 1);
+        batchSizes.incrementAndGet(Math.min(bucket, SIZE_BUCKETS - 1));
+    }
+
+    /**
+     * Lookups collected for one shop; sent once, either by its timer or by the lookup that fills it.
+     */
+    private final class Batch {
+        private final String shop;
+        private final String accessToken;
+        private final String key;
+        private final Map<String, Sinks.One<T>> results = new LinkedHashMap<>();
+        private boolean sent;
+        private Disposable timer;
+
+        private Batch(String shop, String accessToken, String key) {
+            this.shop = shop;
+            this.accessToken = accessToken;
+            this.key = key;
+        }
+
+        /**
+         * Adds a lookup, or returns null if the batch has already been sent.
+         */
+        private Mono<T> add(String id) {
+            Sinks.One<T> result;
+            boolean full;
+            synchronized (this) {
+                if (sent) {
+                    return null;
+                }
+                requestedIds.incrementAndGet();
+                result = results.computeIfAbsent(id, k -> Sinks.one());
+                full = results.size() >= batchLimit;
+                if (full) {
+                    sent = true;
+                } else if (timer == null && key != null) {
+                    timer = scheduler.schedule(this::send, config.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (full) {
+                dispatch();
+            }
+            return result.asMono();
+        }
+
+        private void send() {
+            synchronized (this) {
+                if (sent) {
+                    return;
+                }
+                sent = true;
+            }
+            dispatch();
+        }
+
+        /**
+         * Sends the batch; called once, after {@code sent} is set, so the lookups no longer change.
+         */
+        private void dispatch() {
+            Map<String, Sinks.One<T>> batch = results;
+            synchronized (this) {
+                if (timer != null) {
+                    timer.dispose();
+                }
+            }
+            if (key != null) {
+                openBatches.remove(key, this);
+            }
+
+            List<String> ids = new ArrayList<>(batch.keySet());
+            recordBatch(ids.size());
+            log.debug("Loading {} {} nodes in one query for shop {}", ids.size(), type.getSimpleName(), shop);
+
+            graphQLClient.query(shop, accessToken, query, Map.<String, Object>of("ids", ids))
+                .subscribe(response -> complete(ids, batch, response),
+                    error -> batch.values().forEach(sink -> sink.tryEmitError(error)),
+                    () -> batch.values().forEach(Sinks.One::tryEmitEmpty));
+        }
+
+        private void complete(List<String> ids, Map<String, Sinks.One<T>> batch, GraphQLResponse response) {
+            JsonNode nodes = response.getData() != null ? response.getData().get("nodes") : null;
+            for (int i = 0; i < ids.size(); i++) {
+                Sinks.One<T> sink = batch.get(ids.get(i));
+                JsonNode node = nodes != null ? nodes.get(i) : null;
+                // Nodes of another type come back as empty objects from the inline fragment
+                if (node == null || node.isNull() || node.isEmpty()) {
+                    sink.tryEmitEmpty();
+                    continue;
+                }
+                try {
+                    sink.tryEmitValue(objectMapper.treeToValue(node, type));
+                } catch (Exception e) {
+                    log.error("Error binding {} node {}", type.getSimpleName(), ids.get(i), e);
+                    sink.tryEmitError(new ShopifyApiException("Failed to parse " + type.getSimpleName() + " node", e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Batching statistics of a loader.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class BatchStats {
+        /** Queries sent. */
+        private long batches;
+        /** Lookups made, including repeated IDs. */
+        private long requestedIds;
+        /** Distinct IDs sent in queries. */
+        private long loadedIds;
+        private double meanBatchSize;
+        private long maxBatchSize;
+        /** Number of queries by batch size, keyed by the bucket's upper bound. */
+        private Map<String, Long> batchSizeHistogram;
+    }
+}
@@ -0,0 +1,43 @@
+package com.shopify.sdk.client.graphql;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Configuration for learning the page size of paginated reads.
+ */
+@Data
+@Builder(toBuilder = true)
+public class PageSizeConfig {
+
+    /**
+     * Smallest page size tried; the candidates double from here up to {@code maxPageSize}.
+     */
+    @Builder.Default
+    private final int minPageSize = 10;
+
+    /**
+     * Largest page size tried, at most {@value ConnectionPaginator#MAX_PAGE_SIZE}.
+     */
+    @Builder.Default
+    private final int maxPageSize = ConnectionPaginator.MAX_PAGE_SIZE;
+
+    /**
+     * Weight of the newest observation in a page size's smoothed throughput, between 0 and 1.
+     */
+    @Builder.Default
+    private final double smoothing = 0.3;
+
+    /**
+     * Number of pages after which a neighbour of the best page size is measured again, so the choice
+     * follows changes in the shop's latency or budget.
+     */
+    @Builder.Default
+    private final int probeInterval = 16;
+
+    /**
+     * Whether to learn page sizes; when disabled every read uses its default page size.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+}
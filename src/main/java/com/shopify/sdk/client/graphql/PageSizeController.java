@@ -0,0 +1,238 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.cache.BoundedLruMap;
+import com.shopify.sdk.ratelimit.QueryCost;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Learns the page size that reads a connection fastest, per shop and query.
+ * <p>
+ * Every full page that passes through {@link #observe} is scored in items per second, where a page takes
+ * the longer of its latency and the time the shop's bucket needs to restore its {@code actualQueryCost}
+ * at the reported {@code restoreRate}; so a page that is fast but expensive scores no better than the
+ * budget allows over a long pagination. Page sizes are taken from a ladder that doubles from the minimum
+ * to the maximum. The controller climbs to the next larger size while it is unmeasured, then settles on
+ * the size with the best smoothed score, re-measuring a neighbour every {@code probeInterval} pages.
+ * Learned sizes are kept across calls until the controller is discarded.
+ */
+@Slf4j
+public class PageSizeController {
+
+    private static final int MAX_TRACKED_QUERIES = 10_000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final PageSizeConfig config;
+    private final LongSupplier clock;
+    private final int[] candidates;
+
+    private final BoundedLruMap<String, State> states = new BoundedLruMap<>(MAX_TRACKED_QUERIES);
+    private final LongAdder observations = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+
+    public PageSizeController(PageSizeConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    PageSizeController(PageSizeConfig config, LongSupplier clock) {
+        if (config.getMinPageSize() < 1 || config.getMinPageSize() > config.getMaxPageSize()
+            || config.getMaxPageSize() > ConnectionPaginator.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page sizes must satisfy 1 <= min <= max <= "
+                + ConnectionPaginator.MAX_PAGE_SIZE + ": " + config.getMinPageSize() + ", "
+                + config.getMaxPageSize());
+        }
+        if (config.getProbeInterval() < 1) {
+            throw new IllegalArgumentException("Probe interval must be at least 1: " + config.getProbeInterval());
+        }
+        this.config = config;
+        this.clock = clock;
+
+        List<Integer> sizes = new ArrayList<>();
+        for (int size = config.getMinPageSize(); size < config.getMaxPageSize(); size *= 2) {
+            sizes.add(size);
+        }
+        sizes.add(config.getMaxPageSize());
+        this.candidates = sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Builds the key a query is learned under from its shape: the document, with whitespace collapsed, and
+     * the variables it runs with other than the page size and cursor. Different selections, or the same
+     * selection with and without a filter, learn their own sizes, while the pages of one pagination share
+     * theirs.
+     *
+     * @param connectionPath the dotted path of the connection below {@code data}
+     * @param document the GraphQL document
+     * @param variableNames the names of the variables the document runs with
+     * @return the key
+     */
+    public static String shapeKey(String connectionPath, String document, Collection<String> variableNames) {
+        String variables = variableNames.stream()
+            .filter(name -> !"first".equals(name) && !"after".equals(name))
+            .sorted()
+            .collect(Collectors.joining(","));
+        int documentHash = WHITESPACE.matcher(document.trim()).replaceAll(" ").hashCode();
+        return connectionPath + '#' + Integer.toHexString(documentHash) + '(' + variables + ')';
+    }
+
+    /**
+     * Gets the page size to request next for a query.
+     *
+     * @param shop the shop domain
+     * @param key identifies the query, e.g. its {@link #shapeKey}
+     * @param defaultSize the page size to start from before anything is learned
+     * @return the page size
+     */
+    public int pageSize(String shop, String key, int defaultSize) {
+        if (!config.isEnabled()) {
+            return defaultSize;
+        }
+        return state(shop, key, defaultSize).current();
+    }
+
+    /**
+     * Measures a page read and learns from it once it arrives.
+     *
+     * @param shop the shop domain
+     * @param key identifies the query
+     * @param first the page size requested
+     * @param connectionPath the dotted path of the connection below {@code data}
+     * @param page the page read, not yet subscribed
+     * @return Mono of the same response
+     */
+    public Mono<GraphQLResponse> observe(String shop, String key, int first, String connectionPath,
+                                         Mono<GraphQLResponse> page) {
+        if (!config.isEnabled()) {
+            return page;
+        }
+        return Mono.defer(() -> {
+            long start = clock.getAsLong();
+            return page.doOnNext(response ->
+                record(shop, key, first, connectionPath, response, clock.getAsLong() - start));
+        });
+    }
+
+    /**
+     * Gets learning statistics since the controller was created.
+     *
+     * @return the statistics
+     */
+    public PageSizeStats getStats() {
+        return PageSizeStats.builder()
+            .queries(states.size())
+            .observations(observations.sum())
+            .probes(probes.sum())
+            .build();
+    }
+
+    private void record(String shop, String key, int first, String connectionPath, GraphQLResponse response,
+                        long latencyNanos) {
+        int items = ConnectionSplitter.itemCount(ConnectionSplitter.connection(response.getData(), connectionPath));
+        // A short page ends the connection and says nothing about the throughput of its size
+        if (items == 0 || items < first) {
+            return;
+        }
+        double seconds = latencyNanos / 1e9;
+        QueryCost cost = response.getCost();
+        if (cost != null && cost.getActualQueryCost() != null && cost.getRestoreRate() != null
+            && cost.getRestoreRate() > 0) {
+            seconds = Math.max(seconds, cost.getActualQueryCost() / cost.getRestoreRate());
+        }
+        if (seconds <= 0) {
+            return;
+        }
+        observations.increment();
+        state(shop, key, first).record(nearest(first), items / seconds);
+    }
+
+    private State state(String shop, String key, int defaultSize) {
+        // Queries that have not run for the longest are evicted and start again from the default size
+        return states.computeIfAbsent(shop + '\n' + key, k -> new State(nearest(defaultSize)));
+    }
+
+    private int nearest(int size) {
+        int index = 0;
+        for (int i = 1; i < candidates.length; i++) {
+            if (Math.abs(candidates[i] - size) < Math.abs(candidates[index] - size)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Smoothed throughput of every candidate size of one query, NaN until measured.
+     */
+    private final class State {
+        private final double[] throughput = new double[candidates.length];
+        private int current;
+        private long pages;
+        private boolean probeUp;
+
+        private State(int current) {
+            this.current = current;
+            Arrays.fill(throughput, Double.NaN);
+        }
+
+        private synchronized int current() {
+            return candidates[current];
+        }
+
+        private synchronized void record(int index, double itemsPerSecond) {
+            double previous = throughput[index];
+            throughput[index] = Double.isNaN(previous)
+                ? itemsPerSecond
+                : config.getSmoothing() * itemsPerSecond + (1 - config.getSmoothing()) * previous;
+            pages++;
+
+            int best = best();
+            if (best + 1 < candidates.length && Double.isNaN(throughput[best + 1])) {
+                current = best + 1;
+            } else if (pages % config.getProbeInterval() == 0) {
+                probes.increment();
+                probeUp = !probeUp;
+                int neighbour = probeUp ? best + 1 : best - 1;
+                current = neighbour >= 0 && neighbour < candidates.length ? neighbour : best;
+            } else {
+                current = best;
+            }
+            if (current != index) {
+                log.debug("Page size {} reads {} items/s; next page size {}", candidates[index],
+                    String.format("%.1f", throughput[index]), candidates[current]);
+            }
+        }
+
+        private int best() {
+            int best = -1;
+            for (int i = 0; i < throughput.length; i++) {
+                if (!Double.isNaN(throughput[i]) && (best < 0 || throughput[i] > throughput[best])) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Learning statistics of a controller.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class PageSizeStats {
+        /** Shop and query pairs with a learned page size. */
+        private long queries;
+        /** Full pages measured. */
+        private long observations;
+        /** Pages read at a neighbour of the best size to re-measure it. */
+        private long probes;
+    }
+}
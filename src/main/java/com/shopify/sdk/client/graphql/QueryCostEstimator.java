@@ -0,0 +1,329 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.cache.BoundedLruMap;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.Value;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the requested cost Shopify charges for a GraphQL document before it is sent.
+ * <p>
+ * Documents are parsed once with graphql-java's parser and the syntax trees are cached by query text;
+ * variables are applied on every estimate. The cost follows Shopify's calculation rules: scalar and enum
+ * fields are free, every object costs 1, a connection costs 2 plus its {@code first}/{@code last} page size
+ * times the cost of one node, {@code nodes(ids:)} costs the cost of one node times the number of IDs, and
+ * every top-level mutation field costs 10 in place of its payload object. Estimates can be checked against
+ * the {@code requestedQueryCost} Shopify reports with {@link #recordRequestedCost}.
+ */
+@Slf4j
+public class QueryCostEstimator {
+
+    /**
+     * Largest requested cost Shopify accepts for a single query.
+     */
+    public static final int MAX_QUERY_COST = 1000;
+
+    /**
+     * Error code Shopify returns for a query that requests more than the maximum cost; also used for
+     * queries rejected on their estimate before being sent.
+     */
+    public static final String MAX_COST_EXCEEDED = "MAX_COST_EXCEEDED";
+
+    static final int OBJECT_COST = 1;
+    static final int CONNECTION_COST = 2;
+    static final int MUTATION_COST = 10;
+
+    private static final int MAX_CACHED_DOCUMENTS = 1000;
+    // Cached in place of documents that fail to parse, so they are not parsed again
+    private static final Document UNPARSEABLE = Document.newDocument().build();
+
+    private final BoundedLruMap<String, Document> documents = new BoundedLruMap<>(MAX_CACHED_DOCUMENTS);
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder exactEstimates = new LongAdder();
+    private final LongAdder underestimates = new LongAdder();
+    private final AtomicLong absoluteError = new AtomicLong();
+
+    /**
+     * Estimates the requested cost of a request.
+     *
+     * @param request the GraphQL request
+     * @return the estimated cost, or empty if the query cannot be parsed or names no known operation
+     */
+    public OptionalInt estimate(GraphQLRequest request) {
+        if (request.getQuery() == null) {
+            return OptionalInt.empty();
+        }
+        Document document = parse(request.getQuery());
+        OperationDefinition operation = operation(document, request.getOperationName());
+        if (operation == null) {
+            return OptionalInt.empty();
+        }
+        Calculation calculation = new Calculation(document, operation, request.getVariables());
+        return OptionalInt.of(calculation.rootCost(operation));
+    }
+
+    /**
+     * Records the requested cost Shopify reported for a request next to the estimate made for it.
+     *
+     * @param estimated the estimated cost
+     * @param requested the {@code requestedQueryCost} from the response
+     */
+    public void recordRequestedCost(int estimated, int requested) {
+        comparisons.increment();
+        if (estimated == requested) {
+            exactEstimates.increment();
+        } else if (estimated < requested) {
+            underestimates.increment();
+        }
+        absoluteError.addAndGet(Math.abs(estimated - requested));
+        if (estimated != requested) {
+            log.debug("Estimated query cost {} but Shopify requested {}", estimated, requested);
+        }
+    }
+
+    /**
+     * Gets estimate accuracy and parse cache statistics since the estimator was created.
+     *
+     * @return the statistics
+     */
+    public EstimatorStats getStats() {
+        long compared = comparisons.sum();
+        return EstimatorStats.builder()
+            .parses(parses.sum())
+            .cacheHits(cacheHits.sum())
+            .comparisons(compared)
+            .exactEstimates(exactEstimates.sum())
+            .underestimates(underestimates.sum())
+            .meanAbsoluteError(compared > 0 ? (double) absoluteError.get() / compared : 0)
+            .build();
+    }
+
+    Document parse(String query) {
+        Document cached = documents.get(query);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        parses.increment();
+        Document document;
+        try {
+            document = Parser.parse(query);
+        } catch (InvalidSyntaxException e) {
+            log.debug("Cannot estimate the cost of an unparseable query: {}", e.getMessage());
+            document = UNPARSEABLE;
+        }
+        documents.put(query, document);
+        return document;
+    }
+
+    private static OperationDefinition operation(Document document, String operationName) {
+        for (Definition<?> definition : document.getDefinitions()) {
+            if (definition instanceof OperationDefinition operation
+                    && (operationName == null || operationName.equals(operation.getName()))) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The cost of one operation with one set of variables.
+     */
+    private static final class Calculation {
+        private final Map<String, FragmentDefinition> fragments = new HashMap<>();
+        private final Map<String, Object> variables = new HashMap<>();
+
+        private Calculation(Document document, OperationDefinition operation, Map<String, Object> variables) {
+            for (Definition<?> definition : document.getDefinitions()) {
+                if (definition instanceof FragmentDefinition fragment) {
+                    fragments.put(fragment.getName(), fragment);
+                }
+            }
+            for (VariableDefinition definition : operation.getVariableDefinitions()) {
+                if (definition.getDefaultValue() != null) {
+                    this.variables.put(definition.getName(), definition.getDefaultValue());
+                }
+            }
+            if (variables != null) {
+                this.variables.putAll(variables);
+            }
+        }
+
+        private int rootCost(OperationDefinition operation) {
+            if (operation.getOperation() == OperationDefinition.Operation.MUTATION) {
+                return mutationCost(operation.getSelectionSet());
+            }
+            return selectionCost(operation.getSelectionSet());
+        }
+
+        /**
+         * Charges every top-level mutation field 10 in place of the object cost of its payload, plus
+         * whatever the payload selects.
+         */
+        private int mutationCost(SelectionSet selectionSet) {
+            int cost = 0;
+            for (Selection<?> selection : selectionSet.getSelections()) {
+                cost += selection instanceof Field field
+                    ? MUTATION_COST + selectionCost(field.getSelectionSet())
+                    : mutationCost(fragmentSelection(selection));
+            }
+            return cost;
+        }
+
+        /**
+         * Sums the fields of a selection set; of its fragments only the most expensive counts, as at most
+         * one type condition matches a node.
+         */
+        private int selectionCost(SelectionSet selectionSet) {
+            if (selectionSet == null) {
+                return 0;
+            }
+            int fields = 0;
+            int fragmentCost = 0;
+            for (Selection<?> selection : selectionSet.getSelections()) {
+                if (selection instanceof Field field) {
+                    fields += fieldCost(field);
+                } else {
+                    fragmentCost = Math.max(fragmentCost, selectionCost(fragmentSelection(selection)));
+                }
+            }
+            return fields + fragmentCost;
+        }
+
+        private int fieldCost(Field field) {
+            if (field.getSelectionSet() == null) {
+                return 0;
+            }
+            Integer pageSize = intArgument(field, "first");
+            if (pageSize == null) {
+                pageSize = intArgument(field, "last");
+            }
+            if (pageSize != null) {
+                return CONNECTION_COST + pageSize * nodeCost(field.getSelectionSet());
+            }
+            Integer ids = listArgumentSize(field, "ids");
+            if (ids != null) {
+                return ids * (OBJECT_COST + selectionCost(field.getSelectionSet()));
+            }
+            return OBJECT_COST + selectionCost(field.getSelectionSet());
+        }
+
+        /**
+         * The cost of one node of a connection, selected through {@code edges { node }} or {@code nodes};
+         * the connection's other fields, such as {@code pageInfo}, are covered by its base cost.
+         */
+        private int nodeCost(SelectionSet connection) {
+            int cost = 0;
+            for (Selection<?> selection : connection.getSelections()) {
+                if (selection instanceof Field field && field.getSelectionSet() != null) {
+                    if ("nodes".equals(field.getName())) {
+                        cost = Math.max(cost, OBJECT_COST + selectionCost(field.getSelectionSet()));
+                    } else if ("edges".equals(field.getName())) {
+                        cost = Math.max(cost, edgeCost(field.getSelectionSet()));
+                    }
+                } else if (!(selection instanceof Field)) {
+                    cost = Math.max(cost, nodeCost(fragmentSelection(selection)));
+                }
+            }
+            return cost;
+        }
+
+        private int edgeCost(SelectionSet edge) {
+            int cost = 0;
+            for (Selection<?> selection : edge.getSelections()) {
+                if (selection instanceof Field field && "node".equals(field.getName())) {
+                    cost = Math.max(cost, OBJECT_COST + selectionCost(field.getSelectionSet()));
+                } else if (!(selection instanceof Field)) {
+                    cost = Math.max(cost, edgeCost(fragmentSelection(selection)));
+                }
+            }
+            return cost;
+        }
+
+        private SelectionSet fragmentSelection(Selection<?> selection) {
+            if (selection instanceof InlineFragment inline) {
+                return inline.getSelectionSet();
+            }
+            if (selection instanceof FragmentSpread spread) {
+                FragmentDefinition fragment = fragments.get(spread.getName());
+                if (fragment != null) {
+                    return fragment.getSelectionSet();
+                }
+            }
+            return SelectionSet.newSelectionSet().build();
+        }
+
+        private Integer intArgument(Field field, String name) {
+            Object value = argumentValue(field, name);
+            if (value instanceof IntValue intValue) {
+                return intValue.getValue().intValue();
+            }
+            return value instanceof Number number ? number.intValue() : null;
+        }
+
+        private Integer listArgumentSize(Field field, String name) {
+            Object value = argumentValue(field, name);
+            if (value instanceof ArrayValue array) {
+                return array.getValues().size();
+            }
+            return value instanceof Collection<?> collection ? collection.size() : null;
+        }
+
+        /**
+         * Resolves an argument to its literal, or to the variable value or default it refers to.
+         */
+        private Object argumentValue(Field field, String name) {
+            Argument argument = field.getArguments().stream()
+                .filter(candidate -> name.equals(candidate.getName()))
+                .findFirst()
+                .orElse(null);
+            if (argument == null) {
+                return null;
+            }
+            Value<?> value = argument.getValue();
+            return value instanceof VariableReference reference ? variables.get(reference.getName()) : value;
+        }
+    }
+
+    /**
+     * Estimate accuracy and parse cache statistics of an estimator.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class EstimatorStats {
+        /** Documents parsed, i.e. parse cache misses. */
+        private long parses;
+        private long cacheHits;
+        /** Estimates compared with the requested cost Shopify reported. */
+        private long comparisons;
+        private long exactEstimates;
+        /** Estimates below the reported requested cost. */
+        private long underestimates;
+        private double meanAbsoluteError;
+    }
+}
@@ -0,0 +1,200 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.cache.BoundedLruMap;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second copy of a read that is slower than usual for its shop and uses whichever copy answers first.
+ * <p>
+ * The latencies of each shop's last {@value #WINDOW} reads are kept, and once {@value #MIN_SAMPLES} are known
+ * a read that has not answered by the configured percentile of them is hedged. The percentile is recomputed
+ * every {@value #RECOMPUTE_INTERVAL} reads rather than on every one, so looking up a hedge delay is a single
+ * read of a field. The delay counts from the
+ * moment the first copy is sent, after the rate limiter and concurrency queues, so only reads that are slow
+ * at Shopify are hedged. Hedges draw from a budget that every read refills by {@code hedgeBudgetRatio} and
+ * that starts empty, which caps the extra load at that share of reads. The copy that loses is cancelled,
+ * and a hedge that fails leaves the outcome to the first copy.
+ */
+public final class ReadHedger {
+
+    static final int WINDOW = 100;
+    static final int MIN_SAMPLES = 20;
+    static final int RECOMPUTE_INTERVAL = 10;
+    private static final int MAX_BUDGET = 10;
+    private static final int MAX_TRACKED_SHOPS = 10_000;
+
+    private final GraphQLClientConfig config;
+    private final LongSupplier clock;
+    private final BoundedLruMap<String, Latencies> latencies = new BoundedLruMap<>(MAX_TRACKED_SHOPS);
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wonHedges = new LongAdder();
+    private final LongAdder deniedHedges = new LongAdder();
+    private double budget;
+
+    ReadHedger(GraphQLClientConfig config) {
+        // Timed like Mono.elapsed, on the clock of the scheduler hedge delays wait on
+        this(config, () -> Schedulers.parallel().now(TimeUnit.NANOSECONDS));
+    }
+
+    ReadHedger(GraphQLClientConfig config, LongSupplier clock) {
+        if (config.getHedgePercentile() <= 0 || config.getHedgePercentile() > 1) {
+            throw new IllegalArgumentException("Hedge percentile must be in (0, 1]: " + config.getHedgePercentile());
+        }
+        if (config.getHedgeBudgetRatio() < 0) {
+            throw new IllegalArgumentException("Hedge budget ratio must not be negative: "
+                + config.getHedgeBudgetRatio());
+        }
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Sends a read and hedges it once it is slower than the shop's latency percentile.
+     *
+     * @param shop the shop domain
+     * @param primary builds the first copy, which calls the given callback when it is sent
+     * @param hedge builds the second copy
+     * @return Mono of the first response to arrive
+     */
+    <R> Mono<R> hedge(String shop, Function<Runnable, Mono<R>> primary, Supplier<Mono<R>> hedge) {
+        return Mono.defer(() -> {
+            reads.increment();
+            deposit();
+            Duration delay = delay(shop);
+            if (delay == null) {
+                return primary.apply(null);
+            }
+
+            Sinks.Empty<Void> sent = Sinks.empty();
+            Mono<R> second = sent.asMono()
+                .then(Mono.delay(delay))
+                .then(Mono.defer(() -> {
+                    if (!tryWithdraw()) {
+                        deniedHedges.increment();
+                        return Mono.<R>never();
+                    }
+                    hedges.increment();
+                    // A hedge only emits if the first copy has not signalled yet, so it won
+                    return hedge.get().doOnNext(result -> wonHedges.increment());
+                }))
+                .onErrorResume(error -> Mono.never());
+            return Mono.firstWithSignal(primary.apply(sent::tryEmitEmpty), second);
+        });
+    }
+
+    /**
+     * Measures one copy of a read for its shop's latency percentile.
+     *
+     * @param shop the shop domain
+     * @param exchange the copy, subscribed when it is sent
+     * @param onSent called when the copy is sent, or null
+     * @return Mono of the same response
+     */
+    <R> Mono<R> measure(String shop, Mono<R> exchange, Runnable onSent) {
+        return Mono.defer(() -> {
+            long start = clock.getAsLong();
+            if (onSent != null) {
+                onSent.run();
+            }
+            // A copy cancelled because its hedge won took at least this long
+            return exchange
+                .doOnNext(result -> record(shop, clock.getAsLong() - start))
+                .doOnCancel(() -> record(shop, clock.getAsLong() - start));
+        });
+    }
+
+    /**
+     * Gets hedging statistics since the client was created.
+     *
+     * @return the statistics
+     */
+    public HedgeStats getStats() {
+        return HedgeStats.builder()
+            .reads(reads.sum())
+            .hedges(hedges.sum())
+            .wonHedges(wonHedges.sum())
+            .deniedHedges(deniedHedges.sum())
+            .build();
+    }
+
+    private Duration delay(String shop) {
+        Latencies shopLatencies = latencies.get(shop);
+        long nanos = shopLatencies != null ? shopLatencies.percentile : -1;
+        return nanos >= 0 ? Duration.ofNanos(nanos) : null;
+    }
+
+    private void record(String shop, long latencyNanos) {
+        // The shops that have not read for the longest are evicted and hedge again once they are re-measured
+        latencies.computeIfAbsent(shop, s -> new Latencies(config.getHedgePercentile())).add(latencyNanos);
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + config.getHedgeBudgetRatio());
+    }
+
+    private synchronized boolean tryWithdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    /**
+     * Latencies of a shop's most recent reads and their percentile.
+     */
+    private static final class Latencies {
+        private final double rank;
+        private final long[] samples = new long[WINDOW];
+        private final long[] sorted = new long[WINDOW];
+        private int count;
+        private int next;
+        private int sinceRecompute;
+        /** The percentile of the recent latencies, or -1 while too few are known. */
+        private volatile long percentile = -1;
+
+        private Latencies(double rank) {
+            this.rank = rank;
+        }
+
+        private synchronized void add(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(WINDOW, count + 1);
+            if (count >= MIN_SAMPLES && (percentile < 0 || ++sinceRecompute >= RECOMPUTE_INTERVAL)) {
+                sinceRecompute = 0;
+                System.arraycopy(samples, 0, sorted, 0, count);
+                Arrays.sort(sorted, 0, count);
+                int index = (int) Math.ceil(rank * count) - 1;
+                percentile = sorted[Math.max(0, Math.min(count - 1, index))];
+            }
+        }
+    }
+
+    /**
+     * Hedging statistics of a client.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class HedgeStats {
+        /** Reads that were eligible for hedging. */
+        private long reads;
+        /** Second copies sent. */
+        private long hedges;
+        /** Second copies that answered before the first. */
+        private long wonHedges;
+        /** Reads past their hedge delay that were not hedged because the budget was used up. */
+        private long deniedHedges;
+    }
+}
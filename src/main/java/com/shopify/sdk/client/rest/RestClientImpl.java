@@ -2,14 +2,19 @@ package com.shopify.sdk.client.rest;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerService;
+import com.shopify.sdk.concurrency.ConcurrencyLimitService;
 import com.shopify.sdk.client.HttpClientConfig;
 import com.shopify.sdk.exception.ShopifyApiException;
+import com.shopify.sdk.monitoring.ExchangeTelemetry;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import com.shopify.sdk.retry.RetryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
@@ -24,105 +29,135 @@ public class RestClientImpl implements RestClient {
     
     private final HttpClientConfig httpClientConfig;
     private final ObjectMapper objectMapper;
+    private final RateLimitService rateLimitService;
+    private final RetryService retryService;
+    private final CircuitBreakerService circuitBreakers;
+    private final ConcurrencyLimitService concurrencyLimits;
+    
+    private static final String REST_API_VERSION = "2024-01";
+    private static final String CALL_LIMIT_HEADER = "X-Shopify-Shop-Api-Call-Limit";
     
     @Override
     public Mono<JsonNode> get(String shop, String accessToken, String endpoint, Map<String, Object> queryParams) {
-        String url = buildShopifyUrl(shop, endpoint);
-        
-        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(url);
-        if (queryParams != null) {
-            queryParams.forEach((key, value) -> {
-                if (value != null) {
-                    uriBuilder.queryParam(key, value);
-                }
-            });
-        }
-        
-        return httpClientConfig.getWebClient()
+        ExchangeTelemetry telemetry = new ExchangeTelemetry("REST GET");
+        WebClient.ResponseSpec responseSpec = getRestApiClient(shop)
             .get()
-            .uri(uriBuilder.build().toUri())
+            .uri(uriBuilder -> {
+                uriBuilder.path(normalizeEndpoint(endpoint));
+                if (queryParams != null) {
+                    queryParams.forEach((key, value) -> {
+                        if (value != null) {
+                            uriBuilder.queryParam(key, value);
+                        }
+                    });
+                }
+                return uriBuilder.build();
+            })
+            .attribute(ExchangeTelemetry.ATTRIBUTE, telemetry)
             .header("X-Shopify-Access-Token", accessToken)
             .header("User-Agent", httpClientConfig.getUserAgent())
             .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .bodyToMono(String.class)
-            .map(this::parseResponse)
-            .doOnError(error -> log.error("GET request failed for endpoint: {}", endpoint, error))
-            .onErrorMap(this::mapToShopifyApiException);
+            .retrieve();
+        
+        return execute(shop, "GET", endpoint, telemetry, responseSpec);
     }
     
     @Override
     public Mono<JsonNode> post(String shop, String accessToken, String endpoint, Object body) {
-        String url = buildShopifyUrl(shop, endpoint);
-        
-        return httpClientConfig.getWebClient()
+        ExchangeTelemetry telemetry = new ExchangeTelemetry("REST POST");
+        WebClient.ResponseSpec responseSpec = getRestApiClient(shop)
             .post()
-            .uri(url)
+            .uri(normalizeEndpoint(endpoint))
+            .attribute(ExchangeTelemetry.ATTRIBUTE, telemetry)
             .header("X-Shopify-Access-Token", accessToken)
             .header("User-Agent", httpClientConfig.getUserAgent())
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
             .bodyValue(body != null ? body : "{}")
-            .retrieve()
-            .bodyToMono(String.class)
-            .map(this::parseResponse)
-            .doOnError(error -> log.error("POST request failed for endpoint: {}", endpoint, error))
-            .onErrorMap(this::mapToShopifyApiException);
+            .retrieve();
+        
+        return execute(shop, "POST", endpoint, telemetry, responseSpec);
     }
     
     @Override
     public Mono<JsonNode> put(String shop, String accessToken, String endpoint, Object body) {
-        String url = buildShopifyUrl(shop, endpoint);
-        
-        return httpClientConfig.getWebClient()
+        ExchangeTelemetry telemetry = new ExchangeTelemetry("REST PUT");
+        WebClient.ResponseSpec responseSpec = getRestApiClient(shop)
             .put()
-            .uri(url)
+            .uri(normalizeEndpoint(endpoint))
+            .attribute(ExchangeTelemetry.ATTRIBUTE, telemetry)
             .header("X-Shopify-Access-Token", accessToken)
             .header("User-Agent", httpClientConfig.getUserAgent())
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
             .bodyValue(body != null ? body : "{}")
-            .retrieve()
-            .bodyToMono(String.class)
-            .map(this::parseResponse)
-            .doOnError(error -> log.error("PUT request failed for endpoint: {}", endpoint, error))
-            .onErrorMap(this::mapToShopifyApiException);
+            .retrieve();
+        
+        return execute(shop, "PUT", endpoint, telemetry, responseSpec);
     }
     
     @Override
     public Mono<JsonNode> delete(String shop, String accessToken, String endpoint) {
-        String url = buildShopifyUrl(shop, endpoint);
-        
-        return httpClientConfig.getWebClient()
+        ExchangeTelemetry telemetry = new ExchangeTelemetry("REST DELETE");
+        WebClient.ResponseSpec responseSpec = getRestApiClient(shop)
             .delete()
-            .uri(url)
+            .uri(normalizeEndpoint(endpoint))
+            .attribute(ExchangeTelemetry.ATTRIBUTE, telemetry)
             .header("X-Shopify-Access-Token", accessToken)
             .header("User-Agent", httpClientConfig.getUserAgent())
             .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .bodyToMono(String.class)
-            .map(this::parseResponse)
-            .doOnError(error -> log.error("DELETE request failed for endpoint: {}", endpoint, error))
+            .retrieve();
+        
+        return execute(shop, "DELETE", endpoint, telemetry, responseSpec);
+    }
+    
+    /**
+     * Sends the request once the shop's REST bucket has room and feeds the
+     * call limit header of the response back into the shop's rate limiter.
+     * Failed attempts are retried through the retry service, each waiting for its own permit;
+     * writes are only retried when they failed before reaching Shopify. Attempts fail fast while
+     * the shop's circuit is open or wait while the adaptive concurrency limits are reached.
+     */
+    private Mono<JsonNode> execute(String shop, String method, String endpoint,
+                                   ExchangeTelemetry telemetry, WebClient.ResponseSpec responseSpec) {
+        Mono<JsonNode> attempt = Mono.defer(() -> {
+                long waitStart = System.nanoTime();
+                return rateLimitService.acquireRestPermit(shop)
+                    .then(Mono.defer(() -> {
+                        telemetry.addThrottleWait(System.nanoTime() - waitStart);
+                        return concurrencyLimits.execute(shop,
+                            circuitBreakers.execute(shop, responseSpec.toEntity(String.class)));
+                    }));
+            })
+            .map(entity -> {
+                rateLimitService.updateRestLimitsFromHeader(shop, entity.getHeaders().getFirst(CALL_LIMIT_HEADER));
+                return parseResponse(entity.getBody());
+            })
+            // Error responses, a 429 above all, carry the call limit too
+            .doOnError(WebClientResponseException.class, error ->
+                rateLimitService.updateRestLimitsFromHeader(shop, error.getHeaders().getFirst(CALL_LIMIT_HEADER)));
+        return retryService.withRetry(shop, "GET".equals(method), attempt)
+            .doOnError(error -> log.error("{} request failed for endpoint: {}", method, endpoint, error))
             .onErrorMap(this::mapToShopifyApiException);
     }
     
-    private String buildShopifyUrl(String shop, String endpoint) {
+    private WebClient getRestApiClient(String shop) {
+        return httpClientConfig.getRestApiClient(shop, REST_API_VERSION, () -> buildShopifyBaseUrl(shop));
+    }
+    
+    private String buildShopifyBaseUrl(String shop) {
         String protocol = isTestEnvironment() ? "http" : "https";
         
         // In test environment, shop is already the full host:port
-        String baseUrl;
         if (isTestEnvironment() && shop.contains(":")) {
-            baseUrl = String.format("%s://%s/admin/api/2024-01", protocol, shop);
-        } else {
-            baseUrl = String.format("%s://%s.myshopify.com/admin/api/2024-01", 
-                protocol, shop.replace(".myshopify.com", ""));
-        }
-        
-        if (!endpoint.startsWith("/")) {
-            endpoint = "/" + endpoint;
+            return String.format("%s://%s/admin/api/%s", protocol, shop, REST_API_VERSION);
         }
-        
-        return baseUrl + endpoint;
+        return String.format("%s://%s.myshopify.com/admin/api/%s", 
+            protocol, shop.replace(".myshopify.com", ""), REST_API_VERSION);
+    }
+    
+    private String normalizeEndpoint(String endpoint) {
+        return endpoint.startsWith("/") ? endpoint : "/" + endpoint;
     }
     
     private boolean isTestEnvironment() {
@@ -0,0 +1,198 @@
+package com.shopify.sdk.concurrency;
+
+import com.shopify.sdk.exception.ShopifyApiException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limit on requests in flight that follows the round-trip time, in the style of a gradient limiter.
+ * <p>
+ * Each completed request compares its round-trip time with a long-term average. While they agree the
+ * limit grows by about its square root per round trip; once requests take longer than the tolerance
+ * allows, which means they are queueing somewhere downstream, the limit shrinks in proportion. Requests
+ * over the limit wait in a FIFO queue that callers can leave by cancelling, and a request that timed out
+ * or could not connect cuts the limit by a tenth.
+ */
+@Slf4j
+final class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ConcurrencyLimitConfig config;
+    private final int maxLimit;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+    private double limit;
+    private double longRttNanos = Double.NaN;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitConfig config, int initialLimit, int maxLimit) {
+        this.name = name;
+        this.config = config;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(config.getMinLimit(), Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Waits for a permit; a caller that cancels while waiting gives up its place, and a permit already
+     * handed to it is returned.
+     */
+    Mono<Void> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            // Registered before queueing so a cancellation can never miss a grant
+            sink.onCancel(() -> cancel(waiter));
+
+            boolean granted = false;
+            boolean rejected = false;
+            synchronized (this) {
+                if (queue.isEmpty() && inFlight < permits()) {
+                    inFlight++;
+                    waiter.state = Waiter.GRANTED;
+                    granted = true;
+                } else if (queue.size() >= config.getMaxQueuedRequests()) {
+                    waiter.state = Waiter.CANCELLED;
+                    rejected = true;
+                } else {
+                    queue.addLast(waiter);
+                }
+            }
+
+            if (granted) {
+                sink.success();
+            } else if (rejected) {
+                sink.error(new ShopifyApiException("Too many requests waiting for " + name + ": "
+                    + config.getMaxQueuedRequests()));
+            }
+        });
+    }
+
+    /**
+     * Returns a permit and learns from the request's round-trip time.
+     *
+     * @param rttNanos the round-trip time, or a negative value if the request has no usable time
+     * @param dropped whether the request timed out or could not connect
+     */
+    void release(long rttNanos, boolean dropped) {
+        List<Waiter> granted;
+        synchronized (this) {
+            int sampleInFlight = inFlight;
+            inFlight = Math.max(0, inFlight - 1);
+            if (dropped) {
+                limit = Math.max(config.getMinLimit(), limit * 0.9);
+            } else if (rttNanos > 0) {
+                sampleLocked(rttNanos, sampleInFlight);
+            }
+            granted = drainLocked();
+        }
+        complete(granted);
+    }
+
+    synchronized int getLimit() {
+        return permits();
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getQueued() {
+        return queue.size();
+    }
+
+    synchronized boolean isIdle() {
+        return inFlight == 0 && queue.isEmpty();
+    }
+
+    private void sampleLocked(long rttNanos, int sampleInFlight) {
+        if (Double.isNaN(longRttNanos)) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2.0 / (config.getLongWindow() + 1);
+        }
+        // After a lasting slowdown the average would hold the limit down long after latency recovered
+        if (longRttNanos > 2.0 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+        // A limit the traffic does not reach says nothing about whether it is too high
+        if (sampleInFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRttNanos / rttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double previous = permits();
+        limit = Math.max(config.getMinLimit(),
+            Math.min(maxLimit, limit * (1 - config.getSmoothing()) + estimate * config.getSmoothing()));
+        if (permits() != previous) {
+            log.debug("Concurrency limit for {} now {} (rtt {}ms, long-term {}ms)", name, permits(),
+                rttNanos / 1_000_000, Math.round(longRttNanos / 1_000_000));
+        }
+    }
+
+    private int permits() {
+        return (int) limit;
+    }
+
+    private void cancel(Waiter waiter) {
+        List<Waiter> granted;
+        synchronized (this) {
+            if (waiter.state == Waiter.WAITING) {
+                waiter.state = Waiter.CANCELLED;
+                queue.remove(waiter);
+                return;
+            }
+            if (waiter.state != Waiter.GRANTED) {
+                return;
+            }
+            // The grant raced with the cancellation and was never observed by the subscriber
+            waiter.state = Waiter.CANCELLED;
+            inFlight = Math.max(0, inFlight - 1);
+            granted = drainLocked();
+        }
+        complete(granted);
+    }
+
+    private List<Waiter> drainLocked() {
+        List<Waiter> granted = List.of();
+        while (!queue.isEmpty() && inFlight < permits()) {
+            Waiter waiter = queue.pollFirst();
+            waiter.state = Waiter.GRANTED;
+            inFlight++;
+            if (granted.isEmpty()) {
+                granted = new ArrayList<>();
+            }
+            granted.add(waiter);
+        }
+        return granted;
+    }
+
+    /**
+     * Signals waiters that received a permit. Called outside the lock, as subscribers may run inline.
+     */
+    private static void complete(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            waiter.sink.success();
+        }
+    }
+
+    /**
+     * A request waiting for a permit. State changes happen while holding the limiter's lock.
+     */
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final MonoSink<Void> sink;
+        private int state = WAITING;
+
+        private Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+    }
+}
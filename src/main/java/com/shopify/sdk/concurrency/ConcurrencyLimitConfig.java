@@ -0,0 +1,82 @@
+package com.shopify.sdk.concurrency;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Configuration for the adaptive limits on requests in flight.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ConcurrencyLimitConfig {
+    
+    /**
+     * Requests a shop may have in flight before anything has been measured.
+     */
+    @Builder.Default
+    private final int initialShopLimit = 10;
+    
+    /**
+     * Largest number of requests a shop may have in flight.
+     */
+    @Builder.Default
+    private final int maxShopLimit = 50;
+    
+    /**
+     * Whether requests of all shops together are also admitted through a global limit. Off by default:
+     * the connection pool is sized per host, so one global limit would cap an app that serves many shops
+     * far below what the pool allows. When enabled, size {@link #maxGlobalLimit} to the pool's
+     * connections per host times the number of shops expected to be busy at once.
+     */
+    @Builder.Default
+    private final boolean globalLimitEnabled = false;
+    
+    /**
+     * Requests all shops together may have in flight before anything has been measured, if the global
+     * limit is enabled.
+     */
+    @Builder.Default
+    private final int initialGlobalLimit = 50;
+    
+    /**
+     * Largest number of requests all shops together may have in flight, if the global limit is enabled.
+     */
+    @Builder.Default
+    private final int maxGlobalLimit = 100;
+    
+    /**
+     * Smallest limit, shop or global.
+     */
+    @Builder.Default
+    private final int minLimit = 1;
+    
+    /**
+     * Ratio by which the recent round-trip time may exceed the long-term one before the limit shrinks.
+     */
+    @Builder.Default
+    private final double rttTolerance = 1.5;
+    
+    /**
+     * Weight of each new limit estimate, between 0 and 1.
+     */
+    @Builder.Default
+    private final double smoothing = 0.2;
+    
+    /**
+     * Number of samples the long-term round-trip time is averaged over.
+     */
+    @Builder.Default
+    private final int longWindow = 600;
+    
+    /**
+     * Requests that may wait for a permit per shop and globally; further requests fail at once.
+     */
+    @Builder.Default
+    private final int maxQueuedRequests = 1000;
+    
+    /**
+     * Whether requests are admitted through the adaptive limits.
+     */
+    @Builder.Default
+    private final boolean enabled = true;
+}
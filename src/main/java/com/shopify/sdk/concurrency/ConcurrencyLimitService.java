@@ -0,0 +1,172 @@
+package com.shopify.sdk.concurrency;
+
+import com.shopify.sdk.cache.BoundedLruMap;
+import com.shopify.sdk.exception.ShopifyCircuitOpenException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limits on the requests in flight, per shop and across all shops.
+ * <p>
+ * A fixed connection pool lets every burst through until requests pile up in Netty's pending-acquire
+ * queue, where they cannot be cancelled and their waiting time shows up in every percentile. Instead each
+ * request first takes a permit from its shop's limiter and then, if the global limit is enabled, from the
+ * global one; the limits grow while round-trip times stay flat and shrink once they rise, and requests over
+ * a limit wait in the SDK's own queue. The round-trip time is measured from the moment all permits are held.
+ */
+public class ConcurrencyLimitService {
+    
+    private static final int MAX_TRACKED_SHOPS = 10_000;
+    
+    private final ConcurrencyLimitConfig config;
+    private final LongSupplier clock;
+    // Null unless the global limit is enabled
+    private final AdaptiveConcurrencyLimiter globalLimiter;
+    // Idle limiters only hold a learned limit, which is learned again quickly, so only those are evicted
+    private final BoundedLruMap<String, AdaptiveConcurrencyLimiter> shopLimiters =
+        new BoundedLruMap<>(MAX_TRACKED_SHOPS, AdaptiveConcurrencyLimiter::isIdle);
+    private final LongAdder rejectedRequests = new LongAdder();
+    
+    public ConcurrencyLimitService(ConcurrencyLimitConfig config) {
+        this(config, System::nanoTime);
+    }
+    
+    ConcurrencyLimitService(ConcurrencyLimitConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.globalLimiter = config.isGlobalLimitEnabled()
+            ? new AdaptiveConcurrencyLimiter("all shops", config, config.getInitialGlobalLimit(),
+                config.getMaxGlobalLimit())
+            : null;
+    }
+    
+    /**
+     * Sends a request once the shop's and the global limit admit it.
+     *
+     * @param shop the shop domain, or null to apply the global limit only, if enabled
+     * @param request the request, subscribed once admitted
+     * @return Mono of the request's result
+     */
+    public <T> Mono<T> execute(String shop, Mono<T> request) {
+        if (!config.isEnabled()) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            AdaptiveConcurrencyLimiter shopLimiter = shop != null ? shopLimiter(shop) : null;
+            return Mono.usingWhen(admit(shopLimiter),
+                admission -> {
+                    admission.startNanos = clock.getAsLong();
+                    return request;
+                },
+                admission -> release(admission, false, false),
+                // Calls an open circuit failed fast never reached Shopify
+                (admission, error) -> release(admission, isDropped(error),
+                    error instanceof ShopifyCircuitOpenException),
+                admission -> release(admission, false, true));
+        });
+    }
+    
+    /**
+     * Gets the current limits and queues.
+     *
+     * @return the statistics
+     */
+    public ConcurrencyStats getStats() {
+        // In flight and queued requests summed over the shop limiters
+        int[] shopTotals = new int[2];
+        shopLimiters.forEach((shop, limiter) -> {
+            shopTotals[0] += limiter.getInFlight();
+            shopTotals[1] += limiter.getQueued();
+        });
+        return ConcurrencyStats.builder()
+            .globalLimit(globalLimiter != null ? globalLimiter.getLimit() : 0)
+            .globalInFlight(globalLimiter != null ? globalLimiter.getInFlight() : shopTotals[0])
+            .globalQueued(globalLimiter != null ? globalLimiter.getQueued() : 0)
+            .shopQueued(shopTotals[1])
+            .trackedShops(shopLimiters.size())
+            .evictedShops(shopLimiters.getEvictionCount())
+            .rejectedRequests(rejectedRequests.sum())
+            .build();
+    }
+    
+    /**
+     * Gets the current in-flight limit of a shop.
+     *
+     * @param shop the shop domain
+     * @return the limit
+     */
+    public int getShopLimit(String shop) {
+        AdaptiveConcurrencyLimiter limiter = shopLimiters.get(shop);
+        return limiter != null ? limiter.getLimit() : config.getInitialShopLimit();
+    }
+    
+    private Mono<Admission> admit(AdaptiveConcurrencyLimiter shopLimiter) {
+        Mono<Admission> global = globalLimiter != null
+            ? globalLimiter.acquire().thenReturn(new Admission(shopLimiter))
+            : Mono.fromSupplier(() -> new Admission(shopLimiter));
+        Mono<Admission> admission = shopLimiter == null ? global : shopLimiter.acquire()
+            // Give the shop's permit back if the request never gets a global one
+            .then(Mono.defer(() -> global
+                .doOnError(error -> shopLimiter.release(-1, false))
+                .doOnCancel(() -> shopLimiter.release(-1, false))));
+        return admission.doOnError(error -> rejectedRequests.increment());
+    }
+    
+    private Mono<Void> release(Admission admission, boolean dropped, boolean unmeasured) {
+        long rttNanos = unmeasured ? -1 : clock.getAsLong() - admission.startNanos;
+        if (globalLimiter != null) {
+            globalLimiter.release(rttNanos, dropped);
+        }
+        if (admission.shopLimiter != null) {
+            admission.shopLimiter.release(rttNanos, dropped);
+        }
+        return Mono.empty();
+    }
+    
+    private static boolean isDropped(Throwable error) {
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+    
+    private AdaptiveConcurrencyLimiter shopLimiter(String shop) {
+        return shopLimiters.computeIfAbsent(shop, s -> new AdaptiveConcurrencyLimiter(s, config,
+            config.getInitialShopLimit(), config.getMaxShopLimit()));
+    }
+    
+    /**
+     * Permits held by one request.
+     */
+    private static final class Admission {
+        private final AdaptiveConcurrencyLimiter shopLimiter;
+        private long startNanos;
+        
+        private Admission(AdaptiveConcurrencyLimiter shopLimiter) {
+            this.shopLimiter = shopLimiter;
+        }
+    }
+    
+    /**
+     * Current limits and queues.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class ConcurrencyStats {
+        /** Requests all shops together may have in flight, or 0 without a global limit. */
+        private int globalLimit;
+        /** Requests in flight across all shops. */
+        private int globalInFlight;
+        /** Requests holding a shop permit and waiting for a global one. */
+        private int globalQueued;
+        /** Requests waiting for a permit of their shop. */
+        private int shopQueued;
+        /** Shops with a limiter held in memory. */
+        private int trackedShops;
+        /** Idle shop limiters evicted to stay within the number of tracked shops. */
+        private long evictedShops;
+        /** Requests failed because a queue was full. */
+        private long rejectedRequests;
+    }
+}
@@ -4,10 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shopify.sdk.ShopifyApi;
 import com.shopify.sdk.client.HttpClientConfig;
+import com.shopify.sdk.client.HttpConnectionConfig;
 import com.shopify.sdk.client.HttpClientService;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
 import com.shopify.sdk.client.ShopifyRestClient;
+import com.shopify.sdk.client.graphql.BatchLoaderConfig;
 import com.shopify.sdk.client.graphql.GraphQLClient;
+import com.shopify.sdk.client.graphql.GraphQLClientConfig;
+import com.shopify.sdk.client.graphql.MutationBatchConfig;
 import com.shopify.sdk.client.rest.RestClient;
 import com.shopify.sdk.client.rest.RestClientImpl;
 import com.shopify.sdk.auth.ShopifyOAuth;
@@ -35,14 +39,25 @@ import com.shopify.sdk.ratelimit.RateLimitConfig;
 import com.shopify.sdk.ratelimit.RateLimitService;
 import com.shopify.sdk.retry.RetryConfig;
 import com.shopify.sdk.retry.RetryService;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerConfig;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerService;
+import com.shopify.sdk.concurrency.ConcurrencyLimitConfig;
+import com.shopify.sdk.concurrency.ConcurrencyLimitService;
+import com.shopify.sdk.cache.CacheConfig;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.monitoring.MonitoringService;
+import com.shopify.sdk.monitoring.ShopifyMeterBinder;
 import com.shopify.sdk.webhook.WebhookProcessor;
 import com.shopify.sdk.webhook.WebhookHandler;
 import com.shopify.sdk.webhook.DefaultWebhookHandler;
 import com.shopify.sdk.webhook.BillingWebhookHandler;
+import com.shopify.sdk.webhook.CacheInvalidationWebhookHandler;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -79,20 +94,40 @@ public class ShopifyAutoConfiguration {
     
     @Bean
     @ConditionalOnMissingBean
-    public HttpClientConfig httpClientConfig() {
-        return new HttpClientConfig();
+    public HttpConnectionConfig httpConnectionConfig(ShopifyProperties properties, ShopifyConfigFactory configFactory) {
+        return configFactory.createConnectionConfig(properties);
     }
     
     @Bean
     @ConditionalOnMissingBean
-    public HttpClientService httpClientService(HttpClientConfig httpClientConfig) {
-        return new HttpClientService(httpClientConfig);
+    public HttpClientConfig httpClientConfig(MonitoringService monitoringService,
+                                             HttpConnectionConfig httpConnectionConfig) {
+        return new HttpClientConfig(monitoringService, httpConnectionConfig);
     }
     
     @Bean
     @ConditionalOnMissingBean
-    public GraphQLClient graphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper) {
-        return new GraphQLClient(httpClientConfig, objectMapper);
+    public HttpClientService httpClientService(HttpClientConfig httpClientConfig, RetryService retryService) {
+        return new HttpClientService(httpClientConfig, retryService);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public GraphQLClientConfig graphQLClientConfig() {
+        return GraphQLClientConfig.builder().build();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public GraphQLClient graphQLClient(HttpClientConfig httpClientConfig, 
+                                       ObjectMapper objectMapper,
+                                       RateLimitService rateLimitService,
+                                       GraphQLClientConfig graphQLClientConfig,
+                                       RetryService retryService,
+                                       CircuitBreakerService circuitBreakerService,
+                                       ConcurrencyLimitService concurrencyLimitService) {
+        return new GraphQLClient(httpClientConfig, objectMapper, rateLimitService, graphQLClientConfig, retryService,
+            circuitBreakerService, concurrencyLimitService);
     }
     
     @Bean
@@ -103,8 +138,14 @@ public class ShopifyAutoConfiguration {
     
     @Bean
     @ConditionalOnMissingBean
-    public RestClient restClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper) {
-        return new RestClientImpl(httpClientConfig, objectMapper);
+    public RestClient restClient(HttpClientConfig httpClientConfig, 
+                                 ObjectMapper objectMapper,
+                                 RateLimitService rateLimitService,
+                                 RetryService retryService,
+                                 CircuitBreakerService circuitBreakerService,
+                                 ConcurrencyLimitService concurrencyLimitService) {
+        return new RestClientImpl(httpClientConfig, objectMapper, rateLimitService, retryService,
+            circuitBreakerService, concurrencyLimitService);
     }
     
     @Bean
@@ -115,14 +156,29 @@ public class ShopifyAutoConfiguration {
     
     @Bean
     @ConditionalOnMissingBean
-    public ProductService productService(ShopifyGraphQLClient shopifyGraphQLClient, ObjectMapper objectMapper) {
-        return new ProductService(shopifyGraphQLClient, objectMapper);
+    public BatchLoaderConfig batchLoaderConfig() {
+        return BatchLoaderConfig.builder().build();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MutationBatchConfig mutationBatchConfig() {
+        return MutationBatchConfig.builder().build();
     }
     
     @Bean
     @ConditionalOnMissingBean
-    public OrderService orderService(ShopifyGraphQLClient shopifyGraphQLClient, ObjectMapper objectMapper) {
-        return new OrderService(shopifyGraphQLClient, objectMapper);
+    public ProductService productService(ShopifyGraphQLClient shopifyGraphQLClient, ObjectMapper objectMapper,
+                                         BatchLoaderConfig batchLoaderConfig,
+                                         MutationBatchConfig mutationBatchConfig) {
+        return new ProductService(shopifyGraphQLClient, objectMapper, batchLoaderConfig, mutationBatchConfig);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderService orderService(ShopifyGraphQLClient shopifyGraphQLClient, ObjectMapper objectMapper,
+                                     BatchLoaderConfig batchLoaderConfig) {
+        return new OrderService(shopifyGraphQLClient, objectMapper, batchLoaderConfig);
     }
     
     @Bean
@@ -174,8 +230,9 @@ public class ShopifyAutoConfiguration {
     @ConditionalOnMissingBean
     public BillingService billingService(ShopifyGraphQLClient shopifyGraphQLClient, 
                                        ShopifyRestClient shopifyRestClient, 
-                                       ObjectMapper objectMapper) {
-        return new BillingService(shopifyGraphQLClient, shopifyRestClient, objectMapper);
+                                       ObjectMapper objectMapper,
+                                       ResponseCache responseCache) {
+        return new BillingService(shopifyGraphQLClient, shopifyRestClient, objectMapper, responseCache);
     }
     
     @Bean
@@ -204,15 +261,17 @@ public class ShopifyAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public LocationService locationService(ShopifyRestClient shopifyRestClient, 
-                                         ObjectMapper objectMapper) {
-        return new LocationService(shopifyRestClient, objectMapper);
+                                         ObjectMapper objectMapper,
+                                         ResponseCache responseCache) {
+        return new LocationService(shopifyRestClient, objectMapper, responseCache);
     }
     
     @Bean
     @ConditionalOnMissingBean
     public DiscountService discountService(ShopifyRestClient shopifyRestClient, 
-                                         ObjectMapper objectMapper) {
-        return new DiscountService(shopifyRestClient, objectMapper);
+                                         ObjectMapper objectMapper,
+                                         ResponseCache responseCache) {
+        return new DiscountService(shopifyRestClient, objectMapper, responseCache);
     }
     
     @Bean
@@ -259,8 +318,9 @@ public class ShopifyAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public ScriptTagService scriptTagService(ShopifyRestClient shopifyRestClient, 
-                                           ObjectMapper objectMapper) {
-        return new ScriptTagService(shopifyRestClient, objectMapper);
+                                           ObjectMapper objectMapper,
+                                           ResponseCache responseCache) {
+        return new ScriptTagService(shopifyRestClient, objectMapper, responseCache);
     }
     
     @Bean
@@ -287,6 +347,49 @@ public class ShopifyAutoConfiguration {
         return new RetryService(retryConfig);
     }
     
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerConfig circuitBreakerConfig() {
+        return CircuitBreakerConfig.builder().build();
+    }
+    
+    /**
+     * Per-shop circuit breakers; state changes are also published as {@code CircuitStateTransition}
+     * application events.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerService circuitBreakerService(CircuitBreakerConfig circuitBreakerConfig,
+                                                       ApplicationEventPublisher eventPublisher) {
+        CircuitBreakerService circuitBreakerService = new CircuitBreakerService(circuitBreakerConfig);
+        circuitBreakerService.addListener(eventPublisher::publishEvent);
+        return circuitBreakerService;
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ConcurrencyLimitConfig concurrencyLimitConfig() {
+        return ConcurrencyLimitConfig.builder().build();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ConcurrencyLimitService concurrencyLimitService(ConcurrencyLimitConfig concurrencyLimitConfig) {
+        return new ConcurrencyLimitService(concurrencyLimitConfig);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheConfig cacheConfig() {
+        return CacheConfig.builder().build();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ResponseCache responseCache(CacheConfig cacheConfig) {
+        return new ResponseCache(cacheConfig);
+    }
+    
     @Bean
     @ConditionalOnMissingBean
     public MonitoringService monitoringService() {
@@ -299,6 +402,12 @@ public class ShopifyAutoConfiguration {
         return new BillingWebhookHandler(billingService);
     }
     
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheInvalidationWebhookHandler cacheInvalidationWebhookHandler(ResponseCache responseCache) {
+        return new CacheInvalidationWebhookHandler(responseCache);
+    }
+    
     @Bean
     @ConditionalOnMissingBean
     public DefaultWebhookHandler defaultWebhookHandler() {
@@ -341,4 +450,30 @@ public class ShopifyAutoConfiguration {
                              monitoringService, shopifyOAuth, jwtTokenValidator, sessionManager,
                              webhookProcessor);
     }
+    
+    /**
+     * Publishes SDK, rate limiter, webhook and connection pool statistics when Micrometer is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class ShopifyMetricsConfiguration {
+        
+        @Bean
+        @ConditionalOnMissingBean
+        public ShopifyMeterBinder shopifyMeterBinder(MonitoringService monitoringService,
+                                                     RateLimitService rateLimitService,
+                                                     ObjectProvider<WebhookProcessor> webhookProcessor,
+                                                     ObjectProvider<HttpClientConfig> httpClientConfig,
+                                                     ObjectProvider<GraphQLClient> graphQLClient,
+                                                     ObjectProvider<ResponseCache> responseCache,
+                                                     ObjectProvider<RetryService> retryService,
+                                                     ObjectProvider<CircuitBreakerService> circuitBreakerService,
+                                                     ObjectProvider<ConcurrencyLimitService> concurrencyLimitService) {
+            HttpClientConfig clientConfig = httpClientConfig.getIfAvailable();
+            return new ShopifyMeterBinder(monitoringService, rateLimitService, webhookProcessor.getIfAvailable(),
+                clientConfig != null ? clientConfig.getConnectionPoolStats() : null, graphQLClient.getIfAvailable(),
+                responseCache.getIfAvailable(), retryService.getIfAvailable(), circuitBreakerService.getIfAvailable(),
+                concurrencyLimitService.getIfAvailable());
+        }
+    }
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.shopify.sdk.config;
 
+import com.shopify.sdk.client.HttpConnectionConfig;
 import com.shopify.sdk.model.common.LogFunction;
 import com.shopify.sdk.model.common.LogSeverity;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -23,6 +25,32 @@ public class ShopifyConfigFactory {
         return createContext(properties, null);
     }
     
+    /**
+     * Creates the HTTP connection configuration from ShopifyProperties.
+     *
+     * @param properties the Spring Boot configuration properties
+     * @return the connection configuration
+     */
+    public HttpConnectionConfig createConnectionConfig(ShopifyProperties properties) {
+        ShopifyProperties.Http http = properties.getHttp();
+        return HttpConnectionConfig.builder()
+            .http2(http.isHttp2())
+            .maxConnectionsPerHost(http.getMaxConnectionsPerHost())
+            .hostMaxConnections(Map.copyOf(http.getHostMaxConnections()))
+            .maxPendingAcquire(http.getMaxPendingAcquire())
+            .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+            .maxIdleTime(http.getMaxIdleTime())
+            .maxLifeTime(http.getMaxLifeTime())
+            .evictionInterval(http.getEvictionInterval())
+            .tcpKeepAlive(http.isTcpKeepAlive())
+            .keepAliveIdle(http.getKeepAliveIdle())
+            .keepAliveInterval(http.getKeepAliveInterval())
+            .keepAliveCount(http.getKeepAliveCount())
+            .tlsSessionCacheSize(http.getTlsSessionCacheSize())
+            .tlsSessionTimeout(http.getTlsSessionTimeout())
+            .build();
+    }
+    
     /**
      * Creates a ShopifyAuthContext from ShopifyProperties with custom log function.
      *
@@ -5,7 +5,10 @@ import com.shopify.sdk.model.common.LogSeverity;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Spring Boot configuration properties for Shopify SDK.
@@ -80,6 +83,11 @@ public class ShopifyProperties {
      */
     private final Logging logging = new Logging();
     
+    /**
+     * HTTP connection configuration.
+     */
+    private final Http http = new Http();
+    
     /**
      * Whether the app is initialized for local testing.
      */
@@ -102,4 +110,77 @@ public class ShopifyProperties {
          */
         private boolean timestamps = false;
     }
-}
\ No newline at end of file
+    
+    @Data
+    public static class Http {
+        /**
+         * Whether to negotiate HTTP/2 with ALPN, falling back to HTTP/1.1.
+         */
+        private boolean http2 = false;
+        
+        /**
+         * The maximum number of connections to each shop host.
+         */
+        private int maxConnectionsPerHost = 100;
+        
+        /**
+         * Connection limits of particular hosts, overriding maxConnectionsPerHost.
+         */
+        private Map<String, Integer> hostMaxConnections = new HashMap<>();
+        
+        /**
+         * The maximum number of requests per host waiting for a connection.
+         */
+        private int maxPendingAcquire = 500;
+        
+        /**
+         * How long a request waits for a connection.
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+        
+        /**
+         * How long an unused connection stays open.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        
+        /**
+         * How long a connection is used before it is closed.
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        
+        /**
+         * How often idle and expired connections are closed in the background.
+         */
+        private Duration evictionInterval = Duration.ofSeconds(60);
+        
+        /**
+         * Whether to send TCP keep-alive probes on idle connections.
+         */
+        private boolean tcpKeepAlive = true;
+        
+        /**
+         * Idle time before the first keep-alive probe. Only applied with the JDK transport.
+         */
+        private Duration keepAliveIdle = Duration.ofSeconds(60);
+        
+        /**
+         * Time between keep-alive probes. Only applied with the JDK transport.
+         */
+        private Duration keepAliveInterval = Duration.ofSeconds(15);
+        
+        /**
+         * Unanswered keep-alive probes after which a connection is closed. Only applied with the JDK transport.
+         */
+        private int keepAliveCount = 3;
+        
+        /**
+         * The number of TLS sessions kept for resumption.
+         */
+        private int tlsSessionCacheSize = 1000;
+        
+        /**
+         * How long a TLS session can be resumed.
+         */
+        private Duration tlsSessionTimeout = Duration.ofHours(1);
+    }
+}
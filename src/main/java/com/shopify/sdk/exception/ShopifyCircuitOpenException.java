@@ -0,0 +1,21 @@
+package com.shopify.sdk.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown without sending a request when the shop's circuit is open.
+ */
+@Getter
+public class ShopifyCircuitOpenException extends ShopifyApiException {
+    
+    private final String shop;
+    private final Duration retryAfter;
+    
+    public ShopifyCircuitOpenException(String shop, Duration retryAfter) {
+        super("Circuit for " + shop + " is open; not sending requests for another " + retryAfter.toMillis() + "ms");
+        this.shop = shop;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,5 +1,6 @@
 package com.shopify.sdk.exception;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Getter;
 
 import java.util.List;
@@ -12,14 +13,25 @@ public class ShopifyGraphQLException extends ShopifyApiException {
     
     private final List<GraphQLError> errors;
     
+    /**
+     * The {@code data} Shopify returned next to the errors, or null if it returned none.
+     */
+    private final JsonNode data;
+    
     public ShopifyGraphQLException(String message, List<GraphQLError> errors) {
+        this(message, errors, null);
+    }
+    
+    public ShopifyGraphQLException(String message, List<GraphQLError> errors, JsonNode data) {
         super(message);
         this.errors = errors;
+        this.data = data;
     }
     
     public ShopifyGraphQLException(List<GraphQLError> errors) {
         super("GraphQL request failed with " + errors.size() + " error(s)");
         this.errors = errors;
+        this.data = null;
     }
     
     @Getter
@@ -0,0 +1,25 @@
+package com.shopify.sdk.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Exception thrown when Shopify throttles a GraphQL query because the shop's bucket cannot cover its cost.
+ */
+@Getter
+public class ShopifyThrottledException extends ShopifyGraphQLException {
+    
+    public static final String THROTTLED = "THROTTLED";
+    
+    private final Integer requestedCost;
+    private final Duration retryAfter;
+    
+    public ShopifyThrottledException(String message, List<GraphQLError> errors, Integer requestedCost,
+                                     Duration retryAfter) {
+        super(message, errors);
+        this.requestedCost = requestedCost;
+        this.retryAfter = retryAfter;
+    }
+}
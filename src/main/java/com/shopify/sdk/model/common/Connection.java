@@ -37,6 +37,7 @@ public class Connection<T> {
      * @return list of nodes
      */
     public List<T> getNodes() {
+        List<Edge<T>> edges = getEdges();
         if (edges == null) {
             return List.of();
         }
@@ -62,6 +63,7 @@ public class Connection<T> {
      * @return true if there are items, false otherwise
      */
     public boolean hasItems() {
+        List<Edge<T>> edges = getEdges();
         return edges != null && !edges.isEmpty();
     }
     
@@ -71,6 +73,7 @@ public class Connection<T> {
      * @return the start cursor, or null if no items
      */
     public String getStartCursor() {
+        PageInfo pageInfo = getPageInfo();
         return pageInfo != null ? pageInfo.getStartCursor() : null;
     }
     
@@ -80,6 +83,7 @@ public class Connection<T> {
      * @return the end cursor, or null if no items
      */
     public String getEndCursor() {
+        PageInfo pageInfo = getPageInfo();
         return pageInfo != null ? pageInfo.getEndCursor() : null;
     }
     
@@ -89,6 +93,7 @@ public class Connection<T> {
      * @return true if there are more items, false otherwise
      */
     public boolean hasNextPage() {
+        PageInfo pageInfo = getPageInfo();
         return pageInfo != null && Boolean.TRUE.equals(pageInfo.getHasNextPage());
     }
     
@@ -98,6 +103,7 @@ public class Connection<T> {
      * @return true if there are more items, false otherwise
      */
     public boolean hasPreviousPage() {
+        PageInfo pageInfo = getPageInfo();
         return pageInfo != null && Boolean.TRUE.equals(pageInfo.getHasPreviousPage());
     }
 }
\ No newline at end of file
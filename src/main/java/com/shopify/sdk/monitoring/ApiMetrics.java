@@ -4,6 +4,7 @@ import lombok.Data;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -18,12 +19,21 @@ public class ApiMetrics {
     private final LongAdder successfulRequests = new LongAdder();
     private final LongAdder failedRequests = new LongAdder();
     private final LongAdder retryAttempts = new LongAdder();
+    // Requests delayed by the SDK's rate limiter and responses Shopify throttled with 429, counted apart so a
+    // request that waited locally and was still throttled is not counted twice in either
     private final LongAdder rateLimitedRequests = new LongAdder();
+    private final LongAdder throttledResponses = new LongAdder();
+    
+    // The same counters over sliding windows of the last 1 to 15 minutes, as channels of one counter
+    private static final int REQUESTS = 0;
+    private static final int FAILURES = 1;
+    private static final int RETRIES = 2;
+    private static final int RATE_LIMITS = 3;
+    private static final int THROTTLED = 4;
+    private final WindowedCounter recent = new WindowedCounter(5);
     
     // Timing statistics
-    private final AtomicLong totalResponseTimeMs = new AtomicLong(0);
-    private final AtomicLong minResponseTimeMs = new AtomicLong(Long.MAX_VALUE);
-    private final AtomicLong maxResponseTimeMs = new AtomicLong(0);
+    private final LatencyHistogram responseTimes;
     
     // Error statistics
     private final LongAdder timeoutErrors = new LongAdder();
@@ -32,6 +42,17 @@ public class ApiMetrics {
     private final LongAdder serverErrors = new LongAdder();
     private final LongAdder clientErrors = new LongAdder();
     
+    // Response status classes
+    private final LongAdder informationalResponses = new LongAdder();
+    private final LongAdder successResponses = new LongAdder();
+    private final LongAdder redirectResponses = new LongAdder();
+    private final LongAdder clientErrorResponses = new LongAdder();
+    private final LongAdder serverErrorResponses = new LongAdder();
+    
+    // Transfer statistics
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    
     // Rate limiting statistics
     private final AtomicLong totalRateLimitWaitTimeMs = new AtomicLong(0);
     private final AtomicLong maxRateLimitWaitTimeMs = new AtomicLong(0);
@@ -42,11 +63,24 @@ public class ApiMetrics {
     private volatile Instant lastSuccessTime;
     private volatile Instant lastFailureTime;
     
+    public ApiMetrics() {
+        this(LatencyHistogram.DEFAULT_SUB_BUCKET_BITS);
+    }
+    
+    /**
+     * Creates metrics whose response time histogram has the given precision, e.g.
+     * {@link LatencyHistogram#COARSE_SUB_BUCKET_BITS} for metrics kept per shop.
+     */
+    public ApiMetrics(int latencySubBucketBits) {
+        this.responseTimes = new LatencyHistogram(latencySubBucketBits);
+    }
+    
     /**
      * Records a request attempt.
      */
     public void recordRequest() {
         totalRequests.increment();
+        recent.increment(REQUESTS);
         lastRequestTime = Instant.now();
     }
     
@@ -54,40 +88,120 @@ public class ApiMetrics {
      * Records a successful request.
      */
     public void recordSuccess(Duration responseTime) {
+        recordSuccessNanos(responseTime.toNanos());
+    }
+    
+    /**
+     * Records a successful request with its response time in nanoseconds.
+     */
+    public void recordSuccessNanos(long responseTimeNanos) {
         successfulRequests.increment();
         lastSuccessTime = Instant.now();
-        recordResponseTime(responseTime);
+        recordResponseTimeNanos(responseTimeNanos);
     }
     
     /**
      * Records a failed request.
      */
     public void recordFailure(Duration responseTime, Throwable error) {
+        recordFailureNanos(responseTime != null ? responseTime.toNanos() : -1, error);
+    }
+    
+    /**
+     * Records a failed request with its response time in nanoseconds, or a negative value if unknown.
+     */
+    public void recordFailureNanos(long responseTimeNanos, Throwable error) {
         failedRequests.increment();
+        recent.increment(FAILURES);
         lastFailureTime = Instant.now();
         
-        if (responseTime != null) {
-            recordResponseTime(responseTime);
+        if (responseTimeNanos >= 0) {
+            recordResponseTimeNanos(responseTimeNanos);
         }
         
         // Categorize the error
         categorizeError(error);
     }
     
+    /**
+     * Records a request that failed with an error status code.
+     */
+    public void recordFailureStatus(long responseTimeNanos, int statusCode) {
+        failedRequests.increment();
+        recent.increment(FAILURES);
+        lastFailureTime = Instant.now();
+        recordResponseTimeNanos(responseTimeNanos);
+        
+        if (statusCode == 401 || statusCode == 403) {
+            authenticationErrors.increment();
+        } else if (statusCode >= 500) {
+            serverErrors.increment();
+        } else if (statusCode >= 400) {
+            clientErrors.increment();
+        }
+    }
+    
+    /**
+     * Records a request that Shopify rejected with 429 Too Many Requests. It counts as throttled, not as
+     * failed, and apart from the waits of the SDK's own rate limiter.
+     */
+    public void recordThrottledResponseNanos(long responseTimeNanos) {
+        throttledResponses.increment();
+        recent.increment(THROTTLED);
+        recordResponseTimeNanos(responseTimeNanos);
+    }
+    
+    /**
+     * Records the status class of a response.
+     */
+    public void recordStatus(int statusCode) {
+        switch (statusCode / 100) {
+            case 1 -> informationalResponses.increment();
+            case 2 -> successResponses.increment();
+            case 3 -> redirectResponses.increment();
+            case 4 -> clientErrorResponses.increment();
+            case 5 -> serverErrorResponses.increment();
+            default -> { }
+        }
+    }
+    
+    /**
+     * Records bytes written to the request body.
+     */
+    public void recordBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+    
+    /**
+     * Records bytes read from the response body.
+     */
+    public void recordBytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+    
     /**
      * Records a retry attempt.
      */
     public void recordRetry() {
         retryAttempts.increment();
+        recent.increment(RETRIES);
     }
     
     /**
      * Records rate limiting occurrence.
      */
     public void recordRateLimit(Duration waitTime) {
+        recordRateLimitNanos(waitTime.toNanos());
+    }
+    
+    /**
+     * Records rate limiting occurrence with the wait time in nanoseconds.
+     */
+    public void recordRateLimitNanos(long waitTimeNanos) {
         rateLimitedRequests.increment();
+        recent.increment(RATE_LIMITS);
         
-        long waitTimeMs = waitTime.toMillis();
+        long waitTimeMs = TimeUnit.NANOSECONDS.toMillis(waitTimeNanos);
         totalRateLimitWaitTimeMs.addAndGet(waitTimeMs);
         
         // Update max wait time
@@ -103,28 +217,8 @@ public class ApiMetrics {
     /**
      * Records response time.
      */
-    private void recordResponseTime(Duration responseTime) {
-        long responseTimeMs = responseTime.toMillis();
-        
-        totalResponseTimeMs.addAndGet(responseTimeMs);
-        
-        // Update min response time
-        long currentMin = minResponseTimeMs.get();
-        while (responseTimeMs < currentMin) {
-            if (minResponseTimeMs.compareAndSet(currentMin, responseTimeMs)) {
-                break;
-            }
-            currentMin = minResponseTimeMs.get();
-        }
-        
-        // Update max response time
-        long currentMax = maxResponseTimeMs.get();
-        while (responseTimeMs > currentMax) {
-            if (maxResponseTimeMs.compareAndSet(currentMax, responseTimeMs)) {
-                break;
-            }
-            currentMax = maxResponseTimeMs.get();
-        }
+    private void recordResponseTimeNanos(long responseTimeNanos) {
+        responseTimes.recordNanos(responseTimeNanos);
     }
     
     /**
@@ -204,23 +298,28 @@ public class ApiMetrics {
      * Gets the average response time in milliseconds.
      */
     public double getAverageResponseTimeMs() {
-        long total = getSuccessfulRequests() + getFailedRequests();
-        return total > 0 ? (double) totalResponseTimeMs.get() / total : 0.0;
+        return responseTimes.getMeanMs();
     }
     
     /**
-     * Gets the minimum response time in milliseconds.
+     * Gets the minimum response time in milliseconds, accurate to the histogram's resolution.
      */
     public long getMinResponseTimeMs() {
-        long min = minResponseTimeMs.get();
-        return min == Long.MAX_VALUE ? 0 : min;
+        return Math.round(responseTimes.snapshot().getMinMs());
     }
     
     /**
-     * Gets the maximum response time in milliseconds.
+     * Gets the maximum response time in milliseconds, accurate to the histogram's resolution.
      */
     public long getMaxResponseTimeMs() {
-        return maxResponseTimeMs.get();
+        return Math.round(responseTimes.snapshot().getMaxMs());
+    }
+    
+    /**
+     * Gets response time percentiles for the last 1, 5 and 15 minutes and since startup.
+     */
+    public LatencyHistogram.LatencyReport getLatencyReport() {
+        return responseTimes.getReport();
     }
     
     /**
@@ -231,12 +330,47 @@ public class ApiMetrics {
     }
     
     /**
-     * Gets the number of rate limited requests.
+     * Gets the number of requests delayed by the SDK's rate limiter.
      */
     public long getRateLimitedRequests() {
         return rateLimitedRequests.sum();
     }
     
+    /**
+     * Gets the number of responses Shopify throttled with 429 Too Many Requests.
+     */
+    public long getThrottledResponses() {
+        return throttledResponses.sum();
+    }
+    
+    /**
+     * Gets the number of responses with the given status class, e.g. 2 for 2xx.
+     */
+    public long getResponsesByStatusClass(int statusClass) {
+        return switch (statusClass) {
+            case 1 -> informationalResponses.sum();
+            case 2 -> successResponses.sum();
+            case 3 -> redirectResponses.sum();
+            case 4 -> clientErrorResponses.sum();
+            case 5 -> serverErrorResponses.sum();
+            default -> 0;
+        };
+    }
+    
+    /**
+     * Gets the number of request body bytes sent.
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+    
+    /**
+     * Gets the number of response body bytes received.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+    
     /**
      * Gets the total time spent waiting for rate limits.
      */
@@ -259,11 +393,30 @@ public class ApiMetrics {
     }
     
     /**
-     * Gets requests per second based on uptime.
+     * Gets requests per second over the last minute.
      */
     public double getRequestsPerSecond() {
-        double uptimeSeconds = getUptime().toMillis() / 1000.0;
-        return uptimeSeconds > 0 ? getTotalRequests() / uptimeSeconds : 0.0;
+        return (double) recent.getCountLastMinutes(REQUESTS, 1) / recent.getWindowSecondsLastMinutes(1);
+    }
+    
+    /**
+     * Gets request, failure, retry, rate limit and throttled response counts over the last given number of minutes.
+     *
+     * @param minutes the length of the window, between 1 and 15
+     */
+    public WindowSummary getWindow(int minutes) {
+        long requests = recent.getCountLastMinutes(REQUESTS, minutes);
+        long failures = recent.getCountLastMinutes(FAILURES, minutes);
+        return WindowSummary.builder()
+            .minutes(minutes)
+            .requests(requests)
+            .failures(failures)
+            .retries(recent.getCountLastMinutes(RETRIES, minutes))
+            .rateLimited(recent.getCountLastMinutes(RATE_LIMITS, minutes))
+            .throttled(recent.getCountLastMinutes(THROTTLED, minutes))
+            .requestsPerSecond((double) requests / recent.getWindowSecondsLastMinutes(minutes))
+            .failureRate(requests > 0 ? Math.min(100.0, failures * 100.0 / requests) : 0.0)
+            .build();
     }
     
     /**
@@ -275,10 +428,10 @@ public class ApiMetrics {
         failedRequests.reset();
         retryAttempts.reset();
         rateLimitedRequests.reset();
+        throttledResponses.reset();
+        recent.reset();
         
-        totalResponseTimeMs.set(0);
-        minResponseTimeMs.set(Long.MAX_VALUE);
-        maxResponseTimeMs.set(0);
+        responseTimes.reset();
         
         timeoutErrors.reset();
         connectionErrors.reset();
@@ -286,6 +439,14 @@ public class ApiMetrics {
         serverErrors.reset();
         clientErrors.reset();
         
+        informationalResponses.reset();
+        successResponses.reset();
+        redirectResponses.reset();
+        clientErrorResponses.reset();
+        serverErrorResponses.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+        
         totalRateLimitWaitTimeMs.set(0);
         maxRateLimitWaitTimeMs.set(0);
         
@@ -298,6 +459,7 @@ public class ApiMetrics {
      * Creates a summary of the current metrics.
      */
     public MetricsSummary getSummary() {
+        LatencyHistogram.Snapshot sinceStart = responseTimes.snapshot();
         return MetricsSummary.builder()
             .totalRequests(getTotalRequests())
             .successfulRequests(getSuccessfulRequests())
@@ -305,13 +467,24 @@ public class ApiMetrics {
             .successRate(getSuccessRate())
             .failureRate(getFailureRate())
             .averageResponseTimeMs(getAverageResponseTimeMs())
-            .minResponseTimeMs(getMinResponseTimeMs())
-            .maxResponseTimeMs(getMaxResponseTimeMs())
+            .minResponseTimeMs(Math.round(sinceStart.getMinMs()))
+            .maxResponseTimeMs(Math.round(sinceStart.getMaxMs()))
+            .latency(getLatencyReport())
             .retryAttempts(getRetryAttempts())
             .rateLimitedRequests(getRateLimitedRequests())
+            .throttledResponses(getThrottledResponses())
             .totalRateLimitWaitTime(getTotalRateLimitWaitTime())
             .maxRateLimitWaitTime(getMaxRateLimitWaitTime())
+            .status2xxResponses(getResponsesByStatusClass(2))
+            .status3xxResponses(getResponsesByStatusClass(3))
+            .status4xxResponses(getResponsesByStatusClass(4))
+            .status5xxResponses(getResponsesByStatusClass(5))
+            .bytesSent(getBytesSent())
+            .bytesReceived(getBytesReceived())
             .requestsPerSecond(getRequestsPerSecond())
+            .lastMinute(getWindow(1))
+            .lastFiveMinutes(getWindow(5))
+            .lastFifteenMinutes(getWindow(15))
             .uptime(getUptime())
             .startTime(startTime)
             .lastRequestTime(lastRequestTime)
@@ -331,15 +504,42 @@ public class ApiMetrics {
         private final double averageResponseTimeMs;
         private final long minResponseTimeMs;
         private final long maxResponseTimeMs;
+        private final LatencyHistogram.LatencyReport latency;
         private final long retryAttempts;
         private final long rateLimitedRequests;
+        private final long throttledResponses;
         private final Duration totalRateLimitWaitTime;
         private final Duration maxRateLimitWaitTime;
+        private final long status2xxResponses;
+        private final long status3xxResponses;
+        private final long status4xxResponses;
+        private final long status5xxResponses;
+        private final long bytesSent;
+        private final long bytesReceived;
         private final double requestsPerSecond;
+        private final WindowSummary lastMinute;
+        private final WindowSummary lastFiveMinutes;
+        private final WindowSummary lastFifteenMinutes;
         private final Duration uptime;
         private final Instant startTime;
         private final Instant lastRequestTime;
         private final Instant lastSuccessTime;
         private final Instant lastFailureTime;
     }
+    
+    /**
+     * Counts over a recent sliding window.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class WindowSummary {
+        private final int minutes;
+        private final long requests;
+        private final long failures;
+        private final long retries;
+        private final long rateLimited;
+        private final long throttled;
+        private final double requestsPerSecond;
+        private final double failureRate;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.shopify.sdk.monitoring;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call information handed from the SDK clients to the monitoring filter through a request attribute.
+ * One instance spans every attempt of a logical call, so retries can be told apart from first attempts,
+ * and the time the call spent waiting for rate limit tokens is attributed to the attempt that follows it.
+ */
+public class ExchangeTelemetry {
+    
+    /**
+     * Name of the request attribute holding the telemetry.
+     */
+    public static final String ATTRIBUTE = ExchangeTelemetry.class.getName();
+    
+    // Permits granted without queueing complete within microseconds; only longer waits count as throttling
+    private static final long MIN_THROTTLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private final String operationName;
+    private volatile int attempts;
+    private volatile long pendingThrottleWaitNanos;
+    
+    public ExchangeTelemetry(String operationName) {
+        this.operationName = operationName;
+    }
+    
+    /**
+     * Gets the telemetry attached to a request, if any.
+     */
+    public static ExchangeTelemetry from(ClientRequest request) {
+        Object telemetry = request.attributes().get(ATTRIBUTE);
+        return telemetry instanceof ExchangeTelemetry ? (ExchangeTelemetry) telemetry : null;
+    }
+    
+    /**
+     * Gets the GraphQL operation name or REST method of the call, if known.
+     */
+    public String getOperationName() {
+        return operationName;
+    }
+    
+    /**
+     * Records time spent waiting for rate limit tokens before the next attempt.
+     * Waits too short to have involved queueing are ignored.
+     */
+    public void addThrottleWait(long waitNanos) {
+        if (waitNanos >= MIN_THROTTLE_WAIT_NANOS) {
+            pendingThrottleWaitNanos += waitNanos;
+        }
+    }
+    
+    /**
+     * Gets the number of attempts made so far.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    /**
+     * Starts the next attempt. Attempts of one call never overlap, so plain volatile updates suffice.
+     *
+     * @return the number of the attempt, starting at 1
+     */
+    public int nextAttempt() {
+        return ++attempts;
+    }
+    
+    /**
+     * Returns and clears the throttle wait recorded since the previous attempt.
+     */
+    public long takeThrottleWaitNanos() {
+        long waitNanos = pendingThrottleWaitNanos;
+        pendingThrottleWaitNanos = 0;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,318 @@
+package com.shopify.sdk.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, fixed-memory latency histogram with log-linear buckets.
+ * <p>
+ * Values are recorded in microseconds. Each power of two is split into 16 linear
+ * sub-buckets, so any percentile is accurate to within about 6% of the true value, from one
+ * microsecond up to about 71 minutes; longer values are clamped into the last bucket. Histograms
+ * kept in large numbers, such as one per shop, can split each power of two into fewer sub-buckets:
+ * 4 sub-buckets are accurate to within about 25% and take a quarter of the memory.
+ * <p>
+ * Besides the totals since startup, counts are kept in a ring of one-minute slots so percentiles can be
+ * reported for the last 1, 5 and 15 minutes. A slot is cleared by the first writer that enters a new
+ * minute; a few values recorded concurrently with that reset may be lost, which is the price of never
+ * blocking writers.
+ */
+public class LatencyHistogram {
+
+    /** Sub-bucket bits of the default, 6% resolution. */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 4;
+    /** Sub-bucket bits of the coarse, 25% resolution. */
+    public static final int COARSE_SUB_BUCKET_BITS = 2;
+
+    private static final int MAX_VALUE_BITS = 32;
+    private static final long MAX_VALUE_MICROS = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKET_COUNT = bucketCount(DEFAULT_SUB_BUCKET_BITS);
+
+    // 15 complete minutes plus the current one
+    private static final int INTERVAL_SLOTS = 16;
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long RESETTING = Long.MIN_VALUE;
+    private static final long EMPTY = Long.MIN_VALUE + 1;
+
+    private final LongSupplier nanoClock;
+    private final int subBucketBits;
+    private final int bucketCount;
+    private final AtomicLongArray totalCounts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final Slot[] slots = new Slot[INTERVAL_SLOTS];
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Creates a histogram that splits each power of two into {@code 2^subBucketBits} buckets.
+     *
+     * @param subBucketBits between 1 and {@link #DEFAULT_SUB_BUCKET_BITS}
+     */
+    public LatencyHistogram(int subBucketBits) {
+        this(subBucketBits, System::nanoTime);
+    }
+
+    LatencyHistogram(LongSupplier nanoClock) {
+        this(DEFAULT_SUB_BUCKET_BITS, nanoClock);
+    }
+
+    LatencyHistogram(int subBucketBits, LongSupplier nanoClock) {
+        if (subBucketBits < 1 || subBucketBits > DEFAULT_SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("subBucketBits must be between 1 and " + DEFAULT_SUB_BUCKET_BITS);
+        }
+        this.nanoClock = nanoClock;
+        this.subBucketBits = subBucketBits;
+        this.bucketCount = bucketCount(subBucketBits);
+        this.totalCounts = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < INTERVAL_SLOTS; i++) {
+            slots[i] = new Slot(bucketCount);
+        }
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.min(MAX_VALUE_MICROS, Math.max(0, nanos / 1_000));
+        int index = indexOf(micros, subBucketBits);
+
+        totalCounts.incrementAndGet(index);
+        totalCount.increment();
+        totalMicros.add(micros);
+        currentSlot().counts.incrementAndGet(index);
+    }
+
+    /**
+     * Gets the number of values recorded since startup.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Gets the mean of all values recorded since startup, in milliseconds.
+     */
+    public double getMeanMs() {
+        long count = totalCount.sum();
+        return count > 0 ? totalMicros.sum() / 1_000.0 / count : 0.0;
+    }
+
+    /**
+     * Gets a snapshot of all values recorded since startup.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            counts[i] = totalCounts.get(i);
+        }
+        return Snapshot.of(counts, subBucketBits);
+    }
+
+    /**
+     * Gets a snapshot of the values recorded during the last given number of minutes,
+     * including the current, incomplete minute.
+     *
+     * @param minutes the length of the interval, between 1 and 15
+     */
+    public Snapshot snapshot(int minutes) {
+        if (minutes < 1 || minutes >= INTERVAL_SLOTS) {
+            throw new IllegalArgumentException("Interval must be between 1 and " + (INTERVAL_SLOTS - 1) + " minutes");
+        }
+
+        long currentMinute = currentMinute();
+        long[] counts = new long[bucketCount];
+        for (Slot slot : slots) {
+            long minute = slot.minute.get();
+            if (minute != RESETTING && minute > currentMinute - minutes && minute <= currentMinute) {
+                for (int i = 0; i < bucketCount; i++) {
+                    counts[i] += slot.counts.get(i);
+                }
+            }
+        }
+        return Snapshot.of(counts, subBucketBits);
+    }
+
+    /**
+     * Gets the percentiles of the last 1, 5 and 15 minutes and since startup.
+     */
+    public LatencyReport getReport() {
+        return LatencyReport.builder()
+            .lastMinute(snapshot(1))
+            .lastFiveMinutes(snapshot(5))
+            .lastFifteenMinutes(snapshot(15))
+            .sinceStart(snapshot())
+            .build();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            totalCounts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+        for (Slot slot : slots) {
+            slot.minute.set(EMPTY);
+            for (int i = 0; i < bucketCount; i++) {
+                slot.counts.set(i, 0);
+            }
+        }
+    }
+
+    private long currentMinute() {
+        return Math.floorDiv(nanoClock.getAsLong(), NANOS_PER_MINUTE);
+    }
+
+    private Slot currentSlot() {
+        long minute = currentMinute();
+        Slot slot = slots[(int) Math.floorMod(minute, (long) INTERVAL_SLOTS)];
+
+        long slotMinute = slot.minute.get();
+        if (slotMinute != RESETTING && slotMinute < minute && slot.minute.compareAndSet(slotMinute, RESETTING)) {
+            // The slot still holds a minute that has left the ring; the winner clears it
+            for (int i = 0; i < bucketCount; i++) {
+                slot.counts.set(i, 0);
+            }
+            slot.minute.set(minute);
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of buckets of a precision.
+     */
+    static int bucketCount(int subBucketBits) {
+        int subBuckets = 1 << subBucketBits;
+        return subBuckets + (MAX_VALUE_BITS - subBucketBits) * subBuckets;
+    }
+
+    /**
+     * Gets the bucket index of a value in microseconds at the default precision.
+     */
+    static int indexOf(long micros) {
+        return indexOf(micros, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static int indexOf(long micros, int subBucketBits) {
+        int subBuckets = 1 << subBucketBits;
+        if (micros < subBuckets) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - subBucketBits;
+        int subBucket = (int) (micros >>> exponent) - subBuckets;
+        return subBuckets + exponent * subBuckets + subBucket;
+    }
+
+    /**
+     * Gets the lowest value in microseconds that falls into a bucket at the default precision.
+     */
+    static long lowerBoundOf(int index) {
+        return lowerBoundOf(index, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static long lowerBoundOf(int index, int subBucketBits) {
+        int subBuckets = 1 << subBucketBits;
+        if (index < subBuckets) {
+            return index;
+        }
+        int exponent = (index - subBuckets) / subBuckets;
+        long mantissa = subBuckets + (index - subBuckets) % subBuckets;
+        return mantissa << exponent;
+    }
+
+    /**
+     * Gets the value in microseconds reported for a bucket: the middle of its range.
+     */
+    static long valueOf(int index, int subBucketBits) {
+        long lower = lowerBoundOf(index, subBucketBits);
+        long upper = index + 1 < bucketCount(subBucketBits)
+            ? lowerBoundOf(index + 1, subBucketBits) : MAX_VALUE_MICROS + 1;
+        return lower + (upper - 1 - lower) / 2;
+    }
+
+    private static final class Slot {
+        private final AtomicLong minute = new AtomicLong(EMPTY);
+        private final AtomicLongArray counts;
+
+        private Slot(int bucketCount) {
+            this.counts = new AtomicLongArray(bucketCount);
+        }
+    }
+
+    /**
+     * Percentiles of the values in a histogram or interval, in milliseconds.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class Snapshot {
+        private final long count;
+        private final double minMs;
+        private final double p50Ms;
+        private final double p95Ms;
+        private final double p99Ms;
+        private final double p999Ms;
+        private final double maxMs;
+
+        static Snapshot of(long[] counts, int subBucketBits) {
+            long total = 0;
+            int lowest = -1;
+            int highest = -1;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                if (counts[i] > 0) {
+                    if (lowest < 0) {
+                        lowest = i;
+                    }
+                    highest = i;
+                }
+            }
+
+            return Snapshot.builder()
+                .count(total)
+                .minMs(lowest >= 0 ? valueOf(lowest, subBucketBits) / 1_000.0 : 0.0)
+                .p50Ms(percentile(counts, total, 0.50, subBucketBits))
+                .p95Ms(percentile(counts, total, 0.95, subBucketBits))
+                .p99Ms(percentile(counts, total, 0.99, subBucketBits))
+                .p999Ms(percentile(counts, total, 0.999, subBucketBits))
+                .maxMs(highest >= 0 ? valueOf(highest, subBucketBits) / 1_000.0 : 0.0)
+                .build();
+        }
+
+        private static double percentile(long[] counts, long total, double percentile, int subBucketBits) {
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return valueOf(i, subBucketBits) / 1_000.0;
+                }
+            }
+            return 0.0;
+        }
+    }
+
+    /**
+     * Percentiles over the standard reporting intervals.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class LatencyReport {
+        private final Snapshot lastMinute;
+        private final Snapshot lastFiveMinutes;
+        private final Snapshot lastFifteenMinutes;
+        private final Snapshot sinceStart;
+    }
+}
@@ -1,10 +1,12 @@
 package com.shopify.sdk.monitoring;
 
+import com.shopify.sdk.cache.BoundedLruMap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -19,6 +21,8 @@ import java.util.concurrent.TimeUnit;
 public class MonitoringService {
     
     private final Map<String, ApiMetrics> metricsMap = new ConcurrentHashMap<>();
+    private final BoundedLruMap<String, ApiMetrics> shopMetricsMap = new BoundedLruMap<>(MAX_TRACKED_SHOPS);
+    private final Map<String, LatencyHistogram> operationLatencies = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     private volatile boolean monitoringEnabled = true;
     
@@ -27,6 +31,13 @@ public class MonitoringService {
     private static final String REST_METRICS_KEY = "rest";
     private static final String GRAPHQL_METRICS_KEY = "graphql";
     
+    // Upper bound on shops with their own metrics; each one holds a coarse latency histogram and one
+    // windowed counter of roughly 20 KB, and the least recently used shops are evicted past the bound
+    private static final int MAX_TRACKED_SHOPS = 2_000;
+    
+    // Each operation holds a fixed-size histogram of about 60 KB
+    private static final int MAX_TRACKED_OPERATIONS = 200;
+    
     public MonitoringService() {
         // Initialize default metrics
         metricsMap.put(GLOBAL_METRICS_KEY, new ApiMetrics());
@@ -148,6 +159,58 @@ public class MonitoringService {
         return metricsMap.get(GRAPHQL_METRICS_KEY);
     }
     
+    /**
+     * Gets or creates the metrics of a shop and marks the shop as recently used. Past the maximum number
+     * of tracked shops, the metrics of the least recently used shops are evicted to make room.
+     *
+     * @param shop the shop domain
+     * @return the shop's metrics
+     */
+    public ApiMetrics getShopMetrics(String shop) {
+        return shopMetricsMap.computeIfAbsent(shop, k -> new ApiMetrics(LatencyHistogram.COARSE_SUB_BUCKET_BITS));
+    }
+    
+    /**
+     * Gets the metrics of all tracked shops.
+     */
+    public Map<String, ApiMetrics> getAllShopMetrics() {
+        Map<String, ApiMetrics> all = new HashMap<>();
+        shopMetricsMap.forEach(all::put);
+        return Map.copyOf(all);
+    }
+    
+    /**
+     * Gets the number of shops whose metrics were evicted to stay within the maximum number of tracked shops.
+     */
+    public long getEvictedShopCount() {
+        return shopMetricsMap.getEvictionCount();
+    }
+    
+    /**
+     * Stops tracking a shop, e.g. after the app was uninstalled.
+     */
+    public void removeShopMetrics(String shop) {
+        shopMetricsMap.remove(shop);
+    }
+    
+    /**
+     * Gets or creates the latency histogram of an operation, e.g. a GraphQL operation name.
+     *
+     * @param operation the operation name
+     * @return the operation's histogram, or null if the name is null or the maximum number of
+     *         tracked operations has been reached
+     */
+    public LatencyHistogram getOperationLatency(String operation) {
+        if (operation == null) {
+            return null;
+        }
+        LatencyHistogram histogram = operationLatencies.get(operation);
+        if (histogram == null && operationLatencies.size() < MAX_TRACKED_OPERATIONS) {
+            histogram = operationLatencies.computeIfAbsent(operation, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+    
     /**
      * Gets or creates custom metrics for a specific component.
      */
@@ -174,6 +237,8 @@ public class MonitoringService {
      */
     public void resetAllMetrics() {
         metricsMap.values().forEach(ApiMetrics::reset);
+        shopMetricsMap.forEach((shop, metrics) -> metrics.reset());
+        operationLatencies.values().forEach(LatencyHistogram::reset);
         log.info("All metrics have been reset");
     }
     
@@ -203,6 +268,11 @@ public class MonitoringService {
                     Map.Entry::getKey,
                     entry -> entry.getValue().getSummary()
                 )))
+            .operationLatency(operationLatencies.entrySet().stream()
+                .collect(java.util.stream.Collectors.toMap(
+                    Map.Entry::getKey,
+                    entry -> entry.getValue().getReport()
+                )))
             .monitoringEnabled(monitoringEnabled)
             .build();
     }
@@ -254,6 +324,15 @@ public class MonitoringService {
         log.info("GraphQL: {} requests, {:.1f}% success, {:.1f}ms avg response",
             graphql.getTotalRequests(), graphql.getSuccessRate(), graphql.getAverageResponseTimeMs());
         
+        ApiMetrics.WindowSummary window = global.getLastFiveMinutes();
+        log.info("Last 5m: {} requests, {} failures, {} rate limited, {} throttled, {} retries",
+            window.getRequests(), window.getFailures(), window.getRateLimited(), window.getThrottled(),
+            window.getRetries());
+        
+        LatencyHistogram.Snapshot recent = global.getLatency().getLastFiveMinutes();
+        log.info("Latency (last 5m): p50 {}ms, p95 {}ms, p99 {}ms, p999 {}ms",
+            recent.getP50Ms(), recent.getP95Ms(), recent.getP99Ms(), recent.getP999Ms());
+        
         if (global.getRetryAttempts() > 0) {
             log.info("Retries: {} attempts, Rate limits: {} requests",
                 global.getRetryAttempts(), global.getRateLimitedRequests());
@@ -330,6 +409,7 @@ public class MonitoringService {
         private final ApiMetrics.MetricsSummary restSummary;
         private final ApiMetrics.MetricsSummary graphQLSummary;
         private final Map<String, ApiMetrics.MetricsSummary> customMetrics;
+        private final Map<String, LatencyHistogram.LatencyReport> operationLatency;
         private final boolean monitoringEnabled;
         
         public boolean hasErrors() {
@@ -337,7 +417,7 @@ public class MonitoringService {
         }
         
         public boolean hasHighFailureRate() {
-            return globalSummary.getFailureRate() > 10.0; // More than 10% failure rate
+            return globalSummary.getLastFiveMinutes().getFailureRate() > 10.0; // More than 10% failing in the last 5 minutes
         }
         
         public boolean hasSlowResponses() {
@@ -345,7 +425,9 @@ public class MonitoringService {
         }
         
         public boolean hasRateLimiting() {
-            return globalSummary.getRateLimitedRequests() > 0;
+            // Delayed by the SDK or throttled by Shopify in the last 5 minutes
+            ApiMetrics.WindowSummary window = globalSummary.getLastFiveMinutes();
+            return window.getRateLimited() > 0 || window.getThrottled() > 0;
         }
     }
 }
\ No newline at end of file
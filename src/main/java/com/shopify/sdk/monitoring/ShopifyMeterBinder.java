@@ -0,0 +1,341 @@
+package com.shopify.sdk.monitoring;
+
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerService;
+import com.shopify.sdk.circuitbreaker.CircuitState;
+import com.shopify.sdk.concurrency.ConcurrencyLimitService;
+import com.shopify.sdk.client.ConnectionPoolStats;
+import com.shopify.sdk.client.graphql.GraphQLClient;
+import com.shopify.sdk.ratelimit.PriorityWaitMetrics;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import com.shopify.sdk.ratelimit.RequestPriority;
+import com.shopify.sdk.ratelimit.ShopRateLimiterRegistry;
+import com.shopify.sdk.retry.RetryService;
+import com.shopify.sdk.webhook.WebhookProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the SDK's own statistics to Micrometer.
+ * <p>
+ * All meters are function-based: they read the SDK's lock-free counters at scrape time, so binding
+ * adds no work to the request path. API metrics are registered globally and per API surface, not per
+ * shop, to keep tag cardinality bounded; per-shop figures stay available from {@link MonitoringService}.
+ * Percentile gauges cover the last minute of the SDK's histograms.
+ */
+public class ShopifyMeterBinder implements MeterBinder {
+
+    private final MonitoringService monitoringService;
+    private final RateLimitService rateLimitService;
+    private final WebhookProcessor webhookProcessor;
+    private final ConnectionPoolStats poolStats;
+    private final GraphQLClient graphQLClient;
+    private final ResponseCache responseCache;
+    private final RetryService retryService;
+    private final CircuitBreakerService circuitBreakerService;
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    /**
+     * Creates a binder; any source may be null to leave its meters out.
+     */
+    public ShopifyMeterBinder(MonitoringService monitoringService,
+                              RateLimitService rateLimitService,
+                              WebhookProcessor webhookProcessor,
+                              ConnectionPoolStats poolStats) {
+        this(monitoringService, rateLimitService, webhookProcessor, poolStats, null, null);
+    }
+
+    /**
+     * Creates a binder; any source may be null to leave its meters out.
+     */
+    public ShopifyMeterBinder(MonitoringService monitoringService,
+                              RateLimitService rateLimitService,
+                              WebhookProcessor webhookProcessor,
+                              ConnectionPoolStats poolStats,
+                              GraphQLClient graphQLClient,
+                              ResponseCache responseCache) {
+        this(monitoringService, rateLimitService, webhookProcessor, poolStats, graphQLClient, responseCache, null);
+    }
+
+    /**
+     * Creates a binder; any source may be null to leave its meters out.
+     */
+    public ShopifyMeterBinder(MonitoringService monitoringService,
+                              RateLimitService rateLimitService,
+                              WebhookProcessor webhookProcessor,
+                              ConnectionPoolStats poolStats,
+                              GraphQLClient graphQLClient,
+                              ResponseCache responseCache,
+                              RetryService retryService) {
+        this(monitoringService, rateLimitService, webhookProcessor, poolStats, graphQLClient, responseCache,
+            retryService, null);
+    }
+
+    /**
+     * Creates a binder; any source may be null to leave its meters out.
+     */
+    public ShopifyMeterBinder(MonitoringService monitoringService,
+                              RateLimitService rateLimitService,
+                              WebhookProcessor webhookProcessor,
+                              ConnectionPoolStats poolStats,
+                              GraphQLClient graphQLClient,
+                              ResponseCache responseCache,
+                              RetryService retryService,
+                              CircuitBreakerService circuitBreakerService) {
+        this(monitoringService, rateLimitService, webhookProcessor, poolStats, graphQLClient, responseCache,
+            retryService, circuitBreakerService, null);
+    }
+
+    /**
+     * Creates a binder; any source may be null to leave its meters out.
+     */
+    public ShopifyMeterBinder(MonitoringService monitoringService,
+                              RateLimitService rateLimitService,
+                              WebhookProcessor webhookProcessor,
+                              ConnectionPoolStats poolStats,
+                              GraphQLClient graphQLClient,
+                              ResponseCache responseCache,
+                              RetryService retryService,
+                              CircuitBreakerService circuitBreakerService,
+                              ConcurrencyLimitService concurrencyLimitService) {
+        this.monitoringService = monitoringService;
+        this.rateLimitService = rateLimitService;
+        this.webhookProcessor = webhookProcessor;
+        this.poolStats = poolStats;
+        this.graphQLClient = graphQLClient;
+        this.responseCache = responseCache;
+        this.retryService = retryService;
+        this.circuitBreakerService = circuitBreakerService;
+        this.concurrencyLimitService = concurrencyLimitService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (monitoringService != null) {
+            bindApiMetrics(registry, "global", monitoringService.getGlobalMetrics());
+            bindApiMetrics(registry, "rest", monitoringService.getRestMetrics());
+            bindApiMetrics(registry, "graphql", monitoringService.getGraphQLMetrics());
+        }
+        if (rateLimitService != null) {
+            bindRateLimits(registry);
+        }
+        if (webhookProcessor != null) {
+            bindWebhooks(registry);
+        }
+        if (poolStats != null) {
+            bindConnectionPool(registry);
+        }
+        if (graphQLClient != null) {
+            counter(registry, "shopify.graphql.coalesced", Tags.empty(), graphQLClient,
+                GraphQLClient::getCoalescedReadCount, "GraphQL reads that shared an identical request in flight");
+            counter(registry, "shopify.graphql.hedged", Tags.of("result", "sent"), graphQLClient,
+                c -> c.getHedgeStats().getHedges(), "Second copies of slow GraphQL reads by outcome");
+            counter(registry, "shopify.graphql.hedged", Tags.of("result", "won"), graphQLClient,
+                c -> c.getHedgeStats().getWonHedges(), "Second copies of slow GraphQL reads by outcome");
+            counter(registry, "shopify.graphql.hedged", Tags.of("result", "denied"), graphQLClient,
+                c -> c.getHedgeStats().getDeniedHedges(), "Second copies of slow GraphQL reads by outcome");
+            Gauge.builder("shopify.graphql.cost.estimate.error", graphQLClient,
+                    c -> c.getCostEstimatorStats().getMeanAbsoluteError())
+                .description("Mean difference between estimated and reported requested query cost")
+                .register(registry);
+        }
+        if (responseCache != null) {
+            bindResponseCache(registry);
+        }
+        if (retryService != null) {
+            counter(registry, "shopify.retry.budget", Tags.of("result", "allowed"), retryService,
+                s -> s.getStats().getRetriesAllowed(), "Retries by retry budget decision");
+            counter(registry, "shopify.retry.budget", Tags.of("result", "denied"), retryService,
+                s -> s.getStats().getRetriesDenied(), "Retries by retry budget decision");
+            Gauge.builder("shopify.retry.budget.available", retryService, s -> s.getStats().getGlobalBudget())
+                .description("Retries left in the budget shared by all shops").register(registry);
+        }
+        if (circuitBreakerService != null) {
+            bindCircuitBreakers(registry);
+        }
+        if (concurrencyLimitService != null) {
+            bindConcurrencyLimits(registry);
+        }
+    }
+
+    private void bindApiMetrics(MeterRegistry registry, String api, ApiMetrics metrics) {
+        Tags tags = Tags.of("api", api);
+
+        counter(registry, "shopify.api.requests", tags, metrics, ApiMetrics::getTotalRequests, "Requests sent");
+        counter(registry, "shopify.api.requests.failed", tags, metrics, ApiMetrics::getFailedRequests, "Requests that failed");
+        counter(registry, "shopify.api.retries", tags, metrics, ApiMetrics::getRetryAttempts, "Retry attempts");
+        counter(registry, "shopify.api.rate.limited", tags, metrics, ApiMetrics::getRateLimitedRequests,
+            "Requests delayed by the SDK's rate limiter");
+        counter(registry, "shopify.api.throttled", tags, metrics, ApiMetrics::getThrottledResponses,
+            "Responses throttled by Shopify with 429 Too Many Requests");
+        for (int statusClass = 2; statusClass <= 5; statusClass++) {
+            int selected = statusClass;
+            counter(registry, "shopify.api.responses", tags.and("status", statusClass + "xx"), metrics,
+                m -> m.getResponsesByStatusClass(selected), "Responses by status class");
+        }
+
+        FunctionCounter.builder("shopify.api.bytes.sent", metrics, m -> m.getBytesSent())
+            .tags(tags).baseUnit("bytes").description("Request body bytes sent").register(registry);
+        FunctionCounter.builder("shopify.api.bytes.received", metrics, m -> m.getBytesReceived())
+            .tags(tags).baseUnit("bytes").description("Response body bytes received").register(registry);
+
+        bindHistogram(registry, "shopify.api.response.time", tags, metrics, ApiMetrics::getResponseTimes,
+            "Response time of API requests");
+    }
+
+    private void bindRateLimits(MeterRegistry registry) {
+        // Requests are limited per shop, so the gauges sum the shops' limiters instead of the unused app-wide ones
+        for (String limiter : new String[] {"rest", "graphql"}) {
+            Function<RateLimitService, ShopRateLimiterRegistry.AggregateState> state = "rest".equals(limiter)
+                ? RateLimitService::getShopRestState
+                : RateLimitService::getShopGraphQLState;
+            Tags tags = Tags.of("limiter", limiter);
+
+            Gauge.builder("shopify.ratelimit.queued", rateLimitService, s -> state.apply(s).getQueuedRequests())
+                .tags(tags).description("Requests waiting for tokens across all shops").register(registry);
+            Gauge.builder("shopify.ratelimit.shops.throttled", rateLimitService,
+                    s -> state.apply(s).getThrottledShops())
+                .tags(tags).description("Shops with requests waiting for tokens").register(registry);
+            Gauge.builder("shopify.ratelimit.utilization.max", rateLimitService,
+                    s -> state.apply(s).getMaxUtilizationPercentage())
+                .tags(tags).baseUnit("percent").description("Utilization of the fullest shop bucket")
+                .register(registry);
+        }
+
+        Gauge.builder("shopify.ratelimit.shops", rateLimitService, RateLimitService::getTrackedShopCount)
+            .description("Shops with rate limiters held in memory").register(registry);
+
+        for (RequestPriority priority : RequestPriority.values()) {
+            Function<RateLimitService, PriorityWaitMetrics.WaitStats> stats = s -> s.getWaitStats().get(priority);
+            FunctionTimer.builder("shopify.ratelimit.wait", rateLimitService,
+                    s -> stats.apply(s).getAcquisitions(),
+                    s -> stats.apply(s).getTotalWaitNanos(),
+                    TimeUnit.NANOSECONDS)
+                .tags("priority", priority.name().toLowerCase())
+                .description("Time requests waited for rate limit tokens")
+                .register(registry);
+        }
+    }
+
+    private void bindWebhooks(MeterRegistry registry) {
+        counter(registry, "shopify.webhooks.received", Tags.empty(), webhookProcessor,
+            p -> p.getStats().getTotalReceived(), "Webhooks received");
+        counter(registry, "shopify.webhooks.processed", Tags.empty(), webhookProcessor,
+            p -> p.getStats().getTotalProcessed(), "Webhooks processed successfully");
+        counter(registry, "shopify.webhooks.failed", Tags.empty(), webhookProcessor,
+            p -> p.getStats().getTotalFailed(), "Webhooks that failed processing");
+    }
+
+    private void bindConnectionPool(MeterRegistry registry) {
+        Gauge.builder("shopify.http.pool.connections.active", poolStats, ConnectionPoolStats::getActiveConnections)
+            .description("Connections in use by a request").register(registry);
+        Gauge.builder("shopify.http.pool.connections.idle", poolStats, ConnectionPoolStats::getIdleConnections)
+            .description("Open connections waiting for a request").register(registry);
+        Gauge.builder("shopify.http.pool.connections.total", poolStats, ConnectionPoolStats::getTotalConnections)
+            .description("Open connections").register(registry);
+        Gauge.builder("shopify.http.pool.pending", poolStats, ConnectionPoolStats::getPendingAcquires)
+            .description("Requests waiting for a connection").register(registry);
+
+        bindHistogram(registry, "shopify.http.pool.acquire.time", Tags.empty(), poolStats,
+            ConnectionPoolStats::getAcquireTimes, "Time to obtain a pooled or new connection");
+    }
+
+    private void bindCircuitBreakers(MeterRegistry registry) {
+        for (CircuitState state : CircuitState.values()) {
+            ToLongFunction<CircuitBreakerService.CircuitBreakerStats> transitions = switch (state) {
+                case OPEN -> CircuitBreakerService.CircuitBreakerStats::getOpened;
+                case HALF_OPEN -> CircuitBreakerService.CircuitBreakerStats::getHalfOpened;
+                case CLOSED -> CircuitBreakerService.CircuitBreakerStats::getClosed;
+            };
+            counter(registry, "shopify.circuit.transitions", Tags.of("state", state.name().toLowerCase()),
+                circuitBreakerService, s -> transitions.applyAsLong(s.getStats()),
+                "Circuit state changes by new state");
+        }
+        counter(registry, "shopify.circuit.rejected", Tags.empty(), circuitBreakerService,
+            s -> s.getStats().getRejectedCalls(), "Calls failed fast by an open circuit");
+        Gauge.builder("shopify.circuit.open", circuitBreakerService, s -> s.getStats().getOpenCircuits())
+            .description("Shops whose circuit is open").register(registry);
+        Gauge.builder("shopify.circuit.half.open", circuitBreakerService, s -> s.getStats().getHalfOpenCircuits())
+            .description("Shops whose circuit is probing").register(registry);
+    }
+
+    private void bindConcurrencyLimits(MeterRegistry registry) {
+        Gauge.builder("shopify.concurrency.limit", concurrencyLimitService, s -> s.getStats().getGlobalLimit())
+            .description("Requests all shops together may have in flight").register(registry);
+        Gauge.builder("shopify.concurrency.inflight", concurrencyLimitService, s -> s.getStats().getGlobalInFlight())
+            .description("Requests in flight across all shops").register(registry);
+        Gauge.builder("shopify.concurrency.queued", concurrencyLimitService, s -> s.getStats().getShopQueued())
+            .tags("limit", "shop").description("Requests waiting for a concurrency permit").register(registry);
+        Gauge.builder("shopify.concurrency.queued", concurrencyLimitService, s -> s.getStats().getGlobalQueued())
+            .tags("limit", "global").description("Requests waiting for a concurrency permit").register(registry);
+        counter(registry, "shopify.concurrency.rejected", Tags.empty(), concurrencyLimitService,
+            s -> s.getStats().getRejectedRequests(), "Requests failed because a concurrency queue was full");
+    }
+
+    private void bindResponseCache(MeterRegistry registry) {
+        for (CachedEntity entity : CachedEntity.values()) {
+            Tags tags = Tags.of("entity", entity.name().toLowerCase());
+            Function<ResponseCache, ResponseCache.CacheStats> stats = c -> c.getStats().get(entity);
+
+            counter(registry, "shopify.cache.reads", tags.and("result", "hit"), responseCache,
+                c -> stats.apply(c).getHits(), "Cached reads by result");
+            counter(registry, "shopify.cache.reads", tags.and("result", "stale"), responseCache,
+                c -> stats.apply(c).getStaleHits(), "Cached reads by result");
+            counter(registry, "shopify.cache.reads", tags.and("result", "miss"), responseCache,
+                c -> stats.apply(c).getMisses(), "Cached reads by result");
+            counter(registry, "shopify.cache.invalidations", tags, responseCache,
+                c -> stats.apply(c).getInvalidations(), "Cache invalidations by webhooks and writes");
+            Gauge.builder("shopify.cache.hit.ratio", responseCache, c -> stats.apply(c).getHitRatio())
+                .tags(tags).description("Share of reads served from the cache").register(registry);
+        }
+        Gauge.builder("shopify.cache.size", responseCache, ResponseCache::size)
+            .description("Cached responses").register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, Tags tags, T source,
+                                    ToLongFunction<T> value, String description) {
+        FunctionCounter.builder(name, source, s -> value.applyAsLong(s))
+            .tags(tags)
+            .description(description)
+            .register(registry);
+    }
+
+    /**
+     * Registers a histogram as a timer plus one gauge per percentile of its last minute.
+     */
+    private static <T> void bindHistogram(MeterRegistry registry, String name, Tags tags, T source,
+                                          Function<T, LatencyHistogram> histogram, String description) {
+        FunctionTimer.builder(name, source,
+                s -> histogram.apply(s).getCount(),
+                s -> histogram.apply(s).getMeanMs() * histogram.apply(s).getCount(),
+                TimeUnit.MILLISECONDS)
+            .tags(tags)
+            .description(description)
+            .register(registry);
+
+        percentileGauge(registry, name, tags.and("quantile", "0.5"), source, histogram, LatencyHistogram.Snapshot::getP50Ms, description);
+        percentileGauge(registry, name, tags.and("quantile", "0.95"), source, histogram, LatencyHistogram.Snapshot::getP95Ms, description);
+        percentileGauge(registry, name, tags.and("quantile", "0.99"), source, histogram, LatencyHistogram.Snapshot::getP99Ms, description);
+        percentileGauge(registry, name, tags.and("quantile", "0.999"), source, histogram, LatencyHistogram.Snapshot::getP999Ms, description);
+    }
+
+    private static <T> void percentileGauge(MeterRegistry registry, String name, Tags tags, T source,
+                                            Function<T, LatencyHistogram> histogram,
+                                            ToDoubleFunction<LatencyHistogram.Snapshot> percentile, String description) {
+        Gauge.builder(name + ".percentile", source, s -> percentile.applyAsDouble(histogram.apply(s).snapshot(1)))
+            .tags(tags)
+            .baseUnit("milliseconds")
+            .description(description + ", last minute")
+            .register(registry);
+    }
+}
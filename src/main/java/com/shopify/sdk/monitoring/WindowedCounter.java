@@ -0,0 +1,271 @@
+package com.shopify.sdk.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free event counter over sliding time windows.
+ * <p>
+ * Events of the current second go into a striped {@link LongAdder}. When the first event of a new second
+ * arrives, that writer moves the finished second into a ring of one-second slots covering the last minute
+ * and adds it to a ring of one-minute slots covering the last 15 minutes. Readers only sum the rings and
+ * never block writers; an event racing with a roll-over may be attributed to the neighbouring second.
+ * <p>
+ * A counter can count several kinds of events, its channels, that share one clock and one set of slot
+ * stamps, so counting requests, failures and retries of the same source costs one ring instead of three.
+ * The methods without a channel use channel 0.
+ */
+public class WindowedCounter {
+
+    private static final int SECOND_SLOTS = 60;
+    // 15 complete minutes plus the current one
+    private static final int MINUTE_SLOTS = 16;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final LongSupplier nanoClock;
+    private final int channels;
+    private final long startSecond;
+    private final LongAdder[] lifetime;
+    private final LongAdder[] current;
+    private final AtomicLong currentSecond;
+    // Counts are laid out channel by channel: slot i of channel c is at c * SLOTS + i
+    private final AtomicLongArray secondCounts;
+    private final AtomicLongArray secondStamps = new AtomicLongArray(SECOND_SLOTS);
+    private final AtomicLongArray minuteCounts;
+    private final AtomicLongArray minuteStamps = new AtomicLongArray(MINUTE_SLOTS);
+
+    public WindowedCounter() {
+        this(1);
+    }
+
+    /**
+     * Creates a counter of several kinds of events.
+     *
+     * @param channels the number of kinds of events
+     */
+    public WindowedCounter(int channels) {
+        this(channels, System::nanoTime);
+    }
+
+    WindowedCounter(LongSupplier nanoClock) {
+        this(1, nanoClock);
+    }
+
+    WindowedCounter(int channels, LongSupplier nanoClock) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("channels must be positive: " + channels);
+        }
+        this.nanoClock = nanoClock;
+        this.channels = channels;
+        this.lifetime = new LongAdder[channels];
+        this.current = new LongAdder[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            lifetime[channel] = new LongAdder();
+            current[channel] = new LongAdder();
+        }
+        this.secondCounts = new AtomicLongArray(channels * SECOND_SLOTS);
+        this.minuteCounts = new AtomicLongArray(channels * MINUTE_SLOTS);
+        this.startSecond = currentSecond();
+        this.currentSecond = new AtomicLong(startSecond);
+        clearStamps();
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        add(0, 1);
+    }
+
+    /**
+     * Counts one event of a channel.
+     */
+    public void increment(int channel) {
+        add(channel, 1);
+    }
+
+    /**
+     * Counts the given number of events.
+     */
+    public void add(long events) {
+        add(0, events);
+    }
+
+    /**
+     * Counts the given number of events of a channel.
+     */
+    public void add(int channel, long events) {
+        roll(currentSecond());
+        current[channel].add(events);
+        lifetime[channel].add(events);
+    }
+
+    /**
+     * Gets the number of events since startup or the last reset.
+     */
+    public long getTotal() {
+        return getTotal(0);
+    }
+
+    /**
+     * Gets the number of events of a channel since startup or the last reset.
+     */
+    public long getTotal(int channel) {
+        return lifetime[channel].sum();
+    }
+
+    /**
+     * Gets the number of events during the last given number of seconds, including the current second.
+     *
+     * @param seconds the length of the window, between 1 and 60
+     */
+    public long getCountLastSeconds(int seconds) {
+        return getCountLastSeconds(0, seconds);
+    }
+
+    /**
+     * Gets the number of events of a channel during the last given number of seconds, including the
+     * current second.
+     *
+     * @param channel the channel
+     * @param seconds the length of the window, between 1 and 60
+     */
+    public long getCountLastSeconds(int channel, int seconds) {
+        if (seconds < 1 || seconds > SECOND_SLOTS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + SECOND_SLOTS + " seconds");
+        }
+
+        long now = currentSecond();
+        long from = now - seconds;
+        long count = pending(channel, from, now);
+        int base = channel * SECOND_SLOTS;
+        for (int i = 0; i < SECOND_SLOTS; i++) {
+            long stamp = secondStamps.get(i);
+            if (stamp > from && stamp <= now) {
+                count += secondCounts.get(base + i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of events during the last given number of whole minutes plus the current minute so far.
+     *
+     * @param minutes the number of whole minutes, between 1 and 15
+     */
+    public long getCountLastMinutes(int minutes) {
+        return getCountLastMinutes(0, minutes);
+    }
+
+    /**
+     * Gets the number of events of a channel during the last given number of whole minutes plus the
+     * current minute so far.
+     *
+     * @param channel the channel
+     * @param minutes the number of whole minutes, between 1 and 15
+     */
+    public long getCountLastMinutes(int channel, int minutes) {
+        if (minutes < 1 || minutes >= MINUTE_SLOTS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + (MINUTE_SLOTS - 1) + " minutes");
+        }
+
+        long now = currentSecond();
+        long nowMinute = Math.floorDiv(now, 60);
+        long fromMinute = nowMinute - minutes;
+        long count = pending(channel, fromMinute * 60 - 1, now);
+        int base = channel * MINUTE_SLOTS;
+        for (int i = 0; i < MINUTE_SLOTS; i++) {
+            long stamp = minuteStamps.get(i);
+            if (stamp >= fromMinute && stamp <= nowMinute) {
+                count += minuteCounts.get(base + i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the window length in seconds that {@link #getCountLastMinutes(int)} currently covers,
+     * never longer than the time since this counter was created.
+     */
+    public long getWindowSecondsLastMinutes(int minutes) {
+        long now = currentSecond();
+        long windowStart = (Math.floorDiv(now, 60) - minutes) * 60;
+        return Math.max(1, now + 1 - Math.max(windowStart, startSecond));
+    }
+
+    /**
+     * Gets the average number of events per second over the last given number of minutes.
+     */
+    public double getRatePerSecond(int minutes) {
+        return (double) getCountLastMinutes(minutes) / getWindowSecondsLastMinutes(minutes);
+    }
+
+    /**
+     * Clears all counts.
+     */
+    public void reset() {
+        for (int channel = 0; channel < channels; channel++) {
+            current[channel].reset();
+            lifetime[channel].reset();
+        }
+        clearStamps();
+    }
+
+    private void clearStamps() {
+        for (int i = 0; i < SECOND_SLOTS; i++) {
+            secondStamps.set(i, EMPTY);
+        }
+        for (int i = 0; i < MINUTE_SLOTS; i++) {
+            minuteStamps.set(i, EMPTY);
+        }
+        for (int i = 0; i < secondCounts.length(); i++) {
+            secondCounts.set(i, 0);
+        }
+        for (int i = 0; i < minuteCounts.length(); i++) {
+            minuteCounts.set(i, 0);
+        }
+    }
+
+    /**
+     * Events of a channel still accumulating in its adder, if their second lies in the window (from, to].
+     */
+    private long pending(int channel, long from, long to) {
+        long second = currentSecond.get();
+        return second > from && second <= to ? current[channel].sum() : 0;
+    }
+
+    private void roll(long now) {
+        long second = currentSecond.get();
+        if (second >= now || !currentSecond.compareAndSet(second, now)) {
+            return;
+        }
+
+        // Only the winner of the CAS moves the finished second of every channel into the rings
+        int secondSlot = (int) Math.floorMod(second, (long) SECOND_SLOTS);
+        long minute = Math.floorDiv(second, 60);
+        int minuteSlot = (int) Math.floorMod(minute, (long) MINUTE_SLOTS);
+        boolean newMinute = minuteStamps.get(minuteSlot) != minute;
+
+        for (int channel = 0; channel < channels; channel++) {
+            long finished = current[channel].sumThenReset();
+            secondCounts.set(channel * SECOND_SLOTS + secondSlot, finished);
+            if (newMinute) {
+                minuteCounts.set(channel * MINUTE_SLOTS + minuteSlot, finished);
+            } else {
+                minuteCounts.addAndGet(channel * MINUTE_SLOTS + minuteSlot, finished);
+            }
+        }
+        secondStamps.set(secondSlot, second);
+        if (newMinute) {
+            minuteStamps.set(minuteSlot, minute);
+        }
+    }
+
+    private long currentSecond() {
+        return Math.floorDiv(nanoClock.getAsLong(), NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,90 @@
+package com.shopify.sdk.ratelimit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time requests spent waiting for rate limit tokens, per priority class.
+ * One instance may be shared by many limiters to aggregate wait times across shops.
+ */
+public class PriorityWaitMetrics {
+
+    private final Map<RequestPriority, ClassMetrics> metrics = new EnumMap<>(RequestPriority.class);
+
+    public PriorityWaitMetrics() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            metrics.put(priority, new ClassMetrics());
+        }
+    }
+
+    /**
+     * Records a granted request.
+     *
+     * @param priority the priority class of the request
+     * @param waitNanos how long the request waited for its tokens
+     */
+    public void record(RequestPriority priority, long waitNanos) {
+        ClassMetrics classMetrics = metrics.get(priority);
+        classMetrics.acquisitions.increment();
+        if (waitNanos > 0) {
+            classMetrics.delayed.increment();
+            classMetrics.totalWaitNanos.add(waitNanos);
+            classMetrics.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+
+    /**
+     * Gets the wait statistics of a priority class.
+     */
+    public WaitStats getStats(RequestPriority priority) {
+        ClassMetrics classMetrics = metrics.get(priority);
+        return WaitStats.builder()
+            .priority(priority)
+            .acquisitions(classMetrics.acquisitions.sum())
+            .delayed(classMetrics.delayed.sum())
+            .totalWaitNanos(classMetrics.totalWaitNanos.sum())
+            .maxWaitNanos(classMetrics.maxWaitNanos.get())
+            .build();
+    }
+
+    /**
+     * Gets the wait statistics of every priority class.
+     */
+    public Map<RequestPriority, WaitStats> getAllStats() {
+        Map<RequestPriority, WaitStats> stats = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : RequestPriority.values()) {
+            stats.put(priority, getStats(priority));
+        }
+        return stats;
+    }
+
+    private static final class ClassMetrics {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder delayed = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+
+    /**
+     * Wait statistics of a priority class.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class WaitStats {
+        private final RequestPriority priority;
+        private final long acquisitions;
+        private final long delayed;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        public double getAverageWaitMillis() {
+            return acquisitions > 0 ? totalWaitNanos / 1_000_000.0 / acquisitions : 0.0;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+    }
+}
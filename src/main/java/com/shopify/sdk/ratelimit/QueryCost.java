@@ -0,0 +1,90 @@
+package com.shopify.sdk.ratelimit;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Query cost information reported by Shopify in {@code extensions.cost} of a GraphQL response.
+ */
+@Data
+@Builder
+public class QueryCost {
+
+    /**
+     * The cost Shopify calculated for the query before executing it.
+     */
+    private final Integer requestedQueryCost;
+
+    /**
+     * The cost actually charged after executing the query.
+     */
+    private final Integer actualQueryCost;
+
+    /**
+     * The maximum size of the shop's bucket.
+     */
+    private final Double maximumAvailable;
+
+    /**
+     * The points currently available in the shop's bucket.
+     */
+    private final Double currentlyAvailable;
+
+    /**
+     * The number of points restored to the bucket per second.
+     */
+    private final Double restoreRate;
+
+    /**
+     * Checks if the response carried a throttle status.
+     */
+    public boolean hasThrottleStatus() {
+        return currentlyAvailable != null && maximumAvailable != null;
+    }
+
+    /**
+     * Parses the cost information from GraphQL response extensions.
+     *
+     * @param extensions the response extensions
+     * @return the parsed cost, or null if the extensions carry no cost
+     */
+    public static QueryCost fromExtensions(Map<String, Object> extensions) {
+        if (extensions == null) {
+            return null;
+        }
+
+        Object cost = extensions.get("cost");
+        if (!(cost instanceof Map)) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> costData = (Map<String, Object>) cost;
+
+        QueryCostBuilder builder = QueryCost.builder()
+            .requestedQueryCost(asInteger(costData.get("requestedQueryCost")))
+            .actualQueryCost(asInteger(costData.get("actualQueryCost")));
+
+        Object throttleStatus = costData.get("throttleStatus");
+        if (throttleStatus instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> throttleData = (Map<String, Object>) throttleStatus;
+
+            builder.maximumAvailable(asDouble(throttleData.get("maximumAvailable")))
+                .currentlyAvailable(asDouble(throttleData.get("currentlyAvailable")))
+                .restoreRate(asDouble(throttleData.get("restoreRate")));
+        }
+
+        return builder.build();
+    }
+
+    private static Integer asInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static Double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+}
@@ -36,6 +36,38 @@ public class RateLimitConfig {
     @Builder.Default
     private final int graphQLBucketCapacity = 1000;
     
+    /**
+     * Cost reserved for a GraphQL query whose requested cost has not been observed yet.
+     */
+    @Builder.Default
+    private final int defaultGraphQLQueryCost = 50;
+    
+    /**
+     * Share of each bucket reserved for {@link RequestPriority#INTERACTIVE} requests while they are active,
+     * i.e. waiting or made within the last second.
+     */
+    @Builder.Default
+    private final double interactiveHeadroomShare = 0.1;
+    
+    /**
+     * Share of each bucket that {@link RequestPriority#BACKGROUND} requests must additionally leave
+     * to {@link RequestPriority#DEFAULT} requests while they are active.
+     */
+    @Builder.Default
+    private final double defaultHeadroomShare = 0.1;
+    
+    /**
+     * Maximum number of shops whose rate limiters are kept in memory at once.
+     */
+    @Builder.Default
+    private final int maxTrackedShops = 10_000;
+    
+    /**
+     * How long a shop's rate limiters may stay unused before they are evicted.
+     */
+    @Builder.Default
+    private final Duration shopLimiterIdleTimeout = Duration.ofMinutes(10);
+    
     /**
      * Maximum wait time when rate limited.
      */
@@ -1,6 +1,5 @@
 package com.shopify.sdk.ratelimit;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -10,19 +9,29 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing rate limiting across different Shopify API types.
+ * Shop-scoped methods use a separate pair of limiters per shop, mirroring the buckets Shopify
+ * enforces; the methods without a shop share a single app-wide pair of limiters.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RateLimitService {
     
     private final RateLimitConfig config;
     private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final ShopRateLimiterRegistry shopLimiters;
+    private final PriorityWaitMetrics waitMetrics = new PriorityWaitMetrics();
     
     // Rate limiter keys
     private static final String REST_LIMITER_KEY = "rest";
     private static final String GRAPHQL_LIMITER_KEY = "graphql";
     
+    private static final String REST_CALL_LIMIT_HEADER = "X-Shopify-Shop-Api-Call-Limit";
+    
+    public RateLimitService(RateLimitConfig config) {
+        this.config = config;
+        this.shopLimiters = new ShopRateLimiterRegistry(config, waitMetrics);
+    }
+    
     /**
      * Acquires permission to make a REST API request.
      */
@@ -44,23 +53,75 @@ public class RateLimitService {
         return getGraphQLRateLimiter().acquire(cost);
     }
     
+    /**
+     * Acquires permission to make a REST API request for a shop.
+     *
+     * @param shop the shop domain
+     */
+    public Mono<Void> acquireRestPermit(String shop) {
+        return acquireRestPermit(shop, RequestPriority.DEFAULT);
+    }
+    
+    /**
+     * Acquires permission to make a REST API request for a shop with the given priority.
+     *
+     * @param shop the shop domain
+     * @param priority the priority class of the request
+     */
+    public Mono<Void> acquireRestPermit(String shop, RequestPriority priority) {
+        return shopLimiters.getRestLimiter(shop).acquire(1, priority);
+    }
+    
+    /**
+     * Acquires permission to make a GraphQL API request with custom cost for a shop.
+     *
+     * @param shop the shop domain
+     * @param cost the cost of the request
+     */
+    public Mono<Void> acquireGraphQLPermit(String shop, int cost) {
+        return acquireGraphQLPermit(shop, cost, RequestPriority.DEFAULT);
+    }
+    
+    /**
+     * Acquires permission to make a GraphQL API request with custom cost for a shop with the given priority.
+     *
+     * @param shop the shop domain
+     * @param cost the cost of the request
+     * @param priority the priority class of the request
+     */
+    public Mono<Void> acquireGraphQLPermit(String shop, int cost, RequestPriority priority) {
+        return shopLimiters.getGraphQLLimiter(shop).acquire(cost, priority);
+    }
+    
     /**
      * Updates REST rate limiter based on Shopify API response headers.
      */
     public void updateRestLimitsFromHeaders(Map<String, String> headers) {
-        String callLimit = headers.get("X-Shopify-Shop-Api-Call-Limit");
-        
+        applyCallLimitHeader(getRestRateLimiter(), headers.get(REST_CALL_LIMIT_HEADER));
+    }
+    
+    /**
+     * Updates a shop's REST rate limiter based on the {@code X-Shopify-Shop-Api-Call-Limit} response header.
+     *
+     * @param shop the shop domain
+     * @param callLimit the header value, e.g. {@code 32/40}
+     */
+    public void updateRestLimitsFromHeader(String shop, String callLimit) {
+        applyCallLimitHeader(shopLimiters.getRestLimiter(shop), callLimit);
+    }
+    
+    private void applyCallLimitHeader(RateLimiter limiter, String callLimit) {
         if (callLimit != null && callLimit.contains("/")) {
             try {
                 String[] parts = callLimit.split("/");
-                int used = Integer.parseInt(parts[0]);
-                int max = Integer.parseInt(parts[1]);
+                int used = Integer.parseInt(parts[0].trim());
+                int max = Integer.parseInt(parts[1].trim());
                 int remaining = max - used;
                 
-                getRestRateLimiter().updateFromHeaders(remaining, max);
+                limiter.updateFromHeaders(remaining, max);
                 
-                log.debug("Updated REST rate limiter from headers: {}/{} ({}% used)", 
-                    used, max, (used * 100.0 / max));
+                log.debug("Updated {} rate limiter from headers: {}/{} ({}% used)", 
+                    limiter.getName(), used, max, (used * 100.0 / max));
                     
             } catch (NumberFormatException e) {
                 log.warn("Failed to parse REST API call limit header: {}", callLimit);
@@ -72,36 +133,93 @@ public class RateLimitService {
      * Updates GraphQL rate limiter based on GraphQL response extensions.
      */
     public void updateGraphQLLimitsFromResponse(Map<String, Object> extensions) {
-        if (extensions == null) {
-            return;
-        }
+        QueryCost queryCost = QueryCost.fromExtensions(extensions);
         
-        Object cost = extensions.get("cost");
-        if (cost instanceof Map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> costData = (Map<String, Object>) cost;
+        if (queryCost != null && queryCost.hasThrottleStatus()) {
+            int available = queryCost.getCurrentlyAvailable().intValue();
+            int maximum = queryCost.getMaximumAvailable().intValue();
             
-            Object throttleStatus = costData.get("throttleStatus");
-            if (throttleStatus instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> throttleData = (Map<String, Object>) throttleStatus;
-                
-                Object currentlyAvailable = throttleData.get("currentlyAvailable");
-                Object maximumAvailable = throttleData.get("maximumAvailable");
-                
-                if (currentlyAvailable instanceof Number && maximumAvailable instanceof Number) {
-                    int available = ((Number) currentlyAvailable).intValue();
-                    int maximum = ((Number) maximumAvailable).intValue();
-                    
-                    getGraphQLRateLimiter().updateFromHeaders(available, maximum);
-                    
-                    log.debug("Updated GraphQL rate limiter from response: {}/{} available", 
-                        available, maximum);
-                }
-            }
+            getGraphQLRateLimiter().updateFromHeaders(available, maximum);
+            
+            log.debug("Updated GraphQL rate limiter from response: {}/{} available", 
+                available, maximum);
+        }
+    }
+    
+    /**
+     * Updates a shop's GraphQL rate limiter based on the throttle status in the response extensions.
+     *
+     * @param shop the shop domain
+     * @param extensions the response extensions
+     */
+    public void updateGraphQLLimitsFromResponse(String shop, Map<String, Object> extensions) {
+        QueryCost queryCost = QueryCost.fromExtensions(extensions);
+        
+        if (queryCost != null && queryCost.hasThrottleStatus()) {
+            shopLimiters.getGraphQLLimiter(shop).updateFromHeaders(
+                queryCost.getCurrentlyAvailable().intValue(), queryCost.getMaximumAvailable().intValue());
+        }
+    }
+    
+    /**
+     * Reserves the requested cost of a GraphQL query in the shop's bucket before it is sent.
+     * The reservation must be settled with {@link #settleGraphQLCost(String, int, Map)} once the query completes,
+     * or cancelled with {@link #cancelGraphQLCost(String, int)} if it was not sent.
+     *
+     * @param shop the shop domain
+     * @param requestedCost the expected cost of the query
+     * @return Mono that completes when the cost is available in the bucket
+     */
+    public Mono<Void> reserveGraphQLCost(String shop, int requestedCost) {
+        return reserveGraphQLCost(shop, requestedCost, RequestPriority.DEFAULT);
+    }
+    
+    /**
+     * Reserves the requested cost of a GraphQL query in the shop's bucket with the given priority.
+     *
+     * @param shop the shop domain
+     * @param requestedCost the expected cost of the query
+     * @param priority the priority class of the query
+     * @return Mono that completes when the cost is available in the bucket
+     */
+    public Mono<Void> reserveGraphQLCost(String shop, int requestedCost, RequestPriority priority) {
+        return shopLimiters.getGraphQLLimiter(shop).reserve(requestedCost, priority);
+    }
+    
+    /**
+     * Settles a GraphQL cost reservation against the cost reported in the response extensions.
+     *
+     * @param shop the shop domain
+     * @param reservedCost the cost reserved before sending the query
+     * @param extensions the response extensions, or null if the query failed after it was sent
+     */
+    public void settleGraphQLCost(String shop, int reservedCost, Map<String, Object> extensions) {
+        RateLimiter limiter = shopLimiters.findGraphQLLimiter(shop);
+        if (limiter != null) {
+            limiter.settle(reservedCost, QueryCost.fromExtensions(extensions));
+        }
+    }
+    
+    /**
+     * Refunds the cost reservation of a GraphQL query that never reached Shopify.
+     *
+     * @param shop the shop domain
+     * @param reservedCost the cost reserved before sending the query
+     */
+    public void cancelGraphQLCost(String shop, int reservedCost) {
+        RateLimiter limiter = shopLimiters.findGraphQLLimiter(shop);
+        if (limiter != null) {
+            limiter.cancel(reservedCost);
         }
     }
     
+    /**
+     * Gets the configured default cost reserved for GraphQL queries without a known cost.
+     */
+    public int getDefaultGraphQLQueryCost() {
+        return config.getDefaultGraphQLQueryCost();
+    }
+    
     /**
      * Checks if a REST request can be made without waiting.
      */
@@ -134,11 +252,64 @@ public class RateLimitService {
             .build();
     }
     
+    /**
+     * Gets the current state of a shop's rate limiters.
+     *
+     * @param shop the shop domain
+     */
+    public RateLimitStatus getStatus(String shop) {
+        return RateLimitStatus.builder()
+            .restState(shopLimiters.getRestLimiter(shop).getState())
+            .graphQLState(shopLimiters.getGraphQLLimiter(shop).getState())
+            .config(config)
+            .build();
+    }
+    
+    /**
+     * Gets how long requests waited for rate limit tokens, per priority class, across all shops.
+     */
+    public Map<RequestPriority, PriorityWaitMetrics.WaitStats> getWaitStats() {
+        return waitMetrics.getAllStats();
+    }
+    
+    /**
+     * Forgets a shop's rate limiters, e.g. after the app was uninstalled.
+     *
+     * @param shop the shop domain
+     */
+    public void removeShop(String shop) {
+        shopLimiters.remove(shop);
+    }
+    
+    /**
+     * Gets the REST limiters of all tracked shops summed up: queued requests, shops with waiting
+     * requests and the utilization of the fullest bucket.
+     */
+    public ShopRateLimiterRegistry.AggregateState getShopRestState() {
+        return shopLimiters.getRestAggregate();
+    }
+    
+    /**
+     * Gets the GraphQL limiters of all tracked shops summed up: queued requests, shops with waiting
+     * requests and the utilization of the fullest bucket.
+     */
+    public ShopRateLimiterRegistry.AggregateState getShopGraphQLState() {
+        return shopLimiters.getGraphQLAggregate();
+    }
+    
+    /**
+     * Gets the number of shops with rate limiters currently held in memory.
+     */
+    public int getTrackedShopCount() {
+        return shopLimiters.size();
+    }
+    
     /**
      * Resets all rate limiters to full capacity.
      */
     public void resetAll() {
         rateLimiters.values().forEach(RateLimiter::reset);
+        shopLimiters.resetAll();
         log.info("Reset all rate limiters");
     }
     
@@ -166,7 +337,10 @@ public class RateLimitService {
             new RateLimiter(
                 "REST API", 
                 config.getRestBucketCapacity(), 
-                config.getMaxRestRequestsPerSecond()
+                config.getMaxRestRequestsPerSecond(),
+                config.getInteractiveHeadroomShare(),
+                config.getDefaultHeadroomShare(),
+                waitMetrics
             )
         );
     }
@@ -179,7 +353,10 @@ public class RateLimitService {
             new RateLimiter(
                 "GraphQL API", 
                 config.getGraphQLBucketCapacity(), 
-                config.getMaxGraphQLRequestsPerSecond()
+                config.getMaxGraphQLRequestsPerSecond(),
+                config.getInteractiveHeadroomShare(),
+                config.getDefaultHeadroomShare(),
+                waitMetrics
             )
         );
     }
@@ -1,209 +1,615 @@
 package com.shopify.sdk.ratelimit;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * Token bucket rate limiter implementation.
+ * <p>
+ * Requests that cannot be served immediately wait in a FIFO queue. A single refill timer, armed for
+ * the moment the head of the queue can be served, hands tokens to waiters in arrival order, so large
+ * requests are not starved by smaller ones and waiters never race each other for tokens.
+ * Tokens are refilled with nanosecond precision and fractional accounting.
+ * <p>
+ * Each {@link RequestPriority} has its own queue. Higher classes are always served first, and while a
+ * higher class is active, lower classes must leave a share of the bucket free as headroom for it, so
+ * background work can neither overtake nor exhaust the budget of interactive requests. A class is active
+ * while it has requests waiting or has asked for tokens within the last second; when it is idle, the
+ * classes below it may use the whole bucket, so default traffic is not slowed down for interactive
+ * requests that are not being made.
  */
 @Slf4j
 public class RateLimiter {
-    
-    private final int capacity;
-    private final int refillRate; // tokens per second
-    private final AtomicInteger tokens;
-    private final AtomicLong lastRefill;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    // How long a priority class keeps its headroom after its last request
+    private static final long HEADROOM_HOLD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final String name;
-    
+    private final LongSupplier nanoClock;
+    private final Scheduler timerScheduler;
+    private final AtomicInteger reservedInFlight = new AtomicInteger(0);
+
+    private final double interactiveHeadroomShare;
+    private final double defaultHeadroomShare;
+    private final PriorityWaitMetrics waitMetrics;
+
+    // Bucket state, guarded by this
+    private final Map<RequestPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(RequestPriority.class);
+    private final long[] lastRequestNanos = new long[RequestPriority.values().length];
+    private int queuedRequests;
+    private volatile int capacity;
+    private volatile int refillRate; // tokens per second
+    private double tokens;
+    private long lastRefillNanos;
+    private Disposable refillTimer;
+    private long refillTimerDeadlineNanos;
+
     public RateLimiter(String name, int capacity, int refillRate) {
+        this(name, capacity, refillRate, 0, 0, new PriorityWaitMetrics());
+    }
+
+    /**
+     * Creates a rate limiter that keeps headroom in the bucket for higher priority classes.
+     *
+     * @param interactiveHeadroomShare share of the bucket only interactive requests may use
+     * @param defaultHeadroomShare share of the bucket background requests must leave to default requests
+     * @param waitMetrics where wait times are recorded, possibly shared with other limiters
+     */
+    public RateLimiter(String name, int capacity, int refillRate,
+                       double interactiveHeadroomShare, double defaultHeadroomShare, PriorityWaitMetrics waitMetrics) {
+        this(name, capacity, refillRate, interactiveHeadroomShare, defaultHeadroomShare, waitMetrics,
+            System::nanoTime, Schedulers.parallel());
+    }
+
+    RateLimiter(String name, int capacity, int refillRate, LongSupplier nanoClock, Scheduler timerScheduler) {
+        this(name, capacity, refillRate, 0, 0, new PriorityWaitMetrics(), nanoClock, timerScheduler);
+    }
+
+    RateLimiter(String name, int capacity, int refillRate,
+                double interactiveHeadroomShare, double defaultHeadroomShare, PriorityWaitMetrics waitMetrics,
+                LongSupplier nanoClock, Scheduler timerScheduler) {
+        if (interactiveHeadroomShare < 0 || defaultHeadroomShare < 0 || interactiveHeadroomShare + defaultHeadroomShare >= 1) {
+            throw new IllegalArgumentException("Headroom shares must be non-negative and leave part of the bucket to background requests");
+        }
         this.name = name;
         this.capacity = capacity;
         this.refillRate = refillRate;
-        this.tokens = new AtomicInteger(capacity);
-        this.lastRefill = new AtomicLong(System.currentTimeMillis());
+        this.interactiveHeadroomShare = interactiveHeadroomShare;
+        this.defaultHeadroomShare = defaultHeadroomShare;
+        this.waitMetrics = waitMetrics;
+        this.nanoClock = nanoClock;
+        this.timerScheduler = timerScheduler;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        for (RequestPriority priority : RequestPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            // No class starts out active
+            lastRequestNanos[priority.ordinal()] = lastRefillNanos - HEADROOM_HOLD_NANOS;
+        }
     }
-    
+
     /**
      * Attempts to acquire a token for request execution.
-     * 
+     *
      * @return Mono that completes when a token is acquired
      */
     public Mono<Void> acquire() {
         return acquire(1);
     }
-    
+
     /**
      * Attempts to acquire multiple tokens for request execution.
-     * 
+     *
      * @param requestedTokens number of tokens to acquire
      * @return Mono that completes when tokens are acquired
      */
     public Mono<Void> acquire(int requestedTokens) {
-        return Mono.defer(() -> {
-            refillTokens();
-            
-            int currentTokens = tokens.get();
-            if (currentTokens >= requestedTokens) {
-                if (tokens.compareAndSet(currentTokens, currentTokens - requestedTokens)) {
-                    log.debug("Rate limiter '{}' acquired {} tokens, {} remaining", 
-                        name, requestedTokens, tokens.get());
-                    return Mono.empty();
-                }
-                // Retry if CAS failed
-                return acquire(requestedTokens);
+        return acquire(requestedTokens, RequestPriority.DEFAULT);
+    }
+
+    /**
+     * Attempts to acquire multiple tokens for request execution with the given priority.
+     * Waiters of the same priority are served in arrival order; cancelling the returned Mono while it
+     * waits gives up its place in the queue, and tokens already handed to it are returned.
+     *
+     * @param requestedTokens number of tokens to acquire
+     * @param priority the priority class of the request
+     * @return Mono that completes when tokens are acquired
+     */
+    public Mono<Void> acquire(int requestedTokens, RequestPriority priority) {
+        RequestPriority requestPriority = RequestPriority.orDefault(priority);
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(requestedTokens, requestPriority, sink);
+            // Registered before queueing so a cancellation can never miss a grant
+            sink.onCancel(() -> cancel(waiter));
+
+            List<Waiter> granted;
+            int queued;
+            synchronized (this) {
+                waiter.cost = chargedTokens(requestedTokens);
+                waiter.enqueuedNanos = nanoClock.getAsLong();
+                lastRequestNanos[requestPriority.ordinal()] = waiter.enqueuedNanos;
+                queues.get(requestPriority).addLast(waiter);
+                queuedRequests++;
+                granted = drainLocked();
+                queued = queuedRequests;
             }
-            
-            // Not enough tokens, calculate wait time
-            long waitTimeMs = calculateWaitTime(requestedTokens);
-            
-            log.debug("Rate limiter '{}' delaying request by {}ms, current tokens: {}, requested: {}", 
-                name, waitTimeMs, currentTokens, requestedTokens);
-            
-            return Mono.delay(Duration.ofMillis(waitTimeMs))
-                .then(acquire(requestedTokens));
+
+            if (queued > 0 && !granted.contains(waiter)) {
+                log.debug("Rate limiter '{}' queued {} request for {} tokens, {} waiting",
+                    name, requestPriority, waiter.cost, queued);
+            }
+            complete(granted);
         });
     }
-    
+
+    /**
+     * Reserves tokens for a request whose final cost is only known after it completes.
+     * Every reservation must be settled with {@link #settle(int, QueryCost)}, or cancelled with
+     * {@link #cancel(int)} if the request was not sent.
+     *
+     * @param cost the number of tokens to reserve
+     * @return Mono that completes when the tokens are reserved
+     */
+    public Mono<Void> reserve(int cost) {
+        return reserve(cost, RequestPriority.DEFAULT);
+    }
+
+    /**
+     * Reserves tokens with the given priority for a request whose final cost is only known after it completes.
+     *
+     * @param cost the number of tokens to reserve
+     * @param priority the priority class of the request
+     * @return Mono that completes when the tokens are reserved
+     */
+    public Mono<Void> reserve(int cost, RequestPriority priority) {
+        return acquire(cost, priority)
+            .doOnSuccess(ignored -> reservedInFlight.addAndGet(chargedTokens(cost)));
+    }
+
+    /**
+     * Settles a reservation once the request has completed.
+     * When the response carries a throttle status the bucket is synchronized with the server,
+     * otherwise the difference between the reserved and the actual cost is refunded. A request that
+     * failed after it was sent, e.g. with a timeout, may have been charged in full, so its reservation
+     * is kept until the next throttle status corrects the bucket.
+     *
+     * @param reservedCost the number of tokens reserved for the request
+     * @param queryCost the cost reported by the server, or null if the request failed after it was sent
+     */
+    public void settle(int reservedCost, QueryCost queryCost) {
+        int charged = chargedTokens(reservedCost);
+        int stillInFlight = reservedInFlight.updateAndGet(current -> Math.max(0, current - charged));
+
+        if (queryCost != null && queryCost.hasThrottleStatus()) {
+            syncFromServer(queryCost, stillInFlight);
+        } else if (queryCost != null && queryCost.getActualQueryCost() != null) {
+            release(charged - queryCost.getActualQueryCost());
+        }
+    }
+
+    /**
+     * Cancels the reservation of a request that never reached the server, refunding it in full.
+     *
+     * @param reservedCost the number of tokens reserved for the request
+     */
+    public void cancel(int reservedCost) {
+        int charged = chargedTokens(reservedCost);
+        reservedInFlight.updateAndGet(current -> Math.max(0, current - charged));
+        release(charged);
+    }
+
+    /**
+     * Returns tokens to the bucket, never exceeding its capacity.
+     *
+     * @param returnedTokens number of tokens to return
+     */
+    public void release(int returnedTokens) {
+        if (returnedTokens <= 0) {
+            return;
+        }
+        List<Waiter> granted;
+        synchronized (this) {
+            refillLocked(nanoClock.getAsLong());
+            tokens = Math.min(capacity, tokens + returnedTokens);
+            granted = drainLocked();
+        }
+        complete(granted);
+    }
+
     /**
      * Attempts to acquire a token without waiting.
-     * 
+     *
      * @return true if token was acquired, false otherwise
      */
     public boolean tryAcquire() {
         return tryAcquire(1);
     }
-    
+
     /**
      * Attempts to acquire multiple tokens without waiting.
-     * 
+     *
      * @param requestedTokens number of tokens to acquire
      * @return true if tokens were acquired, false otherwise
      */
     public boolean tryAcquire(int requestedTokens) {
-        refillTokens();
-        
-        int currentTokens = tokens.get();
-        if (currentTokens >= requestedTokens) {
-            return tokens.compareAndSet(currentTokens, currentTokens - requestedTokens);
+        return tryAcquire(requestedTokens, RequestPriority.DEFAULT);
+    }
+
+    /**
+     * Attempts to acquire multiple tokens with the given priority without waiting.
+     * Never jumps ahead of requests of the same or a higher priority already waiting in the queue.
+     *
+     * @param requestedTokens number of tokens to acquire
+     * @param priority the priority class of the request
+     * @return true if tokens were acquired, false otherwise
+     */
+    public synchronized boolean tryAcquire(int requestedTokens, RequestPriority priority) {
+        RequestPriority requestPriority = RequestPriority.orDefault(priority);
+        long now = nanoClock.getAsLong();
+        refillLocked(now);
+        lastRequestNanos[requestPriority.ordinal()] = now;
+
+        for (RequestPriority queued : RequestPriority.values()) {
+            if (queued.compareTo(requestPriority) > 0) {
+                break;
+            }
+            if (!queues.get(queued).isEmpty()) {
+                return false;
+            }
+        }
+
+        int cost = chargedTokens(requestedTokens);
+        if (tokens >= requiredTokensLocked(cost, requestPriority, now)) {
+            tokens -= cost;
+            waitMetrics.record(requestPriority, 0);
+            return true;
         }
-        
+
         return false;
     }
-    
+
     /**
      * Gets the current number of available tokens.
      */
-    public int getAvailableTokens() {
-        refillTokens();
-        return tokens.get();
+    public synchronized int getAvailableTokens() {
+        refillLocked(nanoClock.getAsLong());
+        return (int) tokens;
+    }
+
+    /**
+     * Gets the number of requests waiting for tokens.
+     */
+    public synchronized int getQueuedRequests() {
+        return queuedRequests;
     }
-    
+
+    /**
+     * Gets the number of requests of a priority class waiting for tokens.
+     */
+    public synchronized int getQueuedRequests(RequestPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    /**
+     * Gets the wait time metrics this limiter records into.
+     */
+    public PriorityWaitMetrics getWaitMetrics() {
+        return waitMetrics;
+    }
+
     /**
      * Gets the maximum capacity of the bucket.
      */
     public int getCapacity() {
         return capacity;
     }
-    
+
     /**
      * Gets the refill rate (tokens per second).
      */
     public int getRefillRate() {
         return refillRate;
     }
-    
+
     /**
      * Gets the name of this rate limiter.
      */
     public String getName() {
         return name;
     }
-    
+
+    /**
+     * Checks if requests are waiting for tokens or tokens are reserved by requests that have not been settled yet.
+     */
+    public boolean hasPendingWork() {
+        return reservedInFlight.get() > 0 || getQueuedRequests() > 0;
+    }
+
     /**
      * Resets the rate limiter to full capacity.
      */
     public void reset() {
-        tokens.set(capacity);
-        lastRefill.set(System.currentTimeMillis());
+        List<Waiter> granted;
+        synchronized (this) {
+            tokens = capacity;
+            lastRefillNanos = nanoClock.getAsLong();
+            granted = drainLocked();
+        }
+        complete(granted);
         log.debug("Rate limiter '{}' reset to full capacity", name);
     }
-    
+
     /**
      * Updates the bucket based on Shopify's rate limit headers.
      */
     public void updateFromHeaders(int remainingRequests, int maxRequests) {
         if (remainingRequests >= 0 && maxRequests > 0) {
-            // Update tokens based on actual API response
-            int newTokens = Math.min(remainingRequests, capacity);
-            tokens.set(newTokens);
-            
-            log.debug("Rate limiter '{}' updated from headers: {} remaining of {} max, set to {} tokens", 
-                name, remainingRequests, maxRequests, newTokens);
-        }
-    }
-    
-    /**
-     * Refills tokens based on elapsed time.
-     */
-    private void refillTokens() {
-        long now = System.currentTimeMillis();
-        long lastRefillTime = lastRefill.get();
-        long elapsedMs = now - lastRefillTime;
-        
-        if (elapsedMs > 0) {
-            // Calculate tokens to add based on elapsed time
-            long tokensToAdd = (elapsedMs * refillRate) / 1000;
-            
-            if (tokensToAdd > 0) {
-                int currentTokens = tokens.get();
-                int newTokens = Math.min(capacity, currentTokens + (int) tokensToAdd);
-                
-                if (tokens.compareAndSet(currentTokens, newTokens)) {
-                    lastRefill.set(now);
-                    
-                    if (newTokens != currentTokens) {
-                        log.trace("Rate limiter '{}' refilled {} tokens ({}->{})", 
-                            name, tokensToAdd, currentTokens, newTokens);
+            List<Waiter> granted;
+            synchronized (this) {
+                // Adopt the shop's bucket size, which differs between plans
+                capacity = maxRequests;
+
+                // Update tokens based on actual API response
+                tokens = Math.min(remainingRequests, capacity);
+                lastRefillNanos = nanoClock.getAsLong();
+                granted = drainLocked();
+            }
+            complete(granted);
+
+            log.debug("Rate limiter '{}' updated from headers: {} remaining of {} max",
+                name, remainingRequests, maxRequests);
+        }
+    }
+
+    /**
+     * Synchronizes the bucket with the throttle status reported by the server.
+     * Tokens reserved by requests still in flight are deducted, as the server has not charged them yet.
+     */
+    private void syncFromServer(QueryCost queryCost, int stillInFlight) {
+        List<Waiter> granted;
+        synchronized (this) {
+            capacity = queryCost.getMaximumAvailable().intValue();
+            if (queryCost.getRestoreRate() != null && queryCost.getRestoreRate() > 0) {
+                refillRate = queryCost.getRestoreRate().intValue();
+            }
+
+            double available = queryCost.getCurrentlyAvailable() - stillInFlight;
+            tokens = Math.max(0, Math.min(available, capacity));
+            lastRefillNanos = nanoClock.getAsLong();
+            granted = drainLocked();
+        }
+        complete(granted);
+
+        log.debug("Rate limiter '{}' synchronized with server: {} available of {}, restore rate {}/s, {} in flight",
+            name, queryCost.getCurrentlyAvailable(), capacity, refillRate, stillInFlight);
+    }
+
+    /**
+     * The tokens a request of the given cost takes from the bucket. A request larger than the bucket can never
+     * be satisfied, so it waits for and takes a full bucket instead.
+     */
+    private int chargedTokens(int requestedTokens) {
+        return Math.min(requestedTokens, capacity);
+    }
+
+    /**
+     * Removes a cancelled waiter from the queue, or returns its tokens if they were already handed over.
+     */
+    private void cancel(Waiter waiter) {
+        List<Waiter> granted;
+        synchronized (this) {
+            if (waiter.state == Waiter.WAITING) {
+                waiter.state = Waiter.CANCELLED;
+                if (queues.get(waiter.priority).remove(waiter)) {
+                    queuedRequests--;
+                }
+            } else if (waiter.state == Waiter.GRANTED) {
+                // The grant raced with the cancellation and was never observed by the subscriber
+                tokens = Math.min(capacity, tokens + waiter.cost);
+            }
+            // The head may have been blocking smaller requests behind it
+            granted = drainLocked();
+        }
+        complete(granted);
+        log.debug("Rate limiter '{}' request for {} tokens cancelled", name, waiter.cost);
+    }
+
+    /**
+     * Hands tokens to waiters by priority and, within a priority, in arrival order, then arms the
+     * refill timer for the first waiter that cannot be served yet. A blocked waiter also blocks every
+     * lower priority, so lower classes never consume tokens a higher class is waiting for.
+     * Must be called while holding the lock; the returned waiters are completed after releasing it.
+     */
+    private List<Waiter> drainLocked() {
+        long now = nanoClock.getAsLong();
+        refillLocked(now);
+
+        List<Waiter> granted = List.of();
+        for (RequestPriority priority : RequestPriority.values()) {
+            ArrayDeque<Waiter> queue = queues.get(priority);
+            Waiter head;
+            while ((head = queue.peekFirst()) != null) {
+                // The bucket may have shrunk after the request was queued
+                head.cost = Math.min(head.cost, capacity);
+                int required = requiredTokensLocked(head.cost, priority, now);
+                if (tokens < required) {
+                    long delayNanos = refillDelayNanosLocked(required);
+                    if (required > head.cost) {
+                        // The headroom of the higher classes may lapse before the bucket refills
+                        long lapseNanos = Math.max(refillDelayNanosLocked(head.cost),
+                            headroomLapseNanosLocked(priority, now));
+                        delayNanos = Math.min(delayNanos, lapseNanos);
                     }
+                    scheduleRefillLocked(delayNanos);
+                    return granted;
                 }
+
+                queue.pollFirst();
+                queuedRequests--;
+                tokens -= head.cost;
+                head.state = Waiter.GRANTED;
+                waitMetrics.record(priority, now - head.enqueuedNanos);
+                if (granted.isEmpty()) {
+                    granted = new ArrayList<>();
+                }
+                granted.add(head);
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Gets the number of tokens that must be available before a request of the given priority is served:
+     * its cost plus the headroom kept for the active higher priorities, but never more than a full bucket.
+     */
+    private int requiredTokensLocked(int cost, RequestPriority priority, long now) {
+        double headroomShare = 0;
+        if (priority != RequestPriority.INTERACTIVE && isActiveLocked(RequestPriority.INTERACTIVE, now)) {
+            headroomShare += interactiveHeadroomShare;
+        }
+        if (priority == RequestPriority.BACKGROUND && isActiveLocked(RequestPriority.DEFAULT, now)) {
+            headroomShare += defaultHeadroomShare;
+        }
+        return Math.min(capacity, cost + (int) Math.ceil(capacity * headroomShare));
+    }
+
+    /**
+     * Whether a priority class has requests waiting or asked for tokens within the headroom hold time.
+     */
+    private boolean isActiveLocked(RequestPriority priority, long now) {
+        return !queues.get(priority).isEmpty() || now - lastRequestNanos[priority.ordinal()] < HEADROOM_HOLD_NANOS;
+    }
+
+    /**
+     * Gets the time until no higher class than the given one is active any more, given that none has
+     * requests waiting.
+     */
+    private long headroomLapseNanosLocked(RequestPriority priority, long now) {
+        long lapseNanos = 0;
+        for (RequestPriority higher : RequestPriority.values()) {
+            if (higher.compareTo(priority) >= 0) {
+                break;
             }
+            lapseNanos = Math.max(lapseNanos, lastRequestNanos[higher.ordinal()] + HEADROOM_HOLD_NANOS - now);
+        }
+        return lapseNanos;
+    }
+
+    /**
+     * Gets the time until the given number of tokens will be available.
+     */
+    private long refillDelayNanosLocked(int neededTokens) {
+        int rate = refillRate;
+        double missing = neededTokens - tokens;
+        return rate > 0 ? (long) Math.ceil(missing * NANOS_PER_SECOND / rate) : (long) NANOS_PER_SECOND;
+    }
+
+    /**
+     * Arms the single refill timer to drain the queues after the given delay.
+     * An already armed timer that fires earlier is kept.
+     */
+    private void scheduleRefillLocked(long delayNanos) {
+        long deadline = nanoClock.getAsLong() + Math.max(1, delayNanos);
+
+        if (refillTimer != null && !refillTimer.isDisposed()) {
+            if (refillTimerDeadlineNanos <= deadline) {
+                return;
+            }
+            refillTimer.dispose();
+        }
+
+        refillTimerDeadlineNanos = deadline;
+        refillTimer = timerScheduler.schedule(this::onRefillTimer, Math.max(1, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private void onRefillTimer() {
+        List<Waiter> granted;
+        synchronized (this) {
+            refillTimer = null;
+            granted = drainLocked();
         }
+        complete(granted);
     }
-    
+
     /**
-     * Calculates how long to wait for the requested tokens to become available.
+     * Refills tokens based on elapsed time, keeping fractional tokens between calls.
      */
-    private long calculateWaitTime(int requestedTokens) {
-        int currentTokens = tokens.get();
-        int tokensNeeded = requestedTokens - currentTokens;
-        
-        if (tokensNeeded <= 0) {
-            return 0;
+    private void refillLocked(long now) {
+        long elapsedNanos = now - lastRefillNanos;
+        if (elapsedNanos <= 0) {
+            return;
+        }
+        lastRefillNanos = now;
+
+        if (tokens < capacity) {
+            tokens = Math.min(capacity, tokens + elapsedNanos * (double) refillRate / NANOS_PER_SECOND);
         }
-        
-        // Time to wait for tokens to be refilled
-        return (tokensNeeded * 1000L) / refillRate;
     }
-    
+
+    /**
+     * Signals waiters that received their tokens. Called outside the lock, as subscribers may run inline.
+     */
+    private void complete(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            waiter.sink.success();
+        }
+    }
+
     /**
      * Gets a summary of the current state.
      */
     public RateLimiterState getState() {
-        refillTokens();
-        return RateLimiterState.builder()
-            .name(name)
-            .availableTokens(tokens.get())
-            .capacity(capacity)
-            .refillRate(refillRate)
-            .lastRefill(Instant.ofEpochMilli(lastRefill.get()))
-            .build();
-    }
-    
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            refillLocked(now);
+            return RateLimiterState.builder()
+                .name(name)
+                .availableTokens((int) tokens)
+                .capacity(capacity)
+                .refillRate(refillRate)
+                .queuedRequests(queuedRequests)
+                .lastRefill(Instant.now().minusNanos(now - lastRefillNanos))
+                .build();
+        }
+    }
+
+    /**
+     * A request waiting in the queue. State changes happen while holding the limiter's lock.
+     */
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final RequestPriority priority;
+        private final MonoSink<Void> sink;
+        private int cost;
+        private long enqueuedNanos;
+        private int state = WAITING;
+
+        private Waiter(int cost, RequestPriority priority, MonoSink<Void> sink) {
+            this.cost = cost;
+            this.priority = priority;
+            this.sink = sink;
+        }
+    }
+
     @lombok.Data
     @lombok.Builder
     public static class RateLimiterState {
@@ -211,10 +617,11 @@ public class RateLimiter {
         private final int availableTokens;
         private final int capacity;
         private final int refillRate;
+        private final int queuedRequests;
         private final Instant lastRefill;
-        
+
         public double getUtilizationPercentage() {
             return (double) (capacity - availableTokens) / capacity * 100;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.shopify.sdk.ratelimit;
+
+/**
+ * Priority class of a rate-limited request.
+ * Higher classes are served first and may use headroom in the bucket that lower classes must leave free.
+ */
+public enum RequestPriority {
+
+    /**
+     * Requests a user is waiting for, e.g. from the embedded admin UI.
+     */
+    INTERACTIVE,
+
+    /**
+     * Requests without an explicit priority.
+     */
+    DEFAULT,
+
+    /**
+     * Bulk and sync work that yields to every other class.
+     */
+    BACKGROUND;
+
+    /**
+     * Returns the given priority, or {@link #DEFAULT} if it is null.
+     */
+    public static RequestPriority orDefault(RequestPriority priority) {
+        return priority != null ? priority : DEFAULT;
+    }
+}
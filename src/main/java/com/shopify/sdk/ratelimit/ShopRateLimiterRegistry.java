@@ -0,0 +1,231 @@
+package com.shopify.sdk.ratelimit;
+
+import com.shopify.sdk.cache.BoundedLruMap;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lazily created, bounded set of per-shop rate limiters.
+ * Shopify enforces its REST and GraphQL buckets per shop, so each shop gets its own pair of limiters.
+ * Limiters that stay idle longer than the configured timeout are evicted, and the number of shops
+ * tracked at once is capped by a {@link BoundedLruMap} that evicts the least recently used shops in
+ * batches; a shop that is evicted simply starts again from a full bucket and is re-synchronized by the
+ * next response. Limiters with pending work are never evicted.
+ * <p>
+ * Shops are keyed by their lower-case domain without protocol or trailing slash, so
+ * {@code https://Shop.myshopify.com/} and {@code shop.myshopify.com} share one pair of buckets.
+ */
+@Slf4j
+public class ShopRateLimiterRegistry {
+
+    private final long idleTimeoutNanos;
+    private final Function<String, ShopLimiters> limiterFactory;
+    private final BoundedLruMap<String, ShopLimiters> limiters;
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    private final LongAdder evictions = new LongAdder();
+
+    public ShopRateLimiterRegistry(RateLimitConfig config) {
+        this(config, new PriorityWaitMetrics());
+    }
+
+    /**
+     * Creates a registry whose limiters all record their wait times into the given metrics.
+     */
+    public ShopRateLimiterRegistry(RateLimitConfig config, PriorityWaitMetrics waitMetrics) {
+        this.limiters = new BoundedLruMap<>(config.getMaxTrackedShops(), ShopLimiters::isEvictable);
+        this.idleTimeoutNanos = config.getShopLimiterIdleTimeout().toNanos();
+        this.limiterFactory = shop -> new ShopLimiters(
+            new RateLimiter("REST API [" + shop + "]",
+                config.getRestBucketCapacity(), config.getMaxRestRequestsPerSecond(),
+                config.getInteractiveHeadroomShare(), config.getDefaultHeadroomShare(), waitMetrics),
+            new RateLimiter("GraphQL API [" + shop + "]",
+                config.getGraphQLBucketCapacity(), config.getMaxGraphQLRequestsPerSecond(),
+                config.getInteractiveHeadroomShare(), config.getDefaultHeadroomShare(), waitMetrics));
+    }
+
+    /**
+     * Gets the REST limiter for a shop, creating it on first use.
+     */
+    public RateLimiter getRestLimiter(String shop) {
+        return get(shop).rest;
+    }
+
+    /**
+     * Gets the GraphQL limiter for a shop, creating it on first use.
+     */
+    public RateLimiter getGraphQLLimiter(String shop) {
+        return get(shop).graphQL;
+    }
+
+    /**
+     * Gets the REST limiter for a shop if one is currently tracked.
+     */
+    public RateLimiter findRestLimiter(String shop) {
+        ShopLimiters shopLimiters = limiters.get(shopKey(shop));
+        return shopLimiters != null ? shopLimiters.rest : null;
+    }
+
+    /**
+     * Gets the GraphQL limiter for a shop if one is currently tracked.
+     */
+    public RateLimiter findGraphQLLimiter(String shop) {
+        ShopLimiters shopLimiters = limiters.get(shopKey(shop));
+        return shopLimiters != null ? shopLimiters.graphQL : null;
+    }
+
+    /**
+     * Removes the limiters of a shop, e.g. after the app was uninstalled.
+     */
+    public void remove(String shop) {
+        limiters.remove(shopKey(shop));
+    }
+
+    /**
+     * Resets the limiters of every tracked shop to full capacity.
+     */
+    public void resetAll() {
+        limiters.forEach((shop, shopLimiters) -> {
+            shopLimiters.rest.reset();
+            shopLimiters.graphQL.reset();
+        });
+    }
+
+    /**
+     * Gets the number of shops currently tracked.
+     */
+    public int size() {
+        return limiters.size();
+    }
+
+    /**
+     * Gets the number of shops evicted so far, for being idle or to stay within the maximum number of shops.
+     */
+    public long getEvictionCount() {
+        return evictions.sum() + limiters.getEvictionCount();
+    }
+
+    /**
+     * Sums the REST limiters of all tracked shops.
+     */
+    public AggregateState getRestAggregate() {
+        return aggregate(shopLimiters -> shopLimiters.rest);
+    }
+
+    /**
+     * Sums the GraphQL limiters of all tracked shops.
+     */
+    public AggregateState getGraphQLAggregate() {
+        return aggregate(shopLimiters -> shopLimiters.graphQL);
+    }
+
+    private AggregateState aggregate(Function<ShopLimiters, RateLimiter> kind) {
+        int[] queued = new int[2];
+        double[] maxUtilization = new double[1];
+        limiters.forEach((shop, shopLimiters) -> {
+            RateLimiter limiter = kind.apply(shopLimiters);
+            int waiting = limiter.getQueuedRequests();
+            queued[0] += waiting;
+            if (waiting > 0) {
+                queued[1]++;
+            }
+            int capacity = limiter.getCapacity();
+            if (capacity > 0) {
+                double utilization = (double) (capacity - limiter.getAvailableTokens()) / capacity * 100;
+                maxUtilization[0] = Math.max(maxUtilization[0], utilization);
+            }
+        });
+        return AggregateState.builder()
+            .queuedRequests(queued[0])
+            .throttledShops(queued[1])
+            .maxUtilizationPercentage(maxUtilization[0])
+            .build();
+    }
+
+    private ShopLimiters get(String shop) {
+        ShopLimiters shopLimiters = limiters.computeIfAbsent(shopKey(shop), limiterFactory);
+
+        long now = System.nanoTime();
+        shopLimiters.lastAccessNanos = now;
+
+        // Amortize idle eviction over normal traffic instead of running a dedicated thread
+        if (now - lastSweepNanos.get() > idleTimeoutNanos / 2) {
+            sweepIdle();
+        }
+        return shopLimiters;
+    }
+
+    /**
+     * Reduces a shop domain to the key its limiters are tracked under: lower case, without protocol or
+     * trailing slash.
+     */
+    static String shopKey(String shop) {
+        String key = shop.trim().toLowerCase(Locale.ROOT);
+        if (key.startsWith("https://")) {
+            key = key.substring(8);
+        } else if (key.startsWith("http://")) {
+            key = key.substring(7);
+        }
+        return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+    }
+
+    private void sweepIdle() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            lastSweepNanos.set(now);
+
+            int[] evicted = new int[1];
+            limiters.forEach((shop, shopLimiters) -> {
+                if (now - shopLimiters.lastAccessNanos > idleTimeoutNanos && shopLimiters.isEvictable()
+                    && limiters.remove(shop, shopLimiters)) {
+                    evicted[0]++;
+                }
+            });
+
+            if (evicted[0] > 0) {
+                evictions.add(evicted[0]);
+                log.debug("Evicted {} idle per-shop rate limiters, {} shops tracked", evicted[0], limiters.size());
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * One kind of limiter summed over all tracked shops.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class AggregateState {
+        /** Requests waiting for tokens in any shop's bucket. */
+        private final int queuedRequests;
+        /** Shops with requests waiting for tokens. */
+        private final int throttledShops;
+        /** Utilization of the fullest shop's bucket. */
+        private final double maxUtilizationPercentage;
+    }
+
+    private static final class ShopLimiters {
+        private final RateLimiter rest;
+        private final RateLimiter graphQL;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private ShopLimiters(RateLimiter rest, RateLimiter graphQL) {
+            this.rest = rest;
+            this.graphQL = graphQL;
+        }
+
+        private boolean isEvictable() {
+            // Never drop a limiter that still owes a settlement or has requests waiting on it
+            return !rest.hasPendingWork() && !graphQL.hasPendingWork();
+        }
+    }
+}
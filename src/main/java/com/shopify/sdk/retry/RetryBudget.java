@@ -0,0 +1,43 @@
+package com.shopify.sdk.retry;
+
+/**
+ * Token bucket that limits retries to a share of the requests sent.
+ * <p>
+ * Every request deposits {@code ratio} tokens and every retry withdraws one, up to {@code capacity}
+ * tokens. The bucket starts full, so a client that has sent little traffic can still retry a few times.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double capacity;
+    private double balance;
+
+    RetryBudget(double ratio, int capacity) {
+        this.ratio = ratio;
+        this.capacity = capacity;
+        this.balance = capacity;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    /**
+     * Returns a withdrawn retry that was not made after all.
+     */
+    synchronized void refund() {
+        balance = Math.min(capacity, balance + 1);
+    }
+
+    synchronized double getBalance() {
+        return balance;
+    }
+}
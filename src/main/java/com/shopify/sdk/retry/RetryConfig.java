@@ -77,6 +77,23 @@ public class RetryConfig {
         java.io.IOException.class
     );
     
+    /**
+     * HTTP status codes on which requests that are not idempotent, such as REST writes and GraphQL
+     * mutations, are retried. Shopify rejects a throttled request before acting on it, so a 429 is safe
+     * to resend; any other status may come from a request that was applied.
+     */
+    @Builder.Default
+    private final Set<Integer> nonIdempotentRetryableStatusCodes = Set.of(429);
+    
+    /**
+     * Exception types on which requests that are not idempotent are retried. These must only be raised
+     * before the request was sent: a timeout or a dropped connection may hide a write that was applied.
+     */
+    @Builder.Default
+    private final Set<Class<? extends Throwable>> nonIdempotentRetryableExceptions = Set.of(
+        java.net.ConnectException.class
+    );
+    
     /**
      * Maximum total time to spend on retries.
      */
@@ -88,4 +105,24 @@ public class RetryConfig {
      */
     @Builder.Default
     private final boolean enabled = true;
+    
+    /**
+     * Retries allowed per request sent, for each shop and across all shops. Every request adds this share
+     * of a retry to the shop's and the global retry budget and every retry takes a whole one, so retries
+     * stay below this ratio of traffic even when every request fails.
+     */
+    @Builder.Default
+    private final double retryBudgetRatio = 0.1;
+    
+    /**
+     * Retries a shop's budget can hold, which is also what a shop may retry before it has sent any traffic.
+     */
+    @Builder.Default
+    private final int shopRetryBudget = 10;
+    
+    /**
+     * Retries the budget shared by all shops can hold.
+     */
+    @Builder.Default
+    private final int globalRetryBudget = 100;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.shopify.sdk.retry;
 
-import lombok.RequiredArgsConstructor;
+import com.shopify.sdk.cache.BoundedLruMap;
+import com.shopify.sdk.exception.ShopifyHttpException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -9,47 +10,102 @@ import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 /**
  * Service for handling automatic retries with exponential backoff.
+ * <p>
+ * This is the single retry layer of the SDK: REST, GraphQL and OAuth requests are all retried through
+ * {@link #withRetry(String, boolean, Mono)}. Retries draw on a budget per shop and on one shared by all shops,
+ * each refilled by a share of the requests sent, so a Shopify incident cannot multiply the app's traffic.
+ * Requests that are not idempotent are only retried on failures that happen before Shopify acted on them,
+ * so a timed out write is never sent twice.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RetryService {
     
+    private static final int MAX_TRACKED_SHOPS = 10_000;
+    
     private final RetryConfig config;
-    private final Random random = new Random();
+    private final RetryBudget globalBudget;
+    private final BoundedLruMap<String, RetryBudget> shopBudgets = new BoundedLruMap<>(MAX_TRACKED_SHOPS);
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retriesAllowed = new LongAdder();
+    private final LongAdder retriesDenied = new LongAdder();
+    
+    public RetryService(RetryConfig config) {
+        this.config = config;
+        this.globalBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getGlobalRetryBudget());
+    }
     
     /**
-     * Creates a retry spec for Shopify API calls.
+     * Creates a retry spec for Shopify API calls that draws on the global retry budget.
      */
     public Retry createRetrySpec() {
+        return createRetrySpec(null);
+    }
+    
+    /**
+     * Creates a retry spec for a shop's API calls. Each retry takes one retry from the shop's and the
+     * global budget and is denied when either is empty; the requests that refill the budgets are counted
+     * by {@link #withRetry(String, boolean, Mono)}.
+     *
+     * @param shop the shop domain, or null to draw on the global budget only
+     */
+    public Retry createRetrySpec(String shop) {
+        return createRetrySpec(shop, true);
+    }
+    
+    /**
+     * Creates a retry spec for a shop's API calls, retrying requests that are not idempotent only on the
+     * failures listed in {@link RetryConfig#getNonIdempotentRetryableStatusCodes()} and
+     * {@link RetryConfig#getNonIdempotentRetryableExceptions()}.
+     *
+     * @param shop the shop domain, or null to draw on the global budget only
+     * @param idempotent whether the request can safely be sent again after it may have been applied
+     */
+    public Retry createRetrySpec(String shop, boolean idempotent) {
         if (!config.isEnabled()) {
             return Retry.max(0);
         }
         
-        return Retry.backoff(config.getMaxAttempts(), config.getBaseDelay())
-            .maxBackoff(config.getMaxDelay())
-            .jitter(config.getJitterPercentage())
-            .filter(this::shouldRetry)
-            .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                log.error("Retry exhausted after {} attempts for operation: {}", 
-                    retrySignal.totalRetries(), retrySignal.failure().getMessage());
-                return retrySignal.failure();
-            })
-            .doBeforeRetry(retrySignal -> {
+        return Retry.from(signals -> {
+            long start = System.nanoTime();
+            return signals.concatMap(retrySignal -> {
                 Throwable failure = retrySignal.failure();
                 long attempt = retrySignal.totalRetries() + 1;
                 
+                if (!shouldRetry(failure, idempotent)) {
+                    return Mono.error(failure);
+                }
+                if (attempt > config.getMaxAttempts()
+                    || System.nanoTime() - start > config.getMaxTotalRetryTime().toNanos()) {
+                    log.error("Retry exhausted after {} attempts for operation: {}",
+                        retrySignal.totalRetries(), failure.getMessage());
+                    return Mono.error(failure);
+                }
+                if (!acquireRetry(shop)) {
+                    retriesDenied.increment();
+                    log.warn("Retry budget exhausted{}; not retrying: {}",
+                        shop != null ? " for " + shop : "", failure.getMessage());
+                    return Mono.error(failure);
+                }
+                retriesAllowed.increment();
+                
                 Duration delay = calculateDelay(attempt, failure);
                 
                 log.warn("Retrying operation (attempt {}/{}) after {}ms due to: {}", 
                     attempt, config.getMaxAttempts(), delay.toMillis(), 
                     failure.getMessage());
+                return Mono.delay(delay).thenReturn(retrySignal);
             });
+        });
     }
     
     /**
@@ -71,7 +127,71 @@ public class RetryService {
      * Wraps a Mono with retry logic.
      */
     public <T> Mono<T> withRetry(Mono<T> mono) {
-        return mono.retryWhen(createRetrySpec());
+        return withRetry(null, mono);
+    }
+    
+    /**
+     * Wraps a shop's idempotent request, such as a REST GET or a GraphQL query, with retry logic.
+     */
+    public <T> Mono<T> withRetry(String shop, Mono<T> mono) {
+        return withRetry(shop, true, mono);
+    }
+    
+    /**
+     * Wraps a shop's request with retry logic. Every subscription counts as one request towards the
+     * retry budgets; the attempts made by its retries do not.
+     *
+     * @param shop the shop domain, or null to draw on the global budget only
+     * @param idempotent whether the request can safely be sent again after it may have been applied;
+     *                   false for REST writes, GraphQL mutations and OAuth code exchanges
+     * @param mono the request, resubscribed for every attempt
+     * @return Mono of the first successful attempt
+     */
+    public <T> Mono<T> withRetry(String shop, boolean idempotent, Mono<T> mono) {
+        return Mono.defer(() -> {
+            recordRequest(shop);
+            return mono.retryWhen(createRetrySpec(shop, idempotent));
+        });
+    }
+    
+    /**
+     * Gets retry and retry budget statistics since the service was created.
+     */
+    public RetryStats getStats() {
+        return RetryStats.builder()
+            .requests(requests.sum())
+            .retriesAllowed(retriesAllowed.sum())
+            .retriesDenied(retriesDenied.sum())
+            .globalBudget(globalBudget.getBalance())
+            .build();
+    }
+    
+    private void recordRequest(String shop) {
+        requests.increment();
+        globalBudget.deposit();
+        if (shop != null) {
+            shopBudget(shop).deposit();
+        }
+    }
+    
+    private boolean acquireRetry(String shop) {
+        RetryBudget shopBudget = shop != null ? shopBudget(shop) : null;
+        if (shopBudget != null && !shopBudget.tryWithdraw()) {
+            return false;
+        }
+        if (!globalBudget.tryWithdraw()) {
+            if (shopBudget != null) {
+                shopBudget.refund();
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    private RetryBudget shopBudget(String shop) {
+        // An evicted shop has been idle the longest and starts again from a full budget
+        return shopBudgets.computeIfAbsent(shop,
+            s -> new RetryBudget(config.getRetryBudgetRatio(), config.getShopRetryBudget()));
     }
     
     /**
@@ -82,23 +202,30 @@ public class RetryService {
     }
     
     /**
-     * Determines if an exception should trigger a retry.
+     * Determines if an exception should trigger a retry of an idempotent request.
      */
     private boolean shouldRetry(Throwable throwable) {
-        // Check for retryable exception types
-        for (Class<? extends Throwable> retryableException : config.getRetryableExceptions()) {
-            if (retryableException.isAssignableFrom(throwable.getClass())) {
-                log.debug("Exception {} is retryable (type match)", throwable.getClass().getSimpleName());
-                return true;
-            }
-        }
+        return shouldRetry(throwable, true);
+    }
+    
+    /**
+     * Determines if an exception should trigger a retry.
+     */
+    private boolean shouldRetry(Throwable throwable, boolean idempotent) {
+        Set<Integer> retryableStatusCodes = idempotent
+            ? config.getRetryableStatusCodes()
+            : config.getNonIdempotentRetryableStatusCodes();
+        Set<Class<? extends Throwable>> retryableExceptions = idempotent
+            ? config.getRetryableExceptions()
+            : config.getNonIdempotentRetryableExceptions();
         
         // Check for retryable HTTP status codes
-        if (throwable instanceof WebClientResponseException) {
-            WebClientResponseException webEx = (WebClientResponseException) throwable;
-            int statusCode = webEx.getStatusCode().value();
+        if (throwable instanceof WebClientResponseException || throwable instanceof ShopifyHttpException) {
+            int statusCode = throwable instanceof ShopifyHttpException httpEx
+                ? httpEx.getStatusCode()
+                : ((WebClientResponseException) throwable).getStatusCode().value();
             
-            boolean isRetryable = config.getRetryableStatusCodes().contains(statusCode);
+            boolean isRetryable = retryableStatusCodes.contains(statusCode);
             
             if (isRetryable) {
                 log.debug("HTTP status {} is retryable", statusCode);
@@ -109,6 +236,16 @@ public class RetryService {
             return isRetryable;
         }
         
+        // Check for retryable exception types, which WebClient wraps in its own exceptions
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> retryableException : retryableExceptions) {
+                if (retryableException.isAssignableFrom(cause.getClass())) {
+                    log.debug("Exception {} is retryable (type match)", cause.getClass().getSimpleName());
+                    return true;
+                }
+            }
+        }
+        
         log.debug("Exception {} is not retryable", throwable.getClass().getSimpleName());
         return false;
     }
@@ -120,9 +257,8 @@ public class RetryService {
         Duration baseDelay = config.getBaseDelay();
         
         // Check for Retry-After header in HTTP responses
-        if (config.isRespectRetryAfterHeader() && failure instanceof WebClientResponseException) {
-            WebClientResponseException webEx = (WebClientResponseException) failure;
-            String retryAfter = webEx.getHeaders().getFirst("Retry-After");
+        if (config.isRespectRetryAfterHeader()) {
+            String retryAfter = retryAfterHeader(failure);
             
             if (retryAfter != null) {
                 try {
@@ -154,13 +290,28 @@ public class RetryService {
         
         // Add jitter to prevent thundering herd
         if (config.getJitterPercentage() > 0) {
-            long jitterMs = (long) (baseDelay.toMillis() * config.getJitterPercentage() * random.nextDouble());
+            long jitterMs = (long) (baseDelay.toMillis() * config.getJitterPercentage()
+                * ThreadLocalRandom.current().nextDouble());
             baseDelay = baseDelay.plusMillis(jitterMs);
         }
         
         return baseDelay;
     }
     
+    private static String retryAfterHeader(Throwable failure) {
+        if (failure instanceof WebClientResponseException webEx) {
+            return webEx.getHeaders().getFirst("Retry-After");
+        }
+        if (failure instanceof ShopifyHttpException httpEx && httpEx.getHeaders() != null) {
+            return httpEx.getHeaders().entrySet().stream()
+                .filter(header -> "Retry-After".equalsIgnoreCase(header.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+        }
+        return null;
+    }
+    
     /**
      * Creates a predicate to filter retryable exceptions.
      */
@@ -221,4 +372,20 @@ public class RetryService {
             return startTime;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Retry and retry budget statistics.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class RetryStats {
+        /** Requests sent through {@link #withRetry(String, boolean, Mono)}. */
+        private long requests;
+        /** Retries the budgets allowed. */
+        private long retriesAllowed;
+        /** Retries refused because the shop's or the global budget was empty. */
+        private long retriesDenied;
+        /** Retries left in the global budget. */
+        private double globalBudget;
+    }
+}
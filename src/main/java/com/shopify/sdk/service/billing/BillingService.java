@@ -1,25 +1,40 @@
 package com.shopify.sdk.service.billing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
 import com.shopify.sdk.client.ShopifyRestClient;
+import com.shopify.sdk.client.graphql.ConnectionPaginator;
+import com.shopify.sdk.client.graphql.ConnectionSplitter;
 import com.shopify.sdk.model.billing.*;
 import com.shopify.sdk.model.billing.input.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class BillingService {
     
     private final ShopifyGraphQLClient graphQLClient;
     private final ShopifyRestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final ConnectionSplitter connectionSplitter;
+    
+    public BillingService(ShopifyGraphQLClient graphQLClient, ShopifyRestClient restClient, ObjectMapper objectMapper,
+                          ResponseCache responseCache) {
+        this.graphQLClient = graphQLClient;
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.connectionSplitter = new ConnectionSplitter(graphQLClient);
+    }
     
     private static final String APP_SUBSCRIPTION_QUERY = """
         query getAppSubscriptions($first: Int, $after: String) {
@@ -134,12 +149,22 @@ public class BillingService {
         """;
     
     public Mono<AppSubscriptionConnection> getAppSubscriptions(String shop, String accessToken, Integer first, String after) {
-        Map<String, Object> variables = Map.of(
-            "first", first != null ? first : 10,
-            "after", after != null ? after : ""
-        );
+        if (responseCache == null) {
+            return fetchAppSubscriptions(shop, accessToken, first, after);
+        }
+        return responseCache.get(shop, CachedEntity.APP_SUBSCRIPTIONS, first + ":" + after,
+            () -> fetchAppSubscriptions(shop, accessToken, first, after));
+    }
+    
+    private Mono<AppSubscriptionConnection> fetchAppSubscriptions(String shop, String accessToken, Integer first, String after) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("first", first != null ? first : 10);
+        if (after != null) {
+            variables.put("after", after);
+        }
         
-        return graphQLClient.query(shop, accessToken, APP_SUBSCRIPTION_QUERY, variables)
+        return connectionSplitter.query(shop, accessToken, APP_SUBSCRIPTION_QUERY, variables,
+                "currentAppInstallation.appSubscriptions")
             .map(response -> {
                 try {
                     var data = response.getData().get("currentAppInstallation").get("appSubscriptions");
@@ -151,6 +176,21 @@ public class BillingService {
             });
     }
     
+    public Flux<AppSubscription> streamAppSubscriptions(String shop, String accessToken, int pageSize) {
+        return ConnectionPaginator.paginate(
+            (first, after) -> getAppSubscriptions(shop, accessToken, first, after), pageSize);
+    }
+    
+    /**
+     * Gets how often app subscription pages had to be split because their usage records would have
+     * exceeded the query cost limit.
+     *
+     * @return the statistics
+     */
+    public ConnectionSplitter.SplitStats getConnectionSplitStats() {
+        return connectionSplitter.getStats();
+    }
+    
     public Mono<AppSubscription> createAppSubscription(String shop, String accessToken, AppSubscriptionInput input) {
         Map<String, Object> variables = Map.of(
             "name", input.getName(),
@@ -169,7 +209,8 @@ public class BillingService {
                     log.error("Failed to parse create app subscription response", e);
                     throw new RuntimeException("Failed to parse create app subscription response", e);
                 }
-            });
+            })
+            .doOnSuccess(subscription -> invalidateAppSubscriptions(shop));
     }
     
     public Mono<AppSubscription> cancelAppSubscription(String shop, String accessToken, String subscriptionId) {
@@ -184,7 +225,14 @@ public class BillingService {
                     log.error("Failed to parse cancel app subscription response", e);
                     throw new RuntimeException("Failed to parse cancel app subscription response", e);
                 }
-            });
+            })
+            .doOnSuccess(subscription -> invalidateAppSubscriptions(shop));
+    }
+    
+    private void invalidateAppSubscriptions(String shop) {
+        if (responseCache != null) {
+            responseCache.invalidate(shop, CachedEntity.APP_SUBSCRIPTIONS);
+        }
     }
     
     public Mono<UsageRecord> createUsageRecord(String shop, String accessToken, String subscriptionLineItemId, UsageRecordInput input) {
@@ -208,7 +256,8 @@ public class BillingService {
                     log.error("Failed to parse create usage record response", e);
                     throw new RuntimeException("Failed to parse create usage record response", e);
                 }
-            });
+            })
+            .doOnSuccess(usageRecord -> invalidateAppSubscriptions(shop));
     }
     
     public Mono<RecurringApplicationCharge> createRecurringCharge(String shop, String accessToken, RecurringApplicationChargeInput input) {
@@ -222,7 +271,8 @@ public class BillingService {
                     log.error("Failed to parse create recurring charge response", e);
                     throw new RuntimeException("Failed to parse create recurring charge response", e);
                 }
-            });
+            })
+            .doOnSuccess(charge -> invalidateAppSubscriptions(shop));
     }
     
     public Mono<RecurringApplicationCharge> getRecurringCharge(String shop, String accessToken, String chargeId) {
@@ -248,12 +298,14 @@ public class BillingService {
                     log.error("Failed to parse activate recurring charge response", e);
                     throw new RuntimeException("Failed to parse activate recurring charge response", e);
                 }
-            });
+            })
+            .doOnSuccess(charge -> invalidateAppSubscriptions(shop));
     }
     
     public Mono<Void> cancelRecurringCharge(String shop, String accessToken, String chargeId) {
         return restClient.delete(shop, accessToken, "/admin/api/2023-10/recurring_application_charges/" + chargeId + ".json")
-            .then();
+            .then()
+            .doOnSuccess(ignored -> invalidateAppSubscriptions(shop));
     }
     
     public Mono<ApplicationCharge> createOneTimeCharge(String shop, String accessToken, ApplicationChargeInput input) {
@@ -1,6 +1,8 @@
 package com.shopify.sdk.service.discount;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.model.discount.DiscountCode;
 import com.shopify.sdk.model.discount.PriceRule;
@@ -11,8 +13,10 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -21,10 +25,16 @@ public class DiscountService {
     
     private final ShopifyRestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
     
     // Price Rules
     
     public Mono<List<PriceRule>> getPriceRules(String shop, String accessToken) {
+        return cached(shop, CachedEntity.PRICE_RULES, "all",
+            () -> fetchPriceRules(shop, accessToken).map(Collections::unmodifiableList));
+    }
+    
+    private Mono<List<PriceRule>> fetchPriceRules(String shop, String accessToken) {
         String endpoint = "/admin/api/2023-10/price_rules.json";
         
         return restClient.get(shop, accessToken, endpoint)
@@ -67,7 +77,8 @@ public class DiscountService {
                     log.error("Failed to parse create price rule response", e);
                     throw new RuntimeException("Failed to parse create price rule response", e);
                 }
-            });
+            })
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.PRICE_RULES));
     }
     
     public Mono<PriceRule> updatePriceRule(String shop, String accessToken, String priceRuleId, PriceRuleUpdateRequest request) {
@@ -82,14 +93,16 @@ public class DiscountService {
                     log.error("Failed to parse update price rule response", e);
                     throw new RuntimeException("Failed to parse update price rule response", e);
                 }
-            });
+            })
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.PRICE_RULES));
     }
     
     public Mono<Void> deletePriceRule(String shop, String accessToken, String priceRuleId) {
         String endpoint = "/admin/api/2023-10/price_rules/" + priceRuleId + ".json";
         
         return restClient.delete(shop, accessToken, endpoint)
-            .then();
+            .then()
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.PRICE_RULES));
     }
     
     // Discount Codes
@@ -203,6 +216,16 @@ public class DiscountService {
             });
     }
     
+    private <T> Mono<T> cached(String shop, CachedEntity entity, String key, Supplier<Mono<T>> loader) {
+        return responseCache != null ? responseCache.get(shop, entity, key, loader) : loader.get();
+    }
+    
+    private void invalidate(String shop, CachedEntity entity) {
+        if (responseCache != null) {
+            responseCache.invalidate(shop, entity);
+        }
+    }
+    
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
@@ -1,6 +1,8 @@
 package com.shopify.sdk.service.location;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.model.location.Location;
 import lombok.RequiredArgsConstructor;
@@ -8,8 +10,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -18,8 +22,14 @@ public class LocationService {
     
     private final ShopifyRestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
     
     public Mono<List<Location>> getLocations(String shop, String accessToken) {
+        return cached(shop, CachedEntity.LOCATIONS, "all",
+            () -> fetchLocations(shop, accessToken).map(Collections::unmodifiableList));
+    }
+    
+    private Mono<List<Location>> fetchLocations(String shop, String accessToken) {
         String endpoint = "/admin/api/2023-10/locations.json";
         
         return restClient.get(shop, accessToken, endpoint)
@@ -62,7 +72,8 @@ public class LocationService {
                     log.error("Failed to parse update location response", e);
                     throw new RuntimeException("Failed to parse update location response", e);
                 }
-            });
+            })
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.LOCATIONS));
     }
     
     public Mono<List<Location>> getActiveLocations(String shop, String accessToken) {
@@ -79,6 +90,16 @@ public class LocationService {
                 .toList());
     }
     
+    private <T> Mono<T> cached(String shop, CachedEntity entity, String key, Supplier<Mono<T>> loader) {
+        return responseCache != null ? responseCache.get(shop, entity, key, loader) : loader.get();
+    }
+    
+    private void invalidate(String shop, CachedEntity entity) {
+        if (responseCache != null) {
+            responseCache.invalidate(shop, entity);
+        }
+    }
+    
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
@@ -3,16 +3,23 @@ package com.shopify.sdk.service.order;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.client.graphql.BatchLoaderConfig;
+import com.shopify.sdk.client.graphql.ConnectionPaginator;
+import com.shopify.sdk.client.graphql.ConnectionSplitter;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
+import com.shopify.sdk.client.graphql.NodeBatchLoader;
+import com.shopify.sdk.client.graphql.PageSizeConfig;
+import com.shopify.sdk.client.graphql.PageSizeController;
 import com.shopify.sdk.exception.ShopifyApiException;
 import com.shopify.sdk.model.order.Order;
 import com.shopify.sdk.model.order.OrderConnection;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,11 +27,156 @@ import java.util.Map;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OrderService {
     
+    private static final String ORDER_FIELDS = """
+        id
+        cancelReason
+        cancelledAt
+        confirmed
+        createdAt
+        currencyCode
+        currentSubtotalPrice
+        currentTotalTax
+        email
+        financialStatus
+        fulfillmentStatus
+        name
+        orderNumber
+        phone
+        processedAt
+        billingAddress {
+            id
+            address1
+            address2
+            city
+            company
+            country
+            countryCode
+            firstName
+            lastName
+            phone
+            province
+            provinceCode
+            zip
+        }
+        shippingAddress {
+            id
+            address1
+            address2
+            city
+            company
+            country
+            countryCode
+            firstName
+            lastName
+            phone
+            province
+            provinceCode
+            zip
+        }
+        updatedAt
+        test
+        lineItems(first: 250) {
+            edges {
+                node {
+                    id
+                    quantity
+                    title
+                    variantTitle
+                    name
+                    sku
+                    vendor
+                    weight
+                    requiresShipping
+                    taxable
+                    giftCard
+                    fulfillmentStatus
+                    fulfillableQuantity
+                    refundableQuantity
+                    originalUnitPrice
+                    discountedUnitPrice
+                    originalTotalPrice
+                    discountedTotalPrice
+                    totalDiscount
+                    customAttributes {
+                        key
+                        value
+                    }
+                }
+                cursor
+            }
+            pageInfo {
+                hasNextPage
+                hasPreviousPage
+                startCursor
+                endCursor
+            }
+        }
+        canMarkAsPaid
+        canNotifyCustomer
+        totalPrice
+        subtotalPrice
+        totalShippingPrice
+        totalTax
+        """;
+    
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    
+    private static final String ORDERS_QUERY = """
+        query getOrders($first: Int!, $after: String, $query: String) {
+            orders(first: $first, after: $after, query: $query) {
+                edges {
+                    node {
+                        id
+                        cancelReason
+                        cancelledAt
+                        confirmed
+                        createdAt
+                        currencyCode
+                        currentSubtotalPrice
+                        currentTotalTax
+                        email
+                        financialStatus
+                        fulfillmentStatus
+                        name
+                        orderNumber
+                        phone
+                        processedAt
+                        updatedAt
+                        test
+                        totalPrice
+                        subtotalPrice
+                        totalShippingPrice
+                        totalTax
+                    }
+                    cursor
+                }
+                pageInfo {
+                    hasNextPage
+                    hasPreviousPage
+                    startCursor
+                    endCursor
+                }
+            }
+        }
+        """;
+    
     private final ShopifyGraphQLClient graphQLClient;
     private final ObjectMapper objectMapper;
+    private final NodeBatchLoader<Order> orderLoader;
+    private final ConnectionSplitter connectionSplitter;
+    private final PageSizeController pageSizeController;
+    
+    public OrderService(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, BatchLoaderConfig batchConfig) {
+        this.graphQLClient = graphQLClient;
+        this.objectMapper = objectMapper;
+        // Each order selects up to 250 line items, so the loader fits its batches to the query cost limit
+        this.orderLoader = new NodeBatchLoader<>(graphQLClient, objectMapper, "Order", ORDER_FIELDS, Order.class,
+            batchConfig);
+        this.connectionSplitter = new ConnectionSplitter(graphQLClient);
+        this.pageSizeController = new PageSizeController(PageSizeConfig.builder().build());
+    }
     
     /**
      * Retrieves a single order by ID.
@@ -38,95 +190,7 @@ public class OrderService {
         String query = """
             query getOrder($id: ID!) {
                 order(id: $id) {
-                    id
-                    cancelReason
-                    cancelledAt
-                    confirmed
-                    createdAt
-                    currencyCode
-                    currentSubtotalPrice
-                    currentTotalTax
-                    email
-                    financialStatus
-                    fulfillmentStatus
-                    name
-                    orderNumber
-                    phone
-                    processedAt
-                    billingAddress {
-                        id
-                        address1
-                        address2
-                        city
-                        company
-                        country
-                        countryCode
-                        firstName
-                        lastName
-                        phone
-                        province
-                        provinceCode
-                        zip
-                    }
-                    shippingAddress {
-                        id
-                        address1
-                        address2
-                        city
-                        company
-                        country
-                        countryCode
-                        firstName
-                        lastName
-                        phone
-                        province
-                        provinceCode
-                        zip
-                    }
-                    updatedAt
-                    test
-                    lineItems(first: 250) {
-                        edges {
-                            node {
-                                id
-                                quantity
-                                title
-                                variantTitle
-                                name
-                                sku
-                                vendor
-                                weight
-                                requiresShipping
-                                taxable
-                                giftCard
-                                fulfillmentStatus
-                                fulfillableQuantity
-                                refundableQuantity
-                                originalUnitPrice
-                                discountedUnitPrice
-                                originalTotalPrice
-                                discountedTotalPrice
-                                totalDiscount
-                                customAttributes {
-                                    key
-                                    value
-                                }
-                            }
-                            cursor
-                        }
-                        pageInfo {
-                            hasNextPage
-                            hasPreviousPage
-                            startCursor
-                            endCursor
-                        }
-                    }
-                    canMarkAsPaid
-                    canNotifyCustomer
-                    totalPrice
-                    subtotalPrice
-                    totalShippingPrice
-                    totalTax
+            """ + ORDER_FIELDS + """
                 }
             }
             """;
@@ -138,67 +202,107 @@ public class OrderService {
             .map(this::extractOrderFromResponse);
     }
     
+    /**
+     * Retrieves a single order by ID, batched with other lookups for the same shop into one
+     * {@code nodes(ids:)} query. Selects the same fields as {@link #getOrder}.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param orderId the order ID
+     * @return Mono of Order, empty if the order does not exist
+     */
+    public Mono<Order> loadOrder(String shop, String accessToken, String orderId) {
+        return orderLoader.load(shop, accessToken, orderId);
+    }
+    
+    /**
+     * Gets the batching statistics of {@link #loadOrder}.
+     *
+     * @return the statistics
+     */
+    public NodeBatchLoader.BatchStats getOrderBatchStats() {
+        return orderLoader.getStats();
+    }
+    
     /**
      * Retrieves a list of orders with pagination.
      *
      * @param shop the shop domain
      * @param accessToken the access token
-     * @param first the number of orders to retrieve
+     * @param first the number of orders to retrieve, or null for 10
      * @param after the cursor for pagination
      * @param query the search query (optional)
      * @return Mono of OrderConnection
      */
     public Mono<OrderConnection> getOrders(String shop, String accessToken, Integer first, String after, String query) {
-        String graphQLQuery = """
-            query getOrders($first: Int!, $after: String, $query: String) {
-                orders(first: $first, after: $after, query: $query) {
-                    edges {
-                        node {
-                            id
-                            cancelReason
-                            cancelledAt
-                            confirmed
-                            createdAt
-                            currencyCode
-                            currentSubtotalPrice
-                            currentTotalTax
-                            email
-                            financialStatus
-                            fulfillmentStatus
-                            name
-                            orderNumber
-                            phone
-                            processedAt
-                            updatedAt
-                            test
-                            totalPrice
-                            subtotalPrice
-                            totalShippingPrice
-                            totalTax
-                        }
-                        cursor
-                    }
-                    pageInfo {
-                        hasNextPage
-                        hasPreviousPage
-                        startCursor
-                        endCursor
-                    }
-                }
-            }
-            """;
-        
+        return queryOrders(shop, accessToken, first != null ? first : DEFAULT_PAGE_SIZE, after, query)
+            .map(this::extractOrderConnectionFromResponse);
+    }
+    
+    private Mono<GraphQLResponse> queryOrders(String shop, String accessToken, int first, String after,
+                                              String query) {
         Map<String, Object> variables = new HashMap<>();
-        variables.put("first", first != null ? first : 10);
+        variables.put("first", first);
         if (after != null) {
             variables.put("after", after);
         }
         if (query != null) {
             variables.put("query", query);
         }
-        
-        return graphQLClient.query(shop, accessToken, graphQLQuery, variables)
-            .map(this::extractOrderConnectionFromResponse);
+        return connectionSplitter.query(shop, accessToken, ORDERS_QUERY, variables, "orders");
+    }
+    
+    /**
+     * Gets how often {@link #getOrders} had to split a page that would have exceeded the query cost limit.
+     *
+     * @return the statistics
+     */
+    public ConnectionSplitter.SplitStats getConnectionSplitStats() {
+        return connectionSplitter.getStats();
+    }
+    
+    /**
+     * Gets the page size learning statistics of the adaptive {@link #streamOrders}.
+     *
+     * @return the statistics
+     */
+    public PageSizeController.PageSizeStats getPageSizeStats() {
+        return pageSizeController.getStats();
+    }
+    
+    /**
+     * Streams all orders matching a query, fetching pages as they are consumed.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param pageSize the number of orders per page, at most 250
+     * @param maxOrders the maximum number of orders to emit
+     * @param query the search query (optional)
+     * @return Flux of Order
+     */
+    public Flux<Order> streamOrders(String shop, String accessToken, int pageSize, long maxOrders, String query) {
+        return ConnectionPaginator.paginate(
+            (first, after) -> getOrders(shop, accessToken, first, after, query), pageSize, maxOrders);
+    }
+    
+    /**
+     * Streams all orders matching a query with the page size learned for the shop, which converges on
+     * the size that reads the most orders per second within the shop's query budget.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param maxOrders the maximum number of orders to emit
+     * @param query the search query (optional)
+     * @return Flux of Order
+     */
+    public Flux<Order> streamOrders(String shop, String accessToken, long maxOrders, String query) {
+        String shape = PageSizeController.shapeKey("orders", ORDERS_QUERY,
+            query != null ? List.of("query") : List.of());
+        return ConnectionPaginator.paginate(
+            (first, after) -> pageSizeController.observe(shop, shape, first, "orders",
+                    queryOrders(shop, accessToken, first, after, query))
+                .map(this::extractOrderConnectionFromResponse),
+            () -> pageSizeController.pageSize(shop, shape, DEFAULT_PAGE_SIZE), maxOrders);
     }
     
     /**
@@ -1,19 +1,30 @@
 package com.shopify.sdk.service.product;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.client.graphql.BatchLoaderConfig;
+import com.shopify.sdk.client.graphql.ConnectionPaginator;
+import com.shopify.sdk.client.graphql.ConnectionSplitter;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
+import com.shopify.sdk.client.graphql.GraphQLResult;
+import com.shopify.sdk.client.graphql.MutationBatchConfig;
+import com.shopify.sdk.client.graphql.MutationBatcher;
+import com.shopify.sdk.client.graphql.NodeBatchLoader;
+import com.shopify.sdk.client.graphql.PageSizeConfig;
+import com.shopify.sdk.client.graphql.PageSizeController;
 import com.shopify.sdk.config.ShopifyAuthContext;
 import com.shopify.sdk.exception.ShopifyApiException;
 import com.shopify.sdk.model.product.Product;
 import com.shopify.sdk.model.product.ProductConnection;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,11 +32,87 @@ import java.util.Map;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ProductService {
     
+    private static final String PRODUCT_FIELDS = """
+        id
+        title
+        handle
+        description
+        descriptionHtml
+        createdAt
+        updatedAt
+        publishedAt
+        productType
+        vendor
+        tags
+        status
+        templateSuffix
+        tracksInventory
+        isGiftCard
+        totalInventory
+        totalVariants
+        hasOnlyDefaultVariant
+        requiresSellingPlan
+        seo {
+            title
+            description
+        }
+        onlineStoreUrl
+        onlineStorePreviewUrl
+        """;
+    
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    
+    private static final String PRODUCTS_QUERY = """
+        query getProducts($first: Int!, $after: String, $query: String) {
+            products(first: $first, after: $after, query: $query) {
+                edges {
+                    node {
+                        id
+                        title
+                        handle
+                        description
+                        createdAt
+                        updatedAt
+                        publishedAt
+                        productType
+                        vendor
+                        tags
+                        status
+                        totalInventory
+                        totalVariants
+                        onlineStoreUrl
+                    }
+                    cursor
+                }
+                pageInfo {
+                    hasNextPage
+                    hasPreviousPage
+                    startCursor
+                    endCursor
+                }
+            }
+        }
+        """;
+    
     private final ShopifyGraphQLClient graphQLClient;
     private final ObjectMapper objectMapper;
+    private final NodeBatchLoader<Product> productLoader;
+    private final MutationBatcher mutationBatcher;
+    private final ConnectionSplitter connectionSplitter;
+    private final PageSizeController pageSizeController;
+    
+    public ProductService(ShopifyGraphQLClient graphQLClient, ObjectMapper objectMapper, BatchLoaderConfig batchConfig,
+                          MutationBatchConfig mutationBatchConfig) {
+        this.graphQLClient = graphQLClient;
+        this.objectMapper = objectMapper;
+        this.productLoader = new NodeBatchLoader<>(graphQLClient, objectMapper, "Product", PRODUCT_FIELDS,
+            Product.class, batchConfig);
+        this.mutationBatcher = new MutationBatcher(graphQLClient, objectMapper, mutationBatchConfig);
+        this.connectionSplitter = new ConnectionSplitter(graphQLClient);
+        this.pageSizeController = new PageSizeController(PageSizeConfig.builder().build());
+    }
     
     /**
      * Retrieves a single product by ID.
@@ -39,31 +126,7 @@ public class ProductService {
         String query = """
             query getProduct($id: ID!) {
                 product(id: $id) {
-                    id
-                    title
-                    handle
-                    description
-                    descriptionHtml
-                    createdAt
-                    updatedAt
-                    publishedAt
-                    productType
-                    vendor
-                    tags
-                    status
-                    templateSuffix
-                    tracksInventory
-                    isGiftCard
-                    totalInventory
-                    totalVariants
-                    hasOnlyDefaultVariant
-                    requiresSellingPlan
-                    seo {
-                        title
-                        description
-                    }
-                    onlineStoreUrl
-                    onlineStorePreviewUrl
+            """ + PRODUCT_FIELDS + """
                 }
             }
             """;
@@ -75,61 +138,107 @@ public class ProductService {
             .map(this::extractProductFromResponse);
     }
     
+    /**
+     * Retrieves a single product by ID, batched with other lookups for the same shop into one
+     * {@code nodes(ids:)} query. Selects the same fields as {@link #getProduct}.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param productId the product ID
+     * @return Mono of Product, empty if the product does not exist
+     */
+    public Mono<Product> loadProduct(String shop, String accessToken, String productId) {
+        return productLoader.load(shop, accessToken, productId);
+    }
+    
+    /**
+     * Gets the batching statistics of {@link #loadProduct}.
+     *
+     * @return the statistics
+     */
+    public NodeBatchLoader.BatchStats getProductBatchStats() {
+        return productLoader.getStats();
+    }
+    
     /**
      * Retrieves a list of products with pagination.
      *
      * @param shop the shop domain
      * @param accessToken the access token
-     * @param first the number of products to retrieve
+     * @param first the number of products to retrieve, or null for 10
      * @param after the cursor for pagination
      * @param query the search query (optional)
      * @return Mono of ProductConnection
      */
     public Mono<ProductConnection> getProducts(String shop, String accessToken, Integer first, String after, String query) {
-        StringBuilder graphQLQuery = new StringBuilder();
-        graphQLQuery.append("""
-            query getProducts($first: Int!, $after: String, $query: String) {
-                products(first: $first, after: $after, query: $query) {
-                    edges {
-                        node {
-                            id
-                            title
-                            handle
-                            description
-                            createdAt
-                            updatedAt
-                            publishedAt
-                            productType
-                            vendor
-                            tags
-                            status
-                            totalInventory
-                            totalVariants
-                            onlineStoreUrl
-                        }
-                        cursor
-                    }
-                    pageInfo {
-                        hasNextPage
-                        hasPreviousPage
-                        startCursor
-                        endCursor
-                    }
-                }
-            }
-            """);
-        
+        return queryProducts(shop, accessToken, first != null ? first : DEFAULT_PAGE_SIZE, after, query)
+            .map(this::extractProductConnectionFromResponse);
+    }
+    
+    private Mono<GraphQLResponse> queryProducts(String shop, String accessToken, int first, String after,
+                                                String query) {
         Map<String, Object> variables = new HashMap<>();
-        variables.put("first", first != null ? first : 10);
+        variables.put("first", first);
         if (after != null) {
             variables.put("after", after);
         }
         if (query != null) {
             variables.put("query", query);
         }
-        
-        return graphQLClient.query(shop, accessToken, graphQLQuery.toString(), variables)
-            .map(this::extractProductConnectionFromResponse);
+        return connectionSplitter.query(shop, accessToken, PRODUCTS_QUERY, variables, "products");
+    }
+    
+    /**
+     * Gets how often {@link #getProducts} had to split a page that would have exceeded the query cost limit.
+     *
+     * @return the statistics
+     */
+    public ConnectionSplitter.SplitStats getConnectionSplitStats() {
+        return connectionSplitter.getStats();
+    }
+    
+    /**
+     * Gets the page size learning statistics of the adaptive {@link #streamProducts}.
+     *
+     * @return the statistics
+     */
+    public PageSizeController.PageSizeStats getPageSizeStats() {
+        return pageSizeController.getStats();
+    }
+    
+    /**
+     * Streams all products matching a query, fetching pages as they are consumed.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param pageSize the number of products per page, at most 250
+     * @param maxProducts the maximum number of products to emit
+     * @param query the search query (optional)
+     * @return Flux of Product
+     */
+    public Flux<Product> streamProducts(String shop, String accessToken, int pageSize, long maxProducts, String query) {
+        return ConnectionPaginator.paginate(
+            (first, after) -> getProducts(shop, accessToken, first, after, query), pageSize, maxProducts);
+    }
+    
+    /**
+     * Streams all products matching a query with the page size learned for the shop, which converges on
+     * the size that reads the most products per second within the shop's query budget.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param maxProducts the maximum number of products to emit
+     * @param query the search query (optional)
+     * @return Flux of Product
+     */
+    public Flux<Product> streamProducts(String shop, String accessToken, long maxProducts, String query) {
+        String shape = PageSizeController.shapeKey("products", PRODUCTS_QUERY,
+            query != null ? List.of("query") : List.of());
+        return ConnectionPaginator.paginate(
+            (first, after) -> pageSizeController.observe(shop, shape, first, "products",
+                    queryProducts(shop, accessToken, first, after, query))
+                .map(this::extractProductConnectionFromResponse),
+            () -> pageSizeController.pageSize(shop, shape, DEFAULT_PAGE_SIZE), maxProducts);
     }
     
     /**
@@ -245,6 +354,81 @@ public class ProductService {
             .map(this::extractProductFromMutationResponse);
     }
     
+    /**
+     * Updates many products, packing the updates into aliased {@code productUpdate} mutations so that one
+     * document carries as many updates as its cost limit allows. Updates submitted concurrently through
+     * this method or {@link #updateProductBatched} for the same shop share documents.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param updates the product input data by product ID
+     * @return Flux of one result per update, in the order of the map, with that update's user errors
+     */
+    public Flux<GraphQLResult<Product>> updateProducts(String shop, String accessToken,
+                                                      Map<String, ProductInput> updates) {
+        return Flux.fromIterable(updates.entrySet())
+            .flatMapSequential(update -> submitProductUpdate(shop, accessToken, update.getKey(), update.getValue()),
+                Math.max(updates.size(), 1));
+    }
+    
+    /**
+     * Updates a product like {@link #updateProduct}, batched with other updates for the same shop.
+     *
+     * @param shop the shop domain
+     * @param accessToken the access token
+     * @param productId the product ID
+     * @param input the product input data
+     * @return Mono of Product
+     */
+    public Mono<Product> updateProductBatched(String shop, String accessToken, String productId, ProductInput input) {
+        return submitProductUpdate(shop, accessToken, productId, input)
+            .handle((result, sink) -> {
+                if (result.hasUserErrors()) {
+                    StringBuilder errorMessage = new StringBuilder("Product mutation failed: ");
+                    for (GraphQLResult.UserError error : result.getUserErrors()) {
+                        errorMessage.append(String.format("[%s: %s] ", error.getField(), error.getMessage()));
+                    }
+                    sink.error(new ShopifyApiException(errorMessage.toString()));
+                } else if (result.hasValue()) {
+                    sink.next(result.getValue());
+                } else {
+                    sink.error(new ShopifyApiException("Product not found in mutation response"));
+                }
+            });
+    }
+    
+    /**
+     * Gets the batching statistics of {@link #updateProducts} and {@link #updateProductBatched}.
+     *
+     * @return the statistics
+     */
+    public MutationBatcher.MutationBatchStats getMutationBatchStats() {
+        return mutationBatcher.getStats();
+    }
+    
+    private Mono<GraphQLResult<Product>> submitProductUpdate(String shop, String accessToken, String productId,
+                                                             ProductInput input) {
+        Map<String, Object> inputMap = objectMapper.convertValue(input, new TypeReference<>() {});
+        inputMap.put("id", productId);
+        
+        MutationBatcher.BatchedMutation mutation = MutationBatcher.BatchedMutation.of("productUpdate", "input",
+            "ProductInput!", inputMap, "product { " + PRODUCT_FIELDS + " } userErrors { field message }");
+        
+        return mutationBatcher.submit(shop, accessToken, mutation)
+            .handle((result, sink) -> {
+                JsonNode productNode = result.hasValue() ? result.getValue().get("product") : null;
+                try {
+                    Product product = productNode != null && !productNode.isNull()
+                        ? objectMapper.treeToValue(productNode, Product.class)
+                        : null;
+                    sink.next(new GraphQLResult<>(product, result.getUserErrors(), result.getResponse()));
+                } catch (Exception e) {
+                    log.error("Error parsing product from mutation response", e);
+                    sink.error(new ShopifyApiException("Failed to parse product response", e));
+                }
+            });
+    }
+    
     /**
      * Deletes a product.
      *
@@ -1,6 +1,8 @@
 package com.shopify.sdk.service.scripttag;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.model.scripttag.ScriptTag;
 import lombok.RequiredArgsConstructor;
@@ -8,8 +10,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -18,11 +22,17 @@ public class ScriptTagService {
     
     private final ShopifyRestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
     
     /**
      * Gets all script tags for a store.
      */
     public Mono<List<ScriptTag>> getScriptTags(String shop, String accessToken) {
+        return cached(shop, CachedEntity.SCRIPT_TAGS, "all",
+            () -> fetchScriptTags(shop, accessToken).map(Collections::unmodifiableList));
+    }
+    
+    private Mono<List<ScriptTag>> fetchScriptTags(String shop, String accessToken) {
         String endpoint = "/admin/api/2023-10/script_tags.json";
         
         return restClient.get(shop, accessToken, endpoint)
@@ -110,7 +120,8 @@ public class ScriptTagService {
                     log.error("Failed to parse create script tag response", e);
                     throw new RuntimeException("Failed to parse create script tag response", e);
                 }
-            });
+            })
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.SCRIPT_TAGS));
     }
     
     /**
@@ -128,7 +139,8 @@ public class ScriptTagService {
                     log.error("Failed to parse update script tag response", e);
                     throw new RuntimeException("Failed to parse update script tag response", e);
                 }
-            });
+            })
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.SCRIPT_TAGS));
     }
     
     /**
@@ -138,7 +150,8 @@ public class ScriptTagService {
         String endpoint = "/admin/api/2023-10/script_tags/" + scriptTagId + ".json";
         
         return restClient.delete(shop, accessToken, endpoint)
-            .then();
+            .then()
+            .doOnSuccess(result -> invalidate(shop, CachedEntity.SCRIPT_TAGS));
     }
     
     /**
@@ -239,6 +252,16 @@ public class ScriptTagService {
         return createScriptTag(shop, accessToken, request);
     }
     
+    private <T> Mono<T> cached(String shop, CachedEntity entity, String key, Supplier<Mono<T>> loader) {
+        return responseCache != null ? responseCache.get(shop, entity, key, loader) : loader.get();
+    }
+    
+    private void invalidate(String shop, CachedEntity entity) {
+        if (responseCache != null) {
+            responseCache.invalidate(shop, entity);
+        }
+    }
+    
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
@@ -0,0 +1,56 @@
+package com.shopify.sdk.webhook;
+
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Evicts cached responses as soon as a webhook reports a change to their data, e.g. cached locations
+ * on {@code locations/update}. Runs ahead of other handlers so they read fresh data.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationWebhookHandler implements WebhookHandler {
+    
+    private static final String APP_UNINSTALLED = "app/uninstalled";
+    
+    private final ResponseCache responseCache;
+    
+    @Override
+    public boolean canHandle(WebhookEvent event) {
+        if (event.getShop() == null || event.getTopic() == null) {
+            return false;
+        }
+        if (APP_UNINSTALLED.equals(event.getTopic())) {
+            return true;
+        }
+        for (CachedEntity entity : CachedEntity.values()) {
+            if (entity.isInvalidatedBy(event.getTopic())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public Mono<Void> handle(WebhookEvent event) {
+        return Mono.fromRunnable(() -> {
+            if (APP_UNINSTALLED.equals(event.getTopic())) {
+                responseCache.invalidateShop(event.getShop());
+                return;
+            }
+            for (CachedEntity entity : CachedEntity.values()) {
+                if (entity.isInvalidatedBy(event.getTopic())) {
+                    responseCache.invalidate(event.getShop(), entity);
+                }
+            }
+        });
+    }
+    
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.shopify.sdk.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BoundedLruMapTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private BoundedLruMap<String, String> map(int maxSize) {
+        return new BoundedLruMap<>(maxSize, value -> !value.startsWith("busy"), now::incrementAndGet);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entries down to 90% of the bound in one pass")
+    void testEvictsLeastRecentlyUsedInBatches() {
+        BoundedLruMap<String, String> map = map(20);
+        for (int i = 0; i < 20; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        // Using the oldest keys keeps them
+        map.get("k0");
+        map.get("k1");
+
+        map.put("k20", "v20");
+
+        assertThat(map.size()).isEqualTo(18);
+        assertThat(map.getEvictionCount()).isEqualTo(3);
+        assertThat(map.get("k0")).isEqualTo("v0");
+        assertThat(map.get("k1")).isEqualTo("v1");
+        assertThat(map.get("k20")).isEqualTo("v20");
+        assertThat(map.containsKey("k2")).isFalse();
+        assertThat(map.containsKey("k3")).isFalse();
+        assertThat(map.containsKey("k4")).isFalse();
+        assertThat(map.containsKey("k5")).isTrue();
+
+        // The next inserts fit below the bound again without another pass
+        map.put("k21", "v21");
+        map.put("k22", "v22");
+        assertThat(map.size()).isEqualTo(20);
+        assertThat(map.getEvictionCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should create missing values once and keep entries that may not be evicted")
+    void testComputeIfAbsentKeepsUnevictableEntries() {
+        BoundedLruMap<String, String> map = map(10);
+        map.put("a", "busy-a");
+        assertThat(map.computeIfAbsent("a", key -> "other")).isEqualTo("busy-a");
+
+        for (int i = 0; i < 10; i++) {
+            map.computeIfAbsent("k" + i, key -> "v-" + key);
+        }
+
+        assertThat(map.get("a")).isEqualTo("busy-a");
+        assertThat(map.size()).isEqualTo(9);
+        assertThat(map.getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should only remove a key conditionally while it still holds the expected value")
+    void testConditionalRemove() {
+        BoundedLruMap<String, String> map = map(10);
+        map.put("a", "v1");
+        map.put("a", "v2");
+
+        assertThat(map.remove("a", "v1")).isFalse();
+        assertThat(map.get("a")).isEqualTo("v2");
+        assertThat(map.remove("a", "v2")).isTrue();
+        assertThat(map.containsKey("a")).isFalse();
+    }
+}
@@ -0,0 +1,145 @@
+package com.shopify.sdk.cache;
+
+import com.shopify.sdk.webhook.CacheInvalidationWebhookHandler;
+import com.shopify.sdk.webhook.WebhookEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ResponseCache cache(CacheConfig config) {
+        return new ResponseCache(config, new InMemoryCacheStore(config.getMaxEntries()), now::get);
+    }
+
+    private Mono<String> loader() {
+        return Mono.fromSupplier(() -> "v" + loads.incrementAndGet());
+    }
+
+    private String read(ResponseCache cache, CachedEntity entity) {
+        return cache.get(SHOP, entity, "all", this::loader).block();
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    @DisplayName("Should serve fresh responses from the cache and count hits per entity")
+    void testReadThrough() {
+        ResponseCache cache = cache(CacheConfig.builder().refreshAheadFactor(1.0).build());
+
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v1");
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v1");
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v1");
+        assertThat(read(cache, CachedEntity.SCRIPT_TAGS)).isEqualTo("v2");
+
+        ResponseCache.CacheStats stats = cache.getStats().get(CachedEntity.LOCATIONS);
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRatio()).isCloseTo(2.0 / 3, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should serve stale responses while revalidating, then wait once they are too old")
+    void testStaleWhileRevalidate() {
+        ResponseCache cache = cache(CacheConfig.builder()
+            .ttls(java.util.Map.of(CachedEntity.LOCATIONS, Duration.ofMinutes(1)))
+            .staleWhileRevalidate(Duration.ofMinutes(1))
+            .refreshAheadFactor(1.0)
+            .build());
+
+        read(cache, CachedEntity.LOCATIONS);
+        advance(Duration.ofSeconds(90));
+        // Stale value is served, the reload replaces it
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v1");
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v2");
+
+        advance(Duration.ofMinutes(3));
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v3");
+        assertThat(cache.getStats().get(CachedEntity.LOCATIONS).getStaleHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reload ahead of expiry")
+    void testRefreshAhead() {
+        ResponseCache cache = cache(CacheConfig.builder()
+            .ttls(java.util.Map.of(CachedEntity.LOCATIONS, Duration.ofMinutes(10)))
+            .refreshAheadFactor(0.5)
+            .build());
+
+        read(cache, CachedEntity.LOCATIONS);
+        advance(Duration.ofMinutes(6));
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v1");
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v2");
+        assertThat(cache.getStats().get(CachedEntity.LOCATIONS).getRefreshes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop entries and in-flight loads when a webhook reports a change")
+    void testWebhookInvalidation() {
+        ResponseCache cache = cache(CacheConfig.builder().build());
+        CacheInvalidationWebhookHandler handler = new CacheInvalidationWebhookHandler(cache);
+
+        read(cache, CachedEntity.LOCATIONS);
+        read(cache, CachedEntity.PRICE_RULES);
+
+        WebhookEvent event = WebhookEvent.builder().shop(SHOP).topic("locations/update").build();
+        assertThat(handler.canHandle(event)).isTrue();
+        handler.handle(event).block();
+
+        assertThat(read(cache, CachedEntity.LOCATIONS)).isEqualTo("v3");
+        assertThat(read(cache, CachedEntity.PRICE_RULES)).isEqualTo("v2");
+
+        // A load that started before the change must not be stored after it
+        Sinks.One<String> pending = Sinks.one();
+        cache.get(SHOP, CachedEntity.PRICE_RULES, "page-2", pending::asMono).subscribe();
+        handler.handle(WebhookEvent.builder().shop(SHOP).topic("price_rules/update").build()).block();
+        pending.tryEmitValue("old");
+        assertThat(cache.get(SHOP, CachedEntity.PRICE_RULES, "page-2", this::loader).block()).isEqualTo("v4");
+
+        assertThat(handler.canHandle(WebhookEvent.builder().shop(SHOP).topic("orders/create").build())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entries beyond the size bound")
+    void testBoundedSize() {
+        InMemoryCacheStore store = new InMemoryCacheStore(2);
+        ResponseCache cache = new ResponseCache(CacheConfig.builder().build(), store, now::get);
+
+        for (String key : new String[] {"a", "b", "c"}) {
+            cache.get(SHOP, CachedEntity.SCRIPT_TAGS, key, this::loader).block();
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(store.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should scope entries by shop handle whatever the spelling of the domain")
+    void testNormalizesShop() {
+        ResponseCache cache = cache(CacheConfig.builder().build());
+        cache.get("test-shop", CachedEntity.LOCATIONS, "all", this::loader).block();
+        cache.get("other-shop", CachedEntity.LOCATIONS, "all", this::loader).block();
+
+        assertThat(cache.get("https://Test-Shop.myshopify.com", CachedEntity.LOCATIONS, "all", this::loader).block())
+            .isEqualTo("v1");
+
+        cache.invalidate(SHOP, CachedEntity.LOCATIONS);
+        assertThat(cache.size()).isEqualTo(1);
+        cache.invalidateShop("other-shop.myshopify.com");
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,142 @@
+package com.shopify.sdk.circuitbreaker;
+
+import com.shopify.sdk.exception.ShopifyCircuitOpenException;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import com.shopify.sdk.exception.ShopifyHttpException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CircuitBreakerServiceTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    private long now;
+    private final List<CircuitStateTransition> transitions = new ArrayList<>();
+
+    private CircuitBreakerService service(CircuitBreakerConfig.CircuitBreakerConfigBuilder config) {
+        CircuitBreakerService service = new CircuitBreakerService(config
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .permittedCallsInHalfOpen(2)
+            .openDuration(Duration.ofSeconds(30))
+            .build(), () -> now);
+        service.addListener(transitions::add);
+        return service;
+    }
+
+    private static Mono<String> fail(int status) {
+        return Mono.error(new ShopifyHttpException(status, "HTTP " + status));
+    }
+
+    private static void call(CircuitBreakerService service, Mono<String> call) {
+        service.execute(SHOP, call).onErrorResume(ShopifyHttpException.class, e -> Mono.empty()).block();
+    }
+
+    private void open(CircuitBreakerService service) {
+        for (int i = 0; i < 4; i++) {
+            call(service, fail(503));
+        }
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.OPEN);
+    }
+
+    @Test
+    @DisplayName("Should open on the failure rate and fail calls fast while open")
+    void testOpensOnFailureRate() {
+        CircuitBreakerService service = service(CircuitBreakerConfig.builder());
+
+        call(service, Mono.just("ok"));
+        call(service, fail(503));
+        call(service, Mono.just("ok"));
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.CLOSED);
+        call(service, fail(502));
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.OPEN);
+
+        AtomicInteger sent = new AtomicInteger();
+        now += Duration.ofSeconds(10).toNanos();
+        assertThatThrownBy(() -> service.execute(SHOP, Mono.fromCallable(sent::incrementAndGet)).block())
+            .isInstanceOfSatisfying(ShopifyCircuitOpenException.class,
+                error -> assertThat(error.getRetryAfter()).isEqualTo(Duration.ofSeconds(20)));
+        assertThat(sent).hasValue(0);
+        assertThat(service.getState("other-shop.myshopify.com")).isEqualTo(CircuitState.CLOSED);
+
+        assertThat(transitions).singleElement().satisfies(transition -> {
+            assertThat(transition.getFrom()).isEqualTo(CircuitState.CLOSED);
+            assertThat(transition.getTo()).isEqualTo(CircuitState.OPEN);
+            assertThat(transition.getFailureRate()).isEqualTo(0.5);
+        });
+        assertThat(service.getStats().getRejectedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should open on the slow-call rate even when calls succeed")
+    void testOpensOnSlowCallRate() {
+        CircuitBreakerService service = service(CircuitBreakerConfig.builder().slowCallDuration(Duration.ofSeconds(5)));
+        Mono<String> slow = Mono.fromCallable(() -> {
+            now += Duration.ofSeconds(6).toNanos();
+            return "ok";
+        });
+
+        for (int i = 0; i < 4; i++) {
+            call(service, slow);
+        }
+
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.OPEN);
+        assertThat(transitions.get(0).getSlowCallRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should let a limited number of probes through when half-open and close when they succeed")
+    void testHalfOpenProbes() {
+        CircuitBreakerService service = service(CircuitBreakerConfig.builder());
+        open(service);
+        now += Duration.ofSeconds(30).toNanos();
+
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        service.execute(SHOP, first.asMono()).subscribe();
+        service.execute(SHOP, second.asMono()).subscribe();
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.HALF_OPEN);
+        assertThatThrownBy(() -> service.execute(SHOP, Mono.just("ok")).block())
+            .isInstanceOf(ShopifyCircuitOpenException.class);
+
+        first.tryEmitValue("ok");
+        second.tryEmitValue("ok");
+
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.CLOSED);
+        assertThat(transitions).extracting(CircuitStateTransition::getTo)
+            .containsExactly(CircuitState.OPEN, CircuitState.HALF_OPEN, CircuitState.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should open again when a probe fails")
+    void testReopensOnFailedProbe() {
+        CircuitBreakerService service = service(CircuitBreakerConfig.builder());
+        open(service);
+        now += Duration.ofSeconds(30).toNanos();
+
+        call(service, Mono.just("ok"));
+        call(service, fail(500));
+
+        assertThat(service.getState(SHOP)).isEqualTo(CircuitState.OPEN);
+        assertThat(service.getStats().getOpened()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count only answers that show the shop cannot serve calls as failures")
+    void testIsFailure() {
+        assertThat(CircuitBreakerService.isFailure(new ShopifyHttpException(503, "unavailable"))).isTrue();
+        assertThat(CircuitBreakerService.isFailure(new ShopifyHttpException(402, "frozen"))).isTrue();
+        assertThat(CircuitBreakerService.isFailure(new ShopifyHttpException(429, "rate limited"))).isFalse();
+        assertThat(CircuitBreakerService.isFailure(new ShopifyHttpException(404, "not found"))).isFalse();
+        assertThat(CircuitBreakerService.isFailure(new ShopifyGraphQLException("bad query", List.of()))).isFalse();
+    }
+}
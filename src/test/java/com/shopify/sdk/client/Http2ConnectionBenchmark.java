@@ -0,0 +1,164 @@
+package com.shopify.sdk.client;
+
+import io.netty.handler.ssl.SslContextBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.InputStream;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Compares HTTP/1.1 with HTTP/2 over TLS against a local server that answers after a fixed delay, counting
+ * the connections each protocol opens. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class Http2ConnectionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(Http2ConnectionBenchmark.class);
+
+    private static final int REQUESTS = 5_000;
+    private static final int CONCURRENCY = 200;
+    private static final Duration SERVER_DELAY = Duration.ofMillis(20);
+    private static final char[] PASSWORD = "benchmark".toCharArray();
+    private static final String BODY = "{\"data\":{\"shop\":{\"name\":\"Benchmark\"}}}";
+
+    private static KeyStore keyStore;
+    private static DisposableServer server;
+    // Client address of every request; one per connection, as HTTP/2 streams share their connection's
+    private static final Set<SocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        keyStore = selfSignedKeyStore();
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+
+        server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+            .secure(spec -> spec.sslContext(Http2SslContextSpec.forServer(keyManagers)))
+            .handle((request, response) -> {
+                clientAddresses.add(request.remoteAddress());
+                return response.header("Content-Type", "application/json")
+                    .sendString(Mono.just(BODY).delayElement(SERVER_DELAY));
+            })
+            .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP/1.1 versus HTTP/2 with ALPN")
+    void compareProtocols() throws Exception {
+        Result http11 = run("HTTP/1.1", HttpConnectionConfig.builder().build());
+        Result http2 = run("HTTP/2", HttpConnectionConfig.builder().http2(true).build());
+
+        log.info("{}", http11);
+        log.info("{}", http2);
+
+        assertThat(http2.completed).isEqualTo(REQUESTS);
+        assertThat(http11.completed).isEqualTo(REQUESTS);
+        assertThat(http2.connections).isLessThan(http11.connections);
+    }
+
+    private Result run(String label, HttpConnectionConfig connectionConfig) throws Exception {
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        // The SDK's client with the server's certificate trusted; pool, protocol and socket settings are kept
+        HttpClient client = new HttpClientConfig(null, connectionConfig).createHttpClient()
+            .secure(spec -> spec.sslContext(connectionConfig.isHttp2()
+                ? Http2SslContextSpec.forClient().configure(builder -> trust(builder, trustManagers))
+                : Http11SslContextSpec.forClient().configure(builder -> trust(builder, trustManagers))));
+        String url = "https://localhost:" + server.port() + "/admin/api/graphql.json";
+
+        // Warm up the connections and the JIT before measuring
+        send(client, url, CONCURRENCY);
+        clientAddresses.clear();
+
+        long start = System.nanoTime();
+        int completed = send(client, url, REQUESTS);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return new Result(label, completed, elapsedMs, completed * 1000L / Math.max(1, elapsedMs),
+            clientAddresses.size());
+    }
+
+    private static int send(HttpClient client, String url, int requests) {
+        AtomicInteger completed = new AtomicInteger();
+        Flux.range(0, requests)
+            .flatMap(i -> client.get()
+                .uri(url)
+                .responseContent()
+                .aggregate()
+                .asString()
+                .doOnNext(body -> completed.incrementAndGet()), CONCURRENCY)
+            .then()
+            .block(Duration.ofMinutes(2));
+        return completed.get();
+    }
+
+    private static void trust(SslContextBuilder builder, TrustManagerFactory trustManagers) {
+        builder.trustManager(trustManagers);
+    }
+
+    /**
+     * Generates a certificate for localhost with the JDK's keytool.
+     */
+    private static KeyStore selfSignedKeyStore() throws Exception {
+        Path file = Files.createTempFile("http2-benchmark", ".p12");
+        Files.delete(file);
+        file.toFile().deleteOnExit();
+        Process keytool = new ProcessBuilder(
+            Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+            "-genkeypair", "-alias", "localhost", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+            "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+            "-storetype", "PKCS12", "-keystore", file.toString(),
+            "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+            .inheritIO()
+            .start();
+        assertThat(keytool.waitFor()).isZero();
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(file)) {
+            store.load(in, PASSWORD);
+        }
+        return store;
+    }
+
+    private record Result(String label, int completed, long elapsedMs, long requestsPerSecond, int connections) {
+        @Override
+        public String toString() {
+            return String.format("%-10s completed=%d elapsed=%dms throughput=%d req/s connections=%d",
+                label, completed, elapsedMs, requestsPerSecond, connections);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.shopify.sdk.client;
+
+import com.shopify.sdk.monitoring.ApiMetrics;
+import com.shopify.sdk.monitoring.ExchangeTelemetry;
+import com.shopify.sdk.monitoring.MonitoringService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MonitoringExchangeFilterTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+    private static final String BODY = "{\"data\":{}}";
+
+    private MonitoringService monitoringService;
+    private MonitoringExchangeFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        monitoringService = new MonitoringService();
+        filter = new MonitoringExchangeFilter(monitoringService, WebClientRegistry.ApiSurface.ADMIN_GRAPHQL, SHOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitoringService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should record successful exchanges per surface and per shop")
+    void testRecordsSuccess() {
+        exchange(request(null), HttpStatus.OK);
+
+        for (ApiMetrics metrics : new ApiMetrics[] {
+            monitoringService.getGlobalMetrics(), monitoringService.getGraphQLMetrics(), monitoringService.getShopMetrics(SHOP)}) {
+            assertThat(metrics.getTotalRequests()).isEqualTo(1);
+            assertThat(metrics.getSuccessfulRequests()).isEqualTo(1);
+            assertThat(metrics.getResponsesByStatusClass(2)).isEqualTo(1);
+            assertThat(metrics.getBytesReceived()).isEqualTo(BODY.length());
+        }
+        assertThat(monitoringService.getRestMetrics().getTotalRequests()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should record retries and throttle waits from the request telemetry")
+    void testRecordsRetriesAndThrottleWaits() {
+        ExchangeTelemetry telemetry = new ExchangeTelemetry("getProducts");
+
+        exchange(request(telemetry), HttpStatus.TOO_MANY_REQUESTS);
+        telemetry.addThrottleWait(TimeUnit.MILLISECONDS.toNanos(250));
+        exchange(request(telemetry), HttpStatus.OK);
+
+        ApiMetrics metrics = monitoringService.getShopMetrics(SHOP);
+        assertThat(metrics.getTotalRequests()).isEqualTo(2);
+        assertThat(metrics.getRetryAttempts()).isEqualTo(1);
+        // The 429 counts as throttled only
+        assertThat(metrics.getFailedRequests()).isZero();
+        assertThat(metrics.getWindow(1).getFailures()).isZero();
+        assertThat(metrics.getResponsesByStatusClass(4)).isEqualTo(1);
+        assertThat(metrics.getThrottledResponses()).isEqualTo(1);
+        assertThat(metrics.getWindow(1).getThrottled()).isEqualTo(1);
+        // The wait before the retry
+        assertThat(metrics.getRateLimitedRequests()).isEqualTo(1);
+        assertThat(metrics.getWindow(1).getRateLimited()).isEqualTo(1);
+        assertThat(metrics.getMaxRateLimitWaitTime().toMillis()).isEqualTo(250);
+    }
+
+    @Test
+    @DisplayName("Should record other error statuses as failures")
+    void testRecordsErrorStatusAsFailure() {
+        exchange(request(null), HttpStatus.SERVICE_UNAVAILABLE);
+
+        ApiMetrics metrics = monitoringService.getShopMetrics(SHOP);
+        assertThat(metrics.getFailedRequests()).isEqualTo(1);
+        assertThat(metrics.getResponsesByStatusClass(5)).isEqualTo(1);
+        assertThat(metrics.getRateLimitedRequests()).isZero();
+        assertThat(metrics.getThrottledResponses()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should record into the shop's current metrics after they were removed")
+    void testRecordsIntoRecreatedShopMetrics() {
+        exchange(request(null), HttpStatus.OK);
+        monitoringService.removeShopMetrics(SHOP);
+
+        exchange(request(null), HttpStatus.OK);
+
+        assertThat(monitoringService.getShopMetrics(SHOP).getTotalRequests()).isEqualTo(1);
+        assertThat(monitoringService.getGlobalMetrics().getTotalRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should record nothing while monitoring is disabled")
+    void testDisabledMonitoring() {
+        monitoringService.disableMonitoring();
+
+        exchange(request(null), HttpStatus.OK);
+
+        assertThat(monitoringService.getGlobalMetrics().getTotalRequests()).isZero();
+    }
+
+    private ClientRequest request(ExchangeTelemetry telemetry) {
+        ClientRequest.Builder builder = ClientRequest.create(HttpMethod.GET, URI.create("http://" + SHOP + "/graphql.json"));
+        if (telemetry != null) {
+            builder.attribute(ExchangeTelemetry.ATTRIBUTE, telemetry);
+        }
+        return builder.build();
+    }
+
+    private void exchange(ClientRequest request, HttpStatus status) {
+        ExchangeFunction next = clientRequest -> Mono.just(ClientResponse.create(status).body(BODY).build());
+
+        StepVerifier.create(filter.filter(request, next).flatMap(response -> response.bodyToMono(String.class)))
+            .expectNext(BODY)
+            .verifyComplete();
+    }
+}
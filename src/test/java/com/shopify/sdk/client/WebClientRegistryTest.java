@@ -0,0 +1,113 @@
+package com.shopify.sdk.client;
+
+import com.shopify.sdk.config.ShopifyAuthContext;
+import com.shopify.sdk.model.common.ApiVersion;
+import com.shopify.sdk.test.TestClients;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WebClientRegistryTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    @Test
+    @DisplayName("Should build a client once per key and reuse it afterwards")
+    void testReusesClients() {
+        WebClientRegistry registry = new WebClientRegistry(10);
+        AtomicInteger built = new AtomicInteger();
+        WebClientRegistry.ClientKey key = key(SHOP, "my-app");
+
+        WebClient first = registry.getOrCreate(key, () -> build(built));
+        WebClient second = registry.getOrCreate(key(SHOP, "my-app"), () -> build(built));
+
+        assertThat(second).isSameAs(first);
+        assertThat(built).hasValue(1);
+        assertThat(registry.getStats().getHits()).isEqualTo(1);
+        assertThat(registry.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep separate clients for every input that shapes a client")
+    void testSeparatesKeys() {
+        WebClientRegistry registry = new WebClientRegistry(10);
+        AtomicInteger built = new AtomicInteger();
+        List<WebClientRegistry.ClientKey> keys = List.of(
+            key(SHOP, "my-app"),
+            key(SHOP, "other-app"),
+            key(SHOP, null),
+            key("other-shop.myshopify.com", "my-app"),
+            WebClientRegistry.key(SHOP, WebClientRegistry.ApiSurface.STOREFRONT_GRAPHQL, "2024-01", "my-app"),
+            WebClientRegistry.key(SHOP, WebClientRegistry.ApiSurface.ADMIN_GRAPHQL, "2024-04", "my-app"));
+
+        for (WebClientRegistry.ClientKey key : keys) {
+            registry.getOrCreate(key, () -> build(built));
+        }
+
+        assertThat(built).hasValue(keys.size());
+        assertThat(registry.size()).isEqualTo(keys.size());
+    }
+
+    @Test
+    @DisplayName("Should not hand a client with one User-Agent prefix to a context with another")
+    void testHttpClientConfigKeysOnUserAgentPrefix() {
+        HttpClientConfig httpClientConfig = TestClients.httpClientConfig();
+        ShopifyAuthContext appA = context("app-a");
+        ShopifyAuthContext appB = context("app-b");
+
+        WebClient clientA = httpClientConfig.getAdminApiClient(appA, SHOP);
+
+        assertThat(httpClientConfig.getAdminApiClient(appA, SHOP)).isSameAs(clientA);
+        assertThat(httpClientConfig.getAdminApiClient(appB, SHOP)).isNotSameAs(clientA);
+        assertThat(httpClientConfig.getStorefrontApiClient(appA, SHOP))
+            .isNotSameAs(httpClientConfig.getStorefrontApiClient(appB, SHOP));
+        assertThat(httpClientConfig.getWebClient(appA)).isNotSameAs(httpClientConfig.getWebClient(appB));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used clients down to 90% of the capacity")
+    void testEvictsLeastRecentlyUsed() {
+        WebClientRegistry registry = new WebClientRegistry(10);
+        AtomicInteger built = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            registry.getOrCreate(key("shop-" + i + ".myshopify.com", null), () -> build(built));
+        }
+        // Using the oldest clients keeps them
+        WebClient oldest = registry.getOrCreate(key("shop-0.myshopify.com", null), () -> build(built));
+
+        registry.getOrCreate(key("shop-10.myshopify.com", null), () -> build(built));
+
+        assertThat(registry.size()).isEqualTo(9);
+        assertThat(registry.getStats().getEvictions()).isEqualTo(2);
+        assertThat(registry.getOrCreate(key("shop-0.myshopify.com", null), () -> build(built))).isSameAs(oldest);
+        assertThat(built).hasValue(11);
+
+        // An evicted client is built again on its next use
+        registry.getOrCreate(key("shop-1.myshopify.com", null), () -> build(built));
+        assertThat(built).hasValue(12);
+    }
+
+    private static WebClientRegistry.ClientKey key(String shop, String userAgentPrefix) {
+        return WebClientRegistry.key(shop, WebClientRegistry.ApiSurface.ADMIN_GRAPHQL, "2024-01", userAgentPrefix);
+    }
+
+    private static WebClient build(AtomicInteger built) {
+        built.incrementAndGet();
+        return WebClient.builder().build();
+    }
+
+    private static ShopifyAuthContext context(String userAgentPrefix) {
+        return ShopifyAuthContext.builder()
+            .apiKey("test-api-key")
+            .apiSecretKey("test-api-secret")
+            .hostName("test-app.example.com")
+            .apiVersion(ApiVersion.JANUARY_24)
+            .userAgentPrefix(userAgentPrefix)
+            .build();
+    }
+}
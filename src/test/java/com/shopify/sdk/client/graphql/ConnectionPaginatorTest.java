@@ -0,0 +1,115 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.model.common.Connection;
+import com.shopify.sdk.model.common.Edge;
+import com.shopify.sdk.model.common.PageInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConnectionPaginatorTest {
+
+    /**
+     * Serves the numbers 0 until total in pages, recording each request as "first@after".
+     */
+    private static final class NumberPages implements ConnectionPaginator.PageFetcher<Connection<Integer>> {
+        final int total;
+        final List<String> requests = new ArrayList<>();
+
+        NumberPages(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public Mono<Connection<Integer>> fetch(int first, String after) {
+            requests.add(first + "@" + after);
+            int start = after != null ? Integer.parseInt(after) + 1 : 0;
+            int end = Math.min(start + first, total);
+            List<Edge<Integer>> edges = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                edges.add(new Edge<>(i, String.valueOf(i)));
+            }
+            PageInfo pageInfo = new PageInfo(end < total, start > 0, String.valueOf(start), String.valueOf(end - 1));
+            return Mono.just(new Connection<>(edges, pageInfo));
+        }
+    }
+
+    @Test
+    @DisplayName("Should emit every node across pages in order")
+    void testEmitsAllNodes() {
+        NumberPages pages = new NumberPages(7);
+
+        StepVerifier.create(ConnectionPaginator.paginate(pages, 3))
+            .expectNext(0, 1, 2, 3, 4, 5, 6)
+            .verifyComplete();
+
+        assertThat(pages.requests).containsExactly("3@null", "3@2", "3@5");
+    }
+
+    @Test
+    @DisplayName("Should shrink the last page to the maximum item count")
+    void testStopsAtMaxItems() {
+        NumberPages pages = new NumberPages(100);
+
+        StepVerifier.create(ConnectionPaginator.paginate(pages, 4, 6))
+            .expectNext(0, 1, 2, 3, 4, 5)
+            .verifyComplete();
+
+        assertThat(pages.requests).containsExactly("4@null", "2@3");
+    }
+
+    @Test
+    @DisplayName("Should prefetch exactly one page ahead of demand")
+    void testPrefetchesOnePage() {
+        NumberPages pages = new NumberPages(100);
+
+        StepVerifier.create(ConnectionPaginator.paginate(pages, 5), 1)
+            .expectNext(0)
+            .then(() -> assertThat(pages.requests).containsExactly("5@null", "5@4"))
+            .thenRequest(4)
+            .expectNext(1, 2, 3, 4)
+            // Page 2 is taken once page 1 is drained, which starts page 3
+            .then(() -> assertThat(pages.requests).containsExactly("5@null", "5@4", "5@9"))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    @DisplayName("Should cancel the page being prefetched when the subscriber cancels")
+    void testCancelsPrefetch() {
+        Sinks.One<Connection<Integer>> secondPage = Sinks.one();
+        AtomicBoolean secondPageSubscribed = new AtomicBoolean();
+        AtomicBoolean secondPageCancelled = new AtomicBoolean();
+        ConnectionPaginator.PageFetcher<Connection<Integer>> fetcher = (first, after) -> after == null
+            ? new NumberPages(10).fetch(first, null)
+            : secondPage.asMono()
+                .doOnSubscribe(subscription -> secondPageSubscribed.set(true))
+                .doOnCancel(() -> secondPageCancelled.set(true));
+
+        StepVerifier.create(ConnectionPaginator.paginate(fetcher, 2), 1)
+            .expectNext(0)
+            // Cancelling only after the prefetch has started exercises its cancellation
+            .then(() -> assertThat(secondPageSubscribed).isTrue())
+            .thenCancel()
+            .verify();
+
+        assertThat(secondPageCancelled).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject page sizes Shopify does not serve")
+    void testRejectsInvalidPageSize() {
+        assertThatThrownBy(() -> ConnectionPaginator.paginate(new NumberPages(1), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConnectionPaginator.paginate(new NumberPages(1), 251))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
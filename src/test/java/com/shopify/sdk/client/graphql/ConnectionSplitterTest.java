@@ -0,0 +1,143 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionSplitterTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+    private static final String TOKEN = "test-token";
+    private static final String QUERY = "query($first: Int!, $after: String) { shop { items(first: $first, after: $after) "
+        + "{ edges { cursor node { id } } pageInfo { hasNextPage endCursor } } } }";
+    private static final int TOTAL_ITEMS = 100;
+
+    @Mock
+    private ShopifyGraphQLClient graphQLClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> sentPageSizes = new ArrayList<>();
+    // Pages larger than this are rejected by the server for their cost
+    private int serverMaxPageSize = Integer.MAX_VALUE;
+
+    @BeforeEach
+    void setUp() {
+        // Serves items 0..99 with their index as cursor
+        lenient().when(graphQLClient.query(eq(SHOP), eq(TOKEN), eq(QUERY), anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> variables = invocation.getArgument(3);
+            int first = (Integer) variables.get("first");
+            sentPageSizes.add(first);
+            if (first > serverMaxPageSize) {
+                return Mono.error(new ShopifyGraphQLException("Query cost is too high", List.of(
+                    new ShopifyGraphQLException.GraphQLError("too high", null, null, "{code=MAX_COST_EXCEEDED}"))));
+            }
+            int start = variables.containsKey("after") ? Integer.parseInt((String) variables.get("after")) + 1 : 0;
+            int end = Math.min(start + first, TOTAL_ITEMS);
+
+            ObjectNode data = objectMapper.createObjectNode();
+            ObjectNode items = data.putObject("shop").putObject("items");
+            ArrayNode edges = items.putArray("edges");
+            for (int i = start; i < end; i++) {
+                edges.addObject().put("cursor", String.valueOf(i)).putObject("node").put("id", "item-" + i);
+            }
+            items.putObject("pageInfo").put("hasNextPage", end < TOTAL_ITEMS)
+                .put("endCursor", String.valueOf(end - 1));
+            return Mono.just(new GraphQLResponse(data, null, null));
+        });
+    }
+
+    private void estimateCostPerItem(int costPerItem) {
+        when(graphQLClient.estimateCost(any())).thenAnswer(invocation -> {
+            GraphQLRequest request = invocation.getArgument(0);
+            return OptionalInt.of(2 + (Integer) request.getVariables().get("first") * costPerItem);
+        });
+    }
+
+    private static List<String> ids(GraphQLResponse response) {
+        List<String> ids = new ArrayList<>();
+        response.getData().path("shop").path("items").path("edges")
+            .forEach(edge -> ids.add(edge.path("node").path("id").asText()));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should send a query within the cost limit unchanged")
+    void testDoesNotSplitWithinLimit() {
+        estimateCostPerItem(5);
+        ConnectionSplitter splitter = new ConnectionSplitter(graphQLClient);
+
+        GraphQLResponse response = splitter.query(SHOP, TOKEN, QUERY, Map.of("first", 50), "shop.items").block();
+
+        assertThat(ids(response)).hasSize(50);
+        assertThat(sentPageSizes).containsExactly(50);
+        assertThat(splitter.getStats().getSplitQueries()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should split a query estimated over the limit and stitch the pages")
+    void testSplitsByEstimate() {
+        estimateCostPerItem(27);
+        ConnectionSplitter splitter = new ConnectionSplitter(graphQLClient);
+
+        GraphQLResponse response = splitter.query(SHOP, TOKEN, QUERY, Map.of("first", 90), "shop.items").block();
+
+        // 2 + 36 * 27 = 974 is the largest page within 1000
+        assertThat(sentPageSizes).containsExactly(36, 36, 18);
+        assertThat(ids(response)).hasSize(90).startsWith("item-0").endsWith("item-89");
+        JsonNode pageInfo = response.getData().path("shop").path("items").path("pageInfo");
+        assertThat(pageInfo.path("hasNextPage").asBoolean()).isTrue();
+        assertThat(pageInfo.path("endCursor").asText()).isEqualTo("89");
+
+        ConnectionSplitter.SplitStats stats = splitter.getStats();
+        assertThat(stats.getSplitQueries()).isEqualTo(1);
+        assertThat(stats.getPages()).isEqualTo(3);
+        assertThat(stats.getMaxPagesPerSplit()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should halve pages the server rejects for their cost and stop at the end of the connection")
+    void testSplitsOnServerRejection() {
+        serverMaxPageSize = 40;
+        ConnectionSplitter splitter = new ConnectionSplitter(graphQLClient);
+
+        GraphQLResponse response = splitter.query(SHOP, TOKEN, QUERY, Map.of("first", 250), "shop.items").block();
+
+        assertThat(sentPageSizes).containsExactly(250, 125, 62, 31, 31, 31, 31);
+        assertThat(ids(response)).hasSize(TOTAL_ITEMS);
+        assertThat(response.getData().path("shop").path("items").path("pageInfo").path("hasNextPage").asBoolean())
+            .isFalse();
+        assertThat(splitter.getStats().getRejectedPages()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should fail when even a single item exceeds the cost limit")
+    void testRejectsUnsplittableQuery() {
+        estimateCostPerItem(2000);
+        ConnectionSplitter splitter = new ConnectionSplitter(graphQLClient);
+
+        assertThatThrownBy(() -> splitter.query(SHOP, TOKEN, QUERY, Map.of("first", 10), "shop.items").block())
+            .isInstanceOf(ShopifyGraphQLException.class)
+            .satisfies(error -> assertThat(ConnectionSplitter.isMaxCostExceeded(error)).isTrue());
+        assertThat(sentPageSizes).isEmpty();
+    }
+}
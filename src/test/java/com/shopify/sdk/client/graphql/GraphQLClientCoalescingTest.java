@@ -0,0 +1,85 @@
+package com.shopify.sdk.client.graphql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GraphQLClientCoalescingTest {
+
+    private final AtomicInteger sent = new AtomicInteger();
+    // Holds every response back until released, so concurrent calls overlap
+    private final Sinks.Empty<Void> release = Sinks.empty();
+    private GraphQLClientFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new GraphQLClientFixture(request -> {
+            sent.incrementAndGet();
+            return release.asMono().then(Mono.fromSupplier(() ->
+                GraphQLClientFixture.json("{\"data\":{\"shop\":{\"name\":\"Test\"}}}")));
+        });
+    }
+
+    private GraphQLClient client(boolean coalesceReads) {
+        return fixture.client(GraphQLClientConfig.builder().coalesceReads(coalesceReads).build());
+    }
+
+    private List<GraphQLResponse> runConcurrently(GraphQLClient client, GraphQLRequest... requests) throws Exception {
+        List<Mono<GraphQLResponse>> calls = new ArrayList<>();
+        for (GraphQLRequest request : requests) {
+            calls.add(fixture.storefront(client, request));
+        }
+        CompletableFuture<List<GraphQLResponse>> responses = Flux.merge(calls).collectList().toFuture();
+        release.tryEmitEmpty();
+        return responses.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should share one in-flight read between identical queries")
+    void testCoalescesIdenticalReads() throws Exception {
+        GraphQLClient client = client(true);
+
+        List<GraphQLResponse> responses = runConcurrently(client,
+            GraphQLRequest.of("query { shop { name } }", Map.<String, Object>of("a", 1, "b", 2)),
+            GraphQLRequest.of("query {\n  shop {\n    name\n  }\n}", Map.<String, Object>of("b", 2, "a", 1)),
+            GraphQLRequest.of("query { shop { name } }", Map.<String, Object>of("a", 2, "b", 2)));
+
+        assertThat(responses).hasSize(3);
+        assertThat(sent).hasValue(2);
+        assertThat(client.getCoalescedReadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should never coalesce mutations or reads when disabled")
+    void testDoesNotCoalesceMutations() throws Exception {
+        GraphQLClient client = client(true);
+        runConcurrently(client,
+            GraphQLRequest.of("mutation { tagsAdd(id: 1, tags: [\"a\"]) { node { id } } }"),
+            GraphQLRequest.of("mutation { tagsAdd(id: 1, tags: [\"a\"]) { node { id } } }"));
+        assertThat(sent).hasValue(2);
+
+        GraphQLClient disabled = client(false);
+        runConcurrently(disabled, GraphQLRequest.of("{ shop { name } }"), GraphQLRequest.of("{ shop { name } }"));
+        assertThat(sent).hasValue(4);
+        assertThat(client.getCoalescedReadCount() + disabled.getCoalescedReadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should collapse whitespace outside string literals only")
+    void testNormalizeQuery() {
+        assertThat(GraphQLClient.normalizeQuery("  query {\n\tproducts(query: \"a  b\") { id }\n}  "))
+            .isEqualTo("query { products(query: \"a  b\") { id } }");
+    }
+}
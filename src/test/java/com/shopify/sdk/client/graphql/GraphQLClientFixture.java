@@ -0,0 +1,74 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.client.HttpClientConfig;
+import com.shopify.sdk.config.ShopifyAuthContext;
+import com.shopify.sdk.ratelimit.RateLimitConfig;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import com.shopify.sdk.test.TestClients;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * GraphQL clients for one test shop whose Admin and Storefront API requests are answered by an exchange
+ * function instead of the network.
+ */
+final class GraphQLClientFixture {
+
+    static final String SHOP = "test-shop.myshopify.com";
+    static final String TOKEN = "test-token";
+
+    private final HttpClientConfig httpClientConfig = mock(HttpClientConfig.class);
+    private final ShopifyAuthContext context = mock(ShopifyAuthContext.class);
+
+    /**
+     * @param exchange answers every request the clients send
+     */
+    GraphQLClientFixture(ExchangeFunction exchange) {
+        WebClient webClient = WebClient.builder()
+            .baseUrl("https://" + SHOP)
+            .exchangeFunction(exchange)
+            .build();
+        when(httpClientConfig.getAdminApiClient(any(), anyString())).thenReturn(webClient);
+        when(httpClientConfig.getStorefrontApiClient(any(), anyString())).thenReturn(webClient);
+    }
+
+    /**
+     * Creates a 200 response with a JSON body.
+     */
+    static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build();
+    }
+
+    /**
+     * Creates a client with default rate limits.
+     */
+    GraphQLClient client(GraphQLClientConfig config) {
+        return client(new RateLimitService(RateLimitConfig.builder().build()), config);
+    }
+
+    GraphQLClient client(RateLimitService rateLimitService, GraphQLClientConfig config) {
+        return TestClients.graphQLClient(httpClientConfig, new ObjectMapper(), rateLimitService, config);
+    }
+
+    Mono<GraphQLResponse> admin(GraphQLClient client, GraphQLRequest request) {
+        return client.executeAdminQuery(context, SHOP, TOKEN, request);
+    }
+
+    Mono<GraphQLResponse> storefront(GraphQLClient client, GraphQLRequest request) {
+        return client.executeStorefrontQuery(context, SHOP, TOKEN, request);
+    }
+}
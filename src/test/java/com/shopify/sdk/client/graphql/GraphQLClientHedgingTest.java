@@ -0,0 +1,160 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.ratelimit.RateLimitConfig;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class GraphQLClientHedgingTest {
+
+    private static final GraphQLRequest READ = GraphQLRequest.of("{ shop { name } }");
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    // The request answered after slowDelay; all others answer after 5ms
+    private int slowRequest;
+    private Duration slowDelay = Duration.ofSeconds(2);
+    private GraphQLClientFixture fixture;
+
+    // Response delays, hedge delays and the hedger's latencies all run on virtual time
+    private VirtualTimeScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = VirtualTimeScheduler.getOrSet();
+        fixture = new GraphQLClientFixture(request -> {
+            Duration delay = sent.incrementAndGet() == slowRequest ? slowDelay : Duration.ofMillis(5);
+            return Mono.just(GraphQLClientFixture.json("{\"data\":{\"shop\":{\"name\":\"Test\"}}}"))
+                .delayElement(delay)
+                .doOnCancel(cancelled::incrementAndGet);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        VirtualTimeScheduler.reset();
+    }
+
+    private GraphQLClient client(GraphQLClientConfig config) {
+        return fixture.client(config);
+    }
+
+    /**
+     * Sends a request and lets the given time pass.
+     *
+     * @return the response, or null if there was none within that time
+     */
+    private GraphQLResponse execute(GraphQLClient client, GraphQLRequest request, Duration time) {
+        AtomicReference<GraphQLResponse> response = new AtomicReference<>();
+        fixture.admin(client, request).subscribe(response::set);
+        scheduler.advanceTimeBy(time);
+        return response.get();
+    }
+
+    /**
+     * Sends enough fast reads for the shop's latency percentile, 5ms, to be known.
+     */
+    private void warmUp(GraphQLClient client) {
+        for (int i = 0; i < ReadHedger.MIN_SAMPLES; i++) {
+            assertThat(execute(client, READ, Duration.ofMillis(5))).isNotNull();
+        }
+        slowRequest = sent.get() + 1;
+    }
+
+    @Test
+    @DisplayName("Should hedge a read slower than the shop's p95 and cancel the copy that loses")
+    void testHedgesSlowRead() {
+        GraphQLClient client = client(GraphQLClientConfig.builder().hedgeReads(true).hedgeBudgetRatio(0.1).build());
+        warmUp(client);
+
+        // Hedged after 5ms, the second copy answers 5ms later while the first one would take 2s
+        GraphQLResponse response = execute(client, READ, Duration.ofMillis(10));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getData().path("shop").path("name").asText()).isEqualTo("Test");
+        assertThat(sent).hasValue(ReadHedger.MIN_SAMPLES + 2);
+        assertThat(cancelled).hasValue(1);
+
+        ReadHedger.HedgeStats stats = client.getHedgeStats();
+        assertThat(stats.getReads()).isEqualTo(ReadHedger.MIN_SAMPLES + 1);
+        assertThat(stats.getHedges()).isEqualTo(1);
+        assertThat(stats.getWonHedges()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the cost reservation of the copy that loses once it was sent")
+    void testKeepsReservationOfCancelledCopy() {
+        RateLimitService rateLimitService = spy(new RateLimitService(RateLimitConfig.builder().build()));
+        GraphQLClient client = fixture.client(rateLimitService,
+            GraphQLClientConfig.builder().hedgeReads(true).hedgeBudgetRatio(0.1).build());
+        warmUp(client);
+
+        assertThat(execute(client, READ, Duration.ofMillis(10))).isNotNull();
+
+        // Shopify charges the cancelled copy too, so neither reservation is refunded
+        assertThat(cancelled).hasValue(1);
+        verify(rateLimitService, times(ReadHedger.MIN_SAMPLES + 2))
+            .settleGraphQLCost(eq(GraphQLClientFixture.SHOP), anyInt(), any());
+        verify(rateLimitService, never()).cancelGraphQLCost(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should never hedge a mutation")
+    void testDoesNotHedgeMutations() {
+        slowDelay = Duration.ofMillis(300);
+        GraphQLClient client = client(GraphQLClientConfig.builder().hedgeReads(true).hedgeBudgetRatio(0.1).build());
+        warmUp(client);
+
+        assertThat(execute(client, GraphQLRequest.of("mutation { shopUpdate(input: {}) { shop { name } } }"),
+            slowDelay)).isNotNull();
+
+        assertThat(sent).hasValue(ReadHedger.MIN_SAMPLES + 1);
+        assertThat(client.getHedgeStats().getHedges()).isZero();
+        assertThat(client.getHedgeStats().getReads()).isEqualTo(ReadHedger.MIN_SAMPLES);
+    }
+
+    @Test
+    @DisplayName("Should not hedge once the hedge budget is used up")
+    void testRespectsHedgeBudget() {
+        slowDelay = Duration.ofMillis(300);
+        GraphQLClient client = client(GraphQLClientConfig.builder().hedgeReads(true).hedgeBudgetRatio(0.01).build());
+        warmUp(client);
+
+        assertThat(execute(client, READ, slowDelay)).isNotNull();
+
+        assertThat(sent).hasValue(ReadHedger.MIN_SAMPLES + 1);
+        assertThat(client.getHedgeStats().getHedges()).isZero();
+        assertThat(client.getHedgeStats().getDeniedHedges()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not hedge unless enabled")
+    void testDisabledByDefault() {
+        slowDelay = Duration.ofMillis(300);
+        GraphQLClient client = client(GraphQLClientConfig.builder().build());
+        warmUp(client);
+
+        assertThat(execute(client, READ, slowDelay)).isNotNull();
+
+        assertThat(sent).hasValue(ReadHedger.MIN_SAMPLES + 1);
+        assertThat(client.getHedgeStats().getReads()).isZero();
+    }
+}
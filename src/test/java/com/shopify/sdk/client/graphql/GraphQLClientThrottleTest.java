@@ -0,0 +1,90 @@
+package com.shopify.sdk.client.graphql;
+
+import com.shopify.sdk.exception.ShopifyThrottledException;
+import com.shopify.sdk.ratelimit.QueryCost;
+import com.shopify.sdk.ratelimit.RequestPriority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GraphQLClientThrottleTest {
+
+    private static final GraphQLRequest REQUEST =
+        GraphQLRequest.of("{ shop { name } }").withPriority(RequestPriority.INTERACTIVE);
+
+    private final AtomicInteger sent = new AtomicInteger();
+    // Number of leading requests answered with THROTTLED
+    private int throttledResponses;
+    private double currentlyAvailable;
+    private double restoreRate;
+    private GraphQLClientFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new GraphQLClientFixture(request -> {
+            String body = sent.incrementAndGet() <= throttledResponses
+                ? "{\"errors\":[{\"message\":\"Throttled\",\"extensions\":{\"code\":\"THROTTLED\"}}],"
+                    + "\"extensions\":{\"cost\":{\"requestedQueryCost\":100,\"throttleStatus\":"
+                    + "{\"maximumAvailable\":1000.0,\"currentlyAvailable\":" + currentlyAvailable
+                    + ",\"restoreRate\":" + restoreRate + "}}}}"
+                : "{\"data\":{\"shop\":{\"name\":\"Test\"}}}";
+            return Mono.just(GraphQLClientFixture.json(body));
+        });
+    }
+
+    private GraphQLClient client(int maxThrottleRetries) {
+        return fixture.client(GraphQLClientConfig.builder().maxThrottleRetries(maxThrottleRetries).build());
+    }
+
+    @Test
+    @DisplayName("Should retry a throttled query once the bucket has restored its requested cost")
+    void testRetriesThrottledQueryThroughLimiter() {
+        // 50 points are missing and restore at 500 per second
+        throttledResponses = 1;
+        currentlyAvailable = 50;
+        restoreRate = 500;
+        GraphQLClient client = client(5);
+
+        long start = System.nanoTime();
+        GraphQLResponse response = fixture.admin(client, REQUEST).block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(response.getData().path("shop").path("name").asText()).isEqualTo("Test");
+        assertThat(sent).hasValue(2);
+        assertThat(client.getThrottledRetryCount()).isEqualTo(1);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(90).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("Should fail with the throttle delay once the retries are used up")
+    void testGivesUpAfterMaxThrottleRetries() {
+        throttledResponses = Integer.MAX_VALUE;
+        currentlyAvailable = 99;
+        restoreRate = 1000;
+        GraphQLClient client = client(2);
+
+        assertThatThrownBy(() -> fixture.admin(client, REQUEST).block())
+            .isInstanceOfSatisfying(ShopifyThrottledException.class, error -> {
+                assertThat(error.getRequestedCost()).isEqualTo(100);
+                assertThat(error.getRetryAfter()).isEqualTo(Duration.ofMillis(1));
+            });
+        assertThat(sent).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should compute the throttle delay from the missing points and the restore rate")
+    void testThrottleDelay() {
+        QueryCost queryCost = QueryCost.fromExtensions(Map.of("cost", Map.of("requestedQueryCost", 300,
+            "throttleStatus", Map.of("maximumAvailable", 1000.0, "currentlyAvailable", 75.0, "restoreRate", 50.0))));
+
+        assertThat(GraphQLClient.throttleDelay(queryCost)).isEqualTo(Duration.ofMillis(4500));
+        assertThat(GraphQLClient.throttleDelay(null)).isEqualTo(Duration.ofSeconds(1));
+    }
+}
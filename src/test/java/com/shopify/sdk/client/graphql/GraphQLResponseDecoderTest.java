@@ -0,0 +1,116 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GraphQLResponseDecoderTest {
+
+    private static final String BODY = "{\"data\":{\"shop\":{\"name\":\"Café Ünïcode\",\"id\":1}},"
+        + "\"errors\":[{\"message\":\"Field is deprecated\",\"path\":[\"shop\",\"name\"]}],"
+        + "\"extensions\":{\"cost\":{\"requestedQueryCost\":12,\"actualQueryCost\":4}}}";
+
+    private final GraphQLResponseDecoder decoder = new GraphQLResponseDecoder(new ObjectMapper());
+
+    @Test
+    @DisplayName("Should decode data, errors and extensions from buffers split at any byte")
+    void testDecodesSplitBuffers() {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+
+        for (int chunkSize : new int[] {1, 3, 7, bytes.length}) {
+            StepVerifier.create(decoder.decode(buffers(bytes, chunkSize)))
+                .assertNext(response -> {
+                    assertThat(response.getData().at("/shop/name").asText()).isEqualTo("Café Ünïcode");
+                    assertThat(response.getErrors()).extracting(GraphQLResponse.GraphQLError::getMessage)
+                        .containsExactly("Field is deprecated");
+                    assertThat(response.getCost().getRequestedQueryCost()).isEqualTo(12);
+                    assertThat(response.getDecodeStats().getResponseBytes()).isEqualTo(bytes.length);
+                })
+                .verifyComplete();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail on truncated documents and oversized bodies")
+    void testRejectsBrokenBodies() {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+
+        StepVerifier.create(decoder.decode(buffers(Arrays.copyOf(bytes, bytes.length - 5), 16)))
+            .expectError(ShopifyGraphQLException.class)
+            .verify();
+
+        GraphQLResponseDecoder limited = new GraphQLResponseDecoder(new ObjectMapper(), 64);
+        StepVerifier.create(limited.decode(buffers(bytes, 16)))
+            .expectErrorMatches(error -> error instanceof ShopifyGraphQLException && error.getMessage().contains("exceeds"))
+            .verify();
+    }
+
+    @Test
+    @DisplayName("Should bind only the node at the path and collect user errors next to it")
+    void testDecodesPath() {
+        String body = "{\"data\":{\"productCreate\":{"
+            + "\"shop\":{\"name\":\"ignored\",\"tags\":[1,2,{\"x\":null}]},"
+            + "\"product\":{\"id\":\"gid://shopify/Product/1\",\"title\":\"Hat\",\"unknown\":[]},"
+            + "\"userErrors\":[{\"field\":[\"input\",\"title\"],\"message\":\"Title is too long\",\"code\":\"TOO_LONG\"}]}},"
+            + "\"extensions\":{\"cost\":{\"requestedQueryCost\":10}}}";
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        GraphQLResponseDecoder pathDecoder = new GraphQLResponseDecoder(mapper);
+
+        StepVerifier.create(pathDecoder.<Product>decode(buffers(body.getBytes(StandardCharsets.UTF_8), 5),
+                "productCreate.product", mapper.constructType(Product.class)))
+            .assertNext(result -> {
+                assertThat(result.getValue().title).isEqualTo("Hat");
+                assertThat(result.getUserErrors()).singleElement()
+                    .satisfies(error -> {
+                        assertThat(error.getField()).containsExactly("input", "title");
+                        assertThat(error.getCode()).isEqualTo("TOO_LONG");
+                    });
+                assertThat(result.getResponse().getData()).isNull();
+                assertThat(result.getResponse().getCost().getRequestedQueryCost()).isEqualTo(10);
+            })
+            .verifyComplete();
+
+        StepVerifier.create(pathDecoder.<Product>decode(buffers("{\"data\":{\"productCreate\":null}}".getBytes(StandardCharsets.UTF_8), 4),
+                "productCreate.product", mapper.constructType(Product.class)))
+            .assertNext(result -> {
+                assertThat(result.hasValue()).isFalse();
+                assertThat(result.hasUserErrors()).isFalse();
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject malformed paths")
+    void testRejectsMalformedPaths() {
+        assertThat(GraphQLResponseDecoder.parsePath("orders.edges")).containsExactly("orders", "edges");
+        assertThatThrownBy(() -> GraphQLResponseDecoder.parsePath("orders..edges"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static class Product {
+        public String id;
+        public String title;
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] bytes, int chunkSize) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize));
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
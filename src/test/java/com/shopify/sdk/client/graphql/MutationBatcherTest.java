@@ -0,0 +1,205 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.exception.ShopifyGraphQLException;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MutationBatcherTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+    private static final String TOKEN = "test-token";
+
+    @Mock
+    private ShopifyGraphQLClient graphQLClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final List<String> sentDocuments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Echoes each alias's input ID back as a product; an input without a title gets a user error
+        lenient().when(graphQLClient.query(eq(SHOP), eq(TOKEN), startsWith("mutation batchedMutations"), anyMap()))
+            .thenAnswer(invocation -> {
+                sentDocuments.add(invocation.getArgument(2));
+                Map<String, Object> variables = invocation.getArgument(3);
+                ObjectNode data = objectMapper.createObjectNode();
+                variables.forEach((name, value) -> {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> input = (Map<String, Object>) value;
+                    ObjectNode payload = data.putObject(name.substring(0, name.indexOf('_')));
+                    if (input.containsKey("title")) {
+                        payload.putObject("product").put("id", (String) input.get("id"));
+                        payload.putArray("userErrors");
+                    } else {
+                        payload.putNull("product");
+                        payload.putArray("userErrors").addObject()
+                            .put("message", "Title can't be blank").putArray("field").add("title");
+                    }
+                });
+                return Mono.just(new GraphQLResponse(data, null, null));
+            });
+    }
+
+    private MutationBatcher batcher(MutationBatchConfig config) {
+        return new MutationBatcher(graphQLClient, objectMapper, config, scheduler);
+    }
+
+    private static MutationBatcher.BatchedMutation update(String id, boolean withTitle, int cost) {
+        Map<String, Object> input = withTitle ? Map.of("id", id, "title", "T") : Map.of("id", id);
+        return MutationBatcher.BatchedMutation.of("productUpdate", "input", "ProductInput!", input,
+            "product { id } userErrors { field message }", cost);
+    }
+
+    @Test
+    @DisplayName("Should send mutations made within the window as one aliased document")
+    void testBatchesWithinWindow() {
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().build());
+        List<GraphQLResult<JsonNode>> results = new ArrayList<>();
+
+        batcher.submit(SHOP, TOKEN, update("1", true, 10)).subscribe(results::add);
+        batcher.submit(SHOP, TOKEN, update("2", false, 10)).subscribe(results::add);
+        assertThat(sentDocuments).isEmpty();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(sentDocuments).hasSize(1);
+        assertThat(sentDocuments.get(0))
+            .contains("mutation batchedMutations($m0_input: ProductInput!, $m1_input: ProductInput!)")
+            .contains("m0: productUpdate(input: $m0_input) { product { id } userErrors { field message } }")
+            .contains("m1: productUpdate(input: $m1_input)");
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getValue().get("product").get("id").asText()).isEqualTo("1");
+        assertThat(results.get(0).hasUserErrors()).isFalse();
+        assertThat(results.get(1).getUserErrors()).singleElement()
+            .satisfies(error -> assertThat(error.getField()).containsExactly("title"));
+
+        assertThat(batcher.getStats().getDocuments()).isEqualTo(1);
+        assertThat(batcher.getStats().getMutations()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should split a batch that would exceed the document cost limit")
+    void testSplitsByCost() {
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().maxDocumentCost(25).build());
+
+        for (String id : new String[] {"1", "2", "3"}) {
+            batcher.submit(SHOP, TOKEN, update(id, true, 10)).subscribe();
+        }
+        assertThat(sentDocuments).hasSize(1);
+        assertThat(sentDocuments.get(0)).contains("m1:").doesNotContain("m2:");
+
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+        assertThat(sentDocuments).hasSize(2);
+        assertThat(batcher.getStats().getCostSplits()).isEqualTo(1);
+        assertThat(batcher.getStats().getMaxMutationsPerDocument()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should estimate the cost of mutations given none from their documents")
+    void testEstimatesCost() {
+        // Each update costs 10 for the mutation and 1 each for the product and the user errors
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().maxDocumentCost(30).build());
+
+        for (String id : new String[] {"1", "2", "3"}) {
+            batcher.submit(SHOP, TOKEN, MutationBatcher.BatchedMutation.of("productUpdate", "input",
+                "ProductInput!", Map.of("id", id, "title", "T"), "product { id } userErrors { field message }"))
+                .subscribe();
+        }
+        assertThat(sentDocuments).hasSize(1);
+        assertThat(sentDocuments.get(0)).contains("m1:").doesNotContain("m2:");
+        assertThat(batcher.getStats().getCostSplits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a mutation that alone exceeds the document cost limit")
+    void testRejectsOversizedMutation() {
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().maxDocumentCost(25).build());
+
+        assertThatThrownBy(() -> batcher.submit(SHOP, TOKEN, update("1", true, 30)).block())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(sentDocuments).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fail every mutation of a batch when the document fails")
+    void testPropagatesErrors() {
+        when(graphQLClient.query(eq(SHOP), eq(TOKEN), anyString(), anyMap()))
+            .thenReturn(Mono.error(new IllegalStateException("boom")));
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().build());
+        List<Throwable> errors = new ArrayList<>();
+
+        batcher.submit(SHOP, TOKEN, update("1", true, 10)).subscribe(result -> { }, errors::add);
+        batcher.submit(SHOP, TOKEN, update("2", true, 10)).subscribe(result -> { }, errors::add);
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(errors).hasSize(2).allMatch(error -> "boom".equals(error.getMessage()));
+    }
+
+    @Test
+    @DisplayName("Should fail only the mutation whose alias an error's path starts with")
+    void testRoutesErrorsByAlias() {
+        ObjectNode data = objectMapper.createObjectNode();
+        ObjectNode payload = data.putObject("m0");
+        payload.putObject("product").put("id", "1");
+        payload.putArray("userErrors");
+        data.putNull("m1");
+        when(graphQLClient.query(eq(SHOP), eq(TOKEN), anyString(), anyMap()))
+            .thenReturn(Mono.error(new ShopifyGraphQLException("Access denied", List.of(
+                new ShopifyGraphQLException.GraphQLError("Access denied", null, List.of("m1", "product"), null)),
+                data)));
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().build());
+        List<GraphQLResult<JsonNode>> results = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+
+        batcher.submit(SHOP, TOKEN, update("1", true, 10)).subscribe(results::add, errors::add);
+        batcher.submit(SHOP, TOKEN, update("2", true, 10)).subscribe(results::add, errors::add);
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(results).singleElement()
+            .satisfies(result -> assertThat(result.getValue().get("product").get("id").asText()).isEqualTo("1"));
+        assertThat(errors).singleElement(InstanceOfAssertFactories.THROWABLE)
+            .isInstanceOf(ShopifyGraphQLException.class)
+            .hasMessage("Access denied")
+            .satisfies(error -> assertThat(((ShopifyGraphQLException) error).getErrors()).hasSize(1));
+    }
+
+    @Test
+    @DisplayName("Should fail every mutation of a batch on an error without a path")
+    void testFailsBatchOnErrorWithoutPath() {
+        ShopifyGraphQLException failure = new ShopifyGraphQLException("Internal error", List.of(
+            new ShopifyGraphQLException.GraphQLError("Internal error", null, null, null)),
+            objectMapper.createObjectNode());
+        when(graphQLClient.query(eq(SHOP), eq(TOKEN), anyString(), anyMap())).thenReturn(Mono.error(failure));
+        MutationBatcher batcher = batcher(MutationBatchConfig.builder().build());
+        List<Throwable> errors = new ArrayList<>();
+
+        batcher.submit(SHOP, TOKEN, update("1", true, 10)).subscribe(result -> { }, errors::add);
+        batcher.submit(SHOP, TOKEN, update("2", true, 10)).subscribe(result -> { }, errors::add);
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(errors).hasSize(2).allMatch(error -> error == failure);
+    }
+}
@@ -0,0 +1,133 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shopify.sdk.client.ShopifyGraphQLClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NodeBatchLoaderTest {
+
+    public static class Item {
+        public String id;
+        public String title;
+    }
+
+    private static final String SHOP = "test-shop.myshopify.com";
+    private static final String TOKEN = "test-token";
+
+    @Mock
+    private ShopifyGraphQLClient graphQLClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final List<List<String>> sentBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Resolves every ID except "missing" to an item titled after it
+        lenient().when(graphQLClient.query(eq(SHOP), eq(TOKEN), contains("nodes(ids: $ids)"), anyMap()))
+            .thenAnswer(invocation -> {
+                Map<String, Object> variables = invocation.getArgument(3);
+                @SuppressWarnings("unchecked")
+                List<String> ids = (List<String>) variables.get("ids");
+                sentBatches.add(ids);
+                ObjectNode data = objectMapper.createObjectNode();
+                ArrayNode nodes = data.putArray("nodes");
+                for (String id : ids) {
+                    if ("missing".equals(id)) {
+                        nodes.addNull();
+                    } else {
+                        nodes.addObject().put("id", id).put("title", "Item " + id);
+                    }
+                }
+                return Mono.just(new GraphQLResponse(data, null, null));
+            });
+    }
+
+    private NodeBatchLoader<Item> loader(BatchLoaderConfig config) {
+        return new NodeBatchLoader<>(graphQLClient, objectMapper, "Product", "id title", Item.class, config, scheduler);
+    }
+
+    @Test
+    @DisplayName("Should send lookups made within the window as one de-duplicated query")
+    void testBatchesWithinWindow() {
+        NodeBatchLoader<Item> loader = loader(BatchLoaderConfig.builder().window(Duration.ofMillis(10)).build());
+        List<String> titles = new ArrayList<>();
+
+        for (String id : new String[] {"1", "2", "1", "missing"}) {
+            loader.load(SHOP, TOKEN, id).subscribe(item -> titles.add(item.title));
+        }
+        assertThat(sentBatches).isEmpty();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(sentBatches).containsExactly(List.of("1", "2", "missing"));
+        assertThat(titles).containsExactlyInAnyOrder("Item 1", "Item 2", "Item 1");
+
+        NodeBatchLoader.BatchStats stats = loader.getStats();
+        assertThat(stats.getBatches()).isEqualTo(1);
+        assertThat(stats.getRequestedIds()).isEqualTo(4);
+        assertThat(stats.getLoadedIds()).isEqualTo(3);
+        assertThat(stats.getBatchSizeHistogram()).containsEntry("<=4", 1L);
+    }
+
+    @Test
+    @DisplayName("Should send a batch as soon as it is full")
+    void testSendsFullBatchEarly() {
+        NodeBatchLoader<Item> loader = loader(BatchLoaderConfig.builder().maxBatchSize(2).build());
+
+        for (String id : new String[] {"1", "2", "3"}) {
+            loader.load(SHOP, TOKEN, id).subscribe();
+        }
+        assertThat(sentBatches).containsExactly(List.of("1", "2"));
+
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+        assertThat(sentBatches).containsExactly(List.of("1", "2"), List.of("3"));
+        assertThat(loader.getStats().getMaxBatchSize()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should fail every lookup of a batch when the query fails")
+    void testPropagatesErrors() {
+        when(graphQLClient.query(eq(SHOP), eq(TOKEN), anyString(), anyMap()))
+            .thenReturn(Mono.error(new IllegalStateException("boom")));
+        NodeBatchLoader<Item> loader = loader(BatchLoaderConfig.builder().build());
+        List<Throwable> errors = new ArrayList<>();
+
+        loader.load(SHOP, TOKEN, "1").subscribe(item -> { }, errors::add);
+        loader.load(SHOP, TOKEN, "2").subscribe(item -> { }, errors::add);
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(errors).hasSize(2).allMatch(error -> "boom".equals(error.getMessage()));
+    }
+
+    @Test
+    @DisplayName("Should send each lookup on its own when batching is disabled")
+    void testDisabled() {
+        NodeBatchLoader<Item> loader = loader(BatchLoaderConfig.builder().enabled(false).build());
+
+        assertThat(loader.load(SHOP, TOKEN, "1").block().title).isEqualTo("Item 1");
+        assertThat(loader.load(SHOP, TOKEN, "1").block().title).isEqualTo("Item 1");
+        assertThat(sentBatches).containsExactly(List.of("1"), List.of("1"));
+    }
+}
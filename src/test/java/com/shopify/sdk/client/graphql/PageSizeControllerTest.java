@@ -0,0 +1,113 @@
+package com.shopify.sdk.client.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PageSizeControllerTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long now;
+
+    private PageSizeController controller(PageSizeConfig config) {
+        return new PageSizeController(config, () -> now);
+    }
+
+    /**
+     * A page of {@code items} products that takes 100ms plus 0.04ms per item squared to arrive and costs
+     * 2 plus 1 per item, with a restore rate of 100 points per second.
+     */
+    private Mono<GraphQLResponse> page(int items) {
+        return Mono.fromCallable(() -> {
+            now += (long) ((0.1 + 0.00004 * items * items) * 1e9);
+            ObjectNode data = objectMapper.createObjectNode();
+            ArrayNode edges = data.putObject("products").putArray("edges");
+            for (int i = 0; i < items; i++) {
+                edges.addObject().putObject("node").put("id", String.valueOf(i));
+            }
+            Map<String, Object> extensions = Map.of("cost", Map.of(
+                "requestedQueryCost", 2 + items,
+                "actualQueryCost", 2 + items,
+                "throttleStatus", Map.of("maximumAvailable", 1000.0, "currentlyAvailable", 500.0, "restoreRate", 100.0)));
+            return new GraphQLResponse(data, null, extensions);
+        });
+    }
+
+    private void read(PageSizeController controller, int pages) {
+        for (int i = 0; i < pages; i++) {
+            int size = controller.pageSize(SHOP, "products", 10);
+            controller.observe(SHOP, "products", size, "products", page(size)).block();
+        }
+    }
+
+    @Test
+    @DisplayName("Should climb to the page size that reads the most items per second")
+    void testConvergesOnBestThroughput() {
+        // 160 items take 1.62s of budget; 250 items take 2.6s to arrive, which outweighs their larger page
+        PageSizeController controller = controller(PageSizeConfig.builder().probeInterval(1000).build());
+
+        assertThat(controller.pageSize(SHOP, "products", 10)).isEqualTo(10);
+        read(controller, 12);
+
+        assertThat(controller.pageSize(SHOP, "products", 10)).isEqualTo(160);
+        assertThat(controller.pageSize("other-shop.myshopify.com", "products", 10)).isEqualTo(10);
+        assertThat(controller.getStats().getObservations()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should re-measure a neighbour of the best size every probe interval")
+    void testProbesNeighbours() {
+        PageSizeController controller = controller(PageSizeConfig.builder().probeInterval(4).build());
+
+        read(controller, 40);
+
+        assertThat(controller.getStats().getProbes()).isPositive();
+        assertThat(controller.pageSize(SHOP, "products", 10)).isIn(80, 160, 250);
+    }
+
+    @Test
+    @DisplayName("Should not learn from the short last page of a connection")
+    void testIgnoresShortPages() {
+        PageSizeController controller = controller(PageSizeConfig.builder().build());
+
+        controller.observe(SHOP, "products", 50, "products", page(7)).block();
+
+        assertThat(controller.getStats().getObservations()).isZero();
+        assertThat(controller.pageSize(SHOP, "products", 50)).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("Should keep the default page size when disabled")
+    void testDisabled() {
+        PageSizeController controller = controller(PageSizeConfig.builder().enabled(false).build());
+
+        read(controller, 5);
+
+        assertThat(controller.pageSize(SHOP, "products", 10)).isEqualTo(10);
+        assertThat(controller.getStats().getObservations()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should key queries by document and filter variables, not by page size or cursor")
+    void testShapeKey() {
+        String products = "query($first: Int!, $after: String) {"
+            + " products(first: $first, after: $after) { nodes { id } } }";
+        String key = PageSizeController.shapeKey("products", products, List.of("first"));
+
+        assertThat(PageSizeController.shapeKey("products", products.replace(" { ", "\n  {\n    "),
+            List.of("first", "after"))).isEqualTo(key);
+        assertThat(PageSizeController.shapeKey("products", products, List.of("first", "query"))).isNotEqualTo(key);
+        assertThat(PageSizeController.shapeKey("products", products.replace("id", "id title"), List.of("first")))
+            .isNotEqualTo(key);
+    }
+}
@@ -0,0 +1,99 @@
+package com.shopify.sdk.client.graphql;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class QueryCostEstimatorTest {
+
+    private final QueryCostEstimator estimator = new QueryCostEstimator();
+
+    private int estimate(String query, Map<String, Object> variables) {
+        return estimator.estimate(GraphQLRequest.of(query, variables)).orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should charge objects and leave scalars free")
+    void testObjectsAndScalars() {
+        assertThat(estimate("{ shop { name currencyCode } }", null)).isEqualTo(1);
+        assertThat(estimate("{ shop { name billingAddress { city } } }", null)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should size connections by first and last, including nested connections")
+    void testConnections() {
+        assertThat(estimate("{ products(first: 10) { edges { cursor node { id title } } pageInfo { hasNextPage } } }",
+            null)).isEqualTo(12);
+        assertThat(estimate("query($n: Int!) { orders(last: $n) { nodes { id } } }", Map.of("n", 25)))
+            .isEqualTo(27);
+
+        String nested = """
+            query products($first: Int = 50) {
+              products(first: $first) {
+                edges { node { title variants(first: 10) { edges { node { title } } } } }
+              }
+            }
+            """;
+        assertThat(estimate(nested, null)).isEqualTo(2 + 50 * (1 + 2 + 10));
+        assertThat(estimate(nested, Map.of("first", 5))).isEqualTo(2 + 5 * (1 + 2 + 10));
+    }
+
+    @Test
+    @DisplayName("Should charge 10 per mutation field plus the objects it selects")
+    void testMutations() {
+        String mutation = """
+            mutation productUpdate($input: ProductInput!) {
+              productUpdate(input: $input) {
+                product { id seo { title } }
+                userErrors { field message }
+              }
+            }
+            """;
+        assertThat(estimate(mutation, null)).isEqualTo(13);
+
+        String batched = "mutation { m0: tagsAdd(id: 1, tags: [\"a\"]) { userErrors { message } } "
+            + "m1: tagsAdd(id: 2, tags: [\"a\"]) { userErrors { message } } }";
+        assertThat(estimate(batched, null)).isEqualTo(2 * (10 + 1));
+    }
+
+    @Test
+    @DisplayName("Should multiply nodes(ids:) by the number of IDs and resolve fragments")
+    void testNodesAndFragments() {
+        String query = """
+            query($ids: [ID!]!) { nodes(ids: $ids) { ...product ... on Order { id } } }
+            fragment product on Product { id seo { title } }
+            """;
+        assertThat(estimate(query, Map.of("ids", List.of("1", "2", "3")))).isEqualTo(3 * (1 + 1));
+    }
+
+    @Test
+    @DisplayName("Should cache parsed documents and skip unparseable queries")
+    void testParseCache() {
+        estimate("{ shop { name } }", null);
+        estimate("{ shop { name } }", null);
+        assertThat(estimator.estimate(GraphQLRequest.of("{ shop { "))).isEmpty();
+        assertThat(estimator.estimate(GraphQLRequest.of("{ shop { "))).isEmpty();
+
+        QueryCostEstimator.EstimatorStats stats = estimator.getStats();
+        assertThat(stats.getParses()).isEqualTo(2);
+        assertThat(stats.getCacheHits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should track accuracy against reported requested costs")
+    void testAccuracy() {
+        estimator.recordRequestedCost(12, 12);
+        estimator.recordRequestedCost(10, 14);
+        estimator.recordRequestedCost(20, 18);
+
+        QueryCostEstimator.EstimatorStats stats = estimator.getStats();
+        assertThat(stats.getComparisons()).isEqualTo(3);
+        assertThat(stats.getExactEstimates()).isEqualTo(1);
+        assertThat(stats.getUnderestimates()).isEqualTo(1);
+        assertThat(stats.getMeanAbsoluteError()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,135 @@
+package com.shopify.sdk.concurrency;
+
+import com.shopify.sdk.exception.ShopifyApiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimitServiceTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    private long now;
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private ConcurrencyLimitService service(ConcurrencyLimitConfig.ConcurrencyLimitConfigBuilder config) {
+        return new ConcurrencyLimitService(config.build(), () -> now);
+    }
+
+    /**
+     * A request that counts when it is sent and answers once the sink is completed.
+     */
+    private Mono<String> request(Sinks.One<String> response) {
+        return Mono.defer(() -> {
+            sent.incrementAndGet();
+            return response.asMono();
+        });
+    }
+
+    /**
+     * Sends as many requests as the shop's limit allows, all taking the given round-trip time.
+     */
+    private void round(ConcurrencyLimitService service, Duration rtt) {
+        List<Sinks.One<String>> responses = new ArrayList<>();
+        for (int i = 0; i < service.getShopLimit(SHOP); i++) {
+            Sinks.One<String> response = Sinks.one();
+            responses.add(response);
+            service.execute(SHOP, request(response)).subscribe();
+        }
+        now += rtt.toNanos();
+        responses.forEach(response -> response.tryEmitValue("ok"));
+    }
+
+    @Test
+    @DisplayName("Should queue requests over the shop's limit and send them as permits are returned")
+    void testQueuesOverLimit() {
+        ConcurrencyLimitService service = service(ConcurrencyLimitConfig.builder().initialShopLimit(2));
+        List<Sinks.One<String>> responses = List.of(Sinks.one(), Sinks.one(), Sinks.one());
+
+        responses.forEach(response -> service.execute(SHOP, request(response)).subscribe());
+        assertThat(sent).hasValue(2);
+        assertThat(service.getStats().getShopQueued()).isEqualTo(1);
+
+        responses.get(0).tryEmitValue("ok");
+        assertThat(sent).hasValue(3);
+        assertThat(service.getStats().getShopQueued()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should only limit requests across shops when the global limit is enabled")
+    void testGlobalLimitIsOptIn() {
+        ConcurrencyLimitService unlimited = service(ConcurrencyLimitConfig.builder().initialShopLimit(1));
+        unlimited.execute(SHOP, request(Sinks.one())).subscribe();
+        unlimited.execute("other-shop.myshopify.com", request(Sinks.one())).subscribe();
+        assertThat(sent).hasValue(2);
+        assertThat(unlimited.getStats().getGlobalLimit()).isZero();
+        assertThat(unlimited.getStats().getGlobalInFlight()).isEqualTo(2);
+
+        ConcurrencyLimitService limited = service(ConcurrencyLimitConfig.builder()
+            .initialShopLimit(1).globalLimitEnabled(true).initialGlobalLimit(1));
+        Sinks.One<String> first = Sinks.one();
+        limited.execute(SHOP, request(first)).subscribe();
+        limited.execute("other-shop.myshopify.com", request(Sinks.one())).subscribe();
+        assertThat(sent).hasValue(3);
+        assertThat(limited.getStats().getGlobalQueued()).isEqualTo(1);
+
+        first.tryEmitValue("ok");
+        assertThat(sent).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should drop a cancelled request from the queue without sending it")
+    void testCancelWhileQueued() {
+        ConcurrencyLimitService service = service(ConcurrencyLimitConfig.builder().initialShopLimit(1));
+        Sinks.One<String> first = Sinks.one();
+
+        service.execute(SHOP, request(first)).subscribe();
+        Disposable queued = service.execute(SHOP, request(Sinks.one())).subscribe();
+        queued.dispose();
+        first.tryEmitValue("ok");
+
+        assertThat(sent).hasValue(1);
+        assertThat(service.getStats().getGlobalInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fail requests at once when the queue is full")
+    void testRejectsWhenQueueFull() {
+        ConcurrencyLimitService service = service(ConcurrencyLimitConfig.builder()
+            .initialShopLimit(1).maxQueuedRequests(1));
+
+        service.execute(SHOP, request(Sinks.one())).subscribe();
+        service.execute(SHOP, request(Sinks.one())).subscribe();
+
+        assertThatThrownBy(() -> service.execute(SHOP, request(Sinks.one())).block())
+            .isInstanceOf(ShopifyApiException.class);
+        assertThat(service.getStats().getRejectedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency stays flat and shrink it once requests queue downstream")
+    void testAdaptsToLatency() {
+        ConcurrencyLimitService service = service(ConcurrencyLimitConfig.builder().initialShopLimit(4));
+
+        for (int i = 0; i < 10; i++) {
+            round(service, Duration.ofMillis(100));
+        }
+        int grown = service.getShopLimit(SHOP);
+        assertThat(grown).isGreaterThan(4);
+
+        for (int i = 0; i < 3; i++) {
+            round(service, Duration.ofMillis(400));
+        }
+        assertThat(service.getShopLimit(SHOP)).isLessThan(grown);
+        assertThat(service.getStats().getGlobalInFlight()).isZero();
+    }
+}
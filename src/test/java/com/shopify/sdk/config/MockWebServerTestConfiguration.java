@@ -2,6 +2,7 @@ package com.shopify.sdk.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopify.sdk.client.HttpClientConfig;
+import com.shopify.sdk.client.HttpConnectionConfig;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
 import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.client.graphql.GraphQLClient;
@@ -67,7 +68,7 @@ public class MockWebServerTestConfiguration {
     @Primary
     public HttpClientConfig testHttpClientConfig() {
         // Custom HttpClientConfig for tests that uses HTTP instead of HTTPS
-        return new HttpClientConfig() {
+        return new HttpClientConfig(null, HttpConnectionConfig.builder().build()) {
             @Override
             public WebClient createAdminApiClient(ShopifyAuthContext context, String shop) {
                 String baseUrl = String.format("http://%s/admin/api/%s", shop, context.getApiVersion().getVersion());
@@ -0,0 +1,52 @@
+package com.shopify.sdk.config;
+
+import com.shopify.sdk.client.HttpConnectionConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShopifyConfigFactoryTest {
+
+    private final ShopifyConfigFactory factory = new ShopifyConfigFactory();
+
+    @Test
+    @DisplayName("Should bind keep-alive and eviction properties into the connection configuration")
+    void testBindsKeepAliveProperties() {
+        ShopifyProperties properties = bind(Map.of(
+            "shopify.http.keep-alive-idle", "30s",
+            "shopify.http.keep-alive-interval", "5s",
+            "shopify.http.keep-alive-count", "4",
+            "shopify.http.eviction-interval", "10s"));
+
+        HttpConnectionConfig config = factory.createConnectionConfig(properties);
+
+        assertThat(config.getKeepAliveIdle()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(config.getKeepAliveInterval()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(config.getKeepAliveCount()).isEqualTo(4);
+        assertThat(config.getEvictionInterval()).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Should keep the connection defaults when no properties are set")
+    void testDefaults() {
+        HttpConnectionConfig config = factory.createConnectionConfig(bind(Map.of()));
+        HttpConnectionConfig defaults = HttpConnectionConfig.builder().build();
+
+        assertThat(config.getKeepAliveIdle()).isEqualTo(defaults.getKeepAliveIdle());
+        assertThat(config.getKeepAliveInterval()).isEqualTo(defaults.getKeepAliveInterval());
+        assertThat(config.getKeepAliveCount()).isEqualTo(defaults.getKeepAliveCount());
+        assertThat(config.getEvictionInterval()).isEqualTo(defaults.getEvictionInterval());
+    }
+
+    private static ShopifyProperties bind(Map<String, String> values) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(values));
+        return binder.bind("shopify", Bindable.ofInstance(new ShopifyProperties())).orElseGet(ShopifyProperties::new);
+    }
+}
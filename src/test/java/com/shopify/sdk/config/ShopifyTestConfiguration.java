@@ -9,8 +9,9 @@ import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.client.graphql.GraphQLClient;
 import com.shopify.sdk.client.HttpClientService;
 import com.shopify.sdk.client.rest.RestClient;
-import com.shopify.sdk.client.rest.RestClientImpl;
 import com.shopify.sdk.model.common.ApiVersion;
+import com.shopify.sdk.ratelimit.RateLimitConfig;
+import com.shopify.sdk.ratelimit.RateLimitService;
 import com.shopify.sdk.service.product.ProductService;
 import com.shopify.sdk.service.order.OrderService;
 import com.shopify.sdk.service.rest.RestProductService;
@@ -20,6 +21,7 @@ import com.shopify.sdk.service.bulk.BulkOperationService;
 import com.shopify.sdk.session.InMemorySessionStore;
 import com.shopify.sdk.session.SessionManager;
 import com.shopify.sdk.session.SessionStore;
+import com.shopify.sdk.test.TestClients;
 import com.shopify.sdk.webhook.WebhookProcessor;
 import com.shopify.sdk.webhook.WebhookHandler;
 import com.shopify.sdk.webhook.DefaultWebhookHandler;
@@ -71,17 +73,24 @@ public class ShopifyTestConfiguration {
     
     @Bean
     public HttpClientConfig testHttpClientConfig() {
-        return new HttpClientConfig();
+        return TestClients.httpClientConfig();
     }
     
     @Bean
-    public GraphQLClient testGraphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper) {
-        return new GraphQLClient(httpClientConfig, objectMapper);
+    public RateLimitService testRateLimitService() {
+        return new RateLimitService(RateLimitConfig.builder().build());
+    }
+    
+    @Bean
+    public GraphQLClient testGraphQLClient(HttpClientConfig httpClientConfig, 
+                                           ObjectMapper objectMapper,
+                                           RateLimitService rateLimitService) {
+        return TestClients.graphQLClient(httpClientConfig, objectMapper, rateLimitService);
     }
     
     @Bean
     public HttpClientService testHttpClientService(HttpClientConfig httpClientConfig) {
-        return new HttpClientService(httpClientConfig);
+        return TestClients.httpClientService(httpClientConfig);
     }
     
     @Bean
@@ -91,8 +100,10 @@ public class ShopifyTestConfiguration {
     }
     
     @Bean
-    public RestClient testRestClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper) {
-        return new RestClientImpl(httpClientConfig, objectMapper);
+    public RestClient testRestClient(HttpClientConfig httpClientConfig, 
+                                     ObjectMapper objectMapper,
+                                     RateLimitService rateLimitService) {
+        return TestClients.restClient(httpClientConfig, objectMapper, rateLimitService);
     }
     
     @Bean
@@ -0,0 +1,87 @@
+package com.shopify.sdk.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final LatencyHistogram histogram = new LatencyHistogram(clock::get);
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket resolution")
+    void testPercentiles() {
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getP50Ms()).isCloseTo(500, withinPercentage(6));
+        assertThat(snapshot.getP95Ms()).isCloseTo(950, withinPercentage(6));
+        assertThat(snapshot.getP99Ms()).isCloseTo(990, withinPercentage(6));
+        assertThat(snapshot.getP999Ms()).isCloseTo(999, withinPercentage(6));
+        assertThat(snapshot.getMinMs()).isCloseTo(1, withinPercentage(6));
+        assertThat(histogram.getMeanMs()).isCloseTo(500.5, within(0.01));
+    }
+
+    @Test
+    @DisplayName("Should map every value into a bucket that contains it")
+    void testBucketBounds() {
+        for (long micros : new long[] {0, 1, 15, 16, 17, 31, 32, 1_000, 123_456, (1L << 32) - 1}) {
+            int index = LatencyHistogram.indexOf(micros);
+            assertThat(index).isBetween(0, LatencyHistogram.BUCKET_COUNT - 1);
+            assertThat(LatencyHistogram.lowerBoundOf(index)).isLessThanOrEqualTo(micros);
+            if (index + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertThat(LatencyHistogram.lowerBoundOf(index + 1)).isGreaterThan(micros);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the coarse resolution from a quarter of the buckets")
+    void testCoarsePercentiles() {
+        LatencyHistogram coarse = new LatencyHistogram(LatencyHistogram.COARSE_SUB_BUCKET_BITS, clock::get);
+        for (int ms = 1; ms <= 1000; ms++) {
+            coarse.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        assertThat(LatencyHistogram.bucketCount(LatencyHistogram.COARSE_SUB_BUCKET_BITS))
+            .isLessThan(LatencyHistogram.BUCKET_COUNT / 3);
+        LatencyHistogram.Snapshot snapshot = coarse.snapshot();
+        assertThat(snapshot.getP50Ms()).isCloseTo(500, withinPercentage(25));
+        assertThat(snapshot.getP99Ms()).isCloseTo(990, withinPercentage(25));
+        for (long micros : new long[] {0, 3, 4, 5, 1_000, 123_456, (1L << 32) - 1}) {
+            int index = LatencyHistogram.indexOf(micros, LatencyHistogram.COARSE_SUB_BUCKET_BITS);
+            assertThat(LatencyHistogram.lowerBoundOf(index, LatencyHistogram.COARSE_SUB_BUCKET_BITS))
+                .isLessThanOrEqualTo(micros);
+            assertThat(LatencyHistogram.lowerBoundOf(index + 1, LatencyHistogram.COARSE_SUB_BUCKET_BITS))
+                .isGreaterThan(micros);
+        }
+    }
+
+    @Test
+    @DisplayName("Should only include recent minutes in interval snapshots")
+    void testIntervalSnapshots() {
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(900));
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(3));
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(histogram.snapshot(1).getCount()).isEqualTo(1);
+        assertThat(histogram.snapshot(1).getMaxMs()).isCloseTo(10, withinPercentage(6));
+        assertThat(histogram.snapshot(5).getCount()).isEqualTo(2);
+
+        // Slots that have left the ring are reused for new minutes
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(16));
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(histogram.snapshot(15).getCount()).isEqualTo(1);
+        assertThat(histogram.snapshot().getCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,65 @@
+package com.shopify.sdk.monitoring;
+
+import com.shopify.sdk.client.ConnectionPoolStats;
+import com.shopify.sdk.ratelimit.RateLimitConfig;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShopifyMeterBinderTest {
+
+    private MonitoringService monitoringService;
+    private RateLimitService rateLimitService;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        monitoringService = new MonitoringService();
+        rateLimitService = new RateLimitService(RateLimitConfig.builder().build());
+        registry = new SimpleMeterRegistry();
+        new ShopifyMeterBinder(monitoringService, rateLimitService, null, new ConnectionPoolStats()).bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitoringService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should read API metrics at scrape time")
+    void testApiMetrics() {
+        monitoringService.recordGraphQLRequest();
+        monitoringService.recordGraphQLSuccess(Duration.ofMillis(40));
+
+        assertThat(registry.get("shopify.api.requests").tag("api", "graphql").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("shopify.api.requests").tag("api", "rest").functionCounter().count()).isZero();
+        assertThat(registry.get("shopify.api.response.time").tag("api", "graphql").functionTimer().count()).isEqualTo(1.0);
+        assertThat(registry.get("shopify.api.response.time.percentile").tags("api", "graphql", "quantile", "0.99").gauge().value())
+            .isCloseTo(40.0, withinPercentage(6));
+    }
+
+    @Test
+    @DisplayName("Should expose rate limiter state and connection pool gauges")
+    void testRateLimiterAndPool() {
+        rateLimitService.updateRestLimitsFromHeader("test-shop.myshopify.com", "30/40");
+
+        // The gauges sum the per-shop limiters that requests actually go through
+        assertThat(registry.get("shopify.ratelimit.utilization.max").tag("limiter", "rest").gauge().value())
+            .isEqualTo(75.0);
+        assertThat(registry.get("shopify.ratelimit.queued").tag("limiter", "rest").gauge().value()).isZero();
+        assertThat(registry.get("shopify.ratelimit.shops.throttled").tag("limiter", "graphql").gauge().value()).isZero();
+        assertThat(registry.get("shopify.ratelimit.wait").tag("priority", "default").functionTimer().totalTime(TimeUnit.MILLISECONDS))
+            .isZero();
+        assertThat(registry.get("shopify.http.pool.connections.active").gauge().value()).isZero();
+        assertThat(registry.get("shopify.http.pool.pending").gauge().value()).isZero();
+        assertThat(registry.find("shopify.webhooks.received").meter()).isNull();
+    }
+}
@@ -0,0 +1,104 @@
+package com.shopify.sdk.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WindowedCounterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final WindowedCounter counter = new WindowedCounter(clock::get);
+
+    @Test
+    @DisplayName("Should count events per second over the last minute")
+    void testSecondWindows() {
+        counter.add(5);
+        advance(TimeUnit.SECONDS, 10);
+        counter.add(3);
+
+        assertThat(counter.getCountLastSeconds(1)).isEqualTo(3);
+        assertThat(counter.getCountLastSeconds(10)).isEqualTo(3);
+        assertThat(counter.getCountLastSeconds(11)).isEqualTo(8);
+
+        // Events still waiting in the current second leave the window without another write
+        advance(TimeUnit.SECONDS, 60);
+        assertThat(counter.getCountLastSeconds(60)).isZero();
+        assertThat(counter.getTotal()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should let old minutes fall out of the window")
+    void testMinuteWindows() {
+        counter.add(5);
+        advance(TimeUnit.MINUTES, 2);
+        counter.increment();
+
+        assertThat(counter.getCountLastMinutes(1)).isEqualTo(1);
+        assertThat(counter.getCountLastMinutes(2)).isEqualTo(6);
+        assertThat(counter.getCountLastMinutes(15)).isEqualTo(6);
+
+        advance(TimeUnit.MINUTES, 16);
+        assertThat(counter.getCountLastMinutes(15)).isZero();
+        assertThat(counter.getTotal()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should compute the rate over the time actually covered")
+    void testRatePerSecond() {
+        counter.add(120);
+        advance(TimeUnit.SECONDS, 59);
+
+        assertThat(counter.getRatePerSecond(1)).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should count channels separately over shared windows")
+    void testChannels() {
+        WindowedCounter channels = new WindowedCounter(2, clock::get);
+        channels.add(0, 4);
+        channels.increment(1);
+        advance(TimeUnit.SECONDS, 61);
+        channels.increment(1);
+
+        assertThat(channels.getCountLastSeconds(0, 60)).isZero();
+        assertThat(channels.getCountLastSeconds(1, 60)).isEqualTo(1);
+        assertThat(channels.getCountLastMinutes(0, 2)).isEqualTo(4);
+        assertThat(channels.getCountLastMinutes(1, 2)).isEqualTo(2);
+        assertThat(channels.getTotal(0)).isEqualTo(4);
+        assertThat(channels.getTotal()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should report recent failure rates in the metrics summary")
+    void testApiMetricsWindows() {
+        ApiMetrics metrics = new ApiMetrics();
+        for (int i = 0; i < 10; i++) {
+            metrics.recordRequest();
+        }
+        metrics.recordFailureStatus(TimeUnit.MILLISECONDS.toNanos(5), 500);
+        metrics.recordRateLimitNanos(0);
+        metrics.recordThrottledResponseNanos(TimeUnit.MILLISECONDS.toNanos(5));
+
+        ApiMetrics.WindowSummary window = metrics.getSummary().getLastFiveMinutes();
+        assertThat(window.getRequests()).isEqualTo(10);
+        assertThat(window.getFailures()).isEqualTo(1);
+        assertThat(window.getRateLimited()).isEqualTo(1);
+        assertThat(window.getThrottled()).isEqualTo(1);
+        assertThat(window.getFailureRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Should reject windows the rings do not cover")
+    void testWindowBounds() {
+        assertThatThrownBy(() -> counter.getCountLastSeconds(61)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> counter.getCountLastMinutes(16)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void advance(TimeUnit unit, long amount) {
+        clock.addAndGet(unit.toNanos(amount));
+    }
+}
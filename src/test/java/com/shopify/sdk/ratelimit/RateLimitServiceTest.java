@@ -17,6 +17,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RateLimitServiceTest {
     
+    private static final String SHOP = "test-shop.myshopify.com";
+    
     private RateLimitService rateLimitService;
     private RateLimitConfig config;
     
@@ -196,4 +198,113 @@ class RateLimitServiceTest {
         assertTrue(latch.await(10, TimeUnit.SECONDS));
         assertThat(successCount.get()).isEqualTo(numThreads);
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should settle GraphQL cost reservation against server throttle status")
+    void testSettleGraphQLCostFromThrottleStatus() {
+        // Given: a reservation of 300 points
+        StepVerifier.create(rateLimitService.reserveGraphQLCost(SHOP, 300))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+        
+        Map<String, Object> extensions = Map.of(
+            "cost", Map.of(
+                "requestedQueryCost", 300,
+                "actualQueryCost", 120,
+                "throttleStatus", Map.of(
+                    "maximumAvailable", 2000.0,
+                    "currentlyAvailable", 1880,
+                    "restoreRate", 100.0
+                )
+            )
+        );
+        
+        // When
+        rateLimitService.settleGraphQLCost(SHOP, 300, extensions);
+        
+        // Then: the bucket mirrors the server's view
+        RateLimiter.RateLimiterState state = rateLimitService.getStatus(SHOP).getGraphQLState();
+        assertThat(state.getCapacity()).isEqualTo(2000);
+        assertThat(state.getRefillRate()).isEqualTo(100);
+        assertThat(state.getAvailableTokens()).isBetween(1880, 2000);
+    }
+    
+    @Test
+    @DisplayName("Should refund unused GraphQL cost when no throttle status is reported")
+    void testSettleGraphQLCostRefundsDifference() {
+        // Given
+        StepVerifier.create(rateLimitService.reserveGraphQLCost(SHOP, 500))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+        
+        // When: the query only cost 100 points
+        rateLimitService.settleGraphQLCost(SHOP, 500, Map.of("cost", Map.of("actualQueryCost", 100)));
+        
+        // Then
+        assertThat(rateLimitService.getStatus(SHOP).getGraphQLState().getAvailableTokens())
+            .isGreaterThanOrEqualTo(900);
+    }
+    
+    @Test
+    @DisplayName("Should keep separate rate limiters per shop")
+    void testShopLimitersAreIsolated() {
+        // Given: one shop has drained its REST bucket
+        rateLimitService.updateRestLimitsFromHeader(SHOP, "40/40");
+        
+        // Then: other shops are unaffected
+        assertThat(rateLimitService.getStatus(SHOP).getRestState().getAvailableTokens()).isLessThan(5);
+        assertThat(rateLimitService.getStatus("other-shop.myshopify.com").getRestState().getAvailableTokens())
+            .isEqualTo(40);
+        assertThat(rateLimitService.getTrackedShopCount()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("Should share one rate limiter across spellings of the same shop")
+    void testShopSpellingsShareLimiter() {
+        // Given: the shop's REST bucket is drained under one spelling
+        rateLimitService.updateRestLimitsFromHeader("https://Test-Shop.myshopify.com/", "40/40");
+        
+        // Then: every other spelling sees the same bucket
+        assertThat(rateLimitService.getStatus(SHOP).getRestState().getAvailableTokens()).isLessThan(5);
+        assertThat(rateLimitService.getStatus("TEST-SHOP.myshopify.com").getRestState().getAvailableTokens())
+            .isLessThan(5);
+        assertThat(rateLimitService.getTrackedShopCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("Should cap the number of tracked shops")
+    void testTrackedShopsAreBounded() {
+        // Given
+        RateLimitService boundedService = new RateLimitService(config.toBuilder()
+            .maxTrackedShops(10)
+            .build());
+        
+        // When
+        for (int i = 0; i < 100; i++) {
+            boundedService.acquireRestPermit("shop-" + i + ".myshopify.com").block(Duration.ofSeconds(1));
+        }
+        
+        // Then
+        assertThat(boundedService.getTrackedShopCount()).isLessThanOrEqualTo(10);
+    }
+    
+    @Test
+    @DisplayName("Should evict the least recently used shops in one batch down to 90% of the cap")
+    void testTrackedShopsAreEvictedInBatches() {
+        // Given
+        RateLimitService boundedService = new RateLimitService(config.toBuilder()
+            .maxTrackedShops(10)
+            .build());
+        for (int i = 0; i < 10; i++) {
+            boundedService.acquireRestPermit("shop-" + i + ".myshopify.com").block(Duration.ofSeconds(1));
+        }
+        
+        // When: one shop past the cap
+        boundedService.acquireRestPermit("shop-10.myshopify.com").block(Duration.ofSeconds(1));
+        
+        // Then: the two least recently used shops are gone, and the next shop fits without another pass
+        assertThat(boundedService.getTrackedShopCount()).isEqualTo(9);
+        boundedService.acquireRestPermit("shop-11.myshopify.com").block(Duration.ofSeconds(1));
+        assertThat(boundedService.getTrackedShopCount()).isEqualTo(10);
+    }
+}
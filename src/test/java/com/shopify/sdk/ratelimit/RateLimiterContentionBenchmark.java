@@ -0,0 +1,186 @@
+package com.shopify.sdk.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Compares the queued rate limiter with the previous recursive CAS-and-delay implementation
+ * under heavy contention. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class RateLimiterContentionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterContentionBenchmark.class);
+
+    private static final int CAPACITY = 40;
+    private static final int REFILL_RATE = 400;
+    private static final int WAITERS = 500;
+    private static final int LARGE_COST = 20;
+
+    @Test
+    @DisplayName("Queued limiter versus recursive CAS-and-delay limiter")
+    void compareUnderContention() {
+        CountingScheduler timers = new CountingScheduler();
+        RateLimiter queued = new RateLimiter("queued", CAPACITY, REFILL_RATE, System::nanoTime, timers);
+        LegacyRateLimiter legacy = new LegacyRateLimiter(CAPACITY, REFILL_RATE);
+
+        Result legacyResult = run("legacy CAS + delay", legacy::acquire, legacy.delays::sum);
+        Result queuedResult = run("FIFO queue", queued::acquire, timers.scheduled::sum);
+
+        log.info("{}", legacyResult);
+        log.info("{}", queuedResult);
+
+        assertThat(queuedResult.completed).isEqualTo(WAITERS);
+        assertThat(queuedResult.timers).isLessThan(legacyResult.timers);
+    }
+
+    private Result run(String label, IntFunction<Mono<Void>> acquire, LongSupplier timers) {
+        List<Long> smallWaits = Collections.synchronizedList(new ArrayList<>());
+        List<Long> largeWaits = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger completed = new AtomicInteger();
+        long start = System.nanoTime();
+
+        Flux.range(0, WAITERS)
+            .flatMap(i -> {
+                // Every tenth request is expensive, like a large GraphQL query among small ones
+                int cost = i % 10 == 0 ? LARGE_COST : 1;
+                long subscribed = System.nanoTime();
+                return acquire.apply(cost)
+                    .doOnSuccess(ignored -> {
+                        long waitedMicros = (System.nanoTime() - subscribed) / 1_000;
+                        (cost == LARGE_COST ? largeWaits : smallWaits).add(waitedMicros);
+                        completed.incrementAndGet();
+                    });
+            }, WAITERS)
+            .then()
+            .block(Duration.ofMinutes(2));
+
+        return new Result(label, completed.get(), (System.nanoTime() - start) / 1_000_000,
+            timers.getAsLong(), percentile(smallWaits, 0.99), percentile(largeWaits, 0.99), max(largeWaits));
+    }
+
+    private static long percentile(List<Long> values, double percentile) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(percentile * sorted.size()) - 1) / 1_000;
+    }
+
+    private static long max(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).max().orElse(0) / 1_000;
+    }
+
+    private record Result(String label, int completed, long elapsedMs, long timers,
+                          long smallP99Ms, long largeP99Ms, long largeMaxMs) {
+        @Override
+        public String toString() {
+            return String.format("%-20s completed=%d elapsed=%dms timers=%d small p99=%dms large p99=%dms large max=%dms",
+                label, completed, elapsedMs, timers, smallP99Ms, largeP99Ms, largeMaxMs);
+        }
+    }
+
+    /**
+     * Counts the timers armed by the queued limiter.
+     */
+    private static final class CountingScheduler implements Scheduler {
+        private final Scheduler delegate = Schedulers.parallel();
+        private final LongAdder scheduled = new LongAdder();
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return delegate.schedule(task);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            scheduled.increment();
+            return delegate.schedule(task, delay, unit);
+        }
+
+        @Override
+        public Worker createWorker() {
+            return delegate.createWorker();
+        }
+    }
+
+    /**
+     * Copy of the previous acquire loop: each waiter retries its CAS recursively and
+     * schedules its own delay when tokens are short.
+     */
+    private static final class LegacyRateLimiter {
+        private final int capacity;
+        private final int refillRate;
+        private final AtomicInteger tokens;
+        private final AtomicLong lastRefill = new AtomicLong(System.currentTimeMillis());
+        private final LongAdder delays = new LongAdder();
+
+        private LegacyRateLimiter(int capacity, int refillRate) {
+            this.capacity = capacity;
+            this.refillRate = refillRate;
+            this.tokens = new AtomicInteger(capacity);
+        }
+
+        private Mono<Void> acquire(int requestedTokens) {
+            return Mono.defer(() -> {
+                refillTokens();
+
+                int currentTokens = tokens.get();
+                if (currentTokens >= requestedTokens) {
+                    if (tokens.compareAndSet(currentTokens, currentTokens - requestedTokens)) {
+                        return Mono.empty();
+                    }
+                    return acquire(requestedTokens);
+                }
+
+                delays.increment();
+                return Mono.delay(Duration.ofMillis(calculateWaitTime(requestedTokens)))
+                    .then(acquire(requestedTokens));
+            });
+        }
+
+        private void refillTokens() {
+            long now = System.currentTimeMillis();
+            long elapsedMs = now - lastRefill.get();
+            if (elapsedMs > 0) {
+                long tokensToAdd = (elapsedMs * refillRate) / 1000;
+                if (tokensToAdd > 0) {
+                    int currentTokens = tokens.get();
+                    int newTokens = Math.min(capacity, currentTokens + (int) tokensToAdd);
+                    if (tokens.compareAndSet(currentTokens, newTokens)) {
+                        lastRefill.set(now);
+                    }
+                }
+            }
+        }
+
+        private long calculateWaitTime(int requestedTokens) {
+            int tokensNeeded = requestedTokens - tokens.get();
+            if (tokensNeeded <= 0) {
+                return 0;
+            }
+            long elapsedSinceRefill = Math.max(0, System.currentTimeMillis() - lastRefill.get());
+            long waitTimeMs = (tokensNeeded * 1000L + refillRate - 1) / refillRate - elapsedSinceRefill;
+            return Math.max(1, waitTimeMs);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.shopify.sdk.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private VirtualTimeScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = VirtualTimeScheduler.create();
+    }
+
+    private RateLimiter limiter(int capacity, int refillRate) {
+        return new RateLimiter("test", capacity, refillRate, () -> scheduler.now(TimeUnit.NANOSECONDS), scheduler);
+    }
+
+    @Test
+    @DisplayName("Should serve waiters in arrival order")
+    void testWaitersAreServedInOrder() {
+        RateLimiter limiter = limiter(10, 10);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+
+        AtomicBoolean large = new AtomicBoolean();
+        AtomicBoolean small = new AtomicBoolean();
+        limiter.acquire(8).subscribe(null, null, () -> large.set(true));
+        limiter.acquire(1).subscribe(null, null, () -> small.set(true));
+
+        // One token is available, but the small request must not overtake the large one
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(large).isFalse();
+        assertThat(small).isFalse();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(700));
+        assertThat(large).isTrue();
+        assertThat(small).isFalse();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(small).isTrue();
+        assertThat(limiter.hasPendingWork()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should give up the queue position of a cancelled waiter")
+    void testCancelledWaiterLeavesQueue() {
+        RateLimiter limiter = limiter(10, 10);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+
+        Disposable cancelled = limiter.acquire(5).subscribe();
+        AtomicBoolean next = new AtomicBoolean();
+        limiter.acquire(1).subscribe(null, null, () -> next.set(true));
+        assertThat(limiter.getQueuedRequests()).isEqualTo(2);
+
+        cancelled.dispose();
+        assertThat(limiter.getQueuedRequests()).isEqualTo(1);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(next).isTrue();
+        assertThat(limiter.hasPendingWork()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep fractional tokens between refills")
+    void testFractionalRefill() {
+        RateLimiter limiter = limiter(10, 3);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(500));
+        assertThat(limiter.getAvailableTokens()).isEqualTo(1);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(500));
+        assertThat(limiter.getAvailableTokens()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should hand queued tokens out as soon as they are released")
+    void testReleaseServesWaiters() {
+        RateLimiter limiter = limiter(10, 1);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        limiter.acquire(4).subscribe(null, null, () -> acquired.set(true));
+        assertThat(acquired).isFalse();
+
+        limiter.release(4);
+        assertThat(acquired).isTrue();
+        assertThat(limiter.getAvailableTokens()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should charge a request larger than the bucket no more than a full bucket")
+    void testOversizedRequestsTakeFullBucket() {
+        RateLimiter limiter = limiter(10, 1);
+        assertThat(limiter.tryAcquire(25)).isTrue();
+        assertThat(limiter.getAvailableTokens()).isZero();
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(10));
+        limiter.reserve(25).subscribe();
+        assertThat(limiter.getAvailableTokens()).isZero();
+
+        limiter.cancel(25);
+        assertThat(limiter.getAvailableTokens()).isEqualTo(10);
+        assertThat(limiter.hasPendingWork()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep the reservation of a failed request and refund one that was never sent")
+    void testSettleFailedReservation() {
+        RateLimiter limiter = limiter(100, 1);
+        limiter.reserve(40).subscribe();
+        limiter.reserve(30).subscribe();
+        assertThat(limiter.getAvailableTokens()).isEqualTo(30);
+
+        // A request that timed out may have been charged, so its tokens stay spent
+        limiter.settle(40, null);
+        assertThat(limiter.getAvailableTokens()).isEqualTo(30);
+
+        limiter.cancel(30);
+        assertThat(limiter.getAvailableTokens()).isEqualTo(60);
+        assertThat(limiter.hasPendingWork()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should serve interactive requests before queued background work")
+    void testInteractivePreemptsBackground() {
+        PriorityWaitMetrics metrics = new PriorityWaitMetrics();
+        RateLimiter limiter = new RateLimiter("test", 10, 10, 0.2, 0.2, metrics,
+            () -> scheduler.now(TimeUnit.NANOSECONDS), scheduler);
+        assertThat(limiter.tryAcquire(10, RequestPriority.INTERACTIVE)).isTrue();
+
+        AtomicBoolean background = new AtomicBoolean();
+        AtomicBoolean interactive = new AtomicBoolean();
+        limiter.acquire(1, RequestPriority.BACKGROUND).subscribe(null, null, () -> background.set(true));
+        limiter.acquire(1, RequestPriority.INTERACTIVE).subscribe(null, null, () -> interactive.set(true));
+
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(interactive).isTrue();
+        assertThat(background).isFalse();
+
+        // Background work has to leave 20% of the bucket to the active interactive class, none to idle default
+        scheduler.advanceTimeBy(Duration.ofMillis(200));
+        assertThat(background).isFalse();
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(background).isTrue();
+
+        assertThat(metrics.getStats(RequestPriority.INTERACTIVE).getMaxWaitMillis()).isEqualTo(100.0);
+        assertThat(metrics.getStats(RequestPriority.BACKGROUND).getMaxWaitMillis()).isEqualTo(400.0);
+        assertThat(metrics.getStats(RequestPriority.BACKGROUND).getDelayed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only keep headroom while a higher class is active")
+    void testHeadroomOnlyWhileHigherClassIsActive() {
+        RateLimiter limiter = new RateLimiter("test", 10, 10, 0.2, 0.2, new PriorityWaitMetrics(),
+            () -> scheduler.now(TimeUnit.NANOSECONDS), scheduler);
+
+        // Without interactive requests, default traffic may use the whole bucket
+        assertThat(limiter.tryAcquire(10, RequestPriority.DEFAULT)).isTrue();
+
+        // An interactive request makes default traffic leave 20% of the bucket to it
+        assertThat(limiter.tryAcquire(1, RequestPriority.INTERACTIVE)).isFalse();
+        AtomicBoolean granted = new AtomicBoolean();
+        limiter.acquire(1, RequestPriority.DEFAULT).subscribe(null, null, () -> granted.set(true));
+        scheduler.advanceTimeBy(Duration.ofMillis(200));
+        assertThat(granted).isFalse();
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        assertThat(granted).isTrue();
+
+        // A second after the last interactive request, the headroom is released again
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertThat(limiter.tryAcquire(10, RequestPriority.DEFAULT)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should serve a waiter held back by headroom once the higher class goes idle")
+    void testHeadroomLapses() {
+        RateLimiter limiter = new RateLimiter("test", 10, 1, 0.5, 0, new PriorityWaitMetrics(),
+            () -> scheduler.now(TimeUnit.NANOSECONDS), scheduler);
+        assertThat(limiter.tryAcquire(2, RequestPriority.INTERACTIVE)).isTrue();
+
+        // 8 tokens plus 5 of headroom would take 2 seconds to refill, but the headroom lapses after 1
+        AtomicBoolean granted = new AtomicBoolean();
+        limiter.acquire(8, RequestPriority.DEFAULT).subscribe(null, null, () -> granted.set(true));
+        scheduler.advanceTimeBy(Duration.ofMillis(999));
+        assertThat(granted).isFalse();
+        scheduler.advanceTimeBy(Duration.ofMillis(1));
+        assertThat(granted).isTrue();
+    }
+}
@@ -0,0 +1,147 @@
+package com.shopify.sdk.retry;
+
+import com.shopify.sdk.exception.ShopifyHttpException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RetryServiceTest {
+
+    private static final String SHOP = "test-shop.myshopify.com";
+
+    private static RetryService retryService(RetryConfig.RetryConfigBuilder config) {
+        return new RetryService(config.baseDelay(Duration.ZERO).jitterPercentage(0).build());
+    }
+
+    /**
+     * A request that fails with the given status the first {@code failures} times it is sent.
+     */
+    private static Mono<String> request(AtomicInteger attempts, int failures, int status) {
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures
+            ? Mono.error(new ShopifyHttpException(status, "HTTP " + status))
+            : Mono.just("ok"));
+    }
+
+    @Test
+    @DisplayName("Should retry retryable failures up to the configured attempts")
+    void testRetriesRetryableStatus() {
+        RetryService retryService = retryService(RetryConfig.builder().maxAttempts(3));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThat(retryService.withRetry(SHOP, request(attempts, 3, 503)).block()).isEqualTo("ok");
+        assertThat(attempts).hasValue(4);
+
+        AtomicInteger exhausted = new AtomicInteger();
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, request(exhausted, 10, 503)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(exhausted).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should not retry client errors")
+    void testDoesNotRetryClientErrors() {
+        RetryService retryService = retryService(RetryConfig.builder());
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, request(attempts, 1, 404)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(attempts).hasValue(1);
+        assertThat(retryService.getStats().getRetriesAllowed()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should only retry writes on failures that happen before they reach Shopify")
+    void testRetriesWritesOnlyBeforeSend() {
+        RetryService retryService = retryService(RetryConfig.builder().maxAttempts(3));
+
+        AtomicInteger serverError = new AtomicInteger();
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, false, request(serverError, 1, 503)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(serverError).hasValue(1);
+
+        AtomicInteger timeout = new AtomicInteger();
+        Mono<String> timedOut = Mono.defer(() -> timeout.incrementAndGet() == 1
+            ? Mono.error(new SocketTimeoutException("Read timed out"))
+            : Mono.just("ok"));
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, false, timedOut).block())
+            .hasCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(timeout).hasValue(1);
+
+        AtomicInteger throttled = new AtomicInteger();
+        assertThat(retryService.withRetry(SHOP, false, request(throttled, 1, 429)).block()).isEqualTo("ok");
+        assertThat(throttled).hasValue(2);
+
+        AtomicInteger refused = new AtomicInteger();
+        Mono<String> connectionRefused = Mono.defer(() -> refused.incrementAndGet() == 1
+            ? Mono.error(new IllegalStateException(new ConnectException("Connection refused")))
+            : Mono.just("ok"));
+        assertThat(retryService.withRetry(SHOP, false, connectionRefused).block()).isEqualTo("ok");
+        assertThat(refused).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should deny retries once a shop has used up its retry budget")
+    void testShopRetryBudget() {
+        RetryService retryService = retryService(RetryConfig.builder()
+            .maxAttempts(2).retryBudgetRatio(0.5).shopRetryBudget(2));
+
+        // The full budget covers both retries of the first request
+        AtomicInteger first = new AtomicInteger();
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, request(first, 10, 500)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(first).hasValue(3);
+
+        // The second request only refills half a retry
+        AtomicInteger second = new AtomicInteger();
+        assertThatThrownBy(() -> retryService.withRetry(SHOP, request(second, 10, 500)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(second).hasValue(1);
+
+        // Other shops have budgets of their own
+        AtomicInteger other = new AtomicInteger();
+        assertThat(retryService.withRetry("other-shop.myshopify.com", request(other, 2, 500)).block()).isEqualTo("ok");
+
+        RetryService.RetryStats stats = retryService.getStats();
+        assertThat(stats.getRequests()).isEqualTo(3);
+        assertThat(stats.getRetriesAllowed()).isEqualTo(4);
+        assertThat(stats.getRetriesDenied()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should deny retries once the global budget is used up, whatever the shop")
+    void testGlobalRetryBudget() {
+        RetryService retryService = retryService(RetryConfig.builder()
+            .maxAttempts(1).retryBudgetRatio(0).globalRetryBudget(1));
+
+        AtomicInteger first = new AtomicInteger();
+        assertThat(retryService.withRetry("a.myshopify.com", request(first, 1, 502)).block()).isEqualTo("ok");
+
+        AtomicInteger second = new AtomicInteger();
+        assertThatThrownBy(() -> retryService.withRetry("b.myshopify.com", request(second, 1, 502)).block())
+            .isInstanceOf(ShopifyHttpException.class);
+        assertThat(second).hasValue(1);
+        assertThat(retryService.getStats().getRetriesDenied()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should wait as long as the Retry-After header asks")
+    void testRespectsRetryAfterHeader() {
+        RetryService retryService = retryService(RetryConfig.builder().maxAttempts(1));
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> request = Mono.defer(() -> attempts.incrementAndGet() == 1
+            ? Mono.error(new ShopifyHttpException(429, "Rate limited", null, Map.of("retry-after", "1")))
+            : Mono.just("ok"));
+
+        long start = System.nanoTime();
+        assertThat(retryService.withRetry(SHOP, request).block()).isEqualTo("ok");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+    }
+}
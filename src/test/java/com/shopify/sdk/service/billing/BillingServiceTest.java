@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shopify.sdk.cache.CacheConfig;
+import com.shopify.sdk.cache.CachedEntity;
+import com.shopify.sdk.cache.ResponseCache;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
 import com.shopify.sdk.client.ShopifyRestClient;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
@@ -49,7 +52,7 @@ class BillingServiceTest {
     void setUp() {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        billingService = new BillingService(graphQLClient, restClient, objectMapper);
+        billingService = new BillingService(graphQLClient, restClient, objectMapper, null);
     }
     
     @Test
@@ -194,6 +197,26 @@ class BillingServiceTest {
             .verifyComplete();
     }
     
+    @Test
+    @DisplayName("Should drop cached app subscriptions after recording usage")
+    void testCreateUsageRecordInvalidatesSubscriptions() {
+        ResponseCache cache = new ResponseCache(CacheConfig.builder().build());
+        BillingService cachedService = new BillingService(graphQLClient, restClient, objectMapper, cache);
+        cache.get("test-shop", CachedEntity.APP_SUBSCRIPTIONS, "all", () -> Mono.just("before")).block();
+        
+        when(graphQLClient.query(eq("test-shop.myshopify.com"), eq("test-token"), anyString(), anyMap()))
+            .thenReturn(Mono.just(createMockUsageRecordResponse()));
+        UsageRecordInput input = UsageRecordInput.builder()
+            .price(new BigDecimal("5.00"))
+            .description("API calls for January")
+            .build();
+        cachedService.createUsageRecord("test-shop.myshopify.com", "test-token",
+            "gid://shopify/AppSubscriptionLineItem/123", input).block();
+        
+        assertThat(cache.get("test-shop", CachedEntity.APP_SUBSCRIPTIONS, "all", () -> Mono.just("after")).block())
+            .isEqualTo("after");
+    }
+    
     @Test
     @DisplayName("Should create application credit successfully")
     void testCreateApplicationCredit() {
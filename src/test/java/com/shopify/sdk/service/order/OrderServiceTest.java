@@ -5,7 +5,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
 import com.shopify.sdk.client.ShopifyRestClient;
+import com.shopify.sdk.client.graphql.BatchLoaderConfig;
+import com.shopify.sdk.client.graphql.GraphQLRequest;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
+import com.shopify.sdk.client.graphql.QueryCostEstimator;
 import com.shopify.sdk.model.order.Order;
 import com.shopify.sdk.model.order.OrderCancelReason;
 import com.shopify.sdk.model.order.OrderConnection;
@@ -17,10 +20,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
@@ -40,7 +48,7 @@ class OrderServiceTest {
     void setUp() {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        orderService = new OrderService(graphQLClient, objectMapper);
+        orderService = new OrderService(graphQLClient, objectMapper, BatchLoaderConfig.builder().build());
     }
     
     @Test
@@ -154,6 +162,36 @@ class OrderServiceTest {
             .verify();
     }
     
+    @Test
+    @DisplayName("Should keep every loadOrder batch within the query cost limit")
+    void testLoadOrderBatchesFitCostLimit() {
+        String shop = "test-shop.myshopify.com";
+        String accessToken = "test-token";
+        QueryCostEstimator estimator = new QueryCostEstimator();
+        List<Integer> costs = Collections.synchronizedList(new ArrayList<>());
+        
+        when(graphQLClient.query(eq(shop), eq(accessToken), anyString(), anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> variables = invocation.getArgument(3);
+            costs.add(estimator.estimate(GraphQLRequest.of(invocation.getArgument(2), variables)).orElseThrow());
+            ObjectNode data = objectMapper.createObjectNode();
+            var nodes = data.putArray("nodes");
+            ((List<?>) variables.get("ids")).forEach(id -> nodes.addObject());
+            GraphQLResponse response = new GraphQLResponse();
+            response.setData(data);
+            return Mono.just(response);
+        });
+        
+        Flux.range(1, 3)
+            .flatMap(i -> orderService.loadOrder(shop, accessToken, "gid://shopify/Order/" + i))
+            .then()
+            .block(Duration.ofSeconds(5));
+        
+        // One order with 250 line items costs about 505 points, so only one fits in a query
+        assertThat(costs).hasSize(3)
+            .allSatisfy(cost -> assertThat(cost).isLessThanOrEqualTo(QueryCostEstimator.MAX_QUERY_COST));
+        assertThat(orderService.getOrderBatchStats().getMaxBatchSize()).isEqualTo(1);
+    }
+    
     // Helper methods to create mock responses
     
     private GraphQLResponse createMockOrdersResponse() {
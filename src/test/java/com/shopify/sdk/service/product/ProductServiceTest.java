@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shopify.sdk.client.ShopifyGraphQLClient;
+import com.shopify.sdk.client.graphql.BatchLoaderConfig;
 import com.shopify.sdk.client.graphql.GraphQLResponse;
+import com.shopify.sdk.client.graphql.MutationBatchConfig;
 import com.shopify.sdk.model.product.Product;
 import com.shopify.sdk.model.product.ProductConnection;
 import com.shopify.sdk.service.product.ProductInput;
@@ -38,7 +40,8 @@ class ProductServiceTest {
     void setUp() {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        productService = new ProductService(graphQLClient, objectMapper);
+        productService = new ProductService(graphQLClient, objectMapper, BatchLoaderConfig.builder().build(),
+            MutationBatchConfig.builder().build());
     }
     
     @Test
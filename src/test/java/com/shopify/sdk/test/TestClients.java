@@ -0,0 +1,93 @@
+package com.shopify.sdk.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerConfig;
+import com.shopify.sdk.circuitbreaker.CircuitBreakerService;
+import com.shopify.sdk.client.HttpClientConfig;
+import com.shopify.sdk.client.HttpClientService;
+import com.shopify.sdk.client.HttpConnectionConfig;
+import com.shopify.sdk.client.graphql.GraphQLClient;
+import com.shopify.sdk.client.graphql.GraphQLClientConfig;
+import com.shopify.sdk.client.rest.RestClientImpl;
+import com.shopify.sdk.concurrency.ConcurrencyLimitConfig;
+import com.shopify.sdk.concurrency.ConcurrencyLimitService;
+import com.shopify.sdk.ratelimit.RateLimitConfig;
+import com.shopify.sdk.ratelimit.RateLimitService;
+import com.shopify.sdk.retry.RetryConfig;
+import com.shopify.sdk.retry.RetryService;
+
+/**
+ * Builds clients with the same default collaborators the auto-configuration provides, for tests that
+ * construct them without a Spring context.
+ */
+public final class TestClients {
+
+    private TestClients() {
+    }
+
+    /**
+     * Creates an HTTP client configuration with default connection settings and no monitoring.
+     */
+    public static HttpClientConfig httpClientConfig() {
+        return new HttpClientConfig(null, HttpConnectionConfig.builder().build());
+    }
+
+    /**
+     * Creates a GraphQL client with default rate limits, retries, circuit breakers and concurrency limits.
+     */
+    public static GraphQLClient graphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper) {
+        return graphQLClient(httpClientConfig, objectMapper, rateLimitService());
+    }
+
+    /**
+     * Creates a GraphQL client on the given rate limits with default retries, circuit breakers and concurrency
+     * limits.
+     */
+    public static GraphQLClient graphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper,
+                                              RateLimitService rateLimitService) {
+        return graphQLClient(httpClientConfig, objectMapper, rateLimitService, GraphQLClientConfig.builder().build());
+    }
+
+    /**
+     * Creates a GraphQL client on the given rate limits and configuration with default retries, circuit
+     * breakers and concurrency limits.
+     */
+    public static GraphQLClient graphQLClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper,
+                                              RateLimitService rateLimitService, GraphQLClientConfig config) {
+        return new GraphQLClient(httpClientConfig, objectMapper, rateLimitService, config, retryService(),
+            circuitBreakerService(), concurrencyLimitService());
+    }
+
+    /**
+     * Creates a REST client on the given rate limits with default retries, circuit breakers and concurrency
+     * limits.
+     */
+    public static RestClientImpl restClient(HttpClientConfig httpClientConfig, ObjectMapper objectMapper,
+                                            RateLimitService rateLimitService) {
+        return new RestClientImpl(httpClientConfig, objectMapper, rateLimitService, retryService(),
+            circuitBreakerService(), concurrencyLimitService());
+    }
+
+    /**
+     * Creates an HTTP client service with default retries.
+     */
+    public static HttpClientService httpClientService(HttpClientConfig httpClientConfig) {
+        return new HttpClientService(httpClientConfig, retryService());
+    }
+
+    public static RateLimitService rateLimitService() {
+        return new RateLimitService(RateLimitConfig.builder().build());
+    }
+
+    public static RetryService retryService() {
+        return new RetryService(RetryConfig.builder().build());
+    }
+
+    public static CircuitBreakerService circuitBreakerService() {
+        return new CircuitBreakerService(CircuitBreakerConfig.builder().build());
+    }
+
+    public static ConcurrencyLimitService concurrencyLimitService() {
+        return new ConcurrencyLimitService(ConcurrencyLimitConfig.builder().build());
+    }
+}